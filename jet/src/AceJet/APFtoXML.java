@@ -10,6 +10,7 @@ import Jet.JetTest;
 import Jet.Zoner.SpecialZoner;
 import Jet.Zoner.SentenceSplitter;
 import Jet.Refres.Resolve;
+import Jet.PipelineContext;
 
 /**
  *  convert a set of ACE files to XML files containing in-line markup for
@@ -220,7 +221,7 @@ public class APFtoXML {
 		for (Annotation ann : textSegments) {
 			Span textSpan = ann.span ();
 			// check document case
-			Ace.monocase = Ace.allLowerCase(doc);
+			PipelineContext.current().monocase = Ace.allLowerCase(doc);
 			// split into sentences
 			SentenceSplitter.split (doc, textSpan);
 		}
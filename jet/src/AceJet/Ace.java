@@ -16,6 +16,7 @@ import Jet.Tipster.*;
 import Jet.Parser.SynFun;
 import Jet.Parser.ParseTreeNode;
 import Jet.Parser.AddSyntacticRelations;
+import Jet.Parser.ParseCache;
 import Jet.Scorer.NameTagger;
 import Jet.Time.TimeMain;
 import Jet.Time.TimeAnnotator;
@@ -43,21 +44,12 @@ public class Ace {
 
 	public static boolean entityTrace = false;
 
-	/**
-	 *  if true, case information is not considered significant
-	 *  (for finding names or sentence boundaries).
-	 */
-
-	public static boolean monocase = false;
-
 	static String fileList;
 	public static Gazetteer gazetteer;
-	static int aceEntityNo;
 	static HashMap aceTypeDict;
 	static final String suffix = ".sgm.apf";
 	// for formal evaluation
 	// static final String suffix = ".apf.xml";
-	static String sourceType = "text";
  	// relational model for kNN tagger
  	public static RelationPatternSet eve = null;
 	static EventTagger eventTagger = null;
@@ -91,30 +83,32 @@ public class Ace {
 	 *  parseSuffix:   the file suffix for parse files                         <BR>
 	 *  For each <I>file</I> in <I>filelist</I>, the document is read from
 	 *  <I>docDirectory.file</I>.sgm and the APF file is written to
-	 *  <I>outDirectory.file</I>.sgm.apf
+	 *  <I>outDirectory.file</I>.sgm.apf                                       <BR>
+	 *  If the property <B>Batch.threads</B> is greater than 1, documents are
+	 *  processed concurrently by that many threads (see {@link BatchProcessor}).
 	 */
 
 	public static void main (String[] args) throws IOException {
 		initForFileIO (args);  //initialize arguments
+		BatchProcessor batch = BatchProcessor.fromConfig();
+		if (perfectMentions && batch.getThreads() > 1) {
+			// perfect name tagger is installed in JetTest for each document
+			logger.warn ("Ace:  perfect mentions require single-threaded processing");
+			batch = new BatchProcessor(1, 1);
+		}
 		// open list of files
-		BufferedReader reader = new BufferedReader (new FileReader(fileList));		
+		BufferedReader reader = new BufferedReader (new FileReader(fileList));
 		//a list of the files to be processed
-		// debug = false ==> try to catch all exceptions and continue
-		boolean debug = false;
-		String currentDocPath;
-		while ((currentDocPath = reader.readLine()) != null) {
-			// process file at 'currentDocPath'
-			if (debug) {
-				processFile(currentDocPath);
-			} else {
-				try {
-					processFile(currentDocPath);
-				} catch (Exception e) {
-					logger.error ("Error processing document " + 
-						fileList + "(" + docCount + ")=" + currentDocPath, e);
-				}
+		batch.run(reader, new BatchProcessor.DocumentTask() {
+			public int process (int docNo, String currentDocPath) throws IOException {
+				// process file at 'currentDocPath'
+				return processFile(docNo, currentDocPath);
 			}
-		}
+		});
+		reader.close();
+		StageMetrics.writeReport();
+		JetTest.writePatternProfile();
+		ParseCache.reportAndSaveAll();
 	}
 
 	/**
@@ -292,8 +286,19 @@ public class Ace {
 	 */
 
 	public static void processFile (String currentDocPath) throws IOException{
-		docCount++;
-		logger.info ("\nProcessing document " + docCount + ": " + currentDocPath);
+		processFile (++docCount, currentDocPath);
+	}
+
+	/**
+	 *  process a file containing a source document and generate an Ace APF file.
+	 *
+	 *  @param docNo          The number of the document, used in log messages
+	 *  @param currentDocPath The full path of the file containing the source document
+	 *  @return               The number of tokens in the document
+	 */
+
+	public static int processFile (int docNo, String currentDocPath) throws IOException{
+		logger.info ("\nProcessing document " + docNo + ": " + currentDocPath);
 		String currentDocFileName = (new File(currentDocPath)).getName();
 		String currentDocId = removeFileExtension(currentDocFileName);
 		String currentDocPathBase = removeFileExtension(currentDocPath);
@@ -312,11 +317,14 @@ public class Ace {
 		doc.setAllTags(true);// if true, all tags should be converted to annotations
 		// doc.setEmptyTags(new String[] {"W", "TURN"});
 		doc.open();	//initialize the doc
-		AceDocument aceDoc = processDocument (doc, currentDocId, currentDocFileName, currentDocPathBase);
+		AceDocument aceDoc = processDocument (doc, currentDocId, currentDocFileName, currentDocPathBase, docNo);
 		String apfFileName = outputDir + currentDocPathBase + suffix;
 		PrintWriter apf = new PrintWriter(apfFileName, JetTest.encoding);
 		// write APF file
 		aceDoc.write(apf, doc);
+		StageMetrics.endDocument(docNo, currentDocPath);
+		Vector tokens = doc.annotationsOfType("token");
+		return tokens == null ? 0 : tokens.size();
 	}
 
 	/**
@@ -344,26 +352,44 @@ public class Ace {
 
 	public static AceDocument processDocument (Document doc, String sourceId, String sourceFile,
 		                                   String docPathBase) throws IOException {
+		return processDocument (doc, sourceId, sourceFile, docPathBase, docCount);
+	}
+
+	/**
+	 *  process a (Jet) document and create a corresponding AceDocument,
+	 *  as {@link #processDocument(Document, String, String, String)}.
+	 *
+	 *  @param docNo        The number of the document, passed to the
+	 *                      processDocument script
+	 */
+
+	public static AceDocument processDocument (Document doc, String sourceId, String sourceFile,
+		                                   String docPathBase, int docNo) throws IOException {
 		doc.stretchAll();
 		// process document
-		monocase = allLowerCase(doc);
+		PipelineContext context = PipelineContext.current();
+		context.startDocument(doc);
+		boolean monocase = allLowerCase(doc);
 		logger.trace ("Monocase is " + monocase);
-		gazetteer.setMonocase(monocase);
-		Jet.HMM.BigramHMMemitter.useBigrams = monocase;
-		Jet.HMM.HMMstate.otherPreference = monocase ? 1.0 : 0.0;
+		// if true, case information is not considered significant
+		// (for finding names or sentence boundaries)
+		context.monocase = monocase;
+		context.useBigrams = monocase;
+		context.otherPreference = monocase ? 1.0 : 0.0;
 		if (doc.annotationsOfType("dateline") == null && 
 		    doc.annotationsOfType("textBreak") == null)
 			SpecialZoner.findSpecialZones (doc);
-		Control.processDocument (doc, null, docCount == -1, docCount);	// some tag is added, e.g., sentence, token, 
+		Control.processDocument (doc, null, docNo == -1, docNo);	// some tag is added, e.g., sentence, token, 
 		if (parseDir != null && !parseDir.equals("-")) {
 			// read in parses
 			String parseFileName = parseDir + docPathBase + parseSuffix;
 			try {
 				File f = new File(parseFileName);
+				// parse files may be compressed
+				if (!f.exists() && new File(parseFileName + ".gz").exists())
+					f = new File(parseFileName + ".gz");
 				PTBReader ptbReader = new PTBReader();
-				List<ParseTreeNode> trees = ptbReader.loadParseTrees (f);
-				List<Integer> offsets = ptbReader.getOffsets();
-				ptbReader.addAnnotations (trees, offsets, doc, "sentence",  new Span(0, doc.text().length()), true);
+				ptbReader.addAnnotations (f, doc, "sentence",  new Span(0, doc.text().length()), true);
 			} catch (InvalidFormatException e) {
 				logger.error ("Format error in reading parse tree from file " + parseFileName);
 			} catch (IOException e) {
@@ -383,7 +409,7 @@ public class Ace {
 		String docId = getDocId(doc);
 		if (docId == null)
 			docId = sourceId;
-		sourceType = "text";
+		String sourceType = "text";
 		Vector doctypes = doc.annotationsOfType("DOCTYPE");
 		if (doctypes != null && doctypes.size() > 0) {
 			Annotation doctype = (Annotation) doctypes.get(0);
@@ -549,14 +575,14 @@ public class Ace {
 	 */
 
 	public static void buildAceEntities (Document doc, String docId, AceDocument aceDoc) {
-		aceEntityNo = 0;
 		LearnRelations.resetMentions(); // for relations
 		String docText = doc.text();
 		Vector<Annotation> entities = doc.annotationsOfType("entity");
 		if (entities != null) {
 			for (int ientity=0; ientity<entities.size(); ientity++) {
 				AceEntity aceEntity =
-					buildEntity(entities.get(ientity), ientity, doc, docId, docText);
+					buildEntity(entities.get(ientity), ientity, aceDoc.entities.size() + 1,
+					            doc, docId, docText);
 				if (aceEntity != null)
 					aceDoc.addEntity(aceEntity);
 			}
@@ -566,10 +592,11 @@ public class Ace {
 
 	/**
 	 *  create an AceEntity from <CODE>entity</CODE>.  If the
-	 *  entity is not a valid EDT type, nothing is written.
+	 *  entity is not a valid EDT type, nothing is written.  If an
+	 *  AceEntity is created, it is assigned number <CODE>aceEntityNo</CODE>.
 	 */
 
-	private static AceEntity buildEntity (Annotation entity, int ientity,
+	private static AceEntity buildEntity (Annotation entity, int ientity, int aceEntityNo,
 			Document doc, String docId, String docText) {
 		Vector mentions = (Vector) entity.get("mentions"); //entity mention
 		Annotation firstMention = (Annotation) mentions.get(0);
@@ -590,7 +617,6 @@ public class Ace {
 			                    Resolve.normalizeName(doc.text(firstMention)));
 		}
 
-		aceEntityNo++;
 		if (entityTrace)
 			logger.trace ("Generating ace entity " + aceEntityNo +
 			                   " (internal entity " + ientity + ") = " +
@@ -635,7 +661,7 @@ public class Ace {
 				String prep = governingPreposition(doc, mention);
 				if ((prep != null && in(prep, locativePrepositions)) ||
 				     // for location in dateline
-				     Resolve.sentenceSet.sentenceNumber(mention.start()) == 0) {
+				     Resolve.getSentenceSet().sentenceNumber(mention.start()) == 0) {
 					m.role = "LOC";
 				} else {
 					m.role = "GPE";
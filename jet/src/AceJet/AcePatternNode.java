@@ -133,8 +133,6 @@ public class AcePatternNode {
 		return null;
 	}
 
-	private AceMention lastMatchedMention = null;
-
 	/**
 	 *  looks for an entity mention matching the AcePatternNode whose <I>head</I>
 	 *  begins at position <CODE>posn</CODE> in Document <CODE>doc</CODE>.
@@ -149,16 +147,21 @@ public class AcePatternNode {
 			int start = (m instanceof AceEntityMention) ?
 			             ((AceEntityMention)m).jetHead.start() : m.extent.start();
 			if (start == posn /* && type.equals(m.getType()) */ ) {
-				lastMatchedMention = m;
+				EventPattern.matchState.get().matchedMention = m;
 				return match(m);
 			}
 		}
-		lastMatchedMention = null;
+		EventPattern.matchState.get().matchedMention = null;
 		return -1;
 	}
 
+	/**
+	 *  returns the mention matched by the last call of <CODE>matchOnHead</CODE>
+	 *  in the current thread.
+	 */
+
 	public AceMention getMatchedMention () {
-		return lastMatchedMention;
+		return EventPattern.matchState.get().matchedMention;
 	}
 
 }
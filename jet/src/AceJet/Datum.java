@@ -6,6 +6,10 @@ import java.util.*;
 /**
  *  a data point, consisting of a set of features and an outcome, intended
  *  as part of the training set for a classifier.
+ *  <p>
+ *  A Datum builds a String for each feature;  extractors which are run for
+ *  every token at decoding time may instead use a reusable
+ *  {@link Jet.FeatureBuilder}.
  */
 
 public class Datum {
@@ -32,10 +32,6 @@ public class DepPathRelationTagger {
 
 	final static Logger logger = LoggerFactory.getLogger(DepPathRelationTagger.class);
 
-	static Document doc;
-	static AceDocument aceDoc;
-	static String currentDoc;
-
 	// model:  a map from AnchoredPath strings to relation types
 	static Map<String, String> model = null;
 
@@ -45,23 +41,24 @@ public class DepPathRelationTagger {
 	 *  as AceRelations to AceDocument 'aceDoc'.
 	 */
 
-	public static void findRelations (String currentDoc, Document d, AceDocument ad) {
-		doc = d;
-		RelationTagger.doc = d;
+	public static void findRelations (String currentDoc, Document doc, AceDocument aceDoc) {
+		// the RelationTagger holds the mentions and relations found for this document
+		RelationTagger rt = new RelationTagger();
+		rt.doc = doc;
 		doc.relations.addInverses();
-		aceDoc = ad;
-		RelationTagger.docName = currentDoc;
-		RelationTagger.sentences = new SentenceSet(doc);
-		RelationTagger.relationList = new ArrayList<AceRelation> ();
-		RelationTagger.findEntityMentions (aceDoc);
+		rt.aceDoc = aceDoc;
+		rt.docName = currentDoc;
+		rt.sentences = new SentenceSet(doc);
+		rt.relationList = new ArrayList<AceRelation> ();
+		rt.findEntityMentions (aceDoc);
 		// collect all pairs of nearby mentions
-		List<AceEntityMention[]> pairs = RelationTagger.findMentionPairs ();
+		List<AceEntityMention[]> pairs = rt.findMentionPairs ();
 		// iterate over pairs of adjacent mentions, using model to determine which are ACE relations
 		for (AceEntityMention[] pair : pairs)
-			predictRelation (pair[0], pair[1], doc.relations);
+			predictRelation (rt, pair[0], pair[1], doc.relations);
 		// combine relation mentions into relations
-		RelationTagger.relationCoref (aceDoc);
-		RelationTagger.removeRedundantMentions (aceDoc);
+		rt.relationCoref (aceDoc);
+		rt.removeRedundantMentions (aceDoc);
 	}
 
 	/**
@@ -91,11 +88,12 @@ public class DepPathRelationTagger {
 
 	/**
 	 *  use dependency paths to determine whether the pair of mentions bears some
-	 *  ACE relation;  if so, add the relation to relationList.
+	 *  ACE relation;  if so, add the relation to the relationList of 'rt'.
 	 */
 
-	private static void predictRelation (AceEntityMention m1, AceEntityMention m2,
+	private static void predictRelation (RelationTagger rt, AceEntityMention m1, AceEntityMention m2,
 			SyntacticRelationSet relations) {
+		Document doc = rt.doc;
 		// compute path
 		int h1 = m1.getJetHead().start();
 		int h2 = m2.getJetHead().start();
@@ -113,8 +111,8 @@ public class DepPathRelationTagger {
 		// look up path in model
 		String outcome = model.get(pattern);
 		if (outcome == null) return;
-		if (!RelationTagger.blockingTest(m1, m2)) return;
-		if (!RelationTagger.blockingTest(m2, m1)) return;
+		if (!rt.blockingTest(m1, m2)) return;
+		if (!rt.blockingTest(m2, m1)) return;
 		String[] typeSubtype = outcome.split(":", 2);
 		String type = typeSubtype[0];
 		String subtype;
@@ -128,13 +126,13 @@ public class DepPathRelationTagger {
 			AceRelationMention mention = new AceRelationMention("", m2, m1, doc);
 			AceRelation relation = new AceRelation("", type, subtype, "", m2.entity, m1.entity);
 			relation.addMention(mention);
-			RelationTagger.relationList.add(relation);
+			rt.relationList.add(relation);
 		} else {
 			AceRelationMention mention = new AceRelationMention("", m1, m2, doc);
 System.out.println ("Found " + outcome + " relation " + mention.text);  //<<<
 			AceRelation relation = new AceRelation("", type, subtype, "", m1.entity, m2.entity);
 			relation.addMention(mention);
-			RelationTagger.relationList.add(relation);
+			rt.relationList.add(relation);
 		}
 	}
 	
@@ -23,6 +23,7 @@ import Jet.Pat.Pat;
 import Jet.Refres.Resolve;
 import Jet.Tipster.*;
 import Jet.Lisp.FeatureSet;
+import Jet.PipelineContext;
 
 public class EDTtype {
 
@@ -129,7 +130,7 @@ public class EDTtype {
                 doc.setEmptyTags(new String[]{"W", "TURN"});
             doc.open();
             // check document case
-            Ace.monocase = Ace.allLowerCase(doc);
+            PipelineContext.current().monocase = Ace.allLowerCase(doc);
             // process document
             Control.processDocument(doc, null, false, docCount);
             // read key file with mention information
@@ -157,7 +158,7 @@ public class EDTtype {
                 headString = headString.toLowerCase();
             // is there a corresponding mention in APF key?
             AceEntityMention apfMention =
-                    (AceEntityMention) LearnRelations.mentionStartMap.get(new Integer(head.start()));
+                    (AceEntityMention) LearnRelations.mentions().mentionStartMap.get(new Integer(head.start()));
             //    if so, classify, else "other"
             String EDTtype = "OTHER";
             String EDTsubtype = "";
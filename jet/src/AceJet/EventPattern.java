@@ -17,6 +17,7 @@ import org.slf4j.LoggerFactory;
 import java.io.*;
 import Jet.JetTest;
 import Jet.Control;
+import Jet.PipelineContext;
 import Jet.Refres.Resolve;
 
 /**
@@ -293,9 +294,28 @@ public class EventPattern {
 		return "1";
 	}
 
-	public int matchScore = 0;
-	private int chunkMatchScore = 0;
-	int syntaxMatchScore = 0;
+	/**
+	 *  the state of the last match made by the current thread:  the scores
+	 *  of the last pattern matched, the mention matched by the last
+	 *  AcePatternNode, and the pattern chosen by the EventTagger.  The
+	 *  patterns are shared by all threads, so this is kept in the
+	 *  PipelineContext.
+	 */
+
+	static class MatchState {
+		int matchScore = 0;
+		int chunkMatchScore = 0;
+		int syntaxMatchScore = 0;
+		AceMention matchedMention = null;
+		EventPattern patternMatched = null;
+	}
+
+	static final PipelineContext.Slot<MatchState> matchState =
+		new PipelineContext.Slot<MatchState>() {
+			protected MatchState initialValue () {
+				return new MatchState();
+			}
+		};
 
 	/**
 	 *  match an anchor and its context against the event patterns;  if the
@@ -306,20 +326,21 @@ public class EventPattern {
 			SyntacticRelationSet relations, AceDocument aceDoc) {
 		if (!this.anchor.equals(anchor))
 			return null;
+		MatchState state = matchState.get();
 		ArrayList chunkArgumentValue =
-		  chunkMatch (anchorExtent, doc, relations, aceDoc);
+		  chunkMatch (anchorExtent, doc, relations, aceDoc, state);
 		ArrayList syntaxArgumentValue =
 			EventSyntacticPattern.match (this, anchorExtent.start(), doc, relations, aceDoc);
 		ArrayList argumentValue = null;
 		if (chunkArgumentValue == null && syntaxArgumentValue == null)
 				return null;
 		// if (nonNullLength(chunkArgumentValue) >= nonNullLength(syntaxArgumentValue))
-		if (chunkArgumentValue != null && chunkMatchScore >= syntaxMatchScore) {
+		if (chunkArgumentValue != null && state.chunkMatchScore >= state.syntaxMatchScore) {
 			argumentValue = chunkArgumentValue;
-			matchScore = chunkMatchScore;
+			state.matchScore = state.chunkMatchScore;
 		} else {
 			argumentValue = syntaxArgumentValue;
-			matchScore = syntaxMatchScore;
+			state.matchScore = state.syntaxMatchScore;
 		}
 		Span extent = computeExtent (anchorExtent, argumentValue);
 		// build new event, with type and subtype
@@ -362,8 +383,12 @@ public class EventPattern {
 		event.addArgument(new AceEventArgument(entity, role));
 	}
 
+	/**
+	 *  returns the score of the last match made by the current thread.
+	 */
+
 	public int getMatchScore () {
-		return matchScore;
+		return matchState.get().matchScore;
 	}
 
 	int MIN_MATCH_SCORE = 0;
@@ -375,9 +400,9 @@ public class EventPattern {
 	 */
 
 	private ArrayList chunkMatch (Span anchorExtent, Document doc,
-			SyntacticRelationSet relations, AceDocument aceDoc) {
+			SyntacticRelationSet relations, AceDocument aceDoc, MatchState state) {
 		ArrayList argumentValue = new ArrayList();
-		chunkMatchScore = 0;
+		state.chunkMatchScore = 0;
 		if (paths == null)
 			return null;
 		if (!useChunkPatterns)
@@ -421,7 +446,7 @@ public class EventPattern {
 						AceEventArgument.isValid(eventSubtype, role0, m) &&
 				    new ChunkPath (doc, m, lastM).equals(path)) {
 					// match
-					chunkMatchScore += nodeScore;
+					state.chunkMatchScore += nodeScore;
 					// argumentValue[inode] = m;
 					for (int irole=0; irole<roleSet.size(); irole++) {
 						String role = (String) roleSet.get(irole);
@@ -449,7 +474,7 @@ public class EventPattern {
 						AceEventArgument.isValid(eventSubtype, role0, m) &&
 				    new ChunkPath (doc, lastM, m).equals(path)) {
 					// match
-					chunkMatchScore += nodeScore;
+					state.chunkMatchScore += nodeScore;
 					// argumentValue[inode+1] = m;
 					for (int irole=0; irole<roleSet.size(); irole++) {
 						String role = (String) roleSet.get(irole);
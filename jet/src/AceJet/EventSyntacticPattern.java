@@ -269,7 +269,8 @@ public class EventSyntacticPattern {
 
 	static ArrayList match (EventPattern pattern, int anchorStart, Document doc,
 			SyntacticRelationSet relations, AceDocument aceDoc) {
-		pattern.syntaxMatchScore = 0;
+		EventPattern.MatchState state = EventPattern.matchState.get();
+		state.syntaxMatchScore = 0;
 		if (pattern.syntax == null || pattern.syntax.size() == 0) return null;
 		ArrayList argumentValue = new ArrayList();
 		HashMap<Integer,ArrayList<Integer>> offsetMap =
@@ -319,7 +320,7 @@ public class EventSyntacticPattern {
 									break;
 								if (mentionsUsed.contains(mention))
 									break;
-								pattern.syntaxMatchScore += nodeScore;
+								state.syntaxMatchScore += nodeScore;
 								// argumentValue[to] = mention;
 								for (int irole=0; irole<roleSet.size(); irole++) {
 									String role = (String) roleSet.get(irole);
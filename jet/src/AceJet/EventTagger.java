@@ -13,6 +13,7 @@ import Jet.Tipster.*;
 import Jet.Parser.*;
 import Jet.Control;
 import Jet.JetTest;
+import Jet.MaxEntScorer;
 import Jet.Pat.Pat;
 import Jet.Refres.Resolve;
 
@@ -71,11 +72,11 @@ public class EventTagger {
 	PrintStream roleFeatureWriter;
 	PrintStream corefFeatureWriter;
 
-	static GISModel eventModel;
+	static MaxEntScorer eventModel;
 	// static GISModel evTypeModel;
-	static GISModel argModel;
-	static GISModel roleModel;
-	static GISModel corefModel;
+	static MaxEntScorer argModel;
+	static MaxEntScorer roleModel;
+	static MaxEntScorer corefModel;
 
 	// file extension for GLARF triples
 	static String triplesSuffix;
@@ -298,10 +299,10 @@ public class EventTagger {
 		return sentence;
 	}
 
-	static GISModel loadClassifierModel (String modelFileName) {
+	static MaxEntScorer loadClassifierModel (String modelFileName) {
 		try {
 			File f = new File(modelFileName);
-			GISModel m = (GISModel) new SuffixSensitiveGISModelReader(f).getModel();
+			MaxEntScorer m = MaxEntScorer.loadAnyFormat(f);
 			System.err.println ("GIS model " + f.getName() + " loaded.");
 		  return m;
 		} catch (Exception e) {
@@ -359,8 +360,9 @@ public class EventTagger {
 			//      probability that this is an argument
 			//      most likely role assignment
 			double argProb = argModel.eval(d.toArray())[argModel.getIndex("arg")];
-			String role = roleModel.getBestOutcome(roleModel.eval(d.toArray())).intern();
-			double roleProb = roleModel.eval(d.toArray())[roleModel.getIndex(role)];
+			double[] roleProbs = roleModel.eval(d.toArray());
+			String role = roleModel.getBestOutcome(roleProbs).intern();
+			double roleProb = roleProbs[roleModel.getIndex(role)];
 			// System.out.println ("argProb of " + mention.getHeadText() + " is " + argProb);
 			/*  the following code chooses the best valid role
 			double[]  roleProbs = roleModel.eval(d.toArray());
@@ -533,7 +535,7 @@ public class EventTagger {
 				  (constit, doc, aceDoc, docId, relations, 0);
 				// if no event (success count too low), skip for now
 				if (event == null) continue;
-				EventPattern pattern = (EventPattern) patternMatched;
+				EventPattern pattern = EventPattern.matchState.get().patternMatched;
 				// outcome:
 				//    is this the anchor of a true event (even if of different type)
 				Datum d = eventFeatures (doc, anchor, constit, event, pattern);
@@ -676,6 +678,8 @@ public class EventTagger {
 
 	/**
 	 *  identify ACE events in Document 'doc' and add them to 'aceDoc'.
+	 *  The state of the matching is kept in the current PipelineContext,
+	 *  so documents may be tagged concurrently by several threads.
 	 */
 
 	public void tag (Document doc, AceDocument aceDoc, String currentDocPath, String docId) {
@@ -754,7 +758,7 @@ public class EventTagger {
 		if (event == null)
 			return null;
 		String anchor = EventPattern.normalizedAnchor (constit, doc, relations);
-		EventPattern pattern = (EventPattern) patternMatched;
+		EventPattern pattern = EventPattern.matchState.get().patternMatched;
 		Datum d = eventFeatures (doc, anchor, constit, event, pattern);
 		double eventProb = eventModel.eval(d.toArray())[eventModel.getIndex("event")];
 		logger.trace ("event maxent model p = {}", eventProb);
@@ -781,11 +785,10 @@ public class EventTagger {
 		return event;
 	}
 
-	EventPattern patternMatched;
-
 	AceEvent matchPatternSet (List patterns, Span anchorExtent, String anchor,
 		  Document doc, SyntacticRelationSet relations, AceDocument aceDoc) {
-		patternMatched = null;
+		EventPattern.MatchState state = EventPattern.matchState.get();
+		state.patternMatched = null;
 		AceEvent bestEvent = null;
 		EventPattern bestPattern = null;
 		int bestMatchScore = 0;
@@ -805,7 +808,7 @@ public class EventTagger {
 				}
 			}
 		}
-		patternMatched = bestPattern;
+		state.patternMatched = bestPattern;
 		if (bestPattern != null) {
 			logger.trace ("");
 			logger.trace ("For anchor   = {}", anchor);
@@ -10,6 +10,7 @@ package AceJet;
 import java.util.*;
 import java.io.*;
 import Jet.JetTest;
+import Jet.PipelineContext;
 import Jet.Refres.Resolve;
 import Jet.Lisp.FeatureSet;
 import Jet.Lex.Lexicon;
@@ -157,7 +158,8 @@ public class Gazetteer {
 
 	/**
 	 *  sets the <CODE>monocase</CODE> which, when true, ignores case for
-	 *  Gazetteer predicates.
+	 *  Gazetteer predicates.  Case is also ignored while processing a
+	 *  document for which the current PipelineContext is monocase.
 	 */
 
 	public void setMonocase (boolean monocase) {
@@ -300,7 +302,7 @@ public class Gazetteer {
 
 	private String foldArg (String[] s) {
 		String x = Resolve.concat(s);
-		if (monocase && monocaseMap.containsKey(x))
+		if ((monocase || PipelineContext.current().monocase) && monocaseMap.containsKey(x))
 			x = (String) monocaseMap.get(x);
 		return x;
 	}
@@ -47,14 +47,32 @@ public class LearnRelations {
 	// (above this maximum, generate no relation)
 	static int maxDistance = 21;
 
-	// mapping from mention ID to Mention
-	static HashMap mentionIDMap;
-	// mapping from start of head to Mention
-	static HashMap mentionStartMap;
-	// set of mentions (excluding generic)
-	static TreeSet<AceEntityMention> mentionSet;
-	// set of all mentions, including generics
-	static TreeSet<AceEntityMention> allMentionSet;
+	/**
+	 *  the entity mentions of the current document.  These are held in
+	 *  the current PipelineContext, since they are recorded by
+	 *  <CODE>Ace.buildAceEntities</CODE> for each document.
+	 */
+	static class Mentions {
+		// mapping from mention ID to Mention
+		HashMap mentionIDMap = new HashMap();
+		// mapping from start of head to Mention
+		HashMap mentionStartMap = new HashMap();
+		// set of mentions (excluding generic)
+		TreeSet<AceEntityMention> mentionSet = new TreeSet<AceEntityMention>();
+		// set of all mentions, including generics
+		TreeSet<AceEntityMention> allMentionSet = new TreeSet<AceEntityMention>();
+	}
+
+	private static final PipelineContext.Slot<Mentions> currentMentions =
+		new PipelineContext.Slot<Mentions>() {
+			protected Mentions initialValue () {
+				return new Mentions();
+			}
+		};
+
+	static Mentions mentions () {
+		return currentMentions.get();
+	}
 	// list of relation mentions (from APF file)
 	static ArrayList<RelationMention> relMentionList;
 	// list of entity mention pairs which are candidates for relations
@@ -123,8 +141,8 @@ public class LearnRelations {
 			readACErelations (textFile, apfDir + currentDoc + apfFileSuffix);
 			// process document (unless starting from parse, identify named
 			//                   entities, syntactic structures, and coreference)
-			Ace.monocase = Ace.allLowerCase(doc);
-			System.out.println (">>> Monocase is " + Ace.monocase);
+			PipelineContext.current().monocase = Ace.allLowerCase(doc);
+			System.out.println (">>> Monocase is " + PipelineContext.current().monocase);
 			Control.processDocument (doc, null, docCount < 0, docCount);
 			sentences = new SentenceSet(doc);
 			// clear table of candidate mention pairs
@@ -145,10 +163,12 @@ public class LearnRelations {
 	/**
 	 *  relation 'decoder':  using previously learned patterns, identifies
 	 *  the relations in document 'd' (from file name 'currentDoc') and adds them
-	 *  as AceRelations to AceDocument 'aceDoc'.
+	 *  as AceRelations to AceDocument 'aceDoc'.  The mentions of the
+	 *  document are taken from the current PipelineContext;  the remaining
+	 *  state is static, so calls are serialized.
 	 */
 
-	public static void findRelations (String currentDoc, Document d, AceDocument aceDoc) {
+	public static synchronized void findRelations (String currentDoc, Document d, AceDocument aceDoc) {
 		doc = d;
 		docName = currentDoc;
 		sentences = new SentenceSet(doc);
@@ -227,12 +247,12 @@ public class LearnRelations {
 		Annotation arg1Head = Resolve.getHeadC (arg1);
 		Span span1 = arg1Head.span();
 		int start1 = span1.start();
-		AceEntityMention m1 = (AceEntityMention) mentionStartMap.get(new Integer(start1));
+		AceEntityMention m1 = (AceEntityMention) mentions().mentionStartMap.get(new Integer(start1));
 		if (m1 == null) return;
 		Annotation arg2Head = Resolve.getHeadC (arg2);
 		Span span2 = arg2Head.span();
 		int start2 = span2.start();
-		AceEntityMention m2 = (AceEntityMention) mentionStartMap.get(new Integer(start2));
+		AceEntityMention m2 = (AceEntityMention) mentions().mentionStartMap.get(new Integer(start2));
 		if (m2 == null) return;
 		// if two mentions co-refer, they can't be in a relation
 		if (!canBeRelated(m1, m2)) return;
@@ -259,6 +279,7 @@ public class LearnRelations {
    */
 
 	private static void findAdjacencyPatterns () {
+		TreeSet<AceEntityMention> mentionSet = mentions().mentionSet;
 		if (mentionSet.isEmpty()) return;
 		ArrayList mentionList = new ArrayList(mentionSet);
 		for (int i=0; i<mentionList.size()-1; i++) {
@@ -489,7 +510,7 @@ public class LearnRelations {
 		Annotation argHead = Resolve.getHeadC (a);
 		Span span = argHead.span();
 		int start = span.start();
-		return (AceEntityMention) mentionStartMap.get(new Integer(start));
+		return (AceEntityMention) mentions().mentionStartMap.get(new Integer(start));
 	}
 
 	/**
@@ -591,17 +612,15 @@ public class LearnRelations {
 	}
 
 	static void resetMentions () {
-		mentionStartMap = new HashMap();
-		mentionIDMap = new HashMap();
-		mentionSet = new TreeSet<AceEntityMention>();
-		allMentionSet = new TreeSet<AceEntityMention>();
+		currentMentions.set(new Mentions());
 	}
 
 	static void addMention (AceEntityMention m) {
-		if (!m.entity.generic) mentionSet.add(m);
-		allMentionSet.add(m);
-		mentionStartMap.put(new Integer(m.jetHead.start()), m);
-		mentionIDMap.put(m.id, m);
+		Mentions mentions = mentions();
+		if (!m.entity.generic) mentions.mentionSet.add(m);
+		mentions.allMentionSet.add(m);
+		mentions.mentionStartMap.put(new Integer(m.jetHead.start()), m);
+		mentions.mentionIDMap.put(m.id, m);
 	}
 
 	/**
@@ -12,6 +12,7 @@ import Jet.Control;
 import Jet.Pat.Pat;
 import Jet.Parser.StatParser;
 import Jet.Zoner.SpecialZoner;
+import Jet.PipelineContext;
 
 /**
  *  contains methods which create perfect mentions or entities from
@@ -105,7 +106,7 @@ public class PerfectAce extends Resolve {
 			// String apfFile = textFile.replaceAll(".sgm", ".entities.apf.xml"); // << for rdr eval
 			AceDocument aceDoc = new AceDocument(textFile, apfFile);
 			// process document
-			AceJet.Ace.monocase = AceJet.Ace.allLowerCase(doc);
+			PipelineContext.current().monocase = AceJet.Ace.allLowerCase(doc);
 			Control.processDocument (doc, null, docCount == -1, docCount);
 			createPerfectNames (doc, aceDoc);
 			Vector sentences = doc.annotationsOfType("sentence");
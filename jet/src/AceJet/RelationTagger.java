@@ -46,36 +46,44 @@ public class RelationTagger {
 	final static Logger logger = LoggerFactory.getLogger(RelationTagger.class);
 
 	static boolean useParser = false;
-	static Document doc;
-	static AceDocument aceDoc;
+
+	// -- the state for the document being tagged --
+	//    (a new RelationTagger is created for each document, so that
+	//     several documents can be tagged at once)
+
+	Document doc;
+	AceDocument aceDoc;
 	static String currentDoc;
 	static NameTagger realNameTagger;
 	// the set of sentences in doc
-	static SentenceSet sentences;
+	SentenceSet sentences;
 	static final String[] relations = {"of", "poss", "nameMod"};
 
 	// mapping from mention ID to Mention
-	static HashMap mentionIDMap;
+	HashMap mentionIDMap;
 	// mapping from start of head to Mention
-	static HashMap mentionHeadMap;
+	HashMap mentionHeadMap;
 	// mapping from start of extent to Mention
-	static HashMap mentionStartMap;
+	HashMap mentionStartMap;
 	// set of mentions (excluding generic)
-	static Set<AceEntityMention> mentionSet;
+	Set<AceEntityMention> mentionSet;
 	// set of all mentions, including generics
-	static TreeSet<AceEntityMention> allMentionSet;
+	TreeSet<AceEntityMention> allMentionSet;
 	// list of relation mentions
 	//   for training:  taken from APF file, deleted as used
-	static ArrayList<AceRelationMention> relMentionList;
-	static List<AceRelation> relationList;
+	ArrayList<AceRelationMention> relMentionList;
+	List<AceRelation> relationList;
 	// name of current doc (used in generating ID's)
-	static String docName;
+	String docName;
 	// set true to expand conjuncts
 	static final boolean expandConjuncts = true;
 	// map from a mention to following conjunct
-	static HashMap conjunctf = new HashMap();
+	HashMap conjunctf = new HashMap();
 	// map from a mention to prior conjunct
-	static HashMap conjunctb = new HashMap();
+	HashMap conjunctb = new HashMap();
+
+	// -- the models, shared by all documents --
+
 	// maxEntModels
 	static MaxEntModel model0 = null;
 	static MaxEntModel model1 = null;
@@ -155,26 +163,37 @@ public class RelationTagger {
 			ExternalDocument xdoc = new ExternalDocument("sgml", textFile);
 			xdoc.setAllTags(true);
 			xdoc.open();
-			doc = xdoc;
-			// read key file with relation information
-			readACErelations (textFile, apfDir + "/" + currentDoc + "." + apfFileSuffix);
-			// process document (unless starting from parse, identify named
-			//                   entities, syntactic structures, and coreference)
-			Ace.monocase = Ace.allLowerCase(doc);
+			RelationTagger tagger = new RelationTagger();
+			tagger.learnFromDocument (xdoc, textFile, apfDir + "/" + currentDoc + "." + apfFileSuffix, docCount);
+		}
+	}
+
+	/**
+	 *  updates the relation models from ExternalDocument 'xdoc' (read from
+	 *  file 'textFile') and the relations in APF file 'apfFile'.
+	 */
+
+	private void learnFromDocument (ExternalDocument xdoc, String textFile, String apfFile,
+			int docCount) throws IOException {
+		doc = xdoc;
+		// read key file with relation information
+		readACErelations (textFile, apfFile);
+		// process document (unless starting from parse, identify named
+		//                   entities, syntactic structures, and coreference)
+		PipelineContext.current().monocase = Ace.allLowerCase(doc);
                         PerfectAce.buildEntityMentionMap (xdoc, aceDoc);
                         JetTest.nameTagger = new PerfectNameTagger(aceDoc, realNameTagger);
-			Control.processDocument (doc, null, docCount < 0, docCount);
-			sentences = new SentenceSet(doc);
-			// iterate over syntactic relations, record candidates for ACE relations
-			findSyntacticRelations (doc);
-			// collect all pairs of nearby mentions
-			List<AceEntityMention[]> pairs = findMentionPairs ();
-			// iterate over pairs of adjacent mentions, record candidates for ACE relations
-			for (AceEntityMention[] pair : pairs)
-				addTrainingInstance (pair[0], pair[1]);
-			// were any positive instances not captured?
-			reportLeftovers ();
-		}
+		Control.processDocument (doc, null, docCount < 0, docCount);
+		sentences = new SentenceSet(doc);
+		// iterate over syntactic relations, record candidates for ACE relations
+		findSyntacticRelations (doc);
+		// collect all pairs of nearby mentions
+		List<AceEntityMention[]> pairs = findMentionPairs ();
+		// iterate over pairs of adjacent mentions, record candidates for ACE relations
+		for (AceEntityMention[] pair : pairs)
+			addTrainingInstance (pair[0], pair[1]);
+		// were any positive instances not captured?
+		reportLeftovers ();
 	}
 
 	/**
@@ -184,6 +203,10 @@ public class RelationTagger {
 	 */
 
 	public static void findRelations (String currentDoc, Document d, AceDocument ad) {
+		new RelationTagger().tagRelations(currentDoc, d, ad);
+	}
+
+	private void tagRelations (String currentDoc, Document d, AceDocument ad) {
 		doc = d;
 		aceDoc = ad;
 		docName = currentDoc;
@@ -214,7 +237,7 @@ public class RelationTagger {
 	 *  if both m1 and m2 are name mentions, adds a 'sameSentence' relation between m1 and m2.
 	 */
 
-	private static void linkNeighbors (AceEntityMention m1, AceEntityMention m2) {
+	private void linkNeighbors (AceEntityMention m1, AceEntityMention m2) {
 		if (m1.type != "NAME" || m2.type != "NAME") return;
 		String type = "sameSentence";
 		String subtype = m1.entity.type + ":" + m2.entity.type;
@@ -283,14 +306,14 @@ public class RelationTagger {
 		return v;
 	}
 
-	static Map<String, String> syntacticRelationMap;
+	Map<String, String> syntacticRelationMap;
 
 	/**
 	 *  iterate over all syntactic relations;  record relations between mentions
 	 *  in syntacticRelationMap.
 	 */
 
-	private static void findSyntacticRelations (Document doc) {
+	private void findSyntacticRelations (Document doc) {
 		syntacticRelationMap  = new HashMap<String, String> ();
 		Vector<Annotation> constits = doc.annotationsOfType("constit");
 		if (constits != null) {
@@ -343,7 +366,7 @@ public class RelationTagger {
 	 *  the pair of mentions in syntacticRelationMap.
 	 */
 
-	private static void recordSyntacticRelation
+	private void recordSyntacticRelation
 		(Annotation arg1, String relation, Annotation arg2) {
 		logger.trace ("recordSyntacticRelation relation = {}", relation);
 		logger.trace ("                        arg1 = {}  arg2 = {}",
@@ -383,7 +406,7 @@ public class RelationTagger {
 	 *  returns the set of all pairs of mentions separated by at most mentionWindow mentions
 	 */
 
-	static List<AceEntityMention[]> findMentionPairs () {
+	List<AceEntityMention[]> findMentionPairs () {
 		List<AceEntityMention[]> pairs = new ArrayList<AceEntityMention[]> ();
 		if (mentionSet.isEmpty()) return pairs;
 		ArrayList mentionList = new ArrayList(mentionSet);
@@ -406,7 +429,7 @@ public class RelationTagger {
 	 *  update the maxent models with the relation type (or the absence of a relation).
 	 */
 
-	private static void addTrainingInstance (AceEntityMention m1, AceEntityMention m2) {
+	private void addTrainingInstance (AceEntityMention m1, AceEntityMention m2) {
 		// generate features
 		Datum d = relationFeatures(m1, m2);
 		// retrieve tag
@@ -442,7 +465,7 @@ public class RelationTagger {
 	 *  ACL 2005
 	 */
 
-	private static Datum relationFeatures (AceEntityMention m1, AceEntityMention m2) {
+	private Datum relationFeatures (AceEntityMention m1, AceEntityMention m2) {
 		Datum d = new Datum();
 
 		// spans of base NPs
@@ -564,7 +587,7 @@ public class RelationTagger {
 
 	(this is an attempt at a simpler set of features;  so far, does not work as well)
 
-	private static Datum relationFeatures (AceEntityMention m1, AceEntityMention m2) {
+	private Datum relationFeatures (AceEntityMention m1, AceEntityMention m2) {
 		Datum d = new Datum();
 
 		// head texts
@@ -619,7 +642,7 @@ public class RelationTagger {
 
 	*/
 
-	static List<String> tokensIn (int from, int to) {
+	List<String> tokensIn (int from, int to) {
 		List<String> tokens = new ArrayList<String>();
 		int posn = from;
 		while (posn < to) {
@@ -669,7 +692,7 @@ public class RelationTagger {
 	 *  yet -- by syntactic or adjacency patterns.
 	 */
 
-	private static void reportLeftovers () {
+	private void reportLeftovers () {
 		for (AceRelationMention mention : relMentionList) {
 			logger.warn ("Relation not used in training: {}", mention);
 		}
@@ -680,7 +703,7 @@ public class RelationTagger {
 	 *  there is no pa
 	 */
 
-	static String getHead (AceEntityMention m) {
+	String getHead (AceEntityMention m) {
 		Vector anns = doc.annotationsAt(m.jetHead.start(), "constit");
 		if (anns != null) {
 			// we search backwards so that names (which are added last)
@@ -714,7 +737,7 @@ public class RelationTagger {
 	 *  conjunctf and conjunctb used by <CODE>getConjuncts</CODE>.
 	 */
 
-	static void findConjuncts (Document doc) {
+	void findConjuncts (Document doc) {
 		conjunctf.clear();
 		conjunctb.clear();
 		Vector constits = doc.annotationsOfType("constit");
@@ -735,7 +758,7 @@ public class RelationTagger {
 		}
 	}
 
-	static void recordConjunct (ArrayList conjuncts) {
+	void recordConjunct (ArrayList conjuncts) {
 		logger.trace ("recordConjuncts: {}", conjuncts);
 		String type = "";
 		AceEntityMention m;
@@ -762,7 +785,7 @@ public class RelationTagger {
 		return;
 	}
 
-	static AceEntityMention mentionForAnnotation (Annotation a) {
+	AceEntityMention mentionForAnnotation (Annotation a) {
 		Annotation argHead = Resolve.getHeadC (a);
 		Span span = argHead.span();
 		int start = span.start();
@@ -773,7 +796,7 @@ public class RelationTagger {
 	 *  returns a list of all the conjuncts of AceEntityMention <CODE>m</CODE>.
 	 */
 
-	static ArrayList getConjuncts (AceEntityMention m) {
+	ArrayList getConjuncts (AceEntityMention m) {
 		ArrayList a = new ArrayList();
 		a.add(m);
 		AceEntityMention n = m;
@@ -797,7 +820,7 @@ public class RelationTagger {
 	 *  conjuncts.
 	 */
 
-	static void extendRelationsToConjuncts () {
+	void extendRelationsToConjuncts () {
 		ArrayList<AceRelation> originalRelations = new ArrayList<AceRelation> (relationList);
 		for (AceRelation originalRelation : originalRelations) {
 			AceRelationMention originalMention = (AceRelationMention) originalRelation.mentions.get(0);
@@ -843,7 +866,7 @@ public class RelationTagger {
 	 *  mentions.
 	 */
 
-	private static void readACErelations (String textFile, String apfFile) {
+	private void readACErelations (String textFile, String apfFile) {
 		aceDoc = new AceDocument(textFile, apfFile);
 		findEntityMentions (aceDoc);
 		findRelationMentions (aceDoc);
@@ -856,7 +879,7 @@ public class RelationTagger {
 	 *     creates mentionIDMap mapping mentionID to mention
 	 */
 
-	static void findEntityMentions (AceDocument aceDoc) {
+	void findEntityMentions (AceDocument aceDoc) {
 		resetMentions ();
 		ArrayList entities = aceDoc.entities;
 		for (int i=0; i<entities.size(); i++) {
@@ -871,7 +894,7 @@ public class RelationTagger {
 		}
 	}
 
-	static void resetMentions () {
+	void resetMentions () {
 		mentionHeadMap = new HashMap();
 		mentionStartMap = new HashMap();
 		mentionIDMap = new HashMap();
@@ -879,7 +902,7 @@ public class RelationTagger {
 		allMentionSet = new TreeSet<AceEntityMention>();
 	}
 
-	static void addMention (AceEntityMention m) {
+	void addMention (AceEntityMention m) {
 		// if (!m.entity.generic) 
 			mentionSet.add(m);
 		allMentionSet.add(m);
@@ -893,7 +916,7 @@ public class RelationTagger {
 	 *  IMPLICIT relations (used prior to 2004) are ignored.
 	 */
 
-	private static void findRelationMentions (AceDocument aceDoc) {
+	private void findRelationMentions (AceDocument aceDoc) {
 		relMentionList = new ArrayList<AceRelationMention>();
 		ArrayList relations = aceDoc.relations;
 		for (int i=0; i<relations.size(); i++) {
@@ -916,7 +939,7 @@ public class RelationTagger {
 	 *  ACE relation;  if so, add the relation to relationList.
 	 */
 
-	private static boolean predictRelation (AceEntityMention m1, AceEntityMention m2) {
+	private boolean predictRelation (AceEntityMention m1, AceEntityMention m2) {
 		boolean local = inSameBaseNP(m1.head, m2.head);
 		MaxEntModel identificationModel = local ? model0 : model2;
 		MaxEntModel classificationModel = local ? model1 : model3;
@@ -969,7 +992,7 @@ public class RelationTagger {
 	 *  into multi-mention Relations, and adds them to 'aceDoc'.
 	 */
 
-	static void relationCoref (AceDocument aceDoc) {
+	void relationCoref (AceDocument aceDoc) {
 		List<AceRelation> resolvedRelationList = new ArrayList<AceRelation>();
 		logger.info ("RelationCoref: {} relation mentions", relationList.size());
 	loop: for (AceRelation r : relationList) {
@@ -1008,7 +1031,7 @@ public class RelationTagger {
 	 *  rule but reflects the general practice of the annotators.
 	 */
 
-	static void removeRedundantMentions (AceDocument aceDoc) {
+	void removeRedundantMentions (AceDocument aceDoc) {
 		List<AceRelation> relations = aceDoc.relations;
 		for (AceRelation relation : relations) {
 			ArrayList<AceRelationMention> mentions = relation.mentions;
@@ -1053,7 +1076,7 @@ public class RelationTagger {
 	 *  be a constituent (head or non-head) of the same noun group.
 	 */
 
-	static boolean blockingTest (AceEntityMention m1, AceEntityMention m2) {
+	boolean blockingTest (AceEntityMention m1, AceEntityMention m2) {
 		Span span1 = m1.jetHead;
 		Span span2 = m2.jetHead;
 		Annotation baseNP = containingBaseNP (span1);
@@ -1082,7 +1105,7 @@ public class RelationTagger {
 	 *  if Span 's' is contained within a base NP, return that base NP, else return null.
 	 */
 
-	static Annotation containingBaseNP (Span s) {
+	Annotation containingBaseNP (Span s) {
 		int pos = s.start();
 		Annotation np = null;
 		loop: while (true) {
@@ -1114,7 +1137,7 @@ public class RelationTagger {
 	 *  returns 'true' if Spans 's1' and 's2' are contained within the same base NP
 	 */
 
-	static boolean inSameBaseNP (Span s1, Span s2) {
+	boolean inSameBaseNP (Span s1, Span s2) {
 		Annotation np = containingBaseNP(s1);
 		if (np == null) return false;
 		return s2.within(np.span());
@@ -13,12 +13,15 @@ import Jet.Tipster.*;
 import Jet.Parser.*;
 import Jet.Control;
 import Jet.JetTest;
+import Jet.MaxEntModel;
+import Jet.MaxEntTrainer;
 import Jet.Pat.Pat;
 import Jet.Refres.Resolve;
 
 import opennlp.maxent.*;
 import opennlp.maxent.io.*;
 import opennlp.model.*;
+import Jet.PipelineContext;
 
 /**
  *  contains top-level methods for training EventTagger.
@@ -207,7 +210,7 @@ public class TrainEventTagger {
 			doc.open();
 			doc.stretchAll();
 			Resolve.ACE = true;
-			Ace.monocase = Ace.allLowerCase(doc);
+			PipelineContext.current().monocase = Ace.allLowerCase(doc);
 			Control.processDocument (doc, null, false, 0);
 			AceDocument aceDoc = new AceDocument(textFile, xmlFile);
 			if (pass == 0)
@@ -227,10 +230,19 @@ public class TrainEventTagger {
 		boolean PRINT_MESSAGES = true;
 		double SMOOTHING_OBSERVATION = 0.1;
 		try {
-			FileReader datafr = new FileReader(new File(featureFileName));
-			EventStream es = new BasicEventStream(new PlainTextByLineDataStream(datafr));
-			GIS.SMOOTHING_OBSERVATION = SMOOTHING_OBSERVATION;
-			GISModel model = GIS.trainModel(es, 100, 4, USE_SMOOTHING, PRINT_MESSAGES);
+			GISModel model;
+			if (MaxEntModel.trainingThreads > 0) {
+				MaxEntTrainer trainer = new MaxEntTrainer();
+				trainer.setThreads(MaxEntModel.trainingThreads);
+				trainer.setCutoff(4);
+				trainer.setSmoothing(USE_SMOOTHING, SMOOTHING_OBSERVATION);
+				model = trainer.train(featureFileName);
+			} else {
+				FileReader datafr = new FileReader(new File(featureFileName));
+				EventStream es = new BasicEventStream(new PlainTextByLineDataStream(datafr));
+				GIS.SMOOTHING_OBSERVATION = SMOOTHING_OBSERVATION;
+				model = GIS.trainModel(es, 100, 4, USE_SMOOTHING, PRINT_MESSAGES);
+			}
 
 			File outputFile = new File(modelFileName);
 			GISModelWriter writer = new SuffixSensitiveGISModelWriter(model, outputFile);
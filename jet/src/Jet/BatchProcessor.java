@@ -0,0 +1,214 @@
+// -*- tab-width: 4 -*-
+//Title:        JET
+//Copyright:    Copyright (c) 2026
+//Author:       Ralph Grishman
+//Description:  A Java-based Information Extraction Tool
+
+package Jet;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ *  applies a task to each document in a document list, using a pool of
+ *  worker threads.
+ *  <p>
+ *  The number of workers is given by the property <B>Batch.threads</B>
+ *  (default 1, meaning that documents are processed one at a time in the
+ *  calling thread).  The number of documents which have been read from the
+ *  list but not yet completed is bounded by <B>Batch.maxInFlight</B>
+ *  (default twice the number of threads);  when this bound is reached,
+ *  the reading of the document list waits until a worker finishes a document.
+ *  <p>
+ *  Each worker processes its documents in its own {@link PipelineContext},
+ *  while the models loaded by JetTest are shared.  An exception or error
+ *  (such as a StackOverflowError) in processing one document is reported and
+ *  counted as a failure, and does not affect the processing of other
+ *  documents.  Documents are numbered (starting from 1) in the order in which
+ *  they appear in the list, independent of the order in which they complete.
+ */
+
+public class BatchProcessor {
+
+	final static Logger logger = LoggerFactory.getLogger(BatchProcessor.class);
+
+	/**
+	 *  the processing to be applied to a single document.
+	 */
+
+	public interface DocumentTask {
+
+		/**
+		 *  process document <CODE>docName</CODE>, the <CODE>docNo</CODE>-th
+		 *  document in the list.
+		 *
+		 *  @return  the number of tokens in the document, or 0 if unknown
+		 */
+
+		public int process (int docNo, String docName) throws Exception;
+	}
+
+	private int threads;
+
+	private int maxInFlight;
+
+	private final AtomicInteger docsProcessed = new AtomicInteger();
+
+	private final AtomicInteger docsFailed = new AtomicInteger();
+
+	private final AtomicLong tokensProcessed = new AtomicLong();
+
+	/**
+	 *  create a BatchProcessor with <CODE>threads</CODE> worker threads
+	 *  and at most <CODE>maxInFlight</CODE> documents in process at one time.
+	 */
+
+	public BatchProcessor (int threads, int maxInFlight) {
+		this.threads = Math.max(threads, 1);
+		this.maxInFlight = Math.max(maxInFlight, this.threads);
+	}
+
+	/**
+	 *  create a BatchProcessor configured from the <B>Batch.threads</B> and
+	 *  <B>Batch.maxInFlight</B> properties of the Jet configuration.
+	 */
+
+	public static BatchProcessor fromConfig () {
+		int threads = getConfigInt("Batch.threads", 1);
+		int maxInFlight = getConfigInt("Batch.maxInFlight", 2 * threads);
+		return new BatchProcessor(threads, maxInFlight);
+	}
+
+	private static int getConfigInt (String property, int defaultValue) {
+		String value = JetTest.getConfig(property);
+		if (value == null)
+			return defaultValue;
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			logger.error ("Invalid value " + value + " for " + property);
+			return defaultValue;
+		}
+	}
+
+	public int getThreads () {
+		return threads;
+	}
+
+	/**
+	 *  apply <CODE>task</CODE> to each document named in <CODE>docList</CODE>
+	 *  (one name per line), and report the processing rate when done.
+	 */
+
+	public void run (BufferedReader docList, DocumentTask task) throws IOException {
+		long startTime = System.currentTimeMillis();
+		if (threads == 1)
+			runSequentially(docList, task);
+		else
+			runInParallel(docList, task);
+		report(System.currentTimeMillis() - startTime);
+	}
+
+	private void runSequentially (BufferedReader docList, DocumentTask task) throws IOException {
+		String docName;
+		int docNo = 0;
+		while ((docName = docList.readLine()) != null) {
+			docNo++;
+			processDocument(task, docNo, docName);
+		}
+	}
+
+	private void runInParallel (BufferedReader docList, final DocumentTask task) throws IOException {
+		ExecutorService pool = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			int n = 0;
+			public synchronized Thread newThread (Runnable r) {
+				Thread t = new Thread(r, "Jet-worker-" + (++n));
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		final Semaphore inFlight = new Semaphore(maxInFlight);
+		try {
+			String docName;
+			int docNo = 0;
+			while ((docName = docList.readLine()) != null) {
+				docNo++;
+				inFlight.acquireUninterruptibly();
+				final int n = docNo;
+				final String name = docName;
+				pool.execute(new Runnable() {
+					public void run () {
+						try {
+							processDocument(task, n, name);
+						} finally {
+							inFlight.release();
+						}
+					}
+				});
+			}
+		} finally {
+			pool.shutdown();
+			try {
+				while (!pool.awaitTermination(1, TimeUnit.MINUTES))
+					;
+			} catch (InterruptedException e) {
+				pool.shutdownNow();
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private void processDocument (DocumentTask task, int docNo, String docName) {
+		try {
+			int tokens = task.process(docNo, docName);
+			tokensProcessed.addAndGet(tokens);
+			docsProcessed.incrementAndGet();
+		} catch (Throwable e) {
+			docsFailed.incrementAndGet();
+			logger.error ("Error processing document " + docNo + " = " + docName, e);
+		}
+	}
+
+	private void report (long elapsedMillis) {
+		double seconds = Math.max(elapsedMillis, 1) / 1000.0;
+		logger.info (String.format("Processed %d documents (%d failed), %d tokens in %.1f sec " +
+			"with %d thread%s: %.2f docs/sec, %.0f tokens/sec",
+			docsProcessed.get(), docsFailed.get(), tokensProcessed.get(), seconds,
+			threads, threads == 1 ? "" : "s",
+			docsProcessed.get() / seconds, tokensProcessed.get() / seconds));
+	}
+
+	/**
+	 *  returns the number of documents processed successfully.
+	 */
+
+	public int getDocsProcessed () {
+		return docsProcessed.get();
+	}
+
+	/**
+	 *  returns the number of documents whose processing failed with an exception or error.
+	 */
+
+	public int getDocsFailed () {
+		return docsFailed.get();
+	}
+
+	/**
+	 *  returns the total number of tokens in the documents processed successfully.
+	 */
+
+	public long getTokensProcessed () {
+		return tokensProcessed.get();
+	}
+}
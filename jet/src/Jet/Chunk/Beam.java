@@ -0,0 +1,146 @@
+// -*- tab-width: 4 -*-
+//Title:        JET
+//Copyright:    Copyright (c) 2003, 2005
+//Author:       Ralph Grishman
+//Description:  A Java-based Information Extraction Tool
+
+package Jet.Chunk;
+
+import java.util.Arrays;
+
+/**
+ *  the beam of a pruned Viterbi decoder.  After scoring the states at each
+ *  token, a decoder with a beam keeps only the states which are among the
+ *  <CODE>width</CODE> best states and whose log probability is within
+ *  <CODE>threshold</CODE> of the best state;  the others are not extended to
+ *  the next token.  This makes decoding faster at some cost in accuracy.
+ *  <p>
+ *  A beam is specified (for example, as the value of property
+ *  <B>NameTags.beam</B>) by a string of the form <BR>
+ *    <I>width</I> <BR>
+ *    top <I>width</I> <BR>
+ *    threshold <I>logProb</I> <BR>
+ *    top <I>width</I> threshold <I>logProb</I>
+ */
+
+public class Beam {
+
+	private final int width;
+
+	private final double threshold;
+
+	/**
+	 *  create a beam which keeps at most <CODE>width</CODE> states at each
+	 *  token (0 = no limit), and only states whose log probability is within
+	 *  <CODE>threshold</CODE> of the best state (0 = no limit).
+	 */
+
+	public Beam (int width, double threshold) {
+		if (width < 0 || threshold < 0)
+			throw new IllegalArgumentException("Invalid beam " + width + " " + threshold);
+		this.width = width;
+		this.threshold = threshold;
+	}
+
+	/**
+	 *  returns the beam specified by <CODE>spec</CODE>, or <CODE>null</CODE> (for
+	 *  exact Viterbi decoding) if <CODE>spec</CODE> is null or empty.
+	 *
+	 *  @throws IllegalArgumentException if <CODE>spec</CODE> is not a valid beam
+	 */
+
+	public static Beam parse (String spec) {
+		if (spec == null || spec.trim().length() == 0)
+			return null;
+		String[] words = spec.trim().split("\\s+");
+		int width = 0;
+		double threshold = 0;
+		try {
+			if (words.length == 1) {
+				width = Integer.parseInt(words[0]);
+			} else {
+				if (words.length % 2 != 0)
+					throw new IllegalArgumentException("Invalid beam " + spec);
+				for (int i=0; i<words.length; i+=2) {
+					if (words[i].equals("top"))
+						width = Integer.parseInt(words[i+1]);
+					else if (words[i].equals("threshold"))
+						threshold = Double.parseDouble(words[i+1]);
+					else
+						throw new IllegalArgumentException("Invalid beam " + spec);
+				}
+			}
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid beam " + spec);
+		}
+		return new Beam(width, threshold);
+	}
+
+	/**
+	 *  returns the maximum number of states kept at each token (0 = no limit).
+	 */
+
+	public int getWidth () {
+		return width;
+	}
+
+	/**
+	 *  returns the largest difference in log probability from the best state
+	 *  for a state to be kept (0 = no limit).
+	 */
+
+	public double getThreshold () {
+		return threshold;
+	}
+
+	/**
+	 *  selects the states to be kept:  given the scores (log probabilities)
+	 *  <CODE>score[0] ... score[n-1]</CODE> of the states at a token, places
+	 *  the indices of the states in the beam in <CODE>active</CODE> (in
+	 *  increasing order) and returns their number.  States with score
+	 *  <CODE>floor</CODE> or below (the unreachable states) are never kept.
+	 *  If several states are tied for the last place in the beam, the lower
+	 *  numbered states are kept.
+	 */
+
+	public int select (double[] score, int n, double floor, int[] active) {
+		double best = floor;
+		for (int i=0; i<n; i++)
+			if (score[i] > best)
+				best = score[i];
+		double cutoff = threshold > 0 ? Math.max(floor, best - threshold) : floor;
+		int count = 0;
+		if (width == 0 || width >= n) {
+			for (int i=0; i<n; i++)
+				if (score[i] > cutoff)
+					active[count++] = i;
+			return count;
+		}
+		// keep the 'width' best states:  insertion into active[0..count-1],
+		// ordered by decreasing score
+		for (int i=0; i<n; i++) {
+			double s = score[i];
+			if (s <= cutoff)
+				continue;
+			if (count == width && s <= score[active[count-1]])
+				continue;
+			int j = count < width ? count++ : count - 1;
+			while (j > 0 && s > score[active[j-1]]) {
+				active[j] = active[j-1];
+				j--;
+			}
+			active[j] = i;
+		}
+		Arrays.sort(active, 0, count);
+		return count;
+	}
+
+	public String toString () {
+		if (threshold == 0)
+			return "top " + width;
+		else if (width == 0)
+			return "threshold " + threshold;
+		else
+			return "top " + width + " threshold " + threshold;
+	}
+}
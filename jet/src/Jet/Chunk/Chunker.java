@@ -18,10 +18,9 @@ import Jet.Console;
 public class Chunker {
 
 	public static GISModel model = null;
-	static Annotation[] tokens;
-	static int tokenCount, jetTokenCount;
-	static String[] pos, word, tag;
-	static int[] position;
+	// the compiled form of model (or the model itself, if it was loaded
+	// from a binary model file)
+	private static volatile MaxEntScorer scorer = null;
 	static boolean trace = false;
 
 	/**
@@ -31,15 +30,15 @@ public class Chunker {
 
 	public static void chunk (Document doc, Span span) {
 		// 1. get tokens
-		tokens = Tokenizer.gatherTokens (doc, span);
-		tokenCount = tokens.length;
+		Annotation[] tokens = Tokenizer.gatherTokens (doc, span);
+		int tokenCount = tokens.length;
 		if (tokenCount == 0) {
 			return;
 		}
 		// 2. gather Penn POS and token texts
-		pos = new String[tokenCount];
-		word = new String[tokenCount];
-		position = new int[tokenCount];
+		String[] pos = new String[tokenCount];
+		String[] word = new String[tokenCount];
+		int[] position = new int[tokenCount];
 		int itoken = 0;
 		for (int i=0; i<tokenCount; i++) {
 			int posn = tokens[i].span().start();
@@ -53,12 +52,16 @@ public class Chunker {
 			}
 			itoken++;
 		}
-		jetTokenCount = itoken;
+		int jetTokenCount = itoken;
 		// 3. compute features and predict chunk tag
-		tag = new String[jetTokenCount];
+		String[] tag = new String[jetTokenCount];
+		MaxEntScorer scorer = scorer();
+		FeatureBuilder features = new FeatureBuilder();
+		double[] prob = new double[scorer.getNumOutcomes()];
 		for (int i=0; i<jetTokenCount; i++) {
-			String[] features = chunkFeatures(i);
-			tag[i] = model.getBestOutcome(model.eval(features)).intern();
+			chunkFeatures(pos, word, tag, jetTokenCount, i, features);
+			scorer.eval(features, prob);
+			tag[i] = scorer.getBestOutcome(prob).intern();
 			if ((i == 0 || tag[i-1] == "O") && tag[i] == "B")
 				tag[i] = "I";
 			// System.err.print ("Word = " + word[i] + " pos = " + pos[i]);
@@ -113,22 +116,36 @@ public class Chunker {
 		return (String) taggerAnn.get("cat");
 	}
 
-	private static String[] chunkFeatures (int i) {
-		String[] features = new String[8];
-		features[0] = "prevPOS=" + (i>0 ? pos[i-1] : "");
-		features[1] = "currPOS=" + pos[i];
-		features[2] = "nextPOS=" + (i < (jetTokenCount-1) ? pos[i+1] : "");
+	/**
+	 *  returns the compiled form of the chunker model.
+	 */
+
+	private static MaxEntScorer scorer () {
+		MaxEntScorer s = scorer;
+		if (s == null || (model != null && s.getModel() != model)) {
+			s = new MaxEntScorer(model);
+			scorer = s;
+		}
+		return s;
+	}
+
+	private static void chunkFeatures (String[] pos, String[] word, String[] tag,
+	                                   int jetTokenCount, int i, FeatureBuilder f) {
+		f.reset();
+		f.begin().append("prevPOS=").append(i>0 ? pos[i-1] : "").end();
+		f.begin().append("currPOS=").append(pos[i]).end();
+		f.begin().append("nextPOS=").append(i < (jetTokenCount-1) ? pos[i+1] : "").end();
+		f.begin().append("POS012=").append(pos[i]).append(':');
 		if (i < (jetTokenCount-2))
-			features[3] = "POS012=" + pos[i] + ":" + pos[i+1] + ":" + pos[i+2];
-		else if (i < (jetTokenCount-2))
-			features[3] = "POS012=" + pos[i] + ":" + pos[i+1] + ":";
+			f.append(pos[i+1]).append(':').append(pos[i+2]);
 		else
-			features[3] = "POS012=" + pos[i] + "::";
-		features[4] = "prevTag=" + (i>0 ? tag[i-1] : "");
-		features[5] = "currWord=" + word[i];
-		features[6] = "W-1W0=" + (i>0 ? word[i-1] : "") + ":" + word[i];
-		features[7] = "W0W1=" + word[i] + ":" + (i < (jetTokenCount-1) ? word[i+1] : "");
-		return features;
+			f.append(':');
+		f.end();
+		f.begin().append("prevTag=").append(i>0 ? tag[i-1] : "").end();
+		f.begin().append("currWord=").append(word[i]).end();
+		f.begin().append("W-1W0=").append(i>0 ? word[i-1] : "").append(':').append(word[i]).end();
+		f.begin().append("W0W1=").append(word[i]).append(':')
+		 .append(i < (jetTokenCount-1) ? word[i+1] : "").end();
 	}
 
 	public static void loadModel () {
@@ -137,12 +154,27 @@ public class Chunker {
 	}
 
 	/**
-	 *  load a maximum entropy chunker model from file 'modelFileName'.
+	 *  returns true if a chunker model has been loaded.
+	 */
+
+	public static boolean isLoaded () {
+		return model != null || scorer != null;
+	}
+
+	/**
+	 *  load a maximum entropy chunker model from file 'modelFileName', which
+	 *  may be a GIS model or a binary model written by MaxEntScorer.
 	 */
 
 	public static void loadModel (String modelFileName) {
 		try {
-		    model = (GISModel) new SuffixSensitiveGISModelReader(new File(modelFileName)).getModel();
+			File f = new File(modelFileName);
+			if (MaxEntScorer.isBinaryModel(f)) {
+				model = null;
+				scorer = MaxEntScorer.load(f);
+			} else {
+				model = (GISModel) new SuffixSensitiveGISModelReader(f).getModel();
+			}
 		    System.err.println ("Chunker model loaded from " + modelFileName);
 		} catch (Exception e) {
 		    e.printStackTrace();
@@ -20,6 +20,7 @@ import AceJet.Ace;	// for monocase flags
 import AceJet.Gazetteer;
 import Jet.Refres.Resolve;
 import Jet.HMM.*;
+import Jet.PipelineContext;
 
 /**
  *  a Named Entity tagger based on a maximum entropy token classifier.
@@ -78,8 +79,8 @@ public class MENameTagger implements NameTagger {
 		for (Annotation ann : textSegments) {
 			Span textSpan = ann.span ();
 			// check document case
-			Ace.monocase = Ace.allLowerCase(doc);
-			// System.out.println (">>> Monocase is " + Ace.monocase);
+			PipelineContext.current().monocase = Ace.allLowerCase(doc);
+			// System.out.println (">>> Monocase is " + PipelineContext.current().monocase);
 			// split into sentences
 			SentenceSplitter.split (doc, textSpan);
 		}
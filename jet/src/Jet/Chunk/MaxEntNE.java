@@ -9,10 +9,10 @@ package Jet.Chunk;
 
 import java.util.*;
 import java.io.*;
+import Jet.FeatureBuilder;
 import Jet.MaxEntModel;
 import Jet.Tipster.*;
-import AceJet.Ace;	// for monocase flags
-import AceJet.Datum;
+import Jet.PipelineContext;
 
 /**
  *  token-level maximum-entropy based name tagger.  Invoked by
@@ -38,8 +38,27 @@ import AceJet.Datum;
 public class MaxEntNE extends TokenClassifier {
 
 	MaxEntModel model;
-	String[] state;
-	Map<String, String> cache = new HashMap<String, String>();
+	// the name caches of the taggers for the current document, by tagger
+	private static final PipelineContext.Slot<Map<MaxEntNE, Map<String, String>>> caches =
+		new PipelineContext.Slot<Map<MaxEntNE, Map<String, String>>>() {
+			protected Map<MaxEntNE, Map<String, String>> initialValue () {
+				return new IdentityHashMap<MaxEntNE, Map<String, String>>();
+			}
+		};
+
+	/**
+	 *  returns the name cache of this tagger for the current document.
+	 */
+
+	private Map<String, String> cache () {
+		Map<MaxEntNE, Map<String, String>> m = caches.get();
+		Map<String, String> cache = m.get(this);
+		if (cache == null) {
+			cache = new HashMap<String, String>();
+			m.put(this, cache);
+		}
+		return cache;
+	}
 
 	/**
 	 *  create a new maximum entropy tagger.
@@ -62,7 +81,7 @@ public class MaxEntNE extends TokenClassifier {
 	}
 
 	public void newDocument () {
-		cache.clear();
+		cache().clear();
 		trainingDocCount++;
 	}
 
@@ -88,19 +107,18 @@ public class MaxEntNE extends TokenClassifier {
 	public void train (Document doc, Annotation[] tokens, String[] tags) {
 		int nTokens = tokens.length;
 		String[] words = new String[nTokens];
-		if (useOnoma)  onomaType = new String[nTokens];
 		for (int iToken = 0; iToken < nTokens; iToken++) {
 			words[iToken] = doc.text(tokens[iToken]).trim();
-			if (useOnoma)  onomaType[iToken] = onomaFeature(doc, tokens[iToken]);
 		}
+		String[] onomaType = onomaTypes(doc, tokens);
 		String priorTag = "other";
+		FeatureBuilder features = new FeatureBuilder();
 		for (int iToken = 0; iToken < nTokens; iToken++) {
 			if (pass == 1) {
 				recordWord (words[iToken], tags[iToken]);
 			} else {
-				Datum d = NEfeatures (iToken, words, tokens, priorTag, doc);
-				d.setOutcome (tags[iToken]);
-				model.addEvent (d);
+				NEfeatures (iToken, words, tokens, onomaType, priorTag, features);
+				model.addEvent (features, tags[iToken]);
 				priorTag = tags[iToken];
 				addToCache(words[iToken], tags[iToken]);
 			}
@@ -123,7 +141,7 @@ public class MaxEntNE extends TokenClassifier {
 		} else {
 			recordWord (token, tagChar, wordTypeEvens);
 		}
-		if (!Ace.monocase && tagChar == 'p' && Character.isLowerCase(word.charAt(0)))
+		if (!PipelineContext.current().monocase && tagChar == 'p' && Character.isLowerCase(word.charAt(0)))
 			System.out.println ("Lower case person token " + token);
 
 	}
@@ -139,25 +157,83 @@ public class MaxEntNE extends TokenClassifier {
 	}
 
 	/**
-	 *  returns a Datum encoding the features associated with word[i].
+	 *  returns the onomasticon type of each token, or null if the
+	 *  onomasticon is not used.
+	 */
+
+	private String[] onomaTypes (Document doc, Annotation[] tokens) {
+		if (!useOnoma)
+			return null;
+		String[] onomaType = new String[tokens.length];
+		for (int iToken = 0; iToken < tokens.length; iToken++)
+			onomaType[iToken] = onomaFeature(doc, tokens[iToken]);
+		return onomaType;
+	}
+
+	/**
+	 *  places in <code>f</code> the features associated with word[i].
 	 */
 
-	private Datum NEfeatures (int i, String[] words, Annotation[] tokens, String priorTag,
-	                          Document doc) {
-		Datum d = new Datum();
+	private void NEfeatures (int i, String[] words, Annotation[] tokens, String[] onomaType,
+	                         String priorTag, FeatureBuilder f) {
+		f.reset();
+		addPriorFeatures (i, words, tokens, priorTag, f);
+		addTokenFeatures (i, words, tokens, onomaType, f);
+	}
+
+	/**
+	 *  adds to <code>f</code> the features of word[i] which depend on the
+	 *  tag of the prior word, <code>priorTag</code>.  Each of these features
+	 *  ends with the prior tag, so that if <code>priorTag</code> is empty,
+	 *  the features added are the stems to which the prior tag is appended.
+	 */
+
+	private void addPriorFeatures (int i, String[] words, Annotation[] tokens,
+	                               String priorTag, FeatureBuilder f) {
 		String prior1 = (i > 0) ? words[i-1].toLowerCase() : "^";
 		String prior2 = (i > 1) ? words[i-2].toLowerCase() : "^";
 		String current = words[i].toLowerCase();
 		String next = (i >= words.length -1) ? "$" : words[i+1].toLowerCase();
 
 		String next2 = (i >= words.length - 2) ? "$" : words[i+2].toLowerCase();
+		boolean monocase = PipelineContext.current().monocase;
+		String cacheValue = (String) cache().get(words[i]);
+		if (cacheValue == null) cacheValue = "";
 
-		d.addFV ("p", prior1 + ":" + priorTag);
-		d.addFV ("c", current + ":" + priorTag);
-		d.addFV ("n", next + ":" + priorTag);
+		f.begin().append("p=").append(prior1).append(':').append(priorTag).end();
+		f.begin().append("c=").append(current).append(':').append(priorTag).end();
+		f.begin().append("n=").append(next).append(':').append(priorTag).end();
+		f.begin().append("n2=").append(next2).append(':').append(priorTag).end();
+		f.begin().append(monocase ? "cfmono=" : "cf=")
+		 .append(wordFeature(words[i], tokens[i].get("case")=="forcedCap"))
+		 .append(':').append(priorTag).end();
+		f.begin().append("pt=").append(priorTag).end();
+		f.begin().append("ca=").append(cacheValue).append(':').append(priorTag).end();
+		f.begin().append("pc=").append(prior1).append(':').append(words[i]).append(priorTag).end();
+		f.begin().append("p2=").append(prior2).append(':').append(prior1).append(priorTag).end();
+		if (i > 0)
+			f.begin().append(monocase ? "pfmono=" : "pf=")
+			 .append(wordFeature(words[i-1], tokens[i-1].get("case")=="forcedCap"))
+			 .append(':').append(priorTag).end();
+		else
+			f.begin().append("pf=^:").append(priorTag).end();
+		if (i < words.length -1)
+			f.begin().append(monocase ? "nfmono=" : "nf=")
+			 .append(wordFeature(words[i+1], tokens[i+1].get("case")=="forcedCap"))
+			 .append(':').append(priorTag).end();
+		else
+			f.begin().append("nf=$:").append(priorTag).end();
+		f.begin().append("tt=").append(typeFeature(words[i])).append(':').append(priorTag).end();
+		f.begin().append("w=").append(words[i]).append(':').append(priorTag).end();
+	}
 
-		d.addFV ("n2", next2 + ":" + priorTag);
-		
+	/**
+	 *  adds to <code>f</code> the features of word[i] which do not depend
+	 *  on the tag of the prior word.
+	 */
+
+	private void addTokenFeatures (int i, String[] words, Annotation[] tokens, String[] onomaType,
+	                               FeatureBuilder f) {
 		String cf = wordFeature(words[i], tokens[i].get("case")=="forcedCap");
 		String pf = "^";
 		String nf = "$";
@@ -166,31 +242,11 @@ public class MaxEntNE extends TokenClassifier {
 		if (i < words.length -1)
 			nf = wordFeature(words[i+1], tokens[i+1].get("case")=="forcedCap");
 		
-		d.addFV("pcnf", pf + cf + nf);
-		d.addFV (Ace.monocase ? "cfmono" : "cf",
-		         wordFeature(words[i], tokens[i].get("case")=="forcedCap") + ":" + priorTag);
-		d.addFV ("pt", priorTag);
-		String cacheValue = (String) cache.get(words[i]);
-		if (cacheValue == null) cacheValue = "";
-		d.addFV ("ca", cacheValue + ":" + priorTag);
-		d.addFV ("pc", prior1 + ":" + words[i] + priorTag);
-		d.addFV ("p2", prior2 + ":" + prior1 + priorTag);
-		if (i > 0)
-			d.addFV (Ace.monocase ? "pfmono" : "pf",
-			         wordFeature(words[i-1], tokens[i-1].get("case")=="forcedCap") + ":" + priorTag);
-		else
-			d.addFV ("pf", "^:" + priorTag);
-		if (i < words.length -1)
-			d.addFV (Ace.monocase ? "nfmono" : "nf",
-			         wordFeature(words[i+1], tokens[i+1].get("case")=="forcedCap") + ":" + priorTag);
-		else
-			d.addFV ("nf", "$:" + priorTag);
-		d.addFV ("tt", typeFeature(words[i]) + ":" + priorTag);
-		d.addFV ("w", words[i] +  ":" + priorTag);
+		f.begin().append("pcnf=").append(pf).append(cf).append(nf).end();
 
 		if (useOnoma) {
 			if (onomaType[i] != null)
-				d.addFV ("onoma", onomaType[i]);
+				f.add("onoma", onomaType[i]);
 			// special features for <city>, <country> and <city> - based
 			// (modified 10 Aug 2013 at request of SRI to not crash on  0-length words)
 			if (words[i].length() > 0 && 
@@ -201,34 +257,32 @@ public class MaxEntNE extends TokenClassifier {
 					j = j + 1;
 				String onomaType2 = onomaType[j + 1];
 				if (words[j].equals(",") && (onomaType2 == "country" || onomaType2 == "usstate"))
-					d.addF ("cityContext");
+					f.add("cityContext");
 				else if (words[j].equals("-") && words[j+1].equals("based"))
-					d.addF ("-basedContext");
+					f.add("-basedContext");
 			}
 		}
 
 		// add word cluster features according to (Miller et al., 2004)
 		if (useWordClusters) {
-			prior1 = (i > 0) ? words[i-1] : "^";
-			current = words[i];
-			next = (i >= words.length -1) ? "$" : words[i+1];
-			d.addFV("p1px4", getWordClusterPrefix(prior1, 4));
-			d.addFV("p1px6", getWordClusterPrefix(prior1, 6));
-			d.addFV("p1px10", getWordClusterPrefix(prior1, 10));
-			d.addFV("p1px20", getWordClusterPrefix(prior1, 20));
+			String prior1 = (i > 0) ? words[i-1] : "^";
+			String current = words[i];
+			String next = (i >= words.length -1) ? "$" : words[i+1];
+			f.add("p1px4", getWordClusterPrefix(prior1, 4));
+			f.add("p1px6", getWordClusterPrefix(prior1, 6));
+			f.add("p1px10", getWordClusterPrefix(prior1, 10));
+			f.add("p1px20", getWordClusterPrefix(prior1, 20));
 			
-			d.addFV("cpx4", getWordClusterPrefix(current, 4));
-			d.addFV("cpx6", getWordClusterPrefix(current, 6));
-			d.addFV("cpx10", getWordClusterPrefix(current, 10));
-			d.addFV("cpx20", getWordClusterPrefix(current, 20));
+			f.add("cpx4", getWordClusterPrefix(current, 4));
+			f.add("cpx6", getWordClusterPrefix(current, 6));
+			f.add("cpx10", getWordClusterPrefix(current, 10));
+			f.add("cpx20", getWordClusterPrefix(current, 20));
 			
-			d.addFV("npx4", getWordClusterPrefix(next, 4));
-			d.addFV("npx6", getWordClusterPrefix(next, 6));
-			d.addFV("npx10", getWordClusterPrefix(next, 10));
-			d.addFV("npx20", getWordClusterPrefix(next, 20));
+			f.add("npx4", getWordClusterPrefix(next, 4));
+			f.add("npx6", getWordClusterPrefix(next, 6));
+			f.add("npx10", getWordClusterPrefix(next, 10));
+			f.add("npx20", getWordClusterPrefix(next, 20));
 		}
-		
-		return d;
 	}
 
 	/**
@@ -287,6 +341,7 @@ public class MaxEntNE extends TokenClassifier {
 										   return; */
 		if (tag.charAt(1) == '-') tag=tag.substring(2);
 		char tagChar = tag.charAt(0);
+		Map<String, String> cache = cache();
 		String cacheValue = (String) cache.get(word);
 		if (cacheValue == null) {
 			cacheValue = "" + tagChar;
@@ -393,10 +448,13 @@ public class MaxEntNE extends TokenClassifier {
 		for (int iToken = 0; iToken < nTokens; iToken++) {
 			words[iToken] = doc.text(tokens[iToken]).trim();
 		}
+		String[] onomaType = onomaTypes(doc, tokens);
 		String priorTag = "other";
+		FeatureBuilder features = new FeatureBuilder();
+		double[] prob = new double[model.getNumOutcomes()];
 		for (int iToken = 0; iToken < nTokens; iToken++) {
-			Datum d = NEfeatures (iToken, words, tokens, priorTag, doc);
-			tags[iToken] = model.bestOutcome(d);
+			NEfeatures (iToken, words, tokens, onomaType, priorTag, features);
+			tags[iToken] = model.bestOutcome(features, prob);
 			addToCache(words[iToken], tags[iToken]);
 			priorTag = tags[iToken];
 		}
@@ -405,7 +463,22 @@ public class MaxEntNE extends TokenClassifier {
 
 	public static double otherOffset = 0.;
 
-	String[] onomaType;
+	// the beam for the Viterbi decoder, or null for exact decoding
+	private volatile Beam beam = null;
+
+	/**
+	 *  sets the beam for the Viterbi decoder:  at each token, only the
+	 *  states in the beam are extended to the next token.  If
+	 *  <CODE>beam</CODE> is null, all states are extended (exact decoding).
+	 */
+
+	public void setBeam (Beam beam) {
+		this.beam = beam;
+	}
+
+	public Beam getBeam () {
+		return beam;
+	}
 
 	/**
 	 *  assign the best tag for each token using a Viterbi decoder.
@@ -419,13 +492,12 @@ public class MaxEntNE extends TokenClassifier {
 		if (nTokens == 0)
 			return new String[0];
 		String[] words = new String[nTokens];
-		if (useOnoma)  onomaType = new String[nTokens];
 		for (int iToken = 0; iToken < nTokens; iToken++) {
 			words[iToken] = doc.text(tokens[iToken]).trim();
-			if (useOnoma)  onomaType[iToken] = onomaFeature(doc, tokens[iToken]);
 		}
+		String[] onomaType = onomaTypes(doc, tokens);
 		int nStates = model.getNumOutcomes();
-		state = new String[nStates];
+		String[] state = new String[nStates];
 		for (int i=0; i<nStates; i++) {
 			state[i] = model.getOutcome(i);
 		}
@@ -434,15 +506,32 @@ public class MaxEntNE extends TokenClassifier {
 		NameConstraints constraints = new NameConstraints (doc, tokens, state);
 		int[] path = new int[nTokens];
 		double IMPOSSIBLE = -1000000.;
+		Beam beam = this.beam;
+		int[] active = new int[nStates];
+		int nActive = nStates;
+		for (int i=0; i<nStates; i++)
+			active[i] = i;
+
+		// the features of each token are scored in two parts:  the features
+		// which do not depend on the prior tag are scored once per token
+		// (baseSum, baseCount), and the score of the features which depend
+		// on the prior tag is added for each prior state
+		double[] baseSum = new double[nStates];
+		int[] baseCount = new int[nStates];
+		double[] sum = new double[nStates];
+		int[] count = new int[nStates];
+		double[] outcome = new double[nStates];
+		FeatureBuilder features = new FeatureBuilder();
+		FeatureBuilder stems = new FeatureBuilder();
 
 		// compute probabilities for first token (iToken == 0)
+		scoreTokenFeatures(0, words, tokens, onomaType, features, stems, baseSum, baseCount);
+		scorePriorFeatures(stems, "other", baseSum, baseCount, sum, count, outcome);
 		for (int iState = 0; iState < nStates; iState++) {
 			if (state[iState].charAt(0) == 'I' ||
 			    !constraints.allowedState(0, iState)) {
 				prob[0][iState] = IMPOSSIBLE;
 			} else {
-				Datum d = NEfeatures (0, words, tokens, "other", doc);
-				double[] outcome = model.getOutcomeProbabilities(d);
 				double p = Math.log(outcome[iState]);
 				if (state[iState].equals("other")) p += otherOffset;
 				prob[0][iState] = p;
@@ -454,13 +543,17 @@ public class MaxEntNE extends TokenClassifier {
 				prob[iToken][iState] = IMPOSSIBLE;
 				prior[iToken][iState] = -1;
 			}
-			for (int iPrior = 0; iPrior < nStates; iPrior++) {
-				Datum d = NEfeatures (iToken, words, tokens, state[iPrior], doc);
-				double[] outcome = model.getOutcomeProbabilities(d);
+			// with a beam, only the best states at the prior token are extended
+			if (beam != null)
+				nActive = beam.select(prob[iToken-1], nStates, IMPOSSIBLE, active);
+			scoreTokenFeatures(iToken, words, tokens, onomaType, features, stems, baseSum, baseCount);
+			for (int k = 0; k < nActive; k++) {
+				int iPrior = active[k];
+				scorePriorFeatures(stems, state[iPrior], baseSum, baseCount, sum, count, outcome);
 				for (int iState = 0; iState < nStates; iState++) {
 					double p = Math.log(outcome[iState]);
 					if (state[iState].equals("other")) p += otherOffset;
-					if (allowedTransition(iPrior, iState) && 
+					if (allowedTransition(state, iPrior, iState) && 
 					    constraints.allowedState(iToken, iState) &&
 					    prob[iToken-1][iPrior] + p > prob[iToken][iState]) {
 						prob[iToken][iState] = prob[iToken-1][iPrior] + p;
@@ -500,7 +593,44 @@ public class MaxEntNE extends TokenClassifier {
 		return tags;
 	}
 
-	private boolean allowedTransition (int iPrior, int iState) {
+	/**
+	 *  scores the features of word[i] which do not depend on the prior tag,
+	 *  placing the sum of their weights for each outcome in <code>sum</code>
+	 *  and their number in <code>count</code>, and places in <code>stems</code>
+	 *  the stems of the features which do depend on the prior tag.
+	 */
+
+	private void scoreTokenFeatures (int i, String[] words, Annotation[] tokens,
+	                                 String[] onomaType,
+	                                 FeatureBuilder features, FeatureBuilder stems,
+	                                 double[] sum, int[] count) {
+		features.reset();
+		addTokenFeatures (i, words, tokens, onomaType, features);
+		model.startScore(sum, count);
+		model.addWeights(features, sum, count);
+		stems.reset();
+		addPriorFeatures (i, words, tokens, "", stems);
+	}
+
+	/**
+	 *  computes the probability of each outcome for a token whose prior
+	 *  tag is <code>priorTag</code>, adding the weights of the prior-tag
+	 *  features (formed from <code>stems</code>) to the score of the other
+	 *  features of the token (<code>baseSum</code>, <code>baseCount</code>).
+	 */
+
+	private void scorePriorFeatures (FeatureBuilder stems, String priorTag,
+	                                 double[] baseSum, int[] baseCount,
+	                                 double[] sum, int[] count, double[] outcome) {
+		System.arraycopy(baseSum, 0, sum, 0, sum.length);
+		System.arraycopy(baseCount, 0, count, 0, count.length);
+		for (int j = 0; j < stems.size(); j++)
+			model.addWeights(FeatureBuilder.hash(stems.hash(j), priorTag),
+			                 FeatureBuilder.check(stems.check(j), priorTag), sum, count);
+		model.getOutcomeProbabilities(sum, count, outcome);
+	}
+
+	private static boolean allowedTransition (String[] state, int iPrior, int iState) {
 		String priorState = state[iPrior];
 		String currentState = state[iState];
 		if (currentState.substring(0,2).equals("I-"))
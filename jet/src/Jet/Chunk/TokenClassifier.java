@@ -43,4 +43,16 @@ public abstract class TokenClassifier {
 	public void newDocument () {
 	}
 
+	/**
+	 *  sets the beam for the Viterbi decoder, or <CODE>null</CODE> for exact
+	 *  decoding.  Ignored by classifiers which do not support a beam.
+	 */
+
+	public void setBeam (Beam beam) {
+	}
+
+	public Beam getBeam () {
+		return null;
+	}
+
 }
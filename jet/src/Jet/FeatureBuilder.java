@@ -0,0 +1,253 @@
+// -*- tab-width: 4 -*-
+//Title:        JET
+//Copyright:    2026
+//Author:       Ralph Grishman
+//Description:  A Java-based Information Extraction Toolkit
+
+package Jet;
+
+/**
+ *  a reusable buffer of the features of one instance to be classified by a
+ *  {@link MaxEntScorer}.  Each feature is recorded as a 64-bit hash of its
+ *  text, which is computed as the feature is appended, piece by piece, so
+ *  that no String need be built for the feature.  For example,
+ *  <CODE>begin().append("prev=").append(word).end()</CODE> records the
+ *  same feature as <CODE>add("prev=" + word)</CODE>.  A second, independent
+ *  64-bit hash (the <I>check</I>) is computed along with it;  the scorer
+ *  compares both, so that a feature which is not a predicate of the model
+ *  but happens to have the same hash as one is not given its weights.
+ *  <p>
+ *  The builder also keeps a reference to each piece (the feature name,
+ *  normally a literal and so interned, and the values), so that the
+ *  features can be materialized as Strings when they are needed -- to
+ *  write training data, or to classify with a GISModel.  Clearing the
+ *  builder with <CODE>reset</CODE> retains its arrays, so an extractor
+ *  which reuses one builder for each instance does not allocate once the
+ *  arrays have grown to the size of the largest instance.
+ *  <p>
+ *  A FeatureBuilder is not thread-safe;  a tagger which may be invoked
+ *  from several threads should use one builder per call or per thread.
+ */
+
+public class FeatureBuilder {
+
+	private static final long OFFSET = 0xcbf29ce484222325L;
+
+	private static final long PRIME = 0x100000001b3L;
+
+	private static final long CHECK_OFFSET = 0x2545f4914f6cdd1dL;
+
+	private static final long CHECK_MULTIPLIER = 0x9e3779b97f4a7c15L;
+
+	private long[] hashes = new long[32];
+
+	private long[] checks = new long[32];
+
+	private int size = 0;
+
+	// the hash of the feature being built
+	private long hash = OFFSET;
+	private long check = CHECK_OFFSET;
+
+	// the pieces of the features:  feature i is the concatenation of
+	// parts[partStart[i]] ... parts[partStart[i+1]-1]
+	private Object[] parts = new Object[64];
+	private int[] partStart = new int[33];
+	private int nParts = 0;
+
+	// working storage for the scorer:  the number of features with a
+	// weight for each outcome
+	int[] counts = new int[0];
+
+	/**
+	 *  removes all features from the builder, so that it may be used for
+	 *  the next instance.
+	 */
+
+	public FeatureBuilder reset () {
+		size = 0;
+		nParts = 0;
+		return this;
+	}
+
+	/**
+	 *  starts a new feature.
+	 */
+
+	public FeatureBuilder begin () {
+		hash = OFFSET;
+		check = CHECK_OFFSET;
+		nParts = partStart[size];
+		return this;
+	}
+
+	/**
+	 *  appends <CODE>s</CODE> to the feature being built (as string
+	 *  concatenation would, so a <CODE>null</CODE> appends "null").
+	 */
+
+	public FeatureBuilder append (String s) {
+		if (s == null)
+			s = "null";
+		hash = hash(hash, s);
+		check = check(check, s);
+		addPart(s);
+		return this;
+	}
+
+	/**
+	 *  appends character <CODE>c</CODE> to the feature being built.
+	 */
+
+	public FeatureBuilder append (char c) {
+		hash = (hash ^ c) * PRIME;
+		check = (check + c) * CHECK_MULTIPLIER;
+		addPart(Character.valueOf(c));
+		return this;
+	}
+
+	private void addPart (Object part) {
+		if (nParts == parts.length) {
+			Object[] p = new Object[nParts * 2];
+			System.arraycopy(parts, 0, p, 0, nParts);
+			parts = p;
+		}
+		parts[nParts++] = part;
+	}
+
+	/**
+	 *  ends the feature being built and adds it to the buffer.
+	 */
+
+	public FeatureBuilder end () {
+		if (size == hashes.length) {
+			long[] h = new long[size * 2];
+			System.arraycopy(hashes, 0, h, 0, size);
+			hashes = h;
+			long[] c = new long[size * 2];
+			System.arraycopy(checks, 0, c, 0, size);
+			checks = c;
+			int[] p = new int[size * 2 + 1];
+			System.arraycopy(partStart, 0, p, 0, size + 1);
+			partStart = p;
+		}
+		hashes[size] = hash;
+		checks[size++] = check;
+		partStart[size] = nParts;
+		return this;
+	}
+
+	/**
+	 *  adds feature <CODE>feature</CODE>.
+	 */
+
+	public FeatureBuilder add (String feature) {
+		return begin().append(feature).end();
+	}
+
+	/**
+	 *  adds feature <CODE>feature=value</CODE>, or just <CODE>feature</CODE>
+	 *  if <CODE>value</CODE> is null (as <CODE>Datum.addFV</CODE> does).
+	 */
+
+	public FeatureBuilder add (String feature, String value) {
+		begin().append(feature);
+		if (value != null)
+			append('=').append(value);
+		return end();
+	}
+
+	/**
+	 *  returns the number of features in the buffer.
+	 */
+
+	public int size () {
+		return size;
+	}
+
+	/**
+	 *  returns the hash of the i-th feature in the buffer.
+	 */
+
+	public long hash (int i) {
+		return hashes[i];
+	}
+
+	/**
+	 *  returns the check (second hash) of the i-th feature in the buffer.
+	 */
+
+	public long check (int i) {
+		return checks[i];
+	}
+
+	/**
+	 *  returns the text of the i-th feature in the buffer.
+	 */
+
+	public String feature (int i) {
+		int first = partStart[i];
+		int last = partStart[i+1];
+		if (last == first + 1)
+			return parts[first].toString();
+		StringBuilder sb = new StringBuilder();
+		for (int j = first; j < last; j++)
+			sb.append(parts[j]);
+		return sb.toString();
+	}
+
+	/**
+	 *  returns the features in the buffer as an array of Strings.
+	 */
+
+	public String[] toArray () {
+		String[] features = new String[size];
+		for (int i = 0; i < size; i++)
+			features[i] = feature(i);
+		return features;
+	}
+
+	/**
+	 *  returns the hash of feature <CODE>feature</CODE>, as computed by
+	 *  the builder.
+	 */
+
+	public static long hash (String feature) {
+		return hash(OFFSET, feature);
+	}
+
+	/**
+	 *  returns the hash of the feature formed by appending <CODE>s</CODE>
+	 *  to a feature with hash <CODE>prefix</CODE>.  For example,
+	 *  <CODE>hash(hash("prev="), word) == hash("prev=" + word)</CODE>.
+	 */
+
+	public static long hash (long prefix, String s) {
+		long h = prefix;
+		for (int i = 0; i < s.length(); i++)
+			h = (h ^ s.charAt(i)) * PRIME;
+		return h;
+	}
+
+	/**
+	 *  returns the check (second hash) of feature <CODE>feature</CODE>, as
+	 *  computed by the builder.
+	 */
+
+	public static long check (String feature) {
+		return check(CHECK_OFFSET, feature);
+	}
+
+	/**
+	 *  returns the check of the feature formed by appending <CODE>s</CODE>
+	 *  to a feature with check <CODE>prefix</CODE>, as <CODE>hash(long,
+	 *  String)</CODE> does for the hash.
+	 */
+
+	public static long check (long prefix, String s) {
+		long c = prefix;
+		for (int i = 0; i < s.length(); i++)
+			c = (c + s.charAt(i)) * CHECK_MULTIPLIER;
+		return c;
+	}
+}
@@ -2,6 +2,7 @@
 package Jet.Format;
 
 import java.io.BufferedReader;
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileReader;
@@ -288,21 +289,77 @@ public class PTBReader {
 			return;
 		}
 		for (int i = 0; i < trees.size(); i++) {
-			ParseTreeNode tree = trees.get(i);
-			int start = offsets.get(i);
-			if (start < 0) {
-				System.err.println ("PTBReader.addAnnotations:  offset missing for " +
-				                    " parse tree " + i);
-				continue;
-			}
 			int end = (i+1 == offsets.size()) ? span.end() : offsets.get(i+1);
-			Span sentenceSpan = new Span(start, end);
-			addAnnotations(tree, doc, sentenceSpan, jetCategories);
-			Vector<Annotation> anns = doc.annotationsAt (start, targetAnnotation);
-			if (anns != null && anns.size() > 0) {
-				Annotation ann = anns.get(0);
-				ann.put("parse", tree.ann);
+			addAnnotations(trees.get(i), i, offsets.get(i), end, doc, targetAnnotation,
+			               jetCategories);
+		}
+	}
+
+	/**
+ 	 * Adds <B>constit</B> annotations to an existing Document <CODE>doc</CODE> to
+	 * represent the parse trees in file <CODE>file</CODE>, which must include
+	 * sentence offsets.  Unlike reading the trees with <CODE>loadParseTrees</CODE>
+	 * and passing them to <CODE>addAnnotations</CODE>, the trees are read one
+	 * at a time, and each is added to the document before the tree after the
+	 * next is read, so that the trees of a long document are never all held
+	 * in memory.  The file is memory-mapped, and may be compressed with gzip.
+	 * If the file is not well-formed, the trees before the error are added
+	 * before the InvalidFormatException is thrown.
+	 * 
+	 * @param file
+	 *            file of parse trees with offsets
+	 * @param doc
+	 *            document to which annotations should be added
+	 * @param targetAnnotation
+	 *            name of annotation to get 'parse' feature pointing
+	 *            to parse tree
+	 * @param span
+	 *            target span.
+	 * @param jetCategories
+	 *            if false, use lexical categories from Penn Tree Bank;  if
+	 *            true, use categories from Jet
+	 */
+
+	public void addAnnotations (File file, Document doc, String targetAnnotation,
+		  Span span, boolean jetCategories) throws IOException, InvalidFormatException {
+		TreeStream trees = openParseTrees(file);
+		try {
+			if (!trees.next()) {
+				return;
+			}
+			for (int i = 0; ; i++) {
+				ParseTreeNode tree = trees.getTree();
+				int start = trees.getOffset();
+				boolean more = trees.next();
+				int end = more ? trees.getOffset() : span.end();
+				addAnnotations(tree, i, start, end, doc, targetAnnotation, jetCategories);
+				if (!more) {
+					break;
+				}
 			}
+		} finally {
+			trees.close();
+		}
+	}
+
+	/**
+	 * Adds the annotations for parse tree <CODE>i</CODE>, <CODE>tree</CODE>, of
+	 * the sentence from <CODE>start</CODE> to <CODE>end</CODE>.
+	 */
+
+	private void addAnnotations (ParseTreeNode tree, int i, int start, int end,
+		  Document doc, String targetAnnotation, boolean jetCategories) {
+		if (start < 0) {
+			System.err.println ("PTBReader.addAnnotations:  offset missing for " +
+			                    " parse tree " + i);
+			return;
+		}
+		Span sentenceSpan = new Span(start, end);
+		addAnnotations(tree, doc, sentenceSpan, jetCategories);
+		Vector<Annotation> anns = doc.annotationsAt (start, targetAnnotation);
+		if (anns != null && anns.size() > 0) {
+			Annotation ann = anns.get(0);
+			ann.put("parse", tree.ann);
 		}
 	}
 	
@@ -342,10 +399,15 @@ public class PTBReader {
 		return list;
 	}
 	
+	/**
+	 * Loads parse tree corpus from file <CODE>file</CODE>, which may be
+	 * compressed with gzip.
+	 */
+
 	public List<ParseTreeNode> loadParseTrees(File file) throws IOException, InvalidFormatException {
 		Reader in = null;
 		try {
-			in = new BufferedReader(new FileReader(file));
+			in = IOUtils.getMappedReader(file, null);
 			return loadParseTrees(in);
 		} finally {
 			IOUtils.closeQuietly(in);
@@ -356,6 +418,67 @@ public class PTBReader {
 		return offsets;
 	}
 
+	/**
+	 * Opens file <CODE>file</CODE> of parse trees (which is memory-mapped,
+	 * and may be compressed with gzip) for reading one tree at a time.
+	 */
+
+	public TreeStream openParseTrees(File file) throws IOException {
+		return new TreeStream(IOUtils.getMappedReader(file, null));
+	}
+
+	/**
+	 * Reads parse trees one at a time, each with the sentence offset encoded
+	 * as a comment preceding it (or -1 if there is none).  A PTBReader
+	 * should be reading from only one TreeStream at a time.
+	 */
+
+	public class TreeStream implements Closeable {
+		private final Reader reader;
+		private final PushbackReader input;
+		private ParseTreeNode tree = null;
+		private int treeOffset = -1;
+
+		TreeStream(Reader in) {
+			reader = in;
+			input = new PushbackReader(in);
+		}
+
+		/**
+		 * Reads the next tree, returning false if there are no more trees.
+		 */
+		public boolean next() throws IOException, InvalidFormatException {
+			skipWhitespaceAndComment(input);
+			if (lookAhead(input) == -1) {
+				tree = null;
+				treeOffset = -1;
+				return false;
+			}
+			treeOffset = offset;
+			tree = readNode(input);
+			return true;
+		}
+
+		/**
+		 * Returns the tree read by the last call of <CODE>next</CODE>.
+		 */
+		public ParseTreeNode getTree() {
+			return tree;
+		}
+
+		/**
+		 * Returns the offset of the tree read by the last call of
+		 * <CODE>next</CODE>.
+		 */
+		public int getOffset() {
+			return treeOffset;
+		}
+
+		public void close() throws IOException {
+			reader.close();
+		}
+	}
+
 	/**
 	 * Builds Jet.Tipster.Document object from Penn treebank corpus.
 	 * 
@@ -1025,8 +1148,9 @@ public class PTBReader {
 	 */
 
 	private void setJetAnnotations(ParseTreeNode node, Span treeSpan, Document doc) {
-		StatParser.buildParserInput (doc, treeSpan.start(), treeSpan.end(), false);
-		StatParser.fixHyphenatedItems (doc);
+		StatParser.Input input =
+			StatParser.buildParserInput (doc, treeSpan.start(), treeSpan.end(), false);
+		StatParser.fixHyphenatedItems (doc, input);
 		int nameConstitEnd = -1;
 		List<ParseTreeNode> terminals = getTerminalNodes(node);
 		for (ParseTreeNode terminal : terminals) {
@@ -4,6 +4,7 @@ package Jet.HMM;
 import java.util.*;
 import java.io.*;
 import Jet.Lisp.FeatureSet;
+import Jet.PipelineContext;
 
 /**
  *  an HMMemitter, using statistics for exact token match (including case), for token
@@ -16,8 +17,6 @@ public class BigramHMMemitter extends HMMemitter {
 
 	private static final float VOCAB_SIZE = 5000.0f;
 
-	public static boolean useBigrams = true;
-
 	int count;           	// number of times this state was traversed in training
 	HashMap tokenCount;  	// the number of times this token was emitted in training
 	HashMap tokenProbability;
@@ -63,7 +62,7 @@ public class BigramHMMemitter extends HMMemitter {
 
 	public void trainOnInstances (String token, String priorToken, int n) {
 		count += n;
-		if (AceJet.Ace.monocase && (stateName.startsWith("b-") || stateName.startsWith("m-") ||
+		if (PipelineContext.current().monocase && (stateName.startsWith("b-") || stateName.startsWith("m-") ||
 		                     stateName.startsWith("e-") || stateName.startsWith("i-")))
 			token = capitalize(token);
 		incrementHashMap (tokenCount, token, n);
@@ -176,6 +175,11 @@ public class BigramHMMemitter extends HMMemitter {
 	}
 
 	public double getProbability (String token, String priorToken, FeatureSet fs) {
+		return getProbability(token, priorToken, fs, hmm.decoder());
+	}
+
+	public double getProbability (String token, String priorToken, FeatureSet fs,
+	                              HMMDecoder decoder) {
 		double unseenFeatureProbability = -8.0;
 		Double uncondProb;
 		double prob;
@@ -193,12 +197,12 @@ public class BigramHMMemitter extends HMMemitter {
 			outcomesOfPriorToken = m2.size();
 		}
 		double lambda = 0;
-		if (useBigrams && priorTokenCount.get(priorToken) != null) {
+		if (PipelineContext.current().useBigrams && priorTokenCount.get(priorToken) != null) {
 			int cY = ((Integer) priorTokenCount.get(priorToken)).intValue();
 			if ((stateName.startsWith("m-") || stateName.startsWith("e-")) & condProb > 0.)
 				lambda = 1. / (1. + outcomesOfPriorToken / cY);
 		}
-		if (forcedCap || AceJet.Ace.monocase) {
+		if (forcedCap || PipelineContext.current().monocase) {
 			uncondProb = (Double) LCtokenProbability.get(token.toLowerCase());
 		} else {
 			uncondProb = (Double) tokenProbability.get(token);
@@ -213,7 +217,7 @@ public class BigramHMMemitter extends HMMemitter {
 			prob = Math.log(prob);
 		} else {
 			String tokenForm = wordFeature(token);
-			if ((forcedCap && tokenForm == "initCap") || AceJet.Ace.monocase)
+			if ((forcedCap && tokenForm == "initCap") || PipelineContext.current().monocase)
 				tokenForm = "forcedCap";
 			Double fprob = (Double) featureProbability.get(tokenForm);
 			if (fprob != null)
@@ -225,7 +229,7 @@ public class BigramHMMemitter extends HMMemitter {
 		if (hmm.tagsToCache != null) {
 			for (int i=0; i<hmm.tagsToCache.length; i++) {
 				String tag = hmm.tagsToCache[i];
-				boolean inCache = hmm.inCache(token, tag);
+				boolean inCache = decoder.inCache(token, tag);
 				if (inCache) {
 					// System.out.println ("Found " + token + " in cache as " + tag);
 					prob += inCacheProbability[i];
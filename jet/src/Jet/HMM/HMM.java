@@ -27,6 +27,11 @@ import Jet.JetTest;
  *  been tagged as a specific type of name ("Mr. John Park") within a document,
  *  this can be recorded so that subsequent uses of the name will be consistently
  *  tagged even if the context is ambiguous ("Park").
+ *  <p>  The state of a decoding (the Viterbi lattice, the margin, the N-best paths,
+ *  and the name cache) is held by an {@link HMMDecoder}, not by the HMM, so one
+ *  HMM may be shared by several threads, each with its own decoder.  The
+ *  decoding methods of the HMM itself use a decoder belonging to the current
+ *  thread.
  *  <p> In addition to generating the best path with the Viterbi decoder,
  *  the decoder computes the margin (the difference in score between the best and
  *  second best path) and alternative (N-best) paths.  To obtain the margin,
@@ -43,47 +48,31 @@ public class HMM extends TokenClassifier {
 	ArrayList states, arcs;
 	int startState, endState;
 	Class emitterClass;
-	HashSet cache;
 	String[] tagsToCache;
 	double smallestDifference = 0.;
 	protected static final double UNLIKELY = -1.0E100;
 	static boolean probReport = false;
 	static boolean cacheTrace = false;
 
-	private String excludedTag = null;
-	int excludedTagStart = 0;
-	int excludedTagEnd = 0;
+	// the arcs of the HMM, indexed by target state, for the decoder;
+	// built from the states when first needed
+	private volatile Predecessors predecessors = null;
 
-	// the Viterbi decoding lattice
-	private int nTokens;
-	private double[][] pathProb;
-	private int [][] backPointer;
-
-	// data for generating N-best paths
-	private SortedSet deviationSet;
+	// the decoder used by this HMM's own decoding methods, one per thread
+	private final ThreadLocal<HMMDecoder> decoders = new ThreadLocal<HMMDecoder>() {
+		protected HMMDecoder initialValue () {
+			return new HMMDecoder(HMM.this);
+		}
+	};
 
 	// tables for back-off (counts of tokens across all states)
 	HashMap allStateTokenCount;
 	HashMap allStateLCtokenCount;
 
-	/**
-	 *  after the viterbi decoder method has been invoked, the probability
-	 *  along the best path found by the decoder.
-	 */
-
-	public double viterbiProbability = 0.;
-
-	/**
-	 *  after either the viterbi decode or the nextBest method has been
-	 *  invoked, the probability along the most recently returned path.
-	 */
-
-	public double pathProbability = 0.;
-
-	private double margin;
-	private boolean recordMargin = false;
-	private boolean recordLocalMargin = false;
-	private boolean Nbest = false;
+	// options for all decoders of this HMM
+	boolean recordMargin = false;
+	boolean Nbest = false;
+	volatile Beam beam = null;
 
 	/**
 	 *  create a new HMM using instances of <CODE>BasicHMMemitter</CODE> to control
@@ -107,7 +96,6 @@ public class HMM extends TokenClassifier {
 		endState = -1;
 		this.emitterClass = emitterClass;
 		tagsToCache = null;
-		cache = new HashSet();
 		allStateTokenCount = new HashMap();
 		allStateLCtokenCount = new HashMap();
 	}
@@ -260,6 +248,71 @@ public class HMM extends TokenClassifier {
 		Iterator stateIterator = states.iterator();
 		while (stateIterator.hasNext())
 			((HMMstate) stateIterator.next()).resolveNames(statesByName, states.size());
+		predecessors = null;
+	}
+
+	/**
+	 *  returns the arcs of the HMM arranged for the decoder.
+	 */
+
+	Predecessors predecessors () {
+		Predecessors p = predecessors;
+		if (p == null)
+			predecessors = p = new Predecessors(states);
+		return p;
+	}
+
+	/**
+	 *  the arcs of an HMM, arranged for the Viterbi decoder:  for each state,
+	 *  the states with an arc to that state (in increasing order), and the
+	 *  log probability of each such arc;  and the states reachable from
+	 *  that state by a single arc.
+	 */
+
+	static class Predecessors {
+
+		final int[][] states;
+		final double[][] arcProb;
+		final int[][] successors;
+
+		Predecessors (ArrayList hmmStates) {
+			int nStates = hmmStates.size();
+			int[] count = new int[nStates];
+			for (int i=0; i<nStates; i++) {
+				HMMarc[] arcs = ((HMMstate) hmmStates.get(i)).arcs;
+				if (arcs == null) continue;
+				for (int j=0; j<nStates; j++)
+					if (arcs[j] != null)
+						count[j]++;
+			}
+			states = new int[nStates][];
+			arcProb = new double[nStates][];
+			successors = new int[nStates][];
+			for (int j=0; j<nStates; j++) {
+				states[j] = new int[count[j]];
+				arcProb[j] = new double[count[j]];
+				count[j] = 0;
+			}
+			for (int i=0; i<nStates; i++) {
+				HMMarc[] arcs = ((HMMstate) hmmStates.get(i)).arcs;
+				int nSuccessors = 0;
+				if (arcs != null) {
+					for (int j=0; j<nStates; j++)
+						if (arcs[j] != null) {
+							states[j][count[j]] = i;
+							arcProb[j][count[j]] = arcs[j].probability;
+							count[j]++;
+							nSuccessors++;
+						}
+				}
+				successors[i] = new int[nSuccessors];
+				nSuccessors = 0;
+				if (arcs != null)
+					for (int j=0; j<nStates; j++)
+						if (arcs[j] != null)
+							successors[i][nSuccessors++] = j;
+			}
+		}
 	}
 
 	/**
@@ -299,21 +352,15 @@ public class HMM extends TokenClassifier {
 	 */
 
 	public void newDocument() {
-		cache = new HashSet();
+		decoder().newDocument();
 	}
 
 	void addToCache (String token, String type) {
-		for (int i=0; i<tagsToCache.length; i++)
-			if (type.equals(tagsToCache[i])) {
-				cache.add(token + "|" + type);
-				return;
-			}
+		decoder().addToCache(token, type);
 	}
 
 	boolean inCache (String token, String type) {
-		if (token.equalsIgnoreCase("the")) return false;  // << added Oct. 9
-		if (token.equalsIgnoreCase("of")) return false;   // << added Oct. 9
-		return cache.contains(token + "|" + type);
+		return decoder().inCache(token, type);
 	}
 
 	/**
@@ -485,6 +532,7 @@ public class HMM extends TokenClassifier {
 		Iterator stateIterator = states.iterator();
 		while (stateIterator.hasNext())
 			((HMMstate) stateIterator.next()).computeProbabilities();
+		predecessors = null;
 	}
 
 	public void createModel () {
@@ -524,6 +572,17 @@ public class HMM extends TokenClassifier {
 		}
 	}
 
+	/**
+	 *  returns the decoder used by the decoding methods of this HMM
+	 *  (<CODE>viterbi</CODE>, <CODE>nextBest</CODE>, etc.) when invoked by the
+	 *  current thread.  Each thread has its own decoder, so these methods may be
+	 *  invoked by several threads at once.
+	 */
+
+	public HMMDecoder decoder () {
+		return decoders.get();
+	}
+
 	/**
 	 *  a Viterbi decoder for HMMs.
 	 *  Given an array of token annotations, <CODE>tokens</CODE>, on document
@@ -533,133 +592,7 @@ public class HMM extends TokenClassifier {
 	 */
 
 	public int[] viterbiPath (Document doc, Annotation[] tokens) {
-		viterbiProbability = 0.;
-		int nStates = states.size();
-		nTokens = tokens.length;
-		pathProb = new double[nTokens+1][nStates];
-		backPointer = new int[nTokens+2][nStates];
-		double[][] secondBest = null;
-		if (recordMargin | recordLocalMargin)
-			secondBest = new double[nTokens+1][nStates];
-		// initialize probabilities
-		if (startState < 0) {
-			System.out.println ("No start state for HMM.");
-			return null;
-		}
-		for (int i=0; i < nStates; i++) {
-			if (i == startState)
-				pathProb[0][i] = 0.0;
-			else
-				pathProb[0][i] = UNLIKELY;
-		}
-		// induction (forward pass)
-		String priorToken = "";
-		for (int iToken=1; iToken<=nTokens; iToken++) {
-			Annotation token = tokens[iToken-1];
-			String tokenText = doc.text(token).trim();
-			for (int iState=0; iState<nStates; iState++) {
-				HMMstate state = (HMMstate) states.get(iState);
-				double emitProb = state.getEmissionProb(tokenText, priorToken, token);
-				double bestProb = UNLIKELY;
-				double secondBestProb = UNLIKELY;
-				int bestPrior = -1;
-				for (int iPrior=0; iPrior<nStates; iPrior++) {
-					HMMstate priorState = (HMMstate) states.get(iPrior);
-					double prob = pathProb[iToken-1][iPrior] +
-					              priorState.getTransitionProb(iState) + emitProb;
-					if (prob > bestProb) {
-						if (!recordLocalMargin) secondBestProb = bestProb;
-						bestProb = prob;
-						bestPrior = iPrior;
-					}
-					if (recordLocalMargin) {
-						if (violatesConstraint(iToken-1, state)) {
-							if (prob > secondBestProb) {
-					  		secondBestProb = prob;
-					  		// System.out.println ("SecondBestProb = " + secondBestProb);
-					  	}
-					  } else if (iToken > 1) {
-				  		double prob2 = secondBest[iToken-1][iPrior] +
-				    	               priorState.getTransitionProb(iState) + emitProb;
-				    	if (prob2 > secondBestProb) {
-				  			secondBestProb = prob2;
-				  			// System.out.println ("SecondBestProb* = " + secondBestProb);
-				  		}
-					  }
-					}
-				}
-				// System.out.println("Token: " + token);
-				// System.out.println("pathProb["+iToken+"]["+iState+"="+state.name+"]="+bestProb);
-				// System.out.println("backPointer["+iToken+"]["+iState+"]="+bestPrior);
-				pathProb[iToken][iState] = bestProb;
-				backPointer[iToken][iState] = bestPrior;
-				if (recordMargin | recordLocalMargin)
-					secondBest [iToken][iState] = secondBestProb;
-			}
-			priorToken = tokenText;
-		}
-		// transition to final state (last step of forward pass)
-		if (endState < 0) {
-			System.out.println ("No end state for HMM.");
-			return null;
-		}
-		double bestProb = UNLIKELY;
-		double secondBestProb = UNLIKELY;
-		int bestPrior = -1;
-		for (int iPrior=0; iPrior<nStates; iPrior++) {
-			HMMstate priorState = (HMMstate) states.get(iPrior);
-			double prob = pathProb[nTokens][iPrior] +
-			              priorState.getTransitionProb(endState);
-			if (prob > bestProb) {
-				bestProb = prob;
-				bestPrior = iPrior;
-			}
-			if (recordLocalMargin) {
-				double prob2 = secondBest[nTokens][iPrior] +
-				               priorState.getTransitionProb(endState);
-				if (prob2 > secondBestProb) {
-					secondBestProb = prob2;
-				}
-			}
-		}
-		backPointer[nTokens+1][endState] = bestPrior;
-		// path readout by backtracking
-		int[] path = new int[nTokens+2];
-		path[nTokens+1] = endState;
-		int iState = bestPrior;
-		margin = -2. * UNLIKELY;
-		for (int iToken=nTokens-1; iToken>=0; iToken--) {
-			if (iState < 0) {
-				// System.out.println ("HMM:  unable to decode sentence.");
-				// System.out.print   ("      Sentence is: ");
-				// for (int i=0; i<nTokens; i++) System.out.print (doc.text(tokens[i]));
-				// System.out.println (" ");
-				return null;
-			}
-			path[iToken+1] = iState;
-			HMMstate state = (HMMstate)states.get(iState);
-			String tag = state.tag;
-			if (tagsToCache != null) {
-				String token = doc.text(tokens[iToken]).trim();
-				if (cacheTrace) System.out.println ("Adding " + token + " to cache with tag " + tag);
-				addToCache(token, tag);
-			}
-			path[0] = startState;
-			// System.out.println ("path[" + iToken + "] = " + path[iToken]);
-			if ((recordMargin)&&
-			    pathProb[iToken+1][iState] - secondBest[iToken+1][iState] < margin)
-				margin = pathProb[iToken+1][iState] - secondBest[iToken+1][iState];
-			iState = backPointer[iToken+1][iState];
-		}
-		viterbiProbability = bestProb;
-		if (recordLocalMargin)
-			margin = bestProb - secondBestProb;
-		pathProbability = viterbiProbability;
-		if (Nbest) {
-			deviationSet = new TreeSet();
-			addDeviations (path, viterbiProbability, nTokens+1);
-		}
-		return path;
+		return decoder().viterbiPath(doc, tokens);
 	}
 
 	/**
@@ -671,15 +604,16 @@ public class HMM extends TokenClassifier {
 	 */
 
 	public String[] viterbi (Document doc, Annotation[] tokens) {
-		int[] path = viterbiPath(doc, tokens);
-		if (path == null) return null;
-		int len = tokens.length;
-		String[] pathTags = new String[len];
-		for (int i=0; i<len; i++) {
-			HMMstate state = (HMMstate)states.get(path[i+1]);
-			pathTags[i] = state.tag;
-		}
-		return pathTags;
+		return decoder().viterbi(doc, tokens);
+	}
+
+	/**
+	 *  after the viterbi decoder method has been invoked, the probability
+	 *  along the best path found by the decoder.
+	 */
+
+	public double getViterbiProbability () {
+		return decoder().getViterbiProbability();
 	}
 
 	/**
@@ -688,7 +622,7 @@ public class HMM extends TokenClassifier {
 	 */
 
 	public double getPathProbability () {
-		return pathProbability;
+		return decoder().getPathProbability();
 	}
 
 	/**
@@ -707,7 +641,7 @@ public class HMM extends TokenClassifier {
 	 */
 
 	public double getMargin() {
-		return margin;
+		return decoder().getMargin();
 	}
 
 	/**
@@ -728,60 +662,22 @@ public class HMM extends TokenClassifier {
 	public double getLocalMargin (Document doc, Annotation[] tokens,
 	                              String excludedTag, int excludedTagStart,
 	                              int excludedTagEnd) {
-	  // System.out.println ("Excluding " + excludedTag + " from " + excludedTagStart +
-	  //                     " to " + excludedTagEnd);
-		this.excludedTag = excludedTag;
-		this.excludedTagStart = excludedTagStart;
-		this.excludedTagEnd = excludedTagEnd;
-		recordLocalMargin = true;
-		viterbi (doc, tokens);
-		recordLocalMargin = false;
-		// System.out.println ("Margin = " + margin);
-		return margin;
-	}
-
-	private boolean violatesConstraint (int iToken, HMMstate state) {
-		return ((iToken == (excludedTagStart - 1)) && state.tag.equals(excludedTag)) ||
-		       ((iToken >= excludedTagStart && iToken <= excludedTagEnd) &&
-		         !state.tag.equals(excludedTag)) ||
-		       ((iToken == (excludedTagEnd + 1)) && state.tag.equals(excludedTag));
-	}
-
-	private void addDeviations (int[] currentPath, double currentCost, int lastToken) {
-  	for (int i=2; i<=lastToken; i++) {
-  		addDeviationsAtToken (currentPath, currentCost, i);
-  	}
-  }
+		return decoder().getLocalMargin(doc, tokens, excludedTag, excludedTagStart,
+		                                excludedTagEnd);
+	}
 
-  /**
-   *  adds deviations from the predecessors of token in currentPath (a part of
-   *  N-best path generation).
-   */
+	/**
+	 *  sets the beam used by the decoders of this HMM (unless a decoder has
+	 *  its own beam), or <CODE>null</CODE> for exact Viterbi decoding.
+	 */
 
-  private void addDeviationsAtToken (int[] currentPath, double currentCost, int token) {
-  	// determine selected prior
-  	int state = currentPath[token];
-  	int bestPrior = backPointer[token][state];
-  	HMMstate bestPriorState = (HMMstate) states.get(bestPrior);
-  	// iterate over all priors EXCEPT selected one
-  	for (int prior = 0; prior < states.size(); prior++) {
-  		if (prior == bestPrior) continue;
-  		if (prior == startState) continue;
-  		if (prior == endState) continue;
-  		HMMstate priorState = (HMMstate) states.get(prior);
-  		if (priorState.getTransitionProb(state) == UNLIKELY) continue;
-  		// compute cost of deviation path
-  		double deviantCost = currentCost
-  		       - /* cost of best path to best prior */ pathProb[token-1][bestPrior]
-  		       - /* cost of arc from bestPrior to current */ bestPriorState.getTransitionProb(state)
-   		       + /* cost of arc from prior to current */ priorState.getTransitionProb(state)
-  		       + /* cost of best path to prior */ pathProb[token-1][prior];
-  		// create deviation node
-  		Deviation d = new Deviation (currentPath, token, prior, deviantCost);
-  		deviationSet.add(d);
-  		// System.out.println ("Adding deviation " + d);
-  	}
-  }
+	public void setBeam (Beam beam) {
+		this.beam = beam;
+	}
+
+	public Beam getBeam () {
+		return beam;
+	}
 
   /**
    *  enables N-best search.  This method must be called before calling
@@ -802,31 +698,7 @@ public class HMM extends TokenClassifier {
 	 */
 
 	public int[] nextBestPath () {
-		if (deviationSet == null || deviationSet.isEmpty())
-			return null;
-		// find best deviation
-		Deviation d = (Deviation) deviationSet.last();
-		// System.out.println ("Trying deviation " + d);
-		deviationSet.remove(d);
-		int[] basePath = d.basePath;
-		int token = d.token;
-		int[] newPath = new int[nTokens+2];
-		// duplicate path array past deviation point
-		for (int i=token; i<nTokens+2; i++)
-			newPath[i] = basePath[i];
-		// create path array from deviation point to start
-		int newPrior = d.prior;
-		for (int i=token-1; i>=0; i--) {
-			newPath[i] = newPrior;
-			newPrior = backPointer[i][newPrior];
-			// if we can't build this path, give up
-			if (newPrior < 0)
-				return null;
-		}
-		// build deviations for new path
-		addDeviations (newPath, d.cost, token-1);
-		pathProbability = d.cost;
-		return newPath;
+		return decoder().nextBestPath();
 	}
 
 	/**
@@ -839,57 +711,7 @@ public class HMM extends TokenClassifier {
 	 */
 
 	public String[] nextBest () {
-		int[] path = nextBestPath ();
-		if (path == null) return null;
-		String[] pathTags = new String[nTokens];
-		for (int i=0; i<nTokens; i++) {
-			HMMstate state = (HMMstate)states.get(path[i+1]);
-			pathTags[i] = state.tag;
-		}
-		return pathTags;
-	}
-
-	/**
-	 *  a possible modification of a path through the lattice, and the cost of the
-	 *  modified path.  An instance represents the possibility of changing the
-	 *  state of the token <i>preceeding</i> <CODE>token</CODE> to <CODE>prior</CODE>
-	 *  in path <CODE>basePath</CODE>.  The probability of the resulting path
-	 *  is <CODE>cost</CODE>.
-	 */
-
-	private class Deviation implements Comparable {
-
-		int[] basePath;
-		int token;
-		int prior;
-		double cost;
-
-		public Deviation (int[] basePath, int token, int prior, double cost) {
-			this.basePath = basePath;
-			this.token = token;
-			this.prior = prior;
-			this.cost = cost;
-		}
-
-		public int compareTo (Object o) {
-			if (o instanceof Deviation) {
-				Deviation d2 = (Deviation) o;
-				double cost2 = d2.cost;
-				if (cost < cost2)
-					return -1;
-				else if (cost > cost2)
-					return +1;
-				else
-					return 0;
-			} else {
-				throw new ClassCastException();
-			}
-		}
-
-		public String toString () {
-			return "Change prior of token " + token + " to " + prior + " in" + pathString(basePath);
-		}
-
+		return decoder().nextBest();
 	}
 
 	/**
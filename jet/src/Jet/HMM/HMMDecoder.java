@@ -0,0 +1,533 @@
+// -*- tab-width: 4 -*-
+//Title:        JET
+//Copyright:    Copyright (c) 2003, 2005
+//Author:       Ralph Grishman
+//Description:  A Java-based Information Extraction Tool
+
+package Jet.HMM;
+
+import java.util.*;
+import Jet.Tipster.*;
+import Jet.Chunk.Beam;
+import Jet.Chunk.TokenClassifier;
+import Jet.PipelineContext;
+
+/**
+ *  a Viterbi decoder for an HMM.
+ *  <p>
+ *  The HMM itself (its states, arcs, and emitters) is not changed by decoding,
+ *  so one trained HMM can be shared by several threads.  The state of a
+ *  decoding -- the Viterbi lattice, the probability and margin of the best path,
+ *  the deviations used to generate N-best paths, and the document's name
+ *  cache -- is held by the decoder.  Each thread tagging with a shared HMM
+ *  should use its own decoder, obtained with <CODE>new HMMDecoder(hmm)</CODE>.
+ *  (The decoding methods of HMM itself use a decoder belonging to the
+ *  current thread.)
+ *  <p>
+ *  Training, storing and loading a decoder apply to the underlying HMM.
+ */
+
+public class HMMDecoder extends TokenClassifier {
+
+	private final HMM hmm;
+
+	// the Viterbi decoding lattice
+	private final ViterbiLattice lattice = new ViterbiLattice();
+	private int nTokens;
+	private double[][] pathProb;
+	private int[][] backPointer;
+
+	// the name cache for the current document
+	private HashSet<String> cache = new HashSet<String>();
+
+	// data for generating N-best paths
+	private SortedSet<Deviation> deviationSet;
+
+	private double viterbiProbability = 0.;
+	private double pathProbability = 0.;
+	private double margin;
+	private boolean recordMargin = false;
+	private boolean recordLocalMargin = false;
+	private boolean Nbest = false;
+	private Beam beam = null;
+
+	private String excludedTag = null;
+	private int excludedTagStart = 0;
+	private int excludedTagEnd = 0;
+
+	/**
+	 *  create a new decoder for HMM <CODE>hmm</CODE>.
+	 */
+
+	public HMMDecoder (HMM hmm) {
+		this.hmm = hmm;
+	}
+
+	/**
+	 *  returns the HMM decoded by this decoder.
+	 */
+
+	public HMM getHMM () {
+		return hmm;
+	}
+
+	/**
+	 *  clears the name cache for the document.  Should be invoked before beginning
+	 *  the processing of a new document.
+	 */
+
+	public void newDocument () {
+		cache = new HashSet<String>();
+	}
+
+	void addToCache (String token, String type) {
+		String[] tagsToCache = hmm.tagsToCache;
+		for (int i=0; i<tagsToCache.length; i++)
+			if (type.equals(tagsToCache[i])) {
+				cache.add(token + "|" + type);
+				return;
+			}
+	}
+
+	boolean inCache (String token, String type) {
+		if (token.equalsIgnoreCase("the")) return false;  // << added Oct. 9
+		if (token.equalsIgnoreCase("of")) return false;   // << added Oct. 9
+		return cache.contains(token + "|" + type);
+	}
+
+	/**
+	 *  a Viterbi decoder for HMMs.
+	 *  Given an array of token annotations, <CODE>tokens</CODE>, on document
+	 *  <CODE>doc</CODE>, returns the most likely path which can generate
+	 *  those tokens.  The value returned is an array of the <B>states</B>
+	 *  (indexes into the states of the HMM) along the most likely path.
+	 */
+
+	public int[] viterbiPath (Document doc, Annotation[] tokens) {
+		viterbiProbability = 0.;
+		ArrayList states = hmm.states;
+		int nStates = states.size();
+		int startState = hmm.startState;
+		int endState = hmm.endState;
+		nTokens = tokens.length;
+		boolean recordMargin = this.recordMargin || hmm.recordMargin;
+		boolean margins = recordMargin | recordLocalMargin;
+		lattice.ensureCapacity(nTokens, nStates, margins);
+		pathProb = lattice.pathProb;
+		backPointer = lattice.backPointer;
+		double[][] secondBest = margins ? lattice.secondBest : null;
+		double[] emitProb = lattice.emission;
+		Beam beam = this.beam != null ? this.beam : hmm.beam;
+		int[] active = lattice.active;
+		int[] reached = lattice.reached;
+		// initialize probabilities
+		if (startState < 0) {
+			System.out.println ("No start state for HMM.");
+			return null;
+		}
+		for (int i=0; i < nStates; i++) {
+			if (i == startState)
+				pathProb[0][i] = 0.0;
+			else
+				pathProb[0][i] = HMM.UNLIKELY;
+		}
+		// only arcs which exist are considered:  a path through a missing
+		// arc has probability UNLIKELY and is never selected
+		HMM.Predecessors predecessors = hmm.predecessors();
+		int[][] priorStates = predecessors.states;
+		double[][] arcProb = predecessors.arcProb;
+		int[][] successors = predecessors.successors;
+		double otherPreference = PipelineContext.current().otherPreference;
+		// induction (forward pass)
+		String priorToken = "";
+		for (int iToken=1; iToken<=nTokens; iToken++) {
+			Annotation token = tokens[iToken-1];
+			String tokenText = doc.text(token).trim();
+			double[] priorProb = pathProb[iToken-1];
+			int stamp = 0;
+			if (beam != null) {
+				stamp = lattice.nextStamp();
+				// keep only the best states at the prior token, and
+				// only consider states reachable from them
+				int nActive = beam.select(priorProb, nStates, HMM.UNLIKELY, active);
+				for (int iState=0, k=0; iState<nStates; iState++) {
+					if (k < nActive && active[k] == iState)
+						k++;
+					else
+						priorProb[iState] = HMM.UNLIKELY;
+				}
+				for (int k=0; k<nActive; k++) {
+					int[] next = successors[active[k]];
+					for (int j=0; j<next.length; j++)
+						reached[next[j]] = stamp;
+				}
+			}
+			for (int iState=0; iState<nStates; iState++) {
+				if (beam != null && reached[iState] != stamp) {
+					emitProb[iState] = HMM.UNLIKELY;
+					continue;
+				}
+				HMMstate state = (HMMstate) states.get(iState);
+				emitProb[iState] = state.getEmissionProb(tokenText, priorToken, token, this, otherPreference);
+			}
+			for (int iState=0; iState<nStates; iState++) {
+				if (beam != null && reached[iState] != stamp) {
+					pathProb[iToken][iState] = HMM.UNLIKELY;
+					backPointer[iToken][iState] = -1;
+					if (margins)
+						secondBest [iToken][iState] = HMM.UNLIKELY;
+					continue;
+				}
+				double emit = emitProb[iState];
+				int[] priors = priorStates[iState];
+				double[] arcProbs = arcProb[iState];
+				boolean violates = recordLocalMargin &&
+				                   violatesConstraint(iToken-1, (HMMstate) states.get(iState));
+				double bestProb = HMM.UNLIKELY;
+				double secondBestProb = HMM.UNLIKELY;
+				int bestPrior = -1;
+				for (int k=0; k<priors.length; k++) {
+					int iPrior = priors[k];
+					double prob = priorProb[iPrior] + arcProbs[k] + emit;
+					if (prob > bestProb) {
+						if (!recordLocalMargin) secondBestProb = bestProb;
+						bestProb = prob;
+						bestPrior = iPrior;
+					}
+					if (recordLocalMargin) {
+						if (violates) {
+							if (prob > secondBestProb) {
+								secondBestProb = prob;
+							}
+						} else if (iToken > 1) {
+							double prob2 = secondBest[iToken-1][iPrior] + arcProbs[k] + emit;
+							if (prob2 > secondBestProb) {
+								secondBestProb = prob2;
+							}
+						}
+					}
+				}
+				pathProb[iToken][iState] = bestProb;
+				backPointer[iToken][iState] = bestPrior;
+				if (margins)
+					secondBest [iToken][iState] = secondBestProb;
+			}
+			priorToken = tokenText;
+		}
+		// transition to final state (last step of forward pass)
+		if (endState < 0) {
+			System.out.println ("No end state for HMM.");
+			return null;
+		}
+		double bestProb = HMM.UNLIKELY;
+		double secondBestProb = HMM.UNLIKELY;
+		int bestPrior = -1;
+		int[] priors = priorStates[endState];
+		double[] arcProbs = arcProb[endState];
+		for (int k=0; k<priors.length; k++) {
+			int iPrior = priors[k];
+			double prob = pathProb[nTokens][iPrior] + arcProbs[k];
+			if (prob > bestProb) {
+				bestProb = prob;
+				bestPrior = iPrior;
+			}
+			if (recordLocalMargin) {
+				double prob2 = secondBest[nTokens][iPrior] + arcProbs[k];
+				if (prob2 > secondBestProb) {
+					secondBestProb = prob2;
+				}
+			}
+		}
+		backPointer[nTokens+1][endState] = bestPrior;
+		// path readout by backtracking
+		int[] path = new int[nTokens+2];
+		path[nTokens+1] = endState;
+		int iState = bestPrior;
+		margin = -2. * HMM.UNLIKELY;
+		for (int iToken=nTokens-1; iToken>=0; iToken--) {
+			if (iState < 0) {
+				return null;
+			}
+			path[iToken+1] = iState;
+			HMMstate state = (HMMstate)states.get(iState);
+			String tag = state.tag;
+			if (hmm.tagsToCache != null) {
+				String token = doc.text(tokens[iToken]).trim();
+				if (HMM.cacheTrace) System.out.println ("Adding " + token + " to cache with tag " + tag);
+				addToCache(token, tag);
+			}
+			path[0] = startState;
+			if ((recordMargin)&&
+			    pathProb[iToken+1][iState] - secondBest[iToken+1][iState] < margin)
+				margin = pathProb[iToken+1][iState] - secondBest[iToken+1][iState];
+			iState = backPointer[iToken+1][iState];
+		}
+		viterbiProbability = bestProb;
+		if (recordLocalMargin)
+			margin = bestProb - secondBestProb;
+		pathProbability = viterbiProbability;
+		if (Nbest || hmm.Nbest) {
+			deviationSet = new TreeSet<Deviation>();
+			addDeviations (path, viterbiProbability, nTokens+1);
+		}
+		return path;
+	}
+
+	/**
+	 *  a Viterbi decoder for HMMs.
+	 *  Given an array of token annotations, <CODE>tokens</CODE>, on document
+	 *  <CODE>doc</CODE>, returns the most likely path which can generate
+	 *  those tokens.  The value returned is an array of the <B>tags</B>
+	 *  associated with the states along the most likely path.
+	 */
+
+	public String[] viterbi (Document doc, Annotation[] tokens) {
+		int[] path = viterbiPath(doc, tokens);
+		if (path == null) return null;
+		return pathTags(path);
+	}
+
+	private String[] pathTags (int[] path) {
+		String[] pathTags = new String[nTokens];
+		for (int i=0; i<nTokens; i++) {
+			HMMstate state = (HMMstate) hmm.states.get(path[i+1]);
+			pathTags[i] = state.tag;
+		}
+		return pathTags;
+	}
+
+	/**
+	 *  after the viterbi decoder method has been invoked, returns the
+	 *  probability along the best path found by the decoder.
+	 */
+
+	public double getViterbiProbability () {
+		return viterbiProbability;
+	}
+
+	/**
+	 *  after either the viterbi decode or the nextBest method has been
+	 *  invoked, returns the probability along the most recently returned path.
+	 */
+
+	public double getPathProbability () {
+		return pathProbability;
+	}
+
+	/**
+	 *  enable the recording of the margin (the difference in score between the
+	 *  best and second best analysis) by this decoder.
+	 */
+
+	public void recordMargin () {
+		recordMargin = true;
+	}
+
+	/**
+	 *  if invoked after a call on 'viterbi', returns the margin (the difference
+	 *  in score between the best and second best analyses).  Requires that
+	 *  'recordMargin' be called (on the decoder or the HMM) at some point before
+	 *  the call on 'viterbi'.
+	 */
+
+	public double getMargin () {
+		return margin;
+	}
+
+	/**
+	 *  returns the margin for assigning a particular tag to a sequence of
+	 *  tokens.  See {@link HMM#getLocalMargin}.
+	 */
+
+	public double getLocalMargin (Document doc, Annotation[] tokens,
+	                              String excludedTag, int excludedTagStart,
+	                              int excludedTagEnd) {
+		this.excludedTag = excludedTag;
+		this.excludedTagStart = excludedTagStart;
+		this.excludedTagEnd = excludedTagEnd;
+		recordLocalMargin = true;
+		try {
+			viterbi (doc, tokens);
+		} finally {
+			recordLocalMargin = false;
+		}
+		return margin;
+	}
+
+	private boolean violatesConstraint (int iToken, HMMstate state) {
+		return ((iToken == (excludedTagStart - 1)) && state.tag.equals(excludedTag)) ||
+		       ((iToken >= excludedTagStart && iToken <= excludedTagEnd) &&
+		         !state.tag.equals(excludedTag)) ||
+		       ((iToken == (excludedTagEnd + 1)) && state.tag.equals(excludedTag));
+	}
+
+	private void addDeviations (int[] currentPath, double currentCost, int lastToken) {
+		for (int i=2; i<=lastToken; i++) {
+			addDeviationsAtToken (currentPath, currentCost, i);
+		}
+	}
+
+	/**
+	 *  adds deviations from the predecessors of token in currentPath (a part of
+	 *  N-best path generation).
+	 */
+
+	private void addDeviationsAtToken (int[] currentPath, double currentCost, int token) {
+		ArrayList states = hmm.states;
+		// determine selected prior
+		int state = currentPath[token];
+		int bestPrior = backPointer[token][state];
+		HMMstate bestPriorState = (HMMstate) states.get(bestPrior);
+		// iterate over all priors EXCEPT selected one
+		for (int prior = 0; prior < states.size(); prior++) {
+			if (prior == bestPrior) continue;
+			if (prior == hmm.startState) continue;
+			if (prior == hmm.endState) continue;
+			HMMstate priorState = (HMMstate) states.get(prior);
+			if (priorState.getTransitionProb(state) == HMM.UNLIKELY) continue;
+			// compute cost of deviation path
+			double deviantCost = currentCost
+			       - /* cost of best path to best prior */ pathProb[token-1][bestPrior]
+			       - /* cost of arc from bestPrior to current */ bestPriorState.getTransitionProb(state)
+			       + /* cost of arc from prior to current */ priorState.getTransitionProb(state)
+			       + /* cost of best path to prior */ pathProb[token-1][prior];
+			// create deviation node
+			deviationSet.add(new Deviation (currentPath, token, prior, deviantCost));
+		}
+	}
+
+	/**
+	 *  sets the beam used by this decoder, overriding the beam set for
+	 *  the HMM.  <CODE>new Beam(0, 0)</CODE> selects exact decoding.
+	 */
+
+	public void setBeam (Beam beam) {
+		this.beam = beam;
+	}
+
+	/**
+	 *  returns the beam used by this decoder, or <CODE>null</CODE> for
+	 *  exact decoding.
+	 */
+
+	public Beam getBeam () {
+		return beam != null ? beam : hmm.getBeam();
+	}
+
+	/**
+	 *  enables N-best search.  This method must be called before calling
+	 *  <CODE>viterbi</CODE> if you intend to also call <CODE>nextBest</CODE>.
+	 */
+
+	public void setNbest () {
+		Nbest = true;
+	}
+
+	/**
+	 *  an N-best-paths generator for HMMs.  It assumes that <CODE>viterbiPath</CODE>
+	 *  has already been called with an array of token annotations  and has
+	 *  returned the most likely path.  Each subsequent call on <CODE>nextBest</CODE>
+	 *  returns the next best (next most likely) path, or <CODE>null</CODE> if no
+	 *  further paths can be found.  The value returned is an array of the <B>states</B>
+	 *  along the path.
+	 */
+
+	public int[] nextBestPath () {
+		if (deviationSet == null || deviationSet.isEmpty())
+			return null;
+		// find best deviation
+		Deviation d = deviationSet.last();
+		deviationSet.remove(d);
+		int[] basePath = d.basePath;
+		int token = d.token;
+		int[] newPath = new int[nTokens+2];
+		// duplicate path array past deviation point
+		for (int i=token; i<nTokens+2; i++)
+			newPath[i] = basePath[i];
+		// create path array from deviation point to start
+		int newPrior = d.prior;
+		for (int i=token-1; i>=0; i--) {
+			newPath[i] = newPrior;
+			newPrior = backPointer[i][newPrior];
+			// if we can't build this path, give up
+			if (newPrior < 0)
+				return null;
+		}
+		// build deviations for new path
+		addDeviations (newPath, d.cost, token-1);
+		pathProbability = d.cost;
+		return newPath;
+	}
+
+	/**
+	 *  an N-best-paths generator for HMMs.  It assumes that <CODE>viterbi</CODE>
+	 *  has already been called with an array of token annotations  and has
+	 *  returned the most likely path.  Each subsequent call on <CODE>nextBest</CODE>
+	 *  returns the next best (next most likely) path, or <CODE>null</CODE> if no
+	 *  further paths can be found.  The value returned is an array of the <B>tags</B>
+	 *  associated with the states along the path.
+	 */
+
+	public String[] nextBest () {
+		int[] path = nextBestPath ();
+		if (path == null) return null;
+		return pathTags(path);
+	}
+
+	/*
+	 *  training, storing and loading apply to the HMM
+	 */
+
+	public void train (Document doc, Annotation[] tokens, String[] tags) {
+		hmm.train(doc, tokens, tags);
+	}
+
+	public void createModel () {
+		hmm.createModel();
+	}
+
+	public void store (String fileName) {
+		hmm.store(fileName);
+	}
+
+	public void load (String fileName) {
+		hmm.load(fileName);
+	}
+
+	/**
+	 *  a possible modification of a path through the lattice, and the cost of the
+	 *  modified path.  An instance represents the possibility of changing the
+	 *  state of the token <i>preceeding</i> <CODE>token</CODE> to <CODE>prior</CODE>
+	 *  in path <CODE>basePath</CODE>.  The probability of the resulting path
+	 *  is <CODE>cost</CODE>.
+	 */
+
+	private static class Deviation implements Comparable<Deviation> {
+
+		int[] basePath;
+		int token;
+		int prior;
+		double cost;
+
+		Deviation (int[] basePath, int token, int prior, double cost) {
+			this.basePath = basePath;
+			this.token = token;
+			this.prior = prior;
+			this.cost = cost;
+		}
+
+		public int compareTo (Deviation d2) {
+			double cost2 = d2.cost;
+			if (cost < cost2)
+				return -1;
+			else if (cost > cost2)
+				return +1;
+			else
+				return 0;
+		}
+
+		public String toString () {
+			return "Change prior of token " + token + " to " + prior + " in" + HMM.pathString(basePath);
+		}
+	}
+}
@@ -16,6 +16,8 @@ import Jet.Scorer.*;
 import Jet.Lisp.*;
 import Jet.Zoner.*;
 import Jet.Console;
+import Jet.PipelineContext;
+import Jet.Chunk.TokenClassifier;
 import AceJet.Ace;	// for monocase flags
 
 /**
@@ -227,8 +229,8 @@ public class HMMNameTagger implements NameTagger {
 			Annotation ann = (Annotation)it.next ();
 			Span textSpan = ann.span ();
 			// check document case
-			Ace.monocase = Ace.allLowerCase(doc);
-			System.out.println (">>> Monocase is " + Ace.monocase);
+			PipelineContext.current().monocase = Ace.allLowerCase(doc);
+			System.out.println (">>> Monocase is " + PipelineContext.current().monocase);
 			// split into sentences
 			SentenceSplitter.split (doc, textSpan);
 		}
@@ -238,7 +240,7 @@ public class HMMNameTagger implements NameTagger {
 		while (is.hasNext ()) {
 			Annotation sentence = (Annotation)is.next ();
 			Span sentenceSpan = sentence.span();
-			Ace.monocase = Ace.allLowerCase(doc, sentenceSpan) || Ace.titleCase(doc, sentenceSpan); //<<
+			PipelineContext.current().monocase = Ace.allLowerCase(doc, sentenceSpan) || Ace.titleCase(doc, sentenceSpan); //<<
 			Tokenizer.tokenize (doc, sentenceSpan);
 			annotator.trainOnSpan (doc, sentenceSpan);
 		}
@@ -286,8 +288,8 @@ public class HMMNameTagger implements NameTagger {
 	        Annotation ann = (Annotation)it.next ();
 	        Span textSpan = ann.span ();
 	        // check document case
-					Ace.monocase = Ace.allLowerCase(doc);
-					System.out.println (">>> Monocase is " + Ace.monocase);
+					PipelineContext.current().monocase = Ace.allLowerCase(doc);
+					System.out.println (">>> Monocase is " + PipelineContext.current().monocase);
 	        SentenceSplitter.split (doc, textSpan);
 	    }
 	    Vector sentences = doc.annotationsOfType ("sentence");
@@ -305,8 +307,8 @@ public class HMMNameTagger implements NameTagger {
     	while (is.hasNext ()) {
 	    	Annotation sentence = (Annotation)is.next ();
 	    	Span sentenceSpan = sentence.span();
-	    	Ace.monocase = Ace.allLowerCase(doc, sentenceSpan) || Ace.titleCase(doc, sentenceSpan); //<<
-				// System.out.println (">>> Monocase is " + Ace.monocase);
+	    	PipelineContext.current().monocase = Ace.allLowerCase(doc, sentenceSpan) || Ace.titleCase(doc, sentenceSpan); //<<
+				// System.out.println (">>> Monocase is " + PipelineContext.current().monocase);
 	    	Tokenizer.tokenize (doc, sentenceSpan);
 	    	tag (doc, sentenceSpan);
 		}
@@ -316,16 +318,35 @@ public class HMMNameTagger implements NameTagger {
 		nameHMM.newDocument();
 	}
 
+	/**
+	 *  returns a new decoder for this tagger's HMM.  A thread which tags
+	 *  with a tagger shared with other threads may use its own decoder
+	 *  with {@link #tag(Document, Span, HMMDecoder)}.
+	 */
+
+	public HMMDecoder newDecoder () {
+		return new HMMDecoder(nameHMM);
+	}
+
 	/**
 	 *  tag span 'span' of Document 'doc' with Named Entity annotations.
 	 */
 
 	public void tag (Document doc, Span span) {
-   	// Ace.monocase = Ace.allLowerCase(doc, span) || Ace.titleCase(doc, span); //<<
+		tag (doc, span, nameHMM.decoder());
+	}
+
+	/**
+	 *  tag span 'span' of Document 'doc' with Named Entity annotations,
+	 *  using decoder 'decoder' (which holds the name cache for 'doc').
+	 */
+
+	public void tag (Document doc, Span span, HMMDecoder decoder) {
+   	// PipelineContext.current().monocase = Ace.allLowerCase(doc, span) || Ace.titleCase(doc, span); //<<
 		if (inZone(doc, span, "POSTER") || inZone(doc, span, "SPEAKER"))
-			tagPersonZone (doc, span, annotator);
+			tagPersonZone (doc, span, annotator, decoder);
 		else
-			annotator.annotateSpan (doc, span);
+			annotator.annotateSpan (doc, span, decoder);
 	}
 	
 	/**
@@ -354,6 +375,11 @@ public class HMMNameTagger implements NameTagger {
 	}
 
 	public static void tagPersonZone (Document doc, Span span, HMMannotator annotator) {
+		tagPersonZone (doc, span, annotator, annotator.hmm);
+	}
+
+	static void tagPersonZone (Document doc, Span span, HMMannotator annotator,
+	                           TokenClassifier decoder) {
 		// skip leading whitespace
 		String text = doc.text();
 		int start = span.start();
@@ -373,7 +399,7 @@ public class HMMNameTagger implements NameTagger {
 			if (comma > start)
 				doc.annotate("ENAMEX", sName, new FeatureSet ("TYPE", "PERSON"));
 			if (end > comma)				
-				annotator.annotateSpan (doc, sRest);
+				annotator.annotateSpan (doc, sRest, decoder);
 		}
 	}
 
@@ -475,7 +501,7 @@ public class HMMNameTagger implements NameTagger {
 		String keyCollection = home + "ACE/training04 nwire 20 ne.txt";
 		// String keyCollection = home + "ACE/training04 bnews 20 ne.txt";
 		// String keyCollection = home + "ACE/rdreval04 nwire ne.txt";
-		BigramHMMemitter.useBigrams = false;
+		PipelineContext.current().useBigrams = false;
 		NEScorer.scoreCollection (nt, testCollection, keyCollection, tagsToScore);
 	}
 
@@ -510,7 +536,7 @@ public class HMMNameTagger implements NameTagger {
 	private static void ace05Test (HMMNameTagger nt) throws IOException {
 		String testCollection = ACEdir + "NE/headSgm.txt";
 		String keyCollection = ACEdir + "NE/headNE.txt";
-		BigramHMMemitter.useBigrams = false;
+		PipelineContext.current().useBigrams = false;
 		NEScorer.scoreCollection (nt, testCollection, keyCollection, tagsToScore);
 	}
 
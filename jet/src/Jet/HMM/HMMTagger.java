@@ -138,15 +138,34 @@ public class HMMTagger {
 	 */
 
 	public void annotate (Document doc, Span span, String type) {
+		annotate (doc, span, type, posh.decoder());
+	}
+
+	/**
+	 *  tag 'span' of 'doc' according to the Penn Tree Bank tag set, using
+	 *  decoder 'decoder'.  Words are assigned annotations of type 'type' with
+	 *  feature cat = a Penn tag.
+	 */
+
+	public void annotate (Document doc, Span span, String type, HMMDecoder decoder) {
+		String[][] tagTable = new String[posTable.length][];
 		for (int i=0; i<posTable.length; i++)
 			tagTable[i] = new String[] {type, "cat", posTable[i], posTable[i]};
 
-		annotator = new HMMannotator(posh);
+		HMMannotator annotator = new HMMannotator(posh);
 		annotator.setTagTable (tagTable);
 		annotator.setBItag (false);
 		annotator.setTrace (trace);
 
-		annotator.annotateSpan (doc, span);
+		annotator.annotateSpan (doc, span, decoder);
+	}
+
+	/**
+	 *  returns a new decoder for this tagger's HMM, for use by one thread.
+	 */
+
+	public HMMDecoder newDecoder () {
+		return new HMMDecoder(posh);
 	}
 
 	/**
@@ -230,7 +230,8 @@ public class HMMannotator {
 	// assign to 'span' the annotation associated with tag 'tag'.
 
 	private void annotateForTag (Document doc, String tag,
-	                             Annotation[] tokens, int first, int last) {
+	                             Annotation[] tokens, int first, int last,
+	                             TokenClassifier decoder) {
 	  if (last - first + 1 > LONGEST_ANNOTATION_SPAN)
 	    return;
 	  int start = tokens[first].start();
@@ -241,7 +242,7 @@ public class HMMannotator {
 			if (tag.equals(tagEntry[3])) {
 				double margin = 0.;
 				if (recordMargin) {
-					margin = hmm.getLocalMargin (doc, tokens, tag, first, last);
+					margin = decoder.getLocalMargin (doc, tokens, tag, first, last);
 					// if (margin < 8) return;
 				}
 				FeatureSet fs = (tagEntry[1]==null) ?
@@ -431,14 +432,24 @@ public class HMMannotator {
      */
 
 	public void annotateSpan (Document doc, Span textSpan) {
+		annotateSpan (doc, textSpan, hmm);
+	}
+
+	/**
+	 *  use the HMM to add annotations to Span 'textSpan' of Document 'doc',
+	 *  decoding with 'decoder' (typically an HMMDecoder for the annotator's HMM
+	 *  which belongs to the calling thread).
+	 */
+
+	public void annotateSpan (Document doc, Span textSpan, TokenClassifier decoder) {
 		// gather tokens in textSpan;  if none, return
 		Annotation[] tokens = Tokenizer.gatherTokens(doc, textSpan);
 		if (tokens.length == 0) return;
 		// set tags using HMM
-		String[] tags = hmm.viterbi(doc, tokens);
+		String[] tags = decoder.viterbi(doc, tokens);
 		// if Viterbi decoder found no path through HMM, return
 		if (tags == null) return;
-		tagsToAnnotations (doc, tokens, tags);
+		tagsToAnnotations (doc, tokens, tags, decoder);
 	}
 
 	/**
@@ -453,13 +464,26 @@ public class HMMannotator {
 	 */
 
 	public ArrayList annotateSpanNbest (Document doc, Span textSpan, int n, String hypId) {
+		return annotateSpanNbest (doc, textSpan, n, hypId, hmm);
+	}
+
+	/**
+	 *  use the HMM to add the annotations for the <CODE>n</CODE> most likely
+	 *  state sequences to Span 'textSpan' of Document 'doc', decoding with
+	 *  'decoder'.
+	 *
+	 *  @return an ArrayList of the hypothesis identifiers
+	 */
+
+	public ArrayList annotateSpanNbest (Document doc, Span textSpan, int n, String hypId,
+	                                    TokenClassifier decoder) {
 		ArrayList hypotheses = new ArrayList();
 		// gather tokens in textSpan;  if none, return
 		Annotation[] tokens = Tokenizer.gatherTokens(doc, textSpan);
 		if (tokens.length == 0) return hypotheses;
 		// set tags using HMM
 		// hmm.recordMargin();                        // <<< for margin-conditioned Nbest
-		String[] tags = hmm.viterbi(doc, tokens);
+		String[] tags = decoder.viterbi(doc, tokens);
 		// double margin = hmm.getMargin();           // <<< for margin-conditioned Nbest
 		// System.out.println ("Margin = " + margin); // <<< for margin-conditioned Nbest
 		// if (margin > 10.0) n = 1;                  // <<< for margin-conditioned Nbest
@@ -467,31 +491,32 @@ public class HMMannotator {
 		if (tags == null) return hypotheses;
 		String hypothesis = hypId + "-0";
 		doc.setCurrentHypothesis(hypothesis);
-		tagsToAnnotations (doc, tokens, tags);
+		tagsToAnnotations (doc, tokens, tags, decoder);
 		hypotheses.add(hypothesis);
 		if (recordProbability) {
 			doc.annotate("HMMtags", textSpan,
-			             new FeatureSet("prob", new Integer((int)hmm.getPathProbability())));
+			             new FeatureSet("prob", new Integer((int)decoder.getPathProbability())));
 		}
 		for (int i=1; i<n; i++) {
 			// set tags using HMM
-			tags = hmm.nextBest();
+			tags = decoder.nextBest();
 			// if decoder found no more paths through HMM, return
 			if (tags == null) break;
 			hypothesis = hypId + "-" + i;
 			doc.setCurrentHypothesis(hypothesis);
-			tagsToAnnotations (doc, tokens, tags);
+			tagsToAnnotations (doc, tokens, tags, decoder);
 			hypotheses.add(hypothesis);
 			if (recordProbability) {
 				doc.annotate("HMMtags", textSpan,
-				             new FeatureSet("prob", new Integer((int)hmm.getPathProbability())));
+				             new FeatureSet("prob", new Integer((int)decoder.getPathProbability())));
 			}
 		}
 		doc.setCurrentHypothesis(null);
 		return hypotheses;
 	}
 
-	private void tagsToAnnotations (Document doc, Annotation[] tokens, String[] tags) {
+	private void tagsToAnnotations (Document doc, Annotation[] tokens, String[] tags,
+	                                TokenClassifier decoder) {
 		// convert tags to annotations
 		if (BItag) {
 			// for B/I tagging
@@ -501,7 +526,7 @@ public class HMMannotator {
 				Annotation tokenAnn = tokens[i];
 				String tag = tags[i];
 				if (tag.length() > 2 && !tag.substring(0,2).equals("I-") && start>=0) {
-					annotateForTag(doc, xtag, tokens, start, i-1);
+					annotateForTag(doc, xtag, tokens, start, i-1, decoder);
 					start = -1;
 				}
 				if (tag.length() > 2 && tag.substring(0,2).equals("B-")) {
@@ -512,7 +537,7 @@ public class HMMannotator {
 		} else if (annotateEachToken) {
 			// for simple tagging
 			for (int i=0; i<tokens.length; i++) {
-				annotateForTag(doc, tags[i], tokens, i, i);
+				annotateForTag(doc, tags[i], tokens, i, i, decoder);
 			}
 		} else {
 			Annotation tokenAnn = tokens[0];
@@ -521,12 +546,12 @@ public class HMMannotator {
 			for (int i=1; i<tokens.length; i++) {
 				tokenAnn = tokens[i];
 				if (!tags[i].equals(tag)) {
-					annotateForTag(doc, tag, tokens, first, i-1);
+					annotateForTag(doc, tag, tokens, first, i-1, decoder);
 					tag = tags[i];
 					first = i;
 				}
 			}
-			annotateForTag(doc, tag, tokens, first, tokens.length-1);
+			annotateForTag(doc, tag, tokens, first, tokens.length-1, decoder);
 		}
 	}
 }
@@ -43,6 +43,18 @@ public abstract class HMMemitter {
 
 	public abstract double getProbability (String token, String priorToken, FeatureSet fs);
 
+	/**
+	 *  returns the probability that the current HMM state will emit
+	 *  token <CODE>token</CODE> with FeatureSet <CODE>fs</CODE>, when decoding
+	 *  with <CODE>decoder</CODE>.  Emitters which consult the name cache
+	 *  should override this method and use the cache of <CODE>decoder</CODE>.
+	 */
+
+	public double getProbability (String token, String priorToken, FeatureSet fs,
+	                              HMMDecoder decoder) {
+		return getProbability(token, priorToken, fs);
+	}
+
 	public void setCacheCount (String type, int n) {
 	};
 
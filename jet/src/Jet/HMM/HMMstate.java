@@ -5,6 +5,7 @@ import java.util.*;
 import java.io.*;
 import Jet.Tipster.*;
 import Jet.Lisp.*;
+import Jet.PipelineContext;
 
 /**
  *  a state of a Hidden Markov Model.
@@ -204,22 +205,30 @@ public class HMMstate {
 	}
 
 	/**
-	 *  a preference (log probability) to be given to states with tag 'other'.
-	 *  A positive value increases precision at a cost in recall.
+	 *  returns the probability of emitting 'token' with attributes 'fs'
+	 *  when in this state.
 	 */
 
-	public static double otherPreference = 1.0;
+	public double getEmissionProb (String tokenText, String priorToken, Annotation token) {
+		return getEmissionProb(tokenText, priorToken, token, hmm.decoder(),
+		                       PipelineContext.current().otherPreference);
+	}
+
 	/**
 	 *  returns the probability of emitting 'token' with attributes 'fs'
-	 *  when in this state.
+	 *  when in this state, using the name cache of 'decoder', given the
+	 *  preference for states with tag 'other'.
 	 */
 
-	public double getEmissionProb (String tokenText, String priorToken, Annotation token) {
+	double getEmissionProb (String tokenText, String priorToken, Annotation token,
+	                        HMMDecoder decoder, double otherPreference) {
 		if (!allowedToken(token)) return HMM.UNLIKELY;
 		// System.out.println ("Prob. of emitting " + token + " in state " + name +
 		//                     " is " + emitter.getProbability(tokenText, priorToken, token.attributes()));
-	    double p = emitter.getProbability(tokenText, priorToken, token.attributes());
-	    // favor precision over recall
+	    double p = emitter.getProbability(tokenText, priorToken, token.attributes(), decoder);
+	    // favor precision over recall:  the preference (log probability) given
+	    // to states with tag 'other' is set for each document in the
+	    // PipelineContext;  a positive value increases precision at a cost in recall
 	    if (tag.equals("other")) p += otherPreference;
 	    return p;
 	}
@@ -13,6 +13,7 @@ import Jet.JetTest;
 import Jet.Control;
 import java.util.*;
 import java.io.*;
+import Jet.PipelineContext;
 
 /**
  *  reads a series of files, with each file containing one sentence per
@@ -97,7 +98,7 @@ public class LineByLineNameTagger {
 		Document doc = new Document(sentence);
 		// check case
 		Span sentenceSpan = new Span(0, doc.length());
-	  Ace.monocase = Ace.allLowerCase(doc, sentenceSpan) || Ace.titleCase(doc, sentenceSpan);
+	  PipelineContext.current().monocase = Ace.allLowerCase(doc, sentenceSpan) || Ace.titleCase(doc, sentenceSpan);
 	  // tag names
 		Control.processDocument (doc, null, false, 0);
 		doc.shrink("ENAMEX");
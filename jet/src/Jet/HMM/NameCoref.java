@@ -13,6 +13,7 @@ import Jet.Refres.Resolve;
 import Jet.Chunk.Chunker;
 
 import AceJet.Gazetteer;
+import Jet.PipelineContext;
 
 class NameCoref {
 
@@ -63,7 +64,7 @@ class NameCoref {
 			// process document
 			System.out.println ("Processing document " + docCount + " " +
 			                    testDoc.fileName());
-			AceJet.Ace.monocase = AceJet.Ace.allLowerCase(testDoc);
+			PipelineContext.current().monocase = AceJet.Ace.allLowerCase(testDoc);
 			Control.processDocument (testDoc, null, docCount == -1, docCount);
 			// open key document
 			ExternalDocument keyDoc = keyCol.get(docCount);
@@ -166,6 +166,11 @@ public class SuffixHMMemitter extends HMMemitter {
 	}
 
 	public double getProbability (String token, String priorToken, FeatureSet fs) {
+		return getProbability(token, priorToken, fs, hmm.decoder());
+	}
+
+	public double getProbability (String token, String priorToken, FeatureSet fs,
+	                              HMMDecoder decoder) {
 		double unseenFeatureProbability = -8.0;
 		Double tprob;
 		double prob;
@@ -192,7 +197,7 @@ public class SuffixHMMemitter extends HMMemitter {
 		if (hmm.tagsToCache != null) {
 			for (int i=0; i<hmm.tagsToCache.length; i++) {
 				String tag = hmm.tagsToCache[i];
-				boolean inCache = hmm.inCache(token, tag);
+				boolean inCache = decoder.inCache(token, tag);
 				if (inCache) {
 					// System.out.println ("Found " + token + " in cache as " + tag);
 					prob += inCacheProbability[i];
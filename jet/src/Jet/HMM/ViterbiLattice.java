@@ -0,0 +1,108 @@
+// -*- tab-width: 4 -*-
+//Title:        JET
+//Copyright:    Copyright (c) 2003, 2005
+//Author:       Ralph Grishman
+//Description:  A Java-based Information Extraction Tool
+
+package Jet.HMM;
+
+import java.util.Arrays;
+
+/**
+ *  the working storage of the HMM Viterbi decoder:  the lattice of path
+ *  probabilities and back pointers, and the emission probabilities of the
+ *  current token.  The arrays are retained from one sentence to the next and
+ *  are only reallocated when a longer sentence or a larger HMM is decoded,
+ *  so decoding a sentence does not allocate a new lattice.
+ */
+
+class ViterbiLattice {
+
+	/**
+	 *  pathProb[i][s] = log probability of the best path which generates
+	 *  the first i tokens and ends in state s.
+	 */
+
+	double[][] pathProb = new double[0][];
+
+	/**
+	 *  backPointer[i][s] = predecessor of state s on the best path
+	 *  to s at token i, or -1 if s cannot be reached.
+	 */
+
+	int[][] backPointer = new int[0][];
+
+	/**
+	 *  the score of the second best path to each state at each token (only
+	 *  allocated if margins are being recorded).
+	 */
+
+	double[][] secondBest = new double[0][];
+
+	/**
+	 *  emission[s] = log probability of the current token being emitted by
+	 *  state s.
+	 */
+
+	double[] emission = new double[0];
+
+	/**
+	 *  for beam decoding, the states kept at the prior token, and for each
+	 *  state, the last token at which it was reachable from a kept state.
+	 */
+
+	int[] active = new int[0];
+	int[] reached = new int[0];
+	private int stamp = 0;
+
+	private int nStates = 0;
+
+	/**
+	 *  ensures that the lattice can hold a sentence of <CODE>nTokens</CODE>
+	 *  tokens for an HMM with <CODE>nStates</CODE> states.
+	 */
+
+	void ensureCapacity (int nTokens, int nStates, boolean margins) {
+		if (nStates > this.nStates) {
+			this.nStates = nStates;
+			pathProb = new double[0][];
+			backPointer = new int[0][];
+			secondBest = new double[0][];
+			emission = new double[nStates];
+			active = new int[nStates];
+			reached = new int[nStates];
+		}
+		if (pathProb.length < nTokens + 1)
+			pathProb = grow(pathProb, nTokens + 1);
+		if (backPointer.length < nTokens + 2) {
+			int[][] b = new int[nTokens + 2][];
+			System.arraycopy(backPointer, 0, b, 0, backPointer.length);
+			for (int i = backPointer.length; i < b.length; i++)
+				b[i] = new int[this.nStates];
+			backPointer = b;
+		}
+		if (margins && secondBest.length < nTokens + 1)
+			secondBest = grow(secondBest, nTokens + 1);
+	}
+
+	/**
+	 *  returns a new value with which to mark the states reached at a token;
+	 *  the marks are never reset between tokens or sentences.
+	 */
+
+	int nextStamp () {
+		if (stamp == Integer.MAX_VALUE) {
+			Arrays.fill(reached, 0);
+			stamp = 0;
+		}
+		return ++stamp;
+	}
+
+	private double[][] grow (double[][] rows, int n) {
+		double[][] r = new double[n][];
+		System.arraycopy(rows, 0, r, 0, rows.length);
+		for (int i = rows.length; i < n; i++)
+			r[i] = new double[nStates];
+		return r;
+	}
+}
@@ -4,6 +4,7 @@ package Jet.HMM;
 import java.util.*;
 import java.io.*;
 import Jet.Lisp.FeatureSet;
+import Jet.PipelineContext;
 
 /**
  *  an HMMemitter, using statistics for exact token match (including case), for token
@@ -46,7 +47,7 @@ public class WordFeatureHMMemitter extends HMMemitter {
 
 	public void trainOnInstances (String token, String priorToken, int n) {
 		count += n;
-		if (AceJet.Ace.monocase && (stateName.startsWith("b-") || stateName.startsWith("m-") ||
+		if (PipelineContext.current().monocase && (stateName.startsWith("b-") || stateName.startsWith("m-") ||
 		                     stateName.startsWith("e-") || stateName.startsWith("i-")))
 			token = capitalize(token);
 		incrementHashMap (tokenCount, token, n);
@@ -136,12 +137,17 @@ public class WordFeatureHMMemitter extends HMMemitter {
 	}
 
 	public double getProbability (String token, String priorToken, FeatureSet fs) {
+		return getProbability(token, priorToken, fs, hmm.decoder());
+	}
+
+	public double getProbability (String token, String priorToken, FeatureSet fs,
+	                              HMMDecoder decoder) {
 		double unseenFeatureProbability = -8.0;
 		Double tprob;
 		double prob;
 		boolean forcedCap = fs.get("case") == "forcedCap";
 
-		if (forcedCap || AceJet.Ace.monocase) {		// << added Oct. 2
+		if (forcedCap || PipelineContext.current().monocase) {		// << added Oct. 2
 			tprob = (Double) LCtokenProbability.get(token.toLowerCase());
 		} else {
 			tprob = (Double) tokenProbability.get(token);
@@ -150,7 +156,7 @@ public class WordFeatureHMMemitter extends HMMemitter {
 			prob = tprob.doubleValue();
 		else {
 			String tokenForm = wordFeature(token);
-			if ((forcedCap && tokenForm == "initCap") || AceJet.Ace.monocase)
+			if ((forcedCap && tokenForm == "initCap") || PipelineContext.current().monocase)
 				tokenForm = "forcedCap";
 			Double fprob = (Double) featureProbability.get(tokenForm);
 			if (fprob != null)
@@ -161,7 +167,7 @@ public class WordFeatureHMMemitter extends HMMemitter {
 		/* ------ alt. code, interpolates seen & unseen probs smoothly
 		double probs = (tprob == null) ? 0 : Math.exp(tprob.doubleValue());
 		String tokenForm = wordFeature(token);
-		if ((forcedCap && tokenForm == "initCap") || AceJet.Ace.monocase)
+		if ((forcedCap && tokenForm == "initCap") || PipelineContext.current().monocase)
 			tokenForm = "forcedCap";
 		Double fprob = (Double) featureProbability.get(tokenForm);
 		double probu;
@@ -170,7 +176,7 @@ public class WordFeatureHMMemitter extends HMMemitter {
 		else
 			probu = unseenTokenProbability + unseenFeatureProbability;
 		Integer TokCount;
-		if (forcedCap || AceJet.Ace.monocase) {
+		if (forcedCap || PipelineContext.current().monocase) {
 			TokCount = (Integer) hmm.allStateLCtokenCount.get(token.toLowerCase());
 		} else {
 			TokCount = (Integer) hmm.allStateTokenCount.get(token);
@@ -183,7 +189,7 @@ public class WordFeatureHMMemitter extends HMMemitter {
 		if (hmm.tagsToCache != null) {
 			for (int i=0; i<hmm.tagsToCache.length; i++) {
 				String tag = hmm.tagsToCache[i];
-				boolean inCache = hmm.inCache(token, tag);
+				boolean inCache = decoder.inCache(token, tag);
 				if (inCache) {
 					// System.out.println ("Found " + token + " in cache as " + tag);
 					// System.out.println ("Increasing prob. for " + stateName + " by " + inCacheProbability[i]);
@@ -22,6 +22,7 @@ import Jet.Refres.Resolve;
 import Jet.Pat.Pat;
 import Jet.MaxEntModel;
 import AceJet.*;
+import Jet.PipelineContext;
 
 /**
  *  A modified version of HMMNameTagger for experiments with N-best tagging.
@@ -134,7 +135,7 @@ public class XNameTagger {
 		Vector<Annotation> textSegments = doc.annotationsOfType ("TEXT");
 		for (Annotation ann : textSegments) {
 		    Span textSpan = ann.span ();
-				Ace.monocase = Ace.allLowerCase(doc);
+				PipelineContext.current().monocase = Ace.allLowerCase(doc);
 		    SentenceSplitter.split (doc, textSpan);
 		}
 		Vector<Annotation> sentences = doc.annotationsOfType ("sentence");
@@ -411,7 +412,7 @@ public class XNameTagger {
 		nt.model.loadModel();
 		String testCollection = home + "ACE/training04 nwire 20 sgm.txt";
 		String keyCollection = home + "ACE/training04 nwire 20 ne.txt";
-		BigramHMMemitter.useBigrams = false;
+		PipelineContext.current().useBigrams = false;
 		System.out.println ("\nBaseline / upper bound\n");
 		nt.scoreCollectionWithOracle (testCollection, keyCollection);
 		System.out.println ("\nN-Best\n");
@@ -432,7 +433,7 @@ public class XNameTagger {
 		XNameTagger nt = new XNameTagger(WordFeatureHMMemitter.class);
 		nt.annotator.setRecordProb(true);
 		nt.load ("acedata/ACEname04HMM.txt");
-		BigramHMMemitter.useBigrams = false;
+		PipelineContext.current().useBigrams = false;
 		nt.NbestTrainCollection (testCollection, keyCollection);
 	}
 
@@ -506,7 +507,7 @@ public class XNameTagger {
         Annotation ann = (Annotation)it.next ();
         Span textSpan = ann.span ();
         // check document case
-				Ace.monocase = Ace.allLowerCase(doc);
+				PipelineContext.current().monocase = Ace.allLowerCase(doc);
         SentenceSplitter.split (doc, textSpan);
     }
     Vector sentences = doc.annotationsOfType ("sentence");
@@ -610,7 +611,7 @@ public class XNameTagger {
 		Vector<Annotation> textSegments = doc.annotationsOfType ("TEXT");
     for(Annotation ann : textSegments) {
         Span textSpan = ann.span ();
-				Ace.monocase = Ace.allLowerCase(doc);
+				PipelineContext.current().monocase = Ace.allLowerCase(doc);
         SentenceSplitter.split (doc, textSpan);
     }
     Vector sentences = doc.annotationsOfType ("sentence");
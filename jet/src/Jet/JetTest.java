@@ -19,6 +19,7 @@ import org.joda.time.format.DateTimeFormatter;
 import org.joda.time.format.ISODateTimeFormat;
 
 import AceJet.Gazetteer;
+import Jet.Chunk.Beam;
 import Jet.Chunk.Chunker;
 import Jet.Chunk.MENameTagger;
 import Jet.Chunk.Onoma;
@@ -37,6 +38,8 @@ import Jet.Parser.StatParser;
 import Jet.Parser.DepParser;
 import Jet.Pat.Pat;
 import Jet.Pat.PatternCollection;
+import Jet.Pat.PatternSet;
+import Jet.Pat.RuleProfile;
 import Jet.Refres.CorefEval;
 import Jet.Refres.EntityView;
 import Jet.Refres.Resolve;
@@ -123,6 +126,8 @@ public class JetTest {
 		try {
 			in = new FileInputStream(configFile);
 			config.load(in);
+			// scripts compiled under the previous configuration are stale
+			Script.clearCache();
 			batchFlag = config.getProperty("Jet.batch") != null;
 			String dataPathProperty = config.getProperty("Jet.dataPath");
 			if (dataPathProperty == null)
@@ -139,6 +144,8 @@ public class JetTest {
 				new AnnotationColor(dataPath);
 			}
 			initialize();
+			// compile the top-level script
+			Script.forName("processDocument");
 			System.err.println("Jet Ver. 1.8.1.  Portions (c) 1999-2015 R. Grishman");
 			JarDate.print(System.err);
 			System.err.println("Licensed under Apache License, Version 2.0.");
@@ -153,6 +160,8 @@ public class JetTest {
 	}
 	static {validProperties.add("Jet.batch");}
 	static {validProperties.add("Jet.dataPath");}
+	static {validProperties.add("Batch.threads");}
+	static {validProperties.add("Batch.maxInFlight");}
 
 	/**
 	 *  checks whether all entries in 'config' specify
@@ -247,14 +256,21 @@ public class JetTest {
 								   + "(should be 'on' or 'off')");
 		}
 		Resolve.useMaxEnt = config.getProperty("Resolve.useMaxEnt") != null;
+		Document.compactAnnotations = config.getProperty("Document.compactAnnotations") != null;
+		StageMetrics.enabled = config.getProperty("Metrics.fileName") != null;
 	}
 	static {validProperties.add("Jet.encoding");}
 	static {validProperties.add("DepParser.model.fileName");}
 	static {validProperties.add("DepParser.transformations");}
+	static {validProperties.add("DepParser.threads");}
 	static {validProperties.add("StatParser.grammar.fileName");}
 	static {validProperties.add("StatParser.properties.fileName");}
+	static {validProperties.add("ParseCache.megabytes");}
+	static {validProperties.add("ParseCache.directory");}
 	static {validProperties.add("Resolve.trace");}
 	static {validProperties.add("Resolve.useMaxEnt");}
+	static {validProperties.add("Document.compactAnnotations");}
+	static {validProperties.add("Metrics.fileName");}
 	static {validProperties.add("NameGender.fileName");}
 
 	/**
@@ -304,6 +320,8 @@ public class JetTest {
 	 * tagger HMM from that file. If parameter <CODE>NameTags.emitter</CODE>
 	 * is set, use the value of that parameter as the name of the emitter class
 	 * for the HMM, otherwise used WordFeatureHMMemitter as the default.
+	 * If parameter <CODE>NameTags.beam</CODE> is set, the name tagger's Viterbi
+	 * decoder uses that beam (see {@link Beam}) instead of exact decoding.
 	 */
 
 	public static void readNameTags() {
@@ -350,6 +368,17 @@ public class JetTest {
 						+ ioe.getMessage());
 			}
 		}
+		String beam = config.getProperty("NameTags.beam");
+		if (beam != null) {
+			try {
+				if (nameTagger instanceof HMMNameTagger)
+					((HMMNameTagger) nameTagger).nameHMM.setBeam(Beam.parse(beam));
+				else if (nameTagger instanceof MENameTagger)
+					((MENameTagger) nameTagger).mene.setBeam(Beam.parse(beam));
+			} catch (IllegalArgumentException e) {
+				System.err.println("Error: NameTags.beam: " + e.getMessage());
+			}
+		}
 		String wordClusters = getConfigFile("WordClusters.fileName");
 		if (wordClusters != null) {
 			try {
@@ -363,6 +392,7 @@ public class JetTest {
 	static {validProperties.add("NameTags.fileName");}
 	static {validProperties.add("NameTags.emitter");}
 	static {validProperties.add("NameTags.recordMargin");}
+	static {validProperties.add("NameTags.beam");}
 	static {validProperties.add("NameTags.trace");}
 	static {validProperties.add("NameTags.ME.fileName");}
 	static {validProperties.add("Onoma.fileName");}
@@ -402,9 +432,35 @@ public class JetTest {
 				System.err.println("*** Invalid value " + trace + " for Pattern.trace "
 								   + "(should be 'on' or 'off')");
 		}
+		RuleProfile.enabled = config.getProperty("Pattern.profile") != null;
+		pc.setIncremental("on".equals(config.getProperty("Pattern.incremental")));
+		PatternSet.memoize = "on".equals(config.getProperty("Pattern.memoize"));
+		String maxSteps = config.getProperty("Pattern.maxSteps");
+		try {
+			PatternSet.maxSteps = (maxSteps == null) ? 0 : Integer.parseInt(maxSteps.trim());
+		} catch (NumberFormatException e) {
+			System.err.println("*** Invalid value " + maxSteps + " for Pattern.maxSteps");
+			PatternSet.maxSteps = 0;
+		}
 	}
 	static {validProperties.add("Pattern.fileName*");}
 	static {validProperties.add("Pattern.trace");}
+	static {validProperties.add("Pattern.profile");}
+	static {validProperties.add("Pattern.incremental");}
+	static {validProperties.add("Pattern.memoize");}
+	static {validProperties.add("Pattern.maxSteps");}
+
+	/**
+	 * if property <CODE>Pattern.profile</CODE> is set, write the profile of
+	 * the pattern rules (see {@link PatternCollection#writeProfile}) to the
+	 * file it names.
+	 */
+
+	public static void writePatternProfile() throws IOException {
+		String fileName = getConfig("Pattern.profile");
+		if (fileName != null && pc != null)
+			pc.writeProfile(fileName);
+	}
 
 	/**
 	 * if the parameter <CODE>Grammar.fileName</CODE> is set, load a grammar
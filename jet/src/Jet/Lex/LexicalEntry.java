@@ -10,6 +10,7 @@ package Jet.Lex;
 import java.util.Vector;
 import Jet.Lisp.*;
 import Jet.Tipster.*;
+import Jet.PipelineContext;
 
 /**
  *  the basic element of the (internal) lexicon:  the set of definitions of
@@ -86,7 +87,7 @@ public class LexicalEntry {
       Annotation ann = doc.tokenAt(posn);
       if (ann == null) return 0;
       String token = doc.text(ann).trim();
-      boolean forcedCap = (ann.get("case") == "forcedCap") || AceJet.Ace.monocase;
+      boolean forcedCap = (ann.get("case") == "forcedCap") || PipelineContext.current().monocase;
       if (forcedCap) {
         if (! token.equalsIgnoreCase(words[i])) return 0;
       } else {
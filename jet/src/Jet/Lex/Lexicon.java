@@ -55,7 +55,9 @@ public class Lexicon {
   }
 
   /**
-   *  adds <I>fs</I> to the lexicon as a definition of <I>words</I>
+   *  adds <I>fs</I> to the lexicon as a definition of <I>words</I>.
+   *  The lexicon keeps an immutable copy of <I>fs</I>, which is shared
+   *  (copy-on-write) by the annotations created from it.
    */
 
 	public static void addEntry (String words[], FeatureSet fs) {
@@ -63,6 +65,7 @@ public class Lexicon {
 	}
 
   public static void addEntry (String words[], FeatureSet fs, String type) {
+    fs = new FeatureSet(fs).freeze();
     String key = words[0].toLowerCase();
     if (lexiconIndex.containsKey(key)) {
       Vector entries = (Vector) lexiconIndex.get(key);
@@ -131,8 +134,7 @@ public class Lexicon {
     }
     if (definition != null) {
       for (int i = 0; i < definition.length; i++) {
-        doc.annotate(type, new Span (posn,furthest),
-                                new FeatureSet (definition[i]));
+        doc.addAnnotation(type, posn, furthest, new FeatureSet (definition[i]));
       }
     }
     return furthest;
@@ -32,8 +32,6 @@ import java.util.regex.*;
 
 public class Tokenizer {
 
-static Vector tokens;
-static String lastToken;
 static HashSet suffixes2 = new HashSet();
 static HashSet suffixes3 = new HashSet();
 
@@ -53,8 +51,18 @@ static {suffixes2.add("'s");
         suffixes3.add("'LL");
        }
 
-private static HashMap<Integer, Integer> specialTokenEnd;
-private static HashMap<Integer, String> specialTokenType;
+/**
+ *  the state of a single call on the tokenizer.  A new instance is created
+ *  for each call, so that several threads can tokenize at the same time.
+ */
+
+private static class Scan {
+	// when tokenizing a string, the token strings found so far
+	Vector tokens;
+	String lastToken = "";
+	HashMap<Integer, Integer> specialTokenEnd = new HashMap<Integer, Integer>();
+	HashMap<Integer, String> specialTokenType = new HashMap<Integer, String>();
+}
 
 /**
  *  tokenizes the portion of Document doc covered by span.  For each
@@ -62,7 +70,7 @@ private static HashMap<Integer, String> specialTokenType;
  */
 
 public static void tokenize (Document doc, Span span) {
-  findTokens (doc, doc.text(), span.start(), span.end());
+  findTokens (new Scan(), doc, doc.text(), span.start(), span.end());
 }
 
 /**
@@ -71,30 +79,30 @@ public static void tokenize (Document doc, Span span) {
  */
 
 public static String[] tokenize (String text) {
-  tokens = new Vector();
-  findTokens (null, text, 0, text.length());
-  return (String[]) tokens.toArray(new String[0]);
+  Scan scan = new Scan();
+  scan.tokens = new Vector();
+  findTokens (scan, null, text, 0, text.length());
+  return (String[]) scan.tokens.toArray(new String[0]);
 }
 
 
-private static void findTokens (Document doc, String text, int ic, int end) {
+private static void findTokens (Scan scan, Document doc, String text, int ic, int end) {
 	String block;
 	int tokenStart;
 	boolean firstBlock = true;
 	boolean lastBlock;
-	lastToken = "";
-	findTokensByPattern (doc, text, ic, end);
+	findTokensByPattern (scan, text, ic, end);
 	// skip white space preceding first token
 	ic = skipWSX(text, ic, end);
 	while (ic < end) {
 		tokenStart = ic;
-		Integer tokenEnd = specialTokenEnd.get(ic);
+		Integer tokenEnd = scan.specialTokenEnd.get(ic);
 		if (tokenEnd != null)
 			ic = tokenEnd;
 		else
 			ic++;
 		while ((ic < end) && !Character.isWhitespace(text.charAt(ic))) {
-			tokenEnd = specialTokenEnd.get(ic);
+			tokenEnd = scan.specialTokenEnd.get(ic);
 			if (tokenEnd != null)
 				ic = tokenEnd;
 			else
@@ -104,8 +112,8 @@ private static void findTokens (Document doc, String text, int ic, int end) {
 		// include whitespace following token
 		while ((ic < end) && Character.isWhitespace(text.charAt(ic))) ic++;
 		lastBlock = ic >= end && doc != null;
-		boolean[] newToken = splitIntoTokens (block, tokenStart, lastBlock);
-		buildTokens (doc, block, newToken, tokenStart, ic, firstBlock);
+		boolean[] newToken = splitIntoTokens (scan, block, tokenStart, lastBlock);
+		buildTokens (scan, doc, block, newToken, tokenStart, ic, firstBlock);
 		firstBlock = false;
 	}
 }
@@ -121,13 +129,13 @@ static private Pattern urlPat = Pattern.compile(urlPatStg);
 /**
  *  look for predefined patterns for email addresses and URLs, starting at
  *  position 'start' of 'text'.  If a match, record the token in
- *  specialTokenEnd and specialTokenType.
+ *  scan.specialTokenEnd and scan.specialTokenType.
  */
  
-private static void findTokensByPattern (Document doc, String text, int start, int end) {
+private static void findTokensByPattern (Scan scan, String text, int start, int end) {
 	Matcher emailMatcher = emailPat.matcher(text).region(start,end);
-	specialTokenEnd = new HashMap<Integer, Integer>();
-	specialTokenType = new HashMap<Integer, String>();
+	HashMap<Integer, Integer> specialTokenEnd = scan.specialTokenEnd;
+	HashMap<Integer, String> specialTokenType = scan.specialTokenType;
 	while (emailMatcher.find()) {
 		int tokenStart = emailMatcher.start();
 		int tokenEnd = emailMatcher.end();
@@ -156,7 +164,7 @@ private static void findTokensByPattern (Document doc, String text, int start, i
  *          element is always true]
  */
 
-private static boolean[] splitIntoTokens (String blockString, int blockStart, boolean lastBlock) {
+private static boolean[] splitIntoTokens (Scan scan, String blockString, int blockStart, boolean lastBlock) {
 	char[] block = blockString.toCharArray();
 	int blockLength = block.length;
 	boolean[] newToken = new boolean[blockLength+1];
@@ -235,7 +243,7 @@ private static boolean[] splitIntoTokens (String blockString, int blockStart, bo
 		}
 	}
 	for (int i=0; i<blockLength; i++) {
-		Integer tokenEnd = specialTokenEnd.get(blockStart + i);
+		Integer tokenEnd = scan.specialTokenEnd.get(blockStart + i);
 		if (tokenEnd != null) {
 			newToken[i] = true;
 			for (int j=i+1; j<blockLength && j+blockStart < tokenEnd; j++) {
@@ -250,7 +258,7 @@ private static boolean[] splitIntoTokens (String blockString, int blockStart, bo
 	 *  adds token Annotations to doc consisting of the tokens within block.
 	 */
 
-	private static void buildTokens (Document doc, String block, boolean[] newToken,
+	private static void buildTokens (Scan scan, Document doc, String block, boolean[] newToken,
     int offset, int nextBlockStart, boolean firstBlock) {
     int tokenStart = 0;
    	for (int i=1; i<=block.length(); i++) {
@@ -269,14 +277,14 @@ private static boolean[] splitIntoTokens (String blockString, int blockStart, bo
    					break;
    				}
    			}
-   			String type = specialTokenType.get(tokenStart + offset);
+   			String type = scan.specialTokenType.get(tokenStart + offset);
    			if (type != null) {
    				fs = new FeatureSet ("type", type);
    			} else if (Character.isUpperCase(block.charAt(tokenStart))) {
    				if (firstBlock ||
    				    // for ACE
-   				    lastToken.equals("_") ||
-   				    lastToken.equals("\"") || lastToken.equals("``") || lastToken.equals("`")) {
+   				    scan.lastToken.equals("_") ||
+   				    scan.lastToken.equals("\"") || scan.lastToken.equals("``") || scan.lastToken.equals("`")) {
    					fs = new FeatureSet ("case", "forcedCap");
    				} else {
    					fs = new FeatureSet ("case", "cap");
@@ -289,9 +297,9 @@ private static boolean[] splitIntoTokens (String blockString, int blockStart, bo
    			// create token
    			int spanEnd = (tokenEnd == block.length()) ? nextBlockStart : tokenEnd + offset;
    			String tokenString = block.substring(tokenStart, tokenEnd);
-   			recordToken (doc, tokenString, tokenStart + offset, spanEnd, fs);
+   			recordToken (scan, doc, tokenString, tokenStart + offset, spanEnd, fs);
    			tokenStart = tokenEnd;
-   			lastToken = tokenString;
+   			scan.lastToken = tokenString;
    		}
    	}
 	}
@@ -338,15 +346,15 @@ private static void findTokens (Document doc, String text, int ic, int end) {
 
 */
 
-	private static void recordToken (Document doc, String text,
+	private static void recordToken (Scan scan, Document doc, String text,
 	                                 int start, int end, FeatureSet fs) {
 		// System.out.println ("Adding token " + text + fs + " over " + start + "-" + end);
 	  if (doc == null) {
-	    tokens.addElement(text);
+	    scan.tokens.addElement(text);
 	  } else {
-	    doc.annotate ("token", new Span (start,end), fs);
+	    doc.addAnnotation ("token", start, end, fs);
 	    if (fs.get("type") != null)
-	    	doc.annotate ("ENAMEX", new Span (start, end), new FeatureSet ("TYPE", fs.get("type")));
+	    	doc.addAnnotation ("ENAMEX", start, end, new FeatureSet ("TYPE", fs.get("type")));
 	  }
 	}
 
@@ -367,7 +375,7 @@ private static void findTokens (Document doc, String text, int ic, int end) {
 	      	while ((ic < end) && !Character.isWhitespace(text.charAt(ic))) ic++;
 	      	// include whitespace following token
 	      	while ((ic < end) && Character.isWhitespace(text.charAt(ic))) ic++;
-	      	recordToken (doc, text, tokenStart, ic, new FeatureSet());
+	      	recordToken (null, doc, text, tokenStart, ic, new FeatureSet());
 	     }
 	}
 
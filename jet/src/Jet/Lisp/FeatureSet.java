@@ -18,21 +18,54 @@ import Jet.Tipster.Annotation;
  * A FeatureSet provides a mapping from interned Strings to Objects. It is
  * intended to provide an efficient implementation for small numbers of
  * features.
+ * <p>
+ * Features and values are held in parallel arrays, in the order in which the
+ * features were added.  Lookup compares feature names by reference first, so
+ * it is fastest when callers use interned Strings (as the pattern and lexicon
+ * code do), but falls back to <CODE>equals</CODE> for other Strings.  Larger
+ * FeatureSets also keep an open-addressed hash table from feature name to
+ * position.
+ * <p>
+ * A FeatureSet may be made immutable with {@link #freeze}; copies of an
+ * immutable FeatureSet share its arrays until they are first modified.  This
+ * is used for the definitions in the lexicon, which are copied onto every
+ * matching token.
  */
 
 public class FeatureSet {
 
-	protected Vector features;
+	// FeatureSets with more than this many features also have a hash index
+	private static final int LINEAR_LIMIT = 8;
 
-	protected Vector values;
+	private static final String[] NO_FEATURES = new String[0];
+
+	private static final Object[] NO_VALUES = new Object[0];
+
+	private String[] features;
+
+	private Object[] values;
+
+	private int size;
+
+	// open-addressed hash table mapping features to (position + 1);  0 marks
+	// an empty slot.  null if size <= LINEAR_LIMIT.
+	private int[] slots;
+
+	// true if this FeatureSet may not be modified
+	private boolean frozen = false;
+
+	// true if 'features' and 'values' are shared with an immutable
+	// FeatureSet, and so must be copied before they are modified
+	private boolean shared = false;
 
 	/**
 	 * Creates an empty FeatureSet.
 	 */
 
 	public FeatureSet() {
-		features = new Vector(1);
-		values = new Vector(1);
+		features = NO_FEATURES;
+		values = NO_VALUES;
+		shared = true;
 	}
 
 	/**
@@ -40,10 +73,9 @@ public class FeatureSet {
 	 */
 
 	public FeatureSet(String feat1, Object val1) {
-		features = new Vector(1);
-		values = new Vector(1);
-		features.addElement(feat1);
-		values.addElement(val1);
+		features = new String[] {feat1};
+		values = new Object[] {val1};
+		size = 1;
 	}
 
 	/**
@@ -51,12 +83,10 @@ public class FeatureSet {
 	 */
 
 	public FeatureSet(String feat1, Object val1, String feat2, Object val2) {
-		features = new Vector(2);
-		values = new Vector(2);
-		features.addElement(feat1);
-		values.addElement(val1);
-		features.addElement(feat2);
-		values.addElement(val2);
+		features = new String[2];
+		values = new Object[2];
+		put(feat1, val1);
+		put(feat2, val2);
 	}
 
 	/**
@@ -65,25 +95,34 @@ public class FeatureSet {
 
 	public FeatureSet(String feat1, Object val1, String feat2, Object val2, String feat3,
 			Object val3) {
-		features = new Vector(2);
-		values = new Vector(2);
-		features.addElement(feat1);
-		values.addElement(val1);
-		features.addElement(feat2);
-		values.addElement(val2);
-		features.addElement(feat3);
-		values.addElement(val3);
+		features = new String[3];
+		values = new Object[3];
+		put(feat1, val1);
+		put(feat2, val2);
+		put(feat3, val3);
 	}
 
 	/**
 	 * creates a new FeatureSet with the same features and values as <CODE>fs</CODE>.
+	 * If <CODE>fs</CODE> is immutable, the new FeatureSet shares its storage
+	 * until it is modified.
 	 */
 
 	public FeatureSet(FeatureSet fs) {
-		int len = fs.size();
-		features = new Vector(len);
-		values = new Vector(len);
-		this.putAll(fs);
+		size = fs.size;
+		if (fs.frozen) {
+			features = fs.features;
+			values = fs.values;
+			slots = fs.slots;
+			shared = true;
+		} else {
+			features = new String[size];
+			values = new Object[size];
+			System.arraycopy(fs.features, 0, features, 0, size);
+			System.arraycopy(fs.values, 0, values, 0, size);
+			if (fs.slots != null)
+				slots = fs.slots.clone();
+		}
 	}
 
 	/**
@@ -102,14 +141,14 @@ public class FeatureSet {
 
 	public FeatureSet(StreamTokenizer tok, boolean allowVariables, char endChar)
 			throws IOException, PatternSyntaxError {
-		features = new Vector();
-		values = new Vector();
+		features = new String[2];
+		values = new Object[2];
 		tok.wordChars('_', '_');
 		tok.wordChars('-', '-'); // <<< PATCH MAY 17
 		tok.wordChars('.', '.');
 		while (tok.nextToken() != endChar) {
 			// skip comma, except at beginning of feature set
-			if (tok.ttype == ',' & features.size() > 0)
+			if (tok.ttype == ',' & size > 0)
 				tok.nextToken();
 			// get feature name
 			if (tok.ttype != StreamTokenizer.TT_WORD)
@@ -157,17 +196,110 @@ public class FeatureSet {
 		}
 	}
 
+	/**
+	 * returns the position of feature <I>feat</I> in the FeatureSet, or -1
+	 * if the feature is not present.
+	 */
+
+	private int indexOf(String feat) {
+		if (slots != null) {
+			int h = feat.hashCode();
+			int mask = slots.length - 1;
+			for (int k = mix(h) & mask; slots[k] != 0; k = (k + 1) & mask) {
+				int i = slots[k] - 1;
+				String f = features[i];
+				if (f == feat || (f.hashCode() == h && f.equals(feat)))
+					return i;
+			}
+			return -1;
+		}
+		for (int i = 0; i < size; i++)
+			if (features[i] == feat)
+				return i;
+		int h = feat.hashCode();
+		for (int i = 0; i < size; i++) {
+			String f = features[i];
+			if (f.hashCode() == h && f.equals(feat))
+				return i;
+		}
+		return -1;
+	}
+
+	private static int mix(int h) {
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * rebuilds the hash index if the FeatureSet is large enough to need one.
+	 */
+
+	private void rebuildSlots() {
+		if (size <= LINEAR_LIMIT) {
+			slots = null;
+			return;
+		}
+		int capacity = Integer.highestOneBit(size * 2) * 2;
+		slots = new int[capacity];
+		int mask = capacity - 1;
+		for (int i = 0; i < size; i++) {
+			int k = mix(features[i].hashCode()) & mask;
+			while (slots[k] != 0)
+				k = (k + 1) & mask;
+			slots[k] = i + 1;
+		}
+	}
+
+	/**
+	 * prepares the FeatureSet for modification:  checks that it is not
+	 * immutable, and copies any storage shared with an immutable FeatureSet.
+	 */
+
+	private void beforeChange() {
+		if (frozen)
+			throw new UnsupportedOperationException("FeatureSet is immutable");
+		if (shared) {
+			features = features.clone();
+			values = values.clone();
+			if (slots != null)
+				slots = slots.clone();
+			shared = false;
+		}
+	}
+
 	/**
 	 * Associates the specified value <I>val</I> with the feature <I>feat</I>.
 	 */
 
 	public void put(String feat, Object val) {
-		int i = features.indexOf(feat);
-		if (i < 0) {
-			features.addElement(feat);
-			values.addElement(val);
-		} else
-			values.set(i, val);
+		int i = indexOf(feat);
+		beforeChange();
+		if (i >= 0) {
+			values[i] = val;
+			return;
+		}
+		if (size == features.length) {
+			int n = Math.max(2, size * 2);
+			String[] newFeatures = new String[n];
+			Object[] newValues = new Object[n];
+			System.arraycopy(features, 0, newFeatures, 0, size);
+			System.arraycopy(values, 0, newValues, 0, size);
+			features = newFeatures;
+			values = newValues;
+		}
+		features[size] = feat;
+		values[size] = val;
+		size++;
+		if (size > LINEAR_LIMIT) {
+			if (slots == null || size * 2 > slots.length) {
+				rebuildSlots();
+			} else {
+				int mask = slots.length - 1;
+				int k = mix(feat.hashCode()) & mask;
+				while (slots[k] != 0)
+					k = (k + 1) & mask;
+				slots[k] = size;
+			}
+		}
 	}
 
 	/**
@@ -177,12 +309,8 @@ public class FeatureSet {
 	public void putAll(FeatureSet fs) {
 		if (fs == null)
 			return;
-		Enumeration features = fs.keys();
-		while (features.hasMoreElements()) {
-			String feature = (String) features.nextElement();
-			Object value = fs.get(feature);
-			this.put(feature, value);
-		}
+		for (int i = 0; i < fs.size; i++)
+			this.put(fs.features[i], fs.values[i]);
 	}
 
 	/**
@@ -190,11 +318,11 @@ public class FeatureSet {
 	 */
 
 	public Object get(String feat) {
-		int i = features.indexOf(feat);
+		int i = indexOf(feat);
 		if (i < 0)
 			return null;
 		else
-			return values.get(i);
+			return values[i];
 	}
 	
 	/**
@@ -202,20 +330,50 @@ public class FeatureSet {
 	 */
 	
 	public void remove(String feat) {
-		int i= features.indexOf(feat);
+		int i = indexOf(feat);
 		if (i >= 0) {
-			features.remove(i);
-			values.remove(i);
+			beforeChange();
+			int n = size - i - 1;
+			System.arraycopy(features, i + 1, features, i, n);
+			System.arraycopy(values, i + 1, values, i, n);
+			size--;
+			features[size] = null;
+			values[size] = null;
+			if (slots != null)
+				rebuildSlots();
 		}
 	}
 
+	/**
+	 * makes this FeatureSet immutable:  subsequent attempts to modify it throw
+	 * an UnsupportedOperationException.  Copies made with
+	 * {@link #FeatureSet(FeatureSet)} share its storage until they are
+	 * modified.  Returns the FeatureSet.
+	 */
+
+	public FeatureSet freeze() {
+		if (!frozen) {
+			beforeChange();
+			frozen = true;
+		}
+		return this;
+	}
+
+	/**
+	 * returns true if this FeatureSet is immutable.
+	 */
+
+	public boolean isFrozen() {
+		return frozen;
+	}
+
 	/**
 	 * Returns true if the FeatureSet has feature <I>feat</I> with some value,
 	 * possibly <CODE>null</CODE>.
 	 */
 
 	public boolean containsFeature(String feat) {
-		return features.indexOf(feat) >= 0;
+		return indexOf(feat) >= 0;
 	}
 
 	/**
@@ -227,12 +385,11 @@ public class FeatureSet {
 	public boolean subsetOf(FeatureSet fs) {
 		if (fs == null)
 			return false;
-		int len = features.size();
-		for (int i = 0; i < len; i++) {
-			String feat = (String) features.get(i);
+		for (int i = 0; i < size; i++) {
+			String feat = features[i];
 			if (!fs.containsFeature(feat))
 				return false;
-			if (!values.get(i).equals(fs.get(feat)))
+			if (!values[i].equals(fs.get(feat)))
 				return false;
 		}
 		return true;
@@ -246,14 +403,13 @@ public class FeatureSet {
 	public boolean equals(FeatureSet fs) {
 		if (fs == null)
 			return false;
-		int len = features.size();
-		if (len != fs.size())
+		if (size != fs.size())
 			return false;
-		for (int i = 0; i < len; i++) {
-			String feat = (String) features.get(i);
+		for (int i = 0; i < size; i++) {
+			String feat = features[i];
 			if (!fs.containsFeature(feat))
 				return false;
-			if (!values.get(i).equals(fs.get(feat)))
+			if (!values[i].equals(fs.get(feat)))
 				return false;
 		}
 		return true;
@@ -273,12 +429,37 @@ public class FeatureSet {
 		return this.equals((FeatureSet) obj);
 	}
 
+	/**
+	 * Returns a hash code which is a function of the features and their
+	 * values, independent of the order of the features (so that, as required
+	 * for hashing, equal FeatureSets have equal hash codes).
+	 */
+
+	public int hashCode() {
+		int h = 0;
+		for (int i = 0; i < size; i++)
+			h += features[i].hashCode() ^ (values[i] == null ? 0 : values[i].hashCode());
+		return h;
+	}
+
 	/**
 	 * Returns an Enumeration over the features in the feature set.
 	 */
 
 	public Enumeration keys() {
-		return features.elements();
+		return new Enumeration() {
+			int next = 0;
+
+			public boolean hasMoreElements() {
+				return next < size;
+			}
+
+			public Object nextElement() {
+				if (next >= size)
+					throw new NoSuchElementException();
+				return features[next++];
+			}
+		};
 	}
 
 	/**
@@ -286,7 +467,24 @@ public class FeatureSet {
 	 */
 
 	public int size() {
-		return features.size();
+		return size;
+	}
+
+	/**
+	 * returns the <I>i</I>th feature of the FeatureSet, counting from 0 in
+	 * the order in which features were added.
+	 */
+
+	public String feature(int i) {
+		return features[i];
+	}
+
+	/**
+	 * returns the value of the <I>i</I>th feature of the FeatureSet.
+	 */
+
+	public Object value(int i) {
+		return values[i];
 	}
 
 	/**
@@ -297,15 +495,14 @@ public class FeatureSet {
 
 	public FeatureSet substitute(HashMap bindings) {
 		FeatureSet fs = new FeatureSet();
-		int len = features.size();
-		for (int i = 0; i < len; i++) {
-			Object value = values.get(i);
+		for (int i = 0; i < size; i++) {
+			Object value = values[i];
 			if (value instanceof Variable) {
 				value = bindings.get(((Variable) value).name);
 			} else if (value instanceof FeatureSet) {
 				value = ((FeatureSet) value).substitute(bindings);
 			}
-			fs.put((String) features.get(i), value);
+			fs.put(features[i], value);
 		}
 		return fs;
 	}
@@ -379,22 +576,22 @@ public class FeatureSet {
 	 */
 
 	public String toSGMLString(int nestingLimit, boolean useIds, boolean quoteValues) {
-		int len = features.size();
+		int len = size;
 		String result = "";
 		for (int i = 0; i < len; i++) {
-			if (((String) features.elementAt(i)).endsWith("-1"))
+			if (features[i].endsWith("-1"))
 				continue;
 			if (i > 0)
 				result += " ";
 			if (quoteValues) {
-				result += features.elementAt(i)
+				result += features[i]
 						+ "="
 						+ "\""
-						+ valueToString(values.elementAt(i), nestingLimit, useIds, quoteValues)
+						+ valueToString(values[i], nestingLimit, useIds, quoteValues)
 								.replaceAll("\"", "\\\\\"") + "\"";
 			} else {
-				result += features.elementAt(i) + "="
-						+ valueToString(values.elementAt(i), nestingLimit, useIds, quoteValues);
+				result += features[i] + "="
+						+ valueToString(values[i], nestingLimit, useIds, quoteValues);
 			}
 		}
 		return result;
@@ -432,19 +629,19 @@ public class FeatureSet {
 	}
 
 	private String embeddedFStoSGMLString(int nestingLimit, boolean useIds, boolean quoteValues) {
-		int len = features.size();
+		int len = size;
 		String result = "[";
 		for (int i = 0; i < len; i++) {
-			if (((String) features.elementAt(i)).endsWith("-1"))
+			if (features[i].endsWith("-1"))
 				continue;
 			if (i > 0)
 				result += " ";
-			String value = valueToString(values.elementAt(i), nestingLimit, useIds, quoteValues);
+			String value = valueToString(values[i], nestingLimit, useIds, quoteValues);
 			if (quoteValues && !value.matches("\\A[a-zA-Z]*\\z")) {
-				result += features.elementAt(i) + "=" + "\"" + value.replaceAll("\"", "\\\\\"")
+				result += features[i] + "=" + "\"" + value.replaceAll("\"", "\\\\\"")
 						+ "\"";
 			} else {
-				result += features.elementAt(i) + "=" + value;
+				result += features[i] + "=" + value;
 			}
 		}
 		result += "]";
@@ -458,10 +655,10 @@ public class FeatureSet {
 	 */
 
 	public void prepareToMakeString(int nestingLimit) {
-		int len = features.size();
+		int len = size;
 		String result = "";
 		for (int i = 0; i < len; i++) {
-			prepareToMakeString(values.elementAt(i), nestingLimit);
+			prepareToMakeString(values[i], nestingLimit);
 		}
 	}
 
@@ -26,6 +26,13 @@ public class MaxEntModel {
     boolean USE_L2 = true;
     int cutoff = 4;
     int iterations = 100;
+    /**
+     *  the number of threads used to train models.  If greater than 0,
+     *  models are trained by the multi-threaded {@link MaxEntTrainer}
+     *  instead of OpenNLP.  The initial value is taken from Java system
+     *  property <B>MaxEntModel.trainingThreads</B>.
+     */
+    public static int trainingThreads = Integer.getInteger("MaxEntModel.trainingThreads", 0);
 
     /**
      * creates a new maximum entropy model.
@@ -78,6 +85,22 @@ public class MaxEntModel {
         featureWriter.println(d.toString());
     }
 
+    /**
+     * invoked during training to add one training instance, with features
+     * <CODE>features</CODE> and outcome <CODE>outcome</CODE>, to the
+     * training set.
+     */
+
+    public void addEvent(FeatureBuilder features, String outcome) {
+        if (featureWriter == null)
+            initializeForTraining();
+        for (int i = 0; i < features.size(); i++) {
+            featureWriter.print(features.feature(i));
+            featureWriter.print(' ');
+        }
+        featureWriter.println(outcome);
+    }
+
     /**
      * sets the feature cutoff.  Features occurring fewer than <CODE>cutoff</CODE>
      * times in the training set are ignored.  Default value is 4.
@@ -97,6 +120,20 @@ public class MaxEntModel {
         boolean PRINT_MESSAGES = true;
         try {
             featureWriter.close();
+            if (trainingThreads > 0) {
+                MaxEntTrainer trainer = new MaxEntTrainer();
+                trainer.setThreads(trainingThreads);
+                trainer.setPrintMessages(PRINT_MESSAGES);
+                if (USE_L2) {
+                    trainer.setL2(2);
+                } else {
+                    trainer.setIterations(iterations);
+                    trainer.setCutoff(cutoff);
+                    trainer.setSmoothing(USE_SMOOTHING, SMOOTHING_OBSERVATION);
+                }
+                model = trainer.train(featureFileName);
+                return;
+            }
             FileReader datafr = new FileReader(new File(featureFileName));
             EventStream es =
                     new BasicEventStream(new PlainTextByLineDataStream(datafr));
@@ -122,7 +159,7 @@ public class MaxEntModel {
     public void saveModel(String modelFileName) {
         try {
             File outputFile = new File(modelFileName);
-            GISModelWriter modelWriter = new SuffixSensitiveGISModelWriter(model, outputFile);
+            GISModelWriter modelWriter = new SuffixSensitiveGISModelWriter(gisModel(), outputFile);
             modelWriter.persist();
         } catch (IOException e) {
             System.out.print("Unable to save model: ");
@@ -132,7 +169,7 @@ public class MaxEntModel {
 
     public void saveModel(BufferedWriter writer) {
         try {
-            GISModelWriter modelWriter = new PlainTextGISModelWriter(model, writer);
+            GISModelWriter modelWriter = new PlainTextGISModelWriter(gisModel(), writer);
             modelWriter.persist();
         } catch (IOException e) {
             System.out.print("Unable to save model: ");
@@ -148,10 +185,22 @@ public class MaxEntModel {
         }
     }
 
+    /**
+     * loads the model from file <CODE>modelFileName</CODE>, which may be
+     * either a GIS model (in any of the formats read by
+     * <CODE>SuffixSensitiveGISModelReader</CODE>) or a binary model written
+     * by {@link MaxEntScorer}.
+     */
+
     public void loadModel(String modelFileName) {
         try {
             File f = new File(modelFileName);
-            model = (GISModel) new SuffixSensitiveGISModelReader(f).getModel();
+            if (MaxEntScorer.isBinaryModel(f)) {
+                model = null;
+                scorer = MaxEntScorer.load(f);
+            } else {
+                model = (GISModel) new SuffixSensitiveGISModelReader(f).getModel();
+            }
             System.out.println("GIS model " + f.getName() + " loaded.");
         } catch (Exception e) {
             e.printStackTrace();
@@ -169,7 +218,19 @@ public class MaxEntModel {
     }
 
     public boolean isLoaded() {
-        return model != null;
+        return model != null || scorer != null;
+    }
+
+    /**
+     * returns the model as a GISModel (building it, if the model was
+     * loaded from a binary model file).  The model built is not kept, so
+     * that the scorer loaded from the file remains in use.
+     */
+
+    private GISModel gisModel() {
+        if (model == null && scorer != null)
+            return scorer.toGISModel();
+        return model;
     }
 
     /**
@@ -178,7 +239,8 @@ public class MaxEntModel {
      */
 
     public double prob(Datum d, String value) {
-        return model.eval(d.toArray())[model.getIndex(value)];
+        MaxEntScorer scorer = getScorer();
+        return scorer.eval(d.toArray())[scorer.getIndex(value)];
     }
 
     /**
@@ -187,18 +249,122 @@ public class MaxEntModel {
      */
 
     public String bestOutcome(Datum d) {
-        return model.getBestOutcome(model.eval(d.toArray())).intern();
+        MaxEntScorer scorer = getScorer();
+        return scorer.getBestOutcome(scorer.eval(d.toArray())).intern();
     }
 
     public int getNumOutcomes() {
-        return model.getNumOutcomes();
+        return getScorer().getNumOutcomes();
     }
 
     public String getOutcome(int i) {
-        return model.getOutcome(i);
+        return getScorer().getOutcome(i);
     }
 
     public double[] getOutcomeProbabilities(Datum d) {
-        return model.eval(d.toArray());
+        return getScorer().eval(d.toArray());
+    }
+
+    /**
+     * (for a trained model) computes the probability of each outcome given
+     * the features in <CODE>features</CODE>, and stores them in
+     * <CODE>prob</CODE>.
+     */
+
+    public void getOutcomeProbabilities(FeatureBuilder features, double[] prob) {
+        getScorer().eval(features, prob);
+    }
+
+    /**
+     * (for a trained model) returns the most likely outcome given the
+     * features in <CODE>features</CODE>, using <CODE>prob</CODE> (of length
+     * <CODE>getNumOutcomes()</CODE>) as working storage.
+     */
+
+    public String bestOutcome(FeatureBuilder features, double[] prob) {
+        MaxEntScorer scorer = getScorer();
+        scorer.eval(features, prob);
+        return scorer.getBestOutcome(prob).intern();
+    }
+
+    private volatile MaxEntScorer scorer = null;
+
+    /**
+     * (for a trained model) returns the compiled form of the model.
+     */
+
+    public MaxEntScorer getScorer() {
+        MaxEntScorer s = scorer;
+        if (s == null || (model != null && s.getModel() != model)) {
+            s = new MaxEntScorer(model);
+            scorer = s;
+        }
+        return s;
+    }
+
+    /**
+     * (for a trained model) initializes <CODE>sum</CODE> and <CODE>count</CODE>
+     * (indexed by outcome) for scoring a Datum in parts.  A Datum may be
+     * scored by adding the weights of its features with <CODE>addWeights</CODE>,
+     * in any grouping, and then calling
+     * {@link #getOutcomeProbabilities(double[], int[], double[])}.
+     */
+
+    public void startScore(double[] sum, int[] count) {
+        getScorer().start(sum, count);
+    }
+
+    /**
+     * (for a trained model) adds the weight of <CODE>feature</CODE> for each
+     * outcome to <CODE>sum</CODE>, and counts the feature in <CODE>count</CODE>
+     * for each outcome for which it has a weight.
+     */
+
+    public void addWeights(String feature, double[] sum, int[] count) {
+        getScorer().addWeights(feature, sum, count);
+    }
+
+    /**
+     * (for a trained model) adds the weights of each feature of
+     * <CODE>features</CODE> to <CODE>sum</CODE> and <CODE>count</CODE>.
+     */
+
+    public void addWeights(String[] features, double[] sum, int[] count) {
+        MaxEntScorer scorer = getScorer();
+        for (int i = 0; i < features.length; i++)
+            scorer.addWeights(features[i], sum, count);
+    }
+
+    /**
+     * (for a trained model) adds the weights of each feature in
+     * <CODE>features</CODE> to <CODE>sum</CODE> and <CODE>count</CODE>.
+     */
+
+    public void addWeights(FeatureBuilder features, double[] sum, int[] count) {
+        MaxEntScorer scorer = getScorer();
+        for (int i = 0; i < features.size(); i++)
+            scorer.addWeights(features.hash(i), features.check(i), sum, count);
+    }
+
+    /**
+     * (for a trained model) adds the weights of the feature with hash
+     * <CODE>hash</CODE> and check <CODE>check</CODE> (as computed by
+     * {@link FeatureBuilder}) to <CODE>sum</CODE> and <CODE>count</CODE>.
+     */
+
+    public void addWeights(long hash, long check, double[] sum, int[] count) {
+        getScorer().addWeights(hash, check, sum, count);
+    }
+
+    /**
+     * (for a trained model) computes, from the weights <CODE>sum</CODE> and
+     * feature counts <CODE>count</CODE> accumulated by <CODE>addWeights</CODE>,
+     * the probability of each outcome, and stores them in <CODE>prob</CODE>.
+     * The probabilities are those which <CODE>getOutcomeProbabilities</CODE>
+     * would return for a Datum with the same features.
+     */
+
+    public void getOutcomeProbabilities(double[] sum, int[] count, double[] prob) {
+        getScorer().normalize(sum, count, prob);
     }
 }
@@ -0,0 +1,554 @@
+// -*- tab-width: 4 -*-
+//Title:        JET
+//Copyright:    2026
+//Author:       Ralph Grishman
+//Description:  A Java-based Information Extraction Toolkit
+
+package Jet;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import opennlp.maxent.GISModel;
+import opennlp.maxent.io.SuffixSensitiveGISModelReader;
+import opennlp.model.Context;
+import opennlp.model.IndexHashTable;
+
+/**
+ *  a compiled form of a trained (OpenNLP) maximum entropy model, for
+ *  classification.  The predicates of the model are indexed by the 64-bit
+ *  hash of their text, as computed by {@link FeatureBuilder}, and each hit
+ *  is verified against the second hash (the check) of the text, so that
+ *  a feature which is not in the model is not given the weights of a
+ *  predicate with the same hash.  The weights are held in flat arrays, so an instance can be scored from a
+ *  FeatureBuilder without building a String for each feature and with no
+ *  allocation.  The probabilities computed are identical to those computed
+ *  by <CODE>GISModel.eval</CODE> for the same features.
+ *  <p>
+ *  A scorer may be saved in a binary format, consisting of these arrays,
+ *  which is loaded with bulk reads into the arrays rather than by parsing
+ *  it, and so loads much faster than the plain text GIS format.  The
+ *  predicate strings are stored in the file but are only decoded if the
+ *  model is converted back to a GISModel.  <CODE>main</CODE> converts a
+ *  GIS model file to the binary format.
+ *  <p>
+ *  A MaxEntScorer is immutable and may be shared by several threads.
+ */
+
+public class MaxEntScorer {
+
+	// the first 4 bytes of a binary model file:  "JME2"
+	private static final int MAGIC = 0x4A4D4532;
+
+	// the first 4 bytes of a binary model file written before the checks
+	// were stored:  "JME1"
+	private static final int MAGIC_V1 = 0x4A4D4531;
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	// the model from which the scorer was compiled, or null if it was
+	// loaded from a binary model file
+	private final GISModel model;
+
+	// the text of the predicates:  either the strings, or for a scorer loaded
+	// from a binary file, the offsets of predicate p in predicateText are
+	// predicateOffset[p] ... predicateOffset[p+1]-1
+	private String[] predicates;
+	private final int[] predicateOffset;
+	private final ByteBuffer predicateText;
+
+	private final String[] outcomeNames;
+
+	private final int nOutcomes;
+
+	// open hash table from predicate hash (and check) to predicate id
+	// (ids[j] == -1 for an empty slot)
+	private final long[] keys;
+	private final long[] checks;
+	private final int[] ids;
+	private final int mask;
+
+	// the weights of predicate p are weight[start[p] ... start[p+1]-1],
+	// for outcomes outcome[start[p] ... start[p+1]-1]
+	private final int[] start;
+	private final int[] outcome;
+	private final double[] weight;
+
+	private final double logPrior;
+	private final double correctionConstant;
+	private final double constantInverse;
+	private final double correctionParam;
+
+	private MaxEntScorer (String[] outcomeNames, long[] hash, long[] check,
+	                      int[] start, int[] outcome, double[] weight,
+	                      double correctionConstant, double correctionParam,
+	                      int[] predicateOffset, ByteBuffer predicateText) {
+		this.model = null;
+		this.outcomeNames = outcomeNames;
+		this.nOutcomes = outcomeNames.length;
+		this.keys = new long[tableSize(hash.length)];
+		this.checks = new long[keys.length];
+		this.ids = new int[keys.length];
+		this.mask = keys.length - 1;
+		this.predicateOffset = predicateOffset;
+		this.predicateText = predicateText;
+		index(hash, check);
+		this.start = start;
+		this.outcome = outcome;
+		this.weight = weight;
+		this.correctionConstant = correctionConstant;
+		this.constantInverse = 1.0 / correctionConstant;
+		this.correctionParam = correctionParam;
+		this.logPrior = Math.log(1. / nOutcomes);
+	}
+
+	/**
+	 *  compiles GISModel <CODE>model</CODE>.
+	 *
+	 *  @throws IllegalArgumentException if two predicates of the model
+	 *                                   have the same hash and check
+	 */
+
+	public MaxEntScorer (GISModel model) {
+		this.model = model;
+		Object[] data = model.getDataStructures();
+		Context[] params = (Context[]) data[0];
+		@SuppressWarnings("unchecked")
+		IndexHashTable<String> pmap = (IndexHashTable<String>) data[1];
+		outcomeNames = (String[]) data[2];
+		nOutcomes = outcomeNames.length;
+		correctionConstant = ((Integer) data[3]).intValue();
+		constantInverse = 1.0 / correctionConstant;
+		correctionParam = ((Double) data[4]).doubleValue();
+		logPrior = Math.log(1. / nOutcomes);
+
+		predicates = pmap.toArray(new String[pmap.size()]);
+		predicateOffset = null;
+		predicateText = null;
+		int nPredicates = predicates.length;
+		long[] hash = new long[nPredicates];
+		long[] check = new long[nPredicates];
+		for (int p = 0; p < nPredicates; p++) {
+			hash[p] = FeatureBuilder.hash(predicates[p]);
+			check[p] = FeatureBuilder.check(predicates[p]);
+		}
+		keys = new long[tableSize(nPredicates)];
+		checks = new long[keys.length];
+		ids = new int[keys.length];
+		mask = keys.length - 1;
+		index(hash, check);
+		start = new int[nPredicates + 1];
+		int nWeights = 0;
+		for (int p = 0; p < nPredicates; p++)
+			nWeights += params[p].getOutcomes().length;
+		outcome = new int[nWeights];
+		weight = new double[nWeights];
+		int w = 0;
+		for (int p = 0; p < nPredicates; p++) {
+			start[p] = w;
+			int[] outcomes = params[p].getOutcomes();
+			double[] parameters = params[p].getParameters();
+			System.arraycopy(outcomes, 0, outcome, w, outcomes.length);
+			System.arraycopy(parameters, 0, weight, w, parameters.length);
+			w += outcomes.length;
+		}
+		start[nPredicates] = w;
+	}
+
+	private static int tableSize (int nPredicates) {
+		int tableSize = 2;
+		while (tableSize < 2 * nPredicates)
+			tableSize *= 2;
+		return tableSize;
+	}
+
+	/**
+	 *  fills the hash table (keys, checks, ids) given the hash and check
+	 *  of each predicate.  Predicates with the same hash but different
+	 *  checks occupy separate slots.
+	 */
+
+	private void index (long[] hash, long[] check) {
+		Arrays.fill(ids, -1);
+		for (int p = 0; p < hash.length; p++) {
+			long h = hash[p];
+			long c = check[p];
+			int j = slot(h);
+			while (ids[j] >= 0) {
+				if (keys[j] == h && checks[j] == c)
+					throw new IllegalArgumentException
+						("MaxEntScorer:  predicates " + predicates()[ids[j]] + " and " +
+						 predicates()[p] + " have the same hash");
+				j = (j + 1) & mask;
+			}
+			keys[j] = h;
+			checks[j] = c;
+			ids[j] = p;
+		}
+	}
+
+	private int slot (long h) {
+		return (int) (h ^ (h >>> 32)) & mask;
+	}
+
+	/**
+	 *  returns the id of the predicate with hash <CODE>h</CODE> and check
+	 *  <CODE>c</CODE>, or -1 if the model has no such predicate.
+	 */
+
+	private int predicate (long h, long c) {
+		for (int j = slot(h); ids[j] >= 0; j = (j + 1) & mask)
+			if (keys[j] == h && checks[j] == c)
+				return ids[j];
+		return -1;
+	}
+
+	/**
+	 *  returns the GISModel from which this scorer was compiled, or
+	 *  <CODE>null</CODE> if it was loaded from a binary model file.
+	 */
+
+	public GISModel getModel () {
+		return model;
+	}
+
+	/**
+	 *  returns the predicates of the model, indexed by predicate id.
+	 */
+
+	private synchronized String[] predicates () {
+		if (predicates == null) {
+			int nPredicates = start.length - 1;
+			String[] p = new String[nPredicates];
+			ByteBuffer text = predicateText.duplicate();
+			for (int i = 0; i < nPredicates; i++) {
+				byte[] b = new byte[predicateOffset[i+1] - predicateOffset[i]];
+				text.position(predicateOffset[i]);
+				text.get(b);
+				p[i] = new String(b, UTF8);
+			}
+			predicates = p;
+		}
+		return predicates;
+	}
+
+	/**
+	 *  returns the model as a GISModel.  For a scorer loaded from a binary
+	 *  model file, the GISModel is built from the file.
+	 */
+
+	public GISModel toGISModel () {
+		if (model != null)
+			return model;
+		int nPredicates = start.length - 1;
+		Context[] params = new Context[nPredicates];
+		for (int p = 0; p < nPredicates; p++) {
+			params[p] = new Context(Arrays.copyOfRange(outcome, start[p], start[p+1]),
+			                        Arrays.copyOfRange(weight, start[p], start[p+1]));
+		}
+		return new GISModel(params, predicates(), outcomeNames,
+		                    (int) correctionConstant, correctionParam);
+	}
+
+	/**
+	 *  writes the scorer to file <CODE>file</CODE> in the binary model format.
+	 */
+
+	public void save (File file) throws IOException {
+		String[] predicates = predicates();
+		DataOutputStream out = new DataOutputStream(
+			new BufferedOutputStream(new FileOutputStream(file)));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(nOutcomes);
+			out.writeInt(predicates.length);
+			out.writeInt(weight.length);
+			out.writeDouble(correctionConstant);
+			out.writeDouble(correctionParam);
+			for (int i = 0; i < nOutcomes; i++) {
+				byte[] b = outcomeNames[i].getBytes(UTF8);
+				out.writeInt(b.length);
+				out.write(b);
+			}
+			long[] hash = new long[predicates.length];
+			long[] check = new long[predicates.length];
+			for (int j = 0; j < keys.length; j++)
+				if (ids[j] >= 0) {
+					hash[ids[j]] = keys[j];
+					check[ids[j]] = checks[j];
+				}
+			for (int p = 0; p < hash.length; p++)
+				out.writeLong(hash[p]);
+			for (int p = 0; p < check.length; p++)
+				out.writeLong(check[p]);
+			for (int i = 0; i < start.length; i++)
+				out.writeInt(start[i]);
+			for (int i = 0; i < outcome.length; i++)
+				out.writeInt(outcome[i]);
+			for (int i = 0; i < weight.length; i++)
+				out.writeDouble(weight[i]);
+			byte[][] text = new byte[predicates.length][];
+			int offset = 0;
+			for (int p = 0; p < predicates.length; p++) {
+				text[p] = predicates[p].getBytes(UTF8);
+				out.writeInt(offset);
+				offset += text[p].length;
+			}
+			out.writeInt(offset);
+			for (int p = 0; p < predicates.length; p++)
+				out.write(text[p]);
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 *  returns true if <CODE>file</CODE> is a model file in the binary
+	 *  model format.
+	 */
+
+	public static boolean isBinaryModel (File file) throws IOException {
+		if (file.length() < 4)
+			return false;
+		DataInputStream in = new DataInputStream(new FileInputStream(file));
+		try {
+			int magic = in.readInt();
+			return magic == MAGIC || magic == MAGIC_V1;
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 *  loads a scorer from <CODE>file</CODE>, which must be in the binary
+	 *  model format.
+	 */
+
+	public static MaxEntScorer load (File file) throws IOException {
+		DataInputStream in = new DataInputStream(
+			new BufferedInputStream(new FileInputStream(file), 1 << 16));
+		try {
+			int magic = in.readInt();
+			if (magic != MAGIC && magic != MAGIC_V1)
+				throw new IOException("Not a binary model file: " + file);
+			int nOutcomes = in.readInt();
+			int nPredicates = in.readInt();
+			int nWeights = in.readInt();
+			double correctionConstant = in.readDouble();
+			double correctionParam = in.readDouble();
+			String[] outcomeNames = new String[nOutcomes];
+			for (int i = 0; i < nOutcomes; i++) {
+				byte[] b = new byte[in.readInt()];
+				in.readFully(b);
+				outcomeNames[i] = new String(b, UTF8).intern();
+			}
+			long[] hash = new long[nPredicates];
+			read(in, 8 * nPredicates).asLongBuffer().get(hash);
+			long[] check = null;
+			if (magic == MAGIC) {
+				check = new long[nPredicates];
+				read(in, 8 * nPredicates).asLongBuffer().get(check);
+			}
+			int[] start = new int[nPredicates + 1];
+			read(in, 4 * start.length).asIntBuffer().get(start);
+			int[] outcome = new int[nWeights];
+			read(in, 4 * nWeights).asIntBuffer().get(outcome);
+			double[] weight = new double[nWeights];
+			read(in, 8 * nWeights).asDoubleBuffer().get(weight);
+			int[] predicateOffset = new int[nPredicates + 1];
+			read(in, 4 * predicateOffset.length).asIntBuffer().get(predicateOffset);
+			ByteBuffer predicateText = read(in, predicateOffset[nPredicates]);
+			if (check == null)
+				check = checks(predicateOffset, predicateText);
+			return new MaxEntScorer(outcomeNames, hash, check, start, outcome, weight,
+			                        correctionConstant, correctionParam,
+			                        predicateOffset, predicateText);
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 *  reads the next <CODE>n</CODE> bytes of <CODE>in</CODE>.
+	 */
+
+	private static ByteBuffer read (DataInputStream in, int n) throws IOException {
+		byte[] b = new byte[n];
+		in.readFully(b);
+		return ByteBuffer.wrap(b);
+	}
+
+	/**
+	 *  computes the check of each predicate from its text, for a model
+	 *  file written before the checks were stored.
+	 */
+
+	private static long[] checks (int[] predicateOffset, ByteBuffer predicateText) {
+		int nPredicates = predicateOffset.length - 1;
+		long[] check = new long[nPredicates];
+		for (int p = 0; p < nPredicates; p++) {
+			byte[] b = new byte[predicateOffset[p+1] - predicateOffset[p]];
+			predicateText.position(predicateOffset[p]);
+			predicateText.get(b);
+			check[p] = FeatureBuilder.check(new String(b, UTF8));
+		}
+		predicateText.rewind();
+		return check;
+	}
+
+	/**
+	 *  loads a model from <CODE>file</CODE>, which may be in the binary
+	 *  model format or in any of the GIS formats read by
+	 *  <CODE>SuffixSensitiveGISModelReader</CODE>.
+	 */
+
+	public static MaxEntScorer loadAnyFormat (File file) throws IOException {
+		if (isBinaryModel(file))
+			return load(file);
+		return new MaxEntScorer((GISModel) new SuffixSensitiveGISModelReader(file).getModel());
+	}
+
+	/**
+	 *  converts a GIS model file to the binary model format.  Takes two
+	 *  arguments, the GIS model file (in any format read by
+	 *  <CODE>SuffixSensitiveGISModelReader</CODE>) and the binary model file
+	 *  to be written.
+	 */
+
+	public static void main (String[] args) throws IOException {
+		if (args.length != 2) {
+			System.err.println("MaxEntScorer requires 2 arguments:");
+			System.err.println("  GIS-model-file binary-model-file");
+			System.exit(1);
+		}
+		MaxEntScorer scorer = loadAnyFormat(new File(args[0]));
+		scorer.save(new File(args[1]));
+		System.out.println("Wrote binary model " + args[1] + " (" +
+		                   scorer.predicates().length + " predicates, " +
+		                   scorer.nOutcomes + " outcomes)");
+	}
+
+	public int getNumOutcomes () {
+		return nOutcomes;
+	}
+
+	public String getOutcome (int i) {
+		return outcomeNames[i];
+	}
+
+	/**
+	 *  returns the index of outcome <CODE>outcome</CODE>, or -1 if it is not
+	 *  an outcome of the model.
+	 */
+
+	public int getIndex (String outcome) {
+		for (int i = 0; i < nOutcomes; i++)
+			if (outcomeNames[i].equals(outcome))
+				return i;
+		return -1;
+	}
+
+	/**
+	 *  returns the outcome with the highest probability in <CODE>prob</CODE>
+	 *  (the first such outcome if there are several).
+	 */
+
+	public String getBestOutcome (double[] prob) {
+		int best = 0;
+		for (int i = 1; i < prob.length; i++)
+			if (prob[i] > prob[best])
+				best = i;
+		return outcomeNames[best];
+	}
+
+	/**
+	 *  computes the probability of each outcome given the features in
+	 *  <CODE>features</CODE>, and stores them in <CODE>prob</CODE>.
+	 */
+
+	public void eval (FeatureBuilder features, double[] prob) {
+		if (features.counts.length < nOutcomes)
+			features.counts = new int[nOutcomes];
+		int[] count = features.counts;
+		start(prob, count);
+		for (int i = 0; i < features.size(); i++)
+			addWeights(features.hash(i), features.check(i), prob, count);
+		normalize(prob, count, prob);
+	}
+
+	/**
+	 *  returns the probability of each outcome given the features
+	 *  <CODE>features</CODE>.
+	 */
+
+	public double[] eval (String[] features) {
+		double[] prob = new double[nOutcomes];
+		int[] count = new int[nOutcomes];
+		start(prob, count);
+		for (int i = 0; i < features.length; i++)
+			addWeights(features[i], prob, count);
+		normalize(prob, count, prob);
+		return prob;
+	}
+
+	/**
+	 *  initializes <CODE>sum</CODE> and <CODE>count</CODE> for scoring an
+	 *  instance in parts.  An instance may be scored by calling
+	 *  <CODE>start</CODE>, then <CODE>addWeights</CODE> for each of its
+	 *  features, and then <CODE>normalize</CODE>.
+	 */
+
+	public void start (double[] sum, int[] count) {
+		Arrays.fill(sum, 0, nOutcomes, logPrior);
+		Arrays.fill(count, 0, nOutcomes, 0);
+	}
+
+	/**
+	 *  adds the weight of the feature with hash <CODE>h</CODE> and check
+	 *  <CODE>c</CODE> (as computed by {@link FeatureBuilder}) for each
+	 *  outcome to <CODE>sum</CODE>, and counts the feature in
+	 *  <CODE>count</CODE> for each outcome for which it has a weight.
+	 */
+
+	public void addWeights (long h, long c, double[] sum, int[] count) {
+		int p = predicate(h, c);
+		if (p < 0)
+			return;
+		for (int w = start[p]; w < start[p+1]; w++) {
+			sum[outcome[w]] += weight[w];
+			count[outcome[w]]++;
+		}
+	}
+
+	/**
+	 *  adds the weight of feature <CODE>feature</CODE> for each outcome to
+	 *  <CODE>sum</CODE> and <CODE>count</CODE>.
+	 */
+
+	public void addWeights (String feature, double[] sum, int[] count) {
+		addWeights(FeatureBuilder.hash(feature), FeatureBuilder.check(feature), sum, count);
+	}
+
+	/**
+	 *  computes, from the weights <CODE>sum</CODE> and feature counts
+	 *  <CODE>count</CODE> accumulated by <CODE>addWeights</CODE>, the
+	 *  probability of each outcome, and stores them in <CODE>prob</CODE>
+	 *  (which may be the same array as <CODE>sum</CODE>).
+	 */
+
+	public void normalize (double[] sum, int[] count, double[] prob) {
+		double normal = 0.0;
+		for (int i = 0; i < nOutcomes; i++) {
+			if (correctionParam != 0)
+				prob[i] = Math.exp(sum[i] * constantInverse +
+				                   (1.0 - count[i] / correctionConstant) * correctionParam);
+			else
+				prob[i] = Math.exp(sum[i] * constantInverse);
+			normal += prob[i];
+		}
+		for (int i = 0; i < nOutcomes; i++)
+			prob[i] /= normal;
+	}
+}
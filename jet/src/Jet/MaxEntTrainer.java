@@ -0,0 +1,664 @@
+// -*- tab-width: 4 -*-
+//Title:        JET
+//Copyright:    2026
+//Author:       Ralph Grishman
+//Description:  A Java-based Information Extraction Toolkit
+
+package Jet;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import opennlp.maxent.*;
+import opennlp.maxent.io.*;
+import opennlp.model.*;
+import cc.mallet.optimize.*;
+
+/**
+ *  a multi-threaded trainer for maximum entropy models.  The trainer reads
+ *  a file of training events in the format written by
+ *  <CODE>MaxEntModel.addEvent</CODE> (on each line, the features separated
+ *  by blanks, followed by the outcome), and creates a GISModel which can be
+ *  saved and read with the OpenNLP model writers and readers.
+ *  <p>
+ *  Two training methods are provided, corresponding to those of OpenNLP:
+ *  Generalized Iterative Scaling (<CODE>GIS.trainModel</CODE>), with an
+ *  optional feature count cutoff and simple smoothing, and L-BFGS
+ *  optimization with an L2 penalty (<CODE>GIS.trainL2Model</CODE>), using
+ *  the Mallet optimizer.  In both cases most of the time goes to computing,
+ *  at each iteration, the model's expected value of each feature;  this is
+ *  done in parallel, by a fork-join pool of <CODE>threads</CODE> threads.
+ *  The distribution for each event is computed in one pass, in parallel over
+ *  blocks of events, and the expectations are then accumulated in a second
+ *  pass, in parallel over predicates, so that each parameter is updated by
+ *  only one task.  Since the order of summation does not depend on the
+ *  number of threads, the trained model is the same for any number of threads.
+ *  <p>
+ *  Because the second pass reads the distribution of every event in which a
+ *  predicate appears, the distributions of all the (distinct) events are
+ *  kept, using 8 bytes for each event and outcome.  This limits training to
+ *  data with fewer than 2<sup>31</sup> event-outcome pairs;  larger sets
+ *  are rejected by <CODE>train</CODE>.
+ *  <p>
+ *  The log likelihood of the training data, the accuracy on the training
+ *  data, and the time of each iteration are reported on
+ *  <CODE>System.out</CODE> unless <CODE>setPrintMessages(false)</CODE>
+ *  has been called.
+ */
+
+public class MaxEntTrainer {
+
+	// the number of events in a block of the first pass
+	private static final int BLOCK = 256;
+
+	// stop GIS when the log likelihood improves by less than this
+	private static final double LL_THRESHOLD = 0.0001;
+
+	private int iterations = 100;
+	private int cutoff = 0;
+	private boolean smoothing = false;
+	private double smoothingObservation = 0.1;
+	private boolean l2 = false;
+	private double l2Penalty = 2.;
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private boolean printMessages = true;
+
+	// the training data:  for each (merged) event, the indices of its
+	// predicates, its outcome, and the number of times it was seen
+	private String[] predLabels;
+	private String[] outcomeLabels;
+	private int[][] contexts;
+	private int[] outcome;
+	private int[] count;
+	private int nEvents;
+	private int nOutcomes;
+
+	// for each predicate, the events in which it appears (an event appears
+	// once for each occurrence of the predicate in the event)
+	private int[][] predEvents;
+
+	// the parameters:  those of predicate p are params[paramStart[p]] ...
+	// params[paramStart[p+1]-1], for outcomes paramOutcome[...]
+	private int[] paramStart;
+	private int[] paramOutcome;
+	private double[] params;
+	private double[] observed;
+
+	// the model distribution for each event (nEvents x nOutcomes)
+	private double[] distribution;
+	private double[] blockLL;
+	private int[] blockCorrect;
+
+	private ForkJoinPool pool;
+
+	/**
+	 *  creates a trainer for GIS, with 100 iterations, no cutoff, no
+	 *  smoothing, and one thread per processor.
+	 */
+
+	public MaxEntTrainer () {
+	}
+
+	/**
+	 *  sets the (maximum) number of GIS iterations.
+	 */
+
+	public void setIterations (int iterations) {
+		this.iterations = iterations;
+	}
+
+	/**
+	 *  sets the feature cutoff:  features occurring fewer than
+	 *  <CODE>cutoff</CODE> times in the training set are ignored.
+	 */
+
+	public void setCutoff (int cutoff) {
+		this.cutoff = cutoff;
+	}
+
+	/**
+	 *  if <CODE>smoothing</CODE> is true, the GIS trainer assigns a parameter
+	 *  to every combination of feature and outcome, treating combinations which
+	 *  were never observed as if they had been observed
+	 *  <CODE>observation</CODE> times (as OpenNLP's simple smoothing does).
+	 */
+
+	public void setSmoothing (boolean smoothing, double observation) {
+		this.smoothing = smoothing;
+		this.smoothingObservation = observation;
+	}
+
+	/**
+	 *  selects training by L-BFGS, maximizing the log likelihood of the
+	 *  training data less <CODE>penalty</CODE>/2 times the sum of the squares
+	 *  of the parameters.  Training continues until the optimizer converges.
+	 */
+
+	public void setL2 (double penalty) {
+		this.l2 = true;
+		this.l2Penalty = penalty;
+	}
+
+	/**
+	 *  sets the number of threads used for training.
+	 */
+
+	public void setThreads (int threads) {
+		if (threads < 1)
+			throw new IllegalArgumentException("MaxEntTrainer: invalid number of threads " + threads);
+		this.threads = threads;
+	}
+
+	/**
+	 *  if <CODE>printMessages</CODE> is true (the default), the progress of
+	 *  training is reported on <CODE>System.out</CODE>.
+	 */
+
+	public void setPrintMessages (boolean printMessages) {
+		this.printMessages = printMessages;
+	}
+
+	/**
+	 *  trains a model from the events in file <CODE>eventFileName</CODE>.
+	 */
+
+	public GISModel train (String eventFileName) throws IOException {
+		long start = System.currentTimeMillis();
+		readEvents(eventFileName);
+		if ((long) nEvents * nOutcomes > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("MaxEntTrainer: " + nEvents + " events with " +
+			                                   nOutcomes + " outcomes are too many to train");
+		display("Read " + nEvents + " distinct events, " + predLabels.length +
+		        " predicates, " + nOutcomes + " outcomes, " + params.length +
+		        " parameters (" + (System.currentTimeMillis() - start) + " ms)");
+		pool = new ForkJoinPool(threads);
+		try {
+			if (l2)
+				return trainL2();
+			else
+				return trainGIS();
+		} finally {
+			pool.shutdown();
+			pool = null;
+			distribution = null;
+		}
+	}
+
+	/**
+	 *  reads the events, discarding predicates which occur fewer than
+	 *  <CODE>cutoff</CODE> times and then events without any remaining
+	 *  predicates, merges identical events, and allocates the parameters.
+	 */
+
+	private void readEvents (String eventFileName) throws IOException {
+		// first pass:  count predicates
+		Map<String, int[]> predCount = new HashMap<String, int[]>();
+		BufferedReader reader = new BufferedReader(new FileReader(eventFileName));
+		String line;
+		while ((line = reader.readLine()) != null) {
+			int lastSpace = line.lastIndexOf(' ');
+			if (lastSpace < 0)
+				continue;
+			for (String pred : line.substring(0, lastSpace).split(" ")) {
+				int[] c = predCount.get(pred);
+				if (c == null)
+					predCount.put(pred, c = new int[1]);
+				c[0]++;
+			}
+		}
+		reader.close();
+		// second pass:  index the events
+		Map<String, Integer> predIndex = new HashMap<String, Integer>();
+		Map<String, Integer> outcomeIndex = new HashMap<String, Integer>();
+		List<String> preds = new ArrayList<String>();
+		List<String> outcomes = new ArrayList<String>();
+		Map<EventKey, Integer> eventIndex = new HashMap<EventKey, Integer>();
+		List<EventKey> events = new ArrayList<EventKey>();
+		List<int[]> eventCount = new ArrayList<int[]>();
+		int[] indexed = new int[16];
+		reader = new BufferedReader(new FileReader(eventFileName));
+		while ((line = reader.readLine()) != null) {
+			int lastSpace = line.lastIndexOf(' ');
+			if (lastSpace < 0)
+				continue;
+			String[] context = line.substring(0, lastSpace).split(" ");
+			if (indexed.length < context.length)
+				indexed = new int[context.length];
+			int n = 0;
+			for (String pred : context) {
+				if (predCount.get(pred)[0] < cutoff)
+					continue;
+				Integer p = predIndex.get(pred);
+				if (p == null) {
+					p = preds.size();
+					predIndex.put(pred, p);
+					preds.add(pred);
+				}
+				indexed[n++] = p;
+			}
+			if (n == 0) {
+				display("Dropped event " + line);
+				continue;
+			}
+			String oc = line.substring(lastSpace + 1);
+			Integer o = outcomeIndex.get(oc);
+			if (o == null) {
+				o = outcomes.size();
+				outcomeIndex.put(oc, o);
+				outcomes.add(oc);
+			}
+			int[] ctx = Arrays.copyOf(indexed, n);
+			Arrays.sort(ctx);
+			EventKey key = new EventKey(ctx, o);
+			Integer e = eventIndex.get(key);
+			if (e == null) {
+				eventIndex.put(key, events.size());
+				events.add(key);
+				eventCount.add(new int[] {1});
+			} else {
+				eventCount.get(e)[0]++;
+			}
+		}
+		reader.close();
+		predLabels = preds.toArray(new String[preds.size()]);
+		outcomeLabels = outcomes.toArray(new String[outcomes.size()]);
+		nOutcomes = outcomeLabels.length;
+		nEvents = events.size();
+		contexts = new int[nEvents][];
+		outcome = new int[nEvents];
+		count = new int[nEvents];
+		for (int e = 0; e < nEvents; e++) {
+			contexts[e] = events.get(e).context;
+			outcome[e] = events.get(e).outcome;
+			count[e] = eventCount.get(e)[0];
+		}
+		indexPredicates();
+	}
+
+	/**
+	 *  builds the inverted index from predicates to events, and allocates
+	 *  a parameter for each predicate and outcome seen with the predicate
+	 *  (or, with smoothing, for each predicate and every outcome).
+	 */
+
+	private void indexPredicates () {
+		int nPreds = predLabels.length;
+		int[] nOccurrences = new int[nPreds];
+		for (int[] context : contexts)
+			for (int p : context)
+				nOccurrences[p]++;
+		predEvents = new int[nPreds][];
+		for (int p = 0; p < nPreds; p++)
+			predEvents[p] = new int[nOccurrences[p]];
+		int[] fill = new int[nPreds];
+		double[][] seen = new double[nPreds][nOutcomes];
+		for (int e = 0; e < nEvents; e++)
+			for (int p : contexts[e]) {
+				predEvents[p][fill[p]++] = e;
+				seen[p][outcome[e]] += count[e];
+			}
+		paramStart = new int[nPreds + 1];
+		for (int p = 0; p < nPreds; p++) {
+			int n = 0;
+			for (int o = 0; o < nOutcomes; o++)
+				if (seen[p][o] > 0 || (smoothing && !l2))
+					n++;
+			paramStart[p + 1] = paramStart[p] + n;
+		}
+		int nParams = paramStart[nPreds];
+		paramOutcome = new int[nParams];
+		observed = new double[nParams];
+		params = new double[nParams];
+		for (int p = 0; p < nPreds; p++) {
+			int k = paramStart[p];
+			for (int o = 0; o < nOutcomes; o++) {
+				if (seen[p][o] > 0) {
+					paramOutcome[k] = o;
+					observed[k++] = seen[p][o];
+				} else if (smoothing && !l2) {
+					paramOutcome[k] = o;
+					observed[k++] = smoothingObservation;
+				}
+			}
+		}
+	}
+
+	/**
+	 *  trains the model by Generalized Iterative Scaling.
+	 */
+
+	private GISModel trainGIS () {
+		int correctionConstant = 1;
+		for (int[] context : contexts)
+			correctionConstant = Math.max(correctionConstant, context.length);
+		final double inverseC = 1. / correctionConstant;
+		final double[] logObserved = new double[observed.length];
+		for (int k = 0; k < observed.length; k++)
+			logObserved[k] = Math.log(observed[k]);
+		double prevLL = 0.;
+		for (int i = 1; i <= iterations; i++) {
+			long start = System.currentTimeMillis();
+			double ll = computeDistribution(inverseC);
+			// update the parameters of each predicate
+			forEach(predLabels.length, 64, new Range() {
+				public void run (int lo, int hi) {
+					double[] expected = new double[nOutcomes];
+					for (int p = lo; p < hi; p++) {
+						computeExpectations(p, expected);
+						for (int k = paramStart[p]; k < paramStart[p + 1]; k++)
+							params[k] += logObserved[k] - Math.log(expected[paramOutcome[k]]);
+					}
+				}
+			});
+			report(i, ll, System.currentTimeMillis() - start);
+			if (i > 1) {
+				if (prevLL > ll) {
+					display("Model diverging:  log likelihood decreased");
+					break;
+				}
+				if (ll - prevLL < LL_THRESHOLD)
+					break;
+			}
+			prevLL = ll;
+		}
+		return createModel(correctionConstant);
+	}
+
+	/**
+	 *  trains the model by L-BFGS with an L2 penalty.
+	 */
+
+	private GISModel trainL2 () {
+		L2Objective objective = new L2Objective();
+		LimitedMemoryBFGS optimizer = new LimitedMemoryBFGS(objective);
+		boolean converged = false;
+		try {
+			for (int i = 1; !converged; i++) {
+				long start = System.currentTimeMillis();
+				converged = optimizer.optimize(1);
+				report(i, objective.logLikelihood, System.currentTimeMillis() - start);
+			}
+		} catch (RuntimeException e) {
+			// Mallet signals a failed line search by an exception;  keep
+			// the last parameters, as OpenNLP's L-BFGS trainer does
+			display("L-BFGS stopped: " + e.getMessage());
+		}
+		display(converged ? "L-BFGS converged." : "L-BFGS stopped before convergence.");
+		return createModel(1);
+	}
+
+	/**
+	 *  the objective function optimized by L-BFGS:  the log likelihood of
+	 *  the training data, less the L2 penalty.
+	 */
+
+	private class L2Objective implements Optimizable.ByGradientValue {
+
+		// the value and gradient are recomputed when the parameters change
+		private boolean stale = true;
+		private double value;
+		private final double[] gradient = new double[params.length];
+		double logLikelihood;
+
+		public int getNumParameters () {
+			return params.length;
+		}
+
+		public void getParameters (double[] buffer) {
+			System.arraycopy(params, 0, buffer, 0, params.length);
+		}
+
+		public double getParameter (int k) {
+			return params[k];
+		}
+
+		public void setParameters (double[] buffer) {
+			System.arraycopy(buffer, 0, params, 0, params.length);
+			stale = true;
+		}
+
+		public void setParameter (int k, double value) {
+			params[k] = value;
+			stale = true;
+		}
+
+		public double getValue () {
+			update();
+			return value;
+		}
+
+		public void getValueGradient (double[] buffer) {
+			update();
+			System.arraycopy(gradient, 0, buffer, 0, gradient.length);
+		}
+
+		private void update () {
+			if (!stale)
+				return;
+			logLikelihood = computeDistribution(1.);
+			forEach(predLabels.length, 64, new Range() {
+				public void run (int lo, int hi) {
+					double[] expected = new double[nOutcomes];
+					for (int p = lo; p < hi; p++) {
+						computeExpectations(p, expected);
+						for (int k = paramStart[p]; k < paramStart[p + 1]; k++)
+							gradient[k] = observed[k] - expected[paramOutcome[k]] - l2Penalty * params[k];
+					}
+				}
+			});
+			double norm = 0.;
+			for (double w : params)
+				norm += w * w;
+			value = logLikelihood - l2Penalty / 2 * norm;
+			stale = false;
+		}
+	}
+
+	/**
+	 *  computes, in parallel over blocks of events, the model's distribution
+	 *  over outcomes for each event, with the sum of the parameters scaled by
+	 *  <CODE>scale</CODE>, and returns the log likelihood of the training data.
+	 */
+
+	private double computeDistribution (final double scale) {
+		if (distribution == null) {
+			distribution = new double[nEvents * nOutcomes];
+			int nBlocks = (nEvents + BLOCK - 1) / BLOCK;
+			blockLL = new double[nBlocks];
+			blockCorrect = new int[nBlocks];
+		}
+		forEach(blockLL.length, 1, new Range() {
+			public void run (int lo, int hi) {
+				for (int b = lo; b < hi; b++) {
+					double ll = 0.;
+					int correct = 0;
+					for (int e = b * BLOCK; e < Math.min(nEvents, (b + 1) * BLOCK); e++) {
+						int base = e * nOutcomes;
+						Arrays.fill(distribution, base, base + nOutcomes, 0.);
+						for (int p : contexts[e])
+							for (int k = paramStart[p]; k < paramStart[p + 1]; k++)
+								distribution[base + paramOutcome[k]] += params[k];
+						double max = Double.NEGATIVE_INFINITY;
+						int best = 0;
+						for (int o = 0; o < nOutcomes; o++) {
+							double s = distribution[base + o] * scale;
+							distribution[base + o] = s;
+							if (s > max) {
+								max = s;
+								best = o;
+							}
+						}
+						double normal = 0.;
+						for (int o = 0; o < nOutcomes; o++) {
+							double prob = Math.exp(distribution[base + o] - max);
+							distribution[base + o] = prob;
+							normal += prob;
+						}
+						for (int o = 0; o < nOutcomes; o++)
+							distribution[base + o] /= normal;
+						ll += Math.log(distribution[base + outcome[e]]) * count[e];
+						if (best == outcome[e])
+							correct += count[e];
+					}
+					blockLL[b] = ll;
+					blockCorrect[b] = correct;
+				}
+			}
+		});
+		double ll = 0.;
+		for (double l : blockLL)
+			ll += l;
+		return ll;
+	}
+
+	/**
+	 *  sets <CODE>expected[o]</CODE> to the model's expected count of
+	 *  predicate <CODE>p</CODE> with outcome <CODE>o</CODE>, for each outcome
+	 *  <CODE>o</CODE> for which <CODE>p</CODE> has a parameter.
+	 */
+
+	private void computeExpectations (int p, double[] expected) {
+		for (int k = paramStart[p]; k < paramStart[p + 1]; k++)
+			expected[paramOutcome[k]] = 0.;
+		for (int e : predEvents[p]) {
+			int base = e * nOutcomes;
+			for (int k = paramStart[p]; k < paramStart[p + 1]; k++) {
+				int o = paramOutcome[k];
+				expected[o] += distribution[base + o] * count[e];
+			}
+		}
+	}
+
+	private void report (int iteration, double ll, long ms) {
+		int correct = 0;
+		int total = 0;
+		for (int c : blockCorrect)
+			correct += c;
+		for (int c : count)
+			total += c;
+		display(String.format("%4d:  log likelihood = %.4f  accuracy = %.5f  (%d ms)",
+		                      iteration, ll, (double) correct / total, ms));
+	}
+
+	private GISModel createModel (int correctionConstant) {
+		Context[] predParams = new Context[predLabels.length];
+		for (int p = 0; p < predLabels.length; p++) {
+			int n = paramStart[p + 1] - paramStart[p];
+			int[] outcomes = new int[n];
+			double[] parameters = new double[n];
+			System.arraycopy(paramOutcome, paramStart[p], outcomes, 0, n);
+			System.arraycopy(params, paramStart[p], parameters, 0, n);
+			predParams[p] = new Context(outcomes, parameters);
+		}
+		return new GISModel(predParams, predLabels, outcomeLabels, correctionConstant, 0.);
+	}
+
+	private void display (String message) {
+		if (printMessages)
+			System.out.println(message);
+	}
+
+	/**
+	 *  a range of indices processed by one task.
+	 */
+
+	private interface Range {
+		void run (int lo, int hi);
+	}
+
+	/**
+	 *  runs <CODE>body</CODE> over indices 0 ... n-1 in the fork-join pool,
+	 *  dividing the range into pieces of at least <CODE>grain</CODE> indices.
+	 */
+
+	private void forEach (int n, int grain, Range body) {
+		pool.invoke(new RangeTask(body, 0, n, Math.max(grain, n / (threads * 8))));
+	}
+
+	private static class RangeTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Range body;
+		private final int lo, hi, grain;
+
+		RangeTask (Range body, int lo, int hi, int grain) {
+			this.body = body;
+			this.lo = lo;
+			this.hi = hi;
+			this.grain = grain;
+		}
+
+		protected void compute () {
+			if (hi - lo <= grain) {
+				body.run(lo, hi);
+			} else {
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new RangeTask(body, lo, mid, grain), new RangeTask(body, mid, hi, grain));
+			}
+		}
+	}
+
+	/**
+	 *  an event (its sorted predicate indices and outcome), as a key for
+	 *  merging identical events.
+	 */
+
+	private static class EventKey {
+
+		final int[] context;
+		final int outcome;
+		private final int hash;
+
+		EventKey (int[] context, int outcome) {
+			this.context = context;
+			this.outcome = outcome;
+			this.hash = Arrays.hashCode(context) * 31 + outcome;
+		}
+
+		public int hashCode () {
+			return hash;
+		}
+
+		public boolean equals (Object o) {
+			if (!(o instanceof EventKey))
+				return false;
+			EventKey k = (EventKey) o;
+			return outcome == k.outcome && Arrays.equals(context, k.context);
+		}
+	}
+
+	/**
+	 *  trains a model from the command line: <BR>
+	 *  MaxEntTrainer eventFile modelFile [-iterations n] [-cutoff n]
+	 *  [-smooth] [-l2 penalty] [-threads n]
+	 */
+
+	public static void main (String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("MaxEntTrainer requires 2 or more arguments:");
+			System.err.println("  eventFile modelFile [-iterations n] [-cutoff n] [-smooth] [-l2 penalty] [-threads n]");
+			System.exit(1);
+		}
+		MaxEntTrainer trainer = new MaxEntTrainer();
+		for (int i = 2; i < args.length; i++) {
+			if (args[i].equals("-iterations"))
+				trainer.setIterations(Integer.parseInt(args[++i]));
+			else if (args[i].equals("-cutoff"))
+				trainer.setCutoff(Integer.parseInt(args[++i]));
+			else if (args[i].equals("-smooth"))
+				trainer.setSmoothing(true, 0.1);
+			else if (args[i].equals("-l2"))
+				trainer.setL2(Double.parseDouble(args[++i]));
+			else if (args[i].equals("-threads"))
+				trainer.setThreads(Integer.parseInt(args[++i]));
+			else {
+				System.err.println("MaxEntTrainer:  unknown option " + args[i]);
+				System.exit(1);
+			}
+		}
+		GISModel model = trainer.train(args[0]);
+		new SuffixSensitiveGISModelWriter(model, new File(args[1])).persist();
+	}
+}
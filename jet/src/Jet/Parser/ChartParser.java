@@ -0,0 +1,783 @@
+// -*- tab-width: 4 -*-
+//Title:        JET
+//Version:      1.00
+//Copyright:    Copyright (c) 2001
+//Author:       Ralph Grishman
+//Description:  A Java-based Information Extraction Tool
+
+package Jet.Parser;
+
+import java.util.*;
+import Jet.Lisp.*;
+import Jet.Tipster.*;
+
+/**
+ *  a bottom-up chart parser for a context-free Grammar which builds a
+ *  packed shared forest.  All constituents of the same category spanning
+ *  the same text are represented by a single ForestNode, which records
+ *  each way of analyzing that text;  partially matched productions are
+ *  packed in the same way.  Edges are indexed by category and position,
+ *  so that combining edges never searches the whole chart, and the number
+ *  of edges grows polynomially with the length of the sentence even when
+ *  the number of parses grows exponentially.
+ *  <p>
+ *  As for the other parsers, the words of the sentence are matched by
+ *  literals of the grammar, and <B>constit</B> annotations are matched by
+ *  their category;  the symbol <B>null</B> matches the empty string.
+ *  <p>
+ *  By default, all constituents are found.  If a FigureOfMerit is set, the
+ *  agenda is ordered by the figure of merit, and parsing stops as soon as
+ *  a sentence spanning the text is found.
+ *  <p>
+ *  All the state of a parse is held in the ChartParser, so different
+ *  ChartParsers may be used by different threads at the same time.
+ */
+
+public class ChartParser {
+
+  /**
+   *  a score used to order the agenda in best-first parsing:  edges with
+   *  higher scores are processed first.
+   */
+
+  public interface FigureOfMerit {
+
+    /**
+     *  returns the score of an edge of category <CODE>category</CODE>
+     *  spanning <CODE>start</CODE> to <CODE>end</CODE>.
+     */
+
+    double score (Object category, int start, int end);
+  }
+
+  /**
+   *  a figure of merit which prefers longer edges.
+   */
+
+  public static final FigureOfMerit LONGEST_FIRST = new FigureOfMerit() {
+    public double score (Object category, int start, int end) {
+      return end - start;
+    }
+  };
+
+  // for each grammar element (in the form returned by 'key'), the
+  // productions which begin with that element
+  private final HashMap<Object, ArrayList<Production>> productionsStartingWith;
+  // the productions which begin with a null element (these are begun
+  // at every position)
+  private final ArrayList<Production> nullProductions;
+
+  private FigureOfMerit merit = null;
+  private boolean trace = false;
+
+  // the state of the current parse
+
+  // the ForestNodes, indexed by NodeKey (category, start, end)
+  private HashMap<NodeKey, ForestNode> nodes;
+  // for each start position, for each category, the ForestNodes taken
+  // from the agenda
+  private HashMap<Integer, HashMap<Object, ArrayList<ForestNode>>> nodesStartingAt;
+  // the Items, indexed by ItemKey (production, dot, start, end)
+  private HashMap<ItemKey, Item> items;
+  // for each end position, for each element needed, the Items taken
+  // from the agenda
+  private HashMap<Integer, HashMap<Object, ArrayList<Item>>> itemsEndingAt;
+  private Agenda agenda;
+  private Document doc;
+
+  /**
+   *  creates a chart parser for grammar <CODE>gram</CODE>.
+   */
+
+  public ChartParser (Grammar gram) {
+    productionsStartingWith = new HashMap<Object, ArrayList<Production>>();
+    nullProductions = new ArrayList<Production>();
+    for (Object p : gram.getAllProductions()) {
+      Production prod = (Production) p;
+      Object first = prod.rhs().elementAt(0);
+      if (first == Parsers.NULL) {
+        nullProductions.add(prod);
+      } else {
+        Object key = key(first);
+        ArrayList<Production> prods = productionsStartingWith.get(key);
+        if (prods == null) {
+          prods = new ArrayList<Production>();
+          productionsStartingWith.put(key, prods);
+        }
+        prods.add(prod);
+      }
+    }
+  }
+
+  /**
+   *  creates a chart parser for the same grammar as <CODE>parser</CODE>,
+   *  sharing its index of the productions (which is not changed once
+   *  built).  This is much cheaper than indexing the grammar again, and
+   *  the new parser, with its own parse state and settings, may be used by
+   *  a different thread from <CODE>parser</CODE>.
+   */
+
+  public ChartParser (ChartParser parser) {
+    productionsStartingWith = parser.productionsStartingWith;
+    nullProductions = parser.nullProductions;
+  }
+
+  /**
+   *  sets the figure of merit for best-first parsing, or, if
+   *  <CODE>merit</CODE> is null, selects exhaustive parsing.
+   */
+
+  public void setBestFirst (FigureOfMerit merit) {
+    this.merit = merit;
+  }
+
+  /**
+   *  if <CODE>trace</CODE> is true, the parser writes a message to the
+   *  Console for each constituent added to the chart.
+   */
+
+  public void setTrace (boolean trace) {
+    this.trace = trace;
+  }
+
+  /**
+   *  parses characters <I>posn</I> to <I>end</I> of Document <I>doc</I>,
+   *  returning the root of the forest:  the node for a <B>sentence</B>
+   *  spanning these characters, or null if there is no parse.
+   */
+
+  public ForestNode parseForest (Document doc, int posn, int end) {
+    this.doc = doc;
+    nodes = new HashMap<NodeKey, ForestNode>();
+    nodesStartingAt = new HashMap<Integer, HashMap<Object, ArrayList<ForestNode>>>();
+    items = new HashMap<ItemKey, Item>();
+    itemsEndingAt = new HashMap<Integer, HashMap<Object, ArrayList<Item>>>();
+    agenda = new Agenda(merit);
+    NodeKey rootKey = new NodeKey(Parsers.SENTENCE, posn, end);
+    try {
+      ArrayList<Integer> vertices = new ArrayList<Integer>();
+      while (posn >= 0 && posn < end) {
+        vertices.add(Integer.valueOf(posn));
+        posn = addLexicalNodes(posn);
+      }
+      vertices.add(Integer.valueOf(end));
+      for (int i = 0; i < nullProductions.size(); i++) {
+        Production prod = nullProductions.get(i);
+        for (int j = 0; j < vertices.size(); j++) {
+          int v = vertices.get(j).intValue();
+          addItem(prod, 0, v, v, null, null);
+        }
+      }
+      while (!agenda.isEmpty()) {
+        Object edge = agenda.next();
+        if (edge instanceof ForestNode) {
+          ForestNode node = (ForestNode) edge;
+          extendWith(node);
+          if (merit != null && node.key.equals(rootKey))
+            break;
+        } else {
+          extendItem((Item) edge);
+        }
+      }
+      return nodes.get(rootKey);
+    } finally {
+      nodesStartingAt = null;
+      items = null;
+      itemsEndingAt = null;
+      agenda = null;
+      nodes = null;
+      this.doc = null;
+    }
+  }
+
+  /**
+   *  parses characters <I>posn</I> to <I>end</I> of Document <I>doc</I>,
+   *  returning a Vector of at most <CODE>maxTrees</CODE> parse trees (as
+   *  ParseTreeNodes) taken from the forest.  Subtrees are shared between
+   *  the trees returned.
+   */
+
+  public Vector<ParseTreeNode> parse (Document doc, int posn, int end, int maxTrees) {
+    ForestNode root = parseForest(doc, posn, end);
+    if (root == null)
+      return new Vector<ParseTreeNode>();
+    return root.getTrees(maxTrees);
+  }
+
+  /**
+   *  adds leaf nodes for the token starting at position <I>posn</I> and for
+   *  each <B>constit</B> annotation starting there (<B>constit</B>s without
+   *  a <B>cat</B> feature are skipped).  Returns the end of the token, or
+   *  -1 if there is no token.
+   */
+
+  private int addLexicalNodes (int posn) {
+    Annotation token = doc.tokenAt(posn);
+    if (token == null) return -1;
+    String text = doc.text(token).trim();
+    addLeaf(new Literal(text), posn, token.span().end(), token, doc.text(token));
+    Vector<Annotation> constits = doc.annotationsAt(posn, "constit");
+    if (constits != null) {
+      for (int i = 0; i < constits.size(); i++) {
+        Annotation constit = constits.elementAt(i);
+        Object cat = constit.get("cat");
+        if (cat != null)
+          addLeaf(cat, posn, constit.span().end(), constit, doc.text(constit));
+      }
+    }
+    return token.span().end();
+  }
+
+  /**
+   *  adds a leaf node for a word or <B>constit</B> annotation.  If there is
+   *  already a leaf of the same category and span (a constit with different
+   *  features), the annotation is packed into that node as another reading.
+   */
+
+  private void addLeaf (Object category, int start, int end, Annotation ann, String word) {
+    NodeKey key = new NodeKey(key(category), start, end);
+    ForestNode node = nodes.get(key);
+    if (node != null) {
+      node.addReading(ann, word);
+      return;
+    }
+    node = new ForestNode(category, key, start, end, true, ann, word);
+    nodes.put(key, node);
+    agenda.add(node, category, start, end);
+  }
+
+  /**
+   *  returns the node of category <CODE>category</CODE> spanning
+   *  <CODE>start</CODE> to <CODE>end</CODE>, creating it (and adding it to
+   *  the agenda) if it does not yet exist.
+   */
+
+  private ForestNode getNode (Object category, int start, int end) {
+    NodeKey key = new NodeKey(key(category), start, end);
+    ForestNode node = nodes.get(key);
+    if (node == null) {
+      node = new ForestNode(category, key, start, end, false, null, null);
+      nodes.put(key, node);
+      agenda.add(node, category, start, end);
+    }
+    return node;
+  }
+
+  /**
+   *  records that production <CODE>prod</CODE> has matched its first
+   *  <CODE>dot</CODE> elements from <CODE>start</CODE> to <CODE>end</CODE>,
+   *  by extending Item <CODE>prev</CODE> with node <CODE>child</CODE>.
+   *  A new Item which needs a null element is extended at once;  a new
+   *  Item which is complete is added to the derivations of its node.
+   */
+
+  private void addItem (Production prod, int dot, int start, int end,
+                        Item prev, ForestNode child) {
+    ItemKey key = new ItemKey(prod, dot, start, end);
+    Item item = items.get(key);
+    if (item != null) {
+      if (child != null)
+        item.add(prev, child);
+      return;
+    }
+    item = new Item(prod, dot, start, end);
+    if (child != null)
+      item.add(prev, child);
+    items.put(key, item);
+    Vector<?> rhs = prod.rhs();
+    if (dot == rhs.size()) {
+      getNode(prod.lhs(), start, end).derivations.add(item);
+    } else if (rhs.elementAt(dot) == Parsers.NULL) {
+      addItem(prod, dot + 1, start, end, item, getNullNode(end));
+    } else {
+      agenda.add(item, prod.lhs(), start, end);
+    }
+  }
+
+  private ForestNode getNullNode (int posn) {
+    NodeKey key = new NodeKey(Parsers.NULL, posn, posn);
+    ForestNode node = nodes.get(key);
+    if (node == null) {
+      node = new ForestNode(Parsers.NULL, key, posn, posn, true, null, null);
+      nodes.put(key, node);
+    }
+    return node;
+  }
+
+  /**
+   *  invoked when a node is taken from the agenda:  combine it with the
+   *  Items which need it, and begin matching the productions which start
+   *  with its category.
+   */
+
+  private void extendWith (ForestNode node) {
+    if (trace) {
+      if (node.end > node.start) {
+        Parsers.printParseTrace("Adding " + node.category + " = " +
+                                doc.text(new Span(node.start, node.end)), node.start, node.end);
+      } else {
+        Parsers.printParseTrace("Adding " + node.category, node.start, node.end);
+      }
+    }
+    Object category = node.key.category;
+    addTo(nodesStartingAt, node.start, category, node);
+    List<Item> waiting = lookup(itemsEndingAt, node.start, category);
+    for (int i = 0; i < waiting.size(); i++) {
+      Item item = waiting.get(i);
+      addItem(item.prod, item.dot + 1, item.start, node.end, item, node);
+    }
+    ArrayList<Production> prods = productionsStartingWith.get(category);
+    if (prods != null) {
+      for (int i = 0; i < prods.size(); i++) {
+        Production prod = prods.get(i);
+        addItem(prod, 1, node.start, node.end, null, node);
+      }
+    }
+  }
+
+  /**
+   *  invoked when an Item is taken from the agenda:  combine it with the
+   *  nodes it needs.
+   */
+
+  private void extendItem (Item item) {
+    Object needed = key(item.prod.rhs().elementAt(item.dot));
+    addTo(itemsEndingAt, item.end, needed, item);
+    List<ForestNode> found = lookup(nodesStartingAt, item.end, needed);
+    for (int i = 0; i < found.size(); i++) {
+      ForestNode node = found.get(i);
+      addItem(item.prod, item.dot + 1, item.start, node.end, item, node);
+    }
+  }
+
+  private static <E> void addTo (HashMap<Integer, HashMap<Object, ArrayList<E>>> index,
+                                 int posn, Object key, E edge) {
+    Integer p = Integer.valueOf(posn);
+    HashMap<Object, ArrayList<E>> byKey = index.get(p);
+    if (byKey == null) {
+      byKey = new HashMap<Object, ArrayList<E>>();
+      index.put(p, byKey);
+    }
+    ArrayList<E> edges = byKey.get(key);
+    if (edges == null) {
+      edges = new ArrayList<E>();
+      byKey.put(key, edges);
+    }
+    edges.add(edge);
+  }
+
+  private static <E> List<E> lookup (HashMap<Integer, HashMap<Object, ArrayList<E>>> index,
+                                          int posn, Object key) {
+    HashMap<Object, ArrayList<E>> byKey = index.get(Integer.valueOf(posn));
+    if (byKey == null)
+      return Collections.emptyList();
+    ArrayList<E> edges = byKey.get(key);
+    if (edges == null)
+      return Collections.emptyList();
+    return edges;
+  }
+
+  /**
+   *  the form of a grammar element or category used in indexing:
+   *  Literals are compared by their strings.
+   */
+
+  private static Object key (Object element) {
+    if (element instanceof Literal)
+      return new LiteralKey(((Literal) element).getString());
+    return element;
+  }
+
+  private static class LiteralKey {
+
+    final String string;
+
+    LiteralKey (String string) {
+      this.string = string;
+    }
+
+    public boolean equals (Object o) {
+      return o instanceof LiteralKey && string.equals(((LiteralKey) o).string);
+    }
+
+    public int hashCode () {
+      return string.hashCode();
+    }
+  }
+
+  private static class NodeKey {
+
+    final Object category;
+    final int start;
+    final int end;
+
+    NodeKey (Object category, int start, int end) {
+      this.category = category;
+      this.start = start;
+      this.end = end;
+    }
+
+    public boolean equals (Object o) {
+      if (!(o instanceof NodeKey))
+        return false;
+      NodeKey k = (NodeKey) o;
+      return start == k.start && end == k.end && category.equals(k.category);
+    }
+
+    public int hashCode () {
+      return (category.hashCode() * 31 + start) * 31 + end;
+    }
+  }
+
+  private static class ItemKey {
+
+    final Production prod;
+    final int dot;
+    final int start;
+    final int end;
+
+    ItemKey (Production prod, int dot, int start, int end) {
+      this.prod = prod;
+      this.dot = dot;
+      this.start = start;
+      this.end = end;
+    }
+
+    public boolean equals (Object o) {
+      if (!(o instanceof ItemKey))
+        return false;
+      ItemKey k = (ItemKey) o;
+      return prod == k.prod && dot == k.dot && start == k.start && end == k.end;
+    }
+
+    public int hashCode () {
+      return ((System.identityHashCode(prod) * 31 + dot) * 31 + start) * 31 + end;
+    }
+  }
+
+  /**
+   *  a partially matched production (an active edge):  the first
+   *  <CODE>dot</CODE> elements of production <CODE>prod</CODE> have been
+   *  matched from <CODE>start</CODE> to <CODE>end</CODE>.  Each of its
+   *  derivations is a pair of the Item for the first <CODE>dot</CODE>-1
+   *  elements (null if <CODE>dot</CODE> = 1) and the node for the last.
+   */
+
+  static class Item {
+
+    final Production prod;
+    final int dot;
+    final int start;
+    final int end;
+    final ArrayList<Item> prevs = new ArrayList<Item>();
+    final ArrayList<ForestNode> lasts = new ArrayList<ForestNode>();
+
+    Item (Production prod, int dot, int start, int end) {
+      this.prod = prod;
+      this.dot = dot;
+      this.start = start;
+      this.end = end;
+    }
+
+    void add (Item prev, ForestNode last) {
+      prevs.add(prev);
+      lasts.add(last);
+    }
+
+    /**
+     *  adds to <CODE>sequences</CODE> each sequence of nodes matched by
+     *  this Item.
+     */
+
+    void addSequences (List<ForestNode[]> sequences) {
+      if (dot == 0) {
+        sequences.add(new ForestNode[0]);
+        return;
+      }
+      for (int i = 0; i < prevs.size(); i++) {
+        Item prev = prevs.get(i);
+        ForestNode last = lasts.get(i);
+        if (prev == null) {
+          sequences.add(new ForestNode[] {last});
+        } else {
+          ArrayList<ForestNode[]> prefixes = new ArrayList<ForestNode[]>();
+          prev.addSequences(prefixes);
+          for (int j = 0; j < prefixes.size(); j++) {
+            ForestNode[] prefix = prefixes.get(j);
+            ForestNode[] seq = new ForestNode[prefix.length + 1];
+            System.arraycopy(prefix, 0, seq, 0, prefix.length);
+            seq[prefix.length] = last;
+            sequences.add(seq);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   *  a node of a packed shared forest:  all the constituents of one
+   *  category spanning the same text.  A node may represent a word, one or
+   *  more <B>constit</B> annotations or the empty string (a lexical node),
+   *  and may have one or more alternative sequences of children.
+   */
+
+  public static class ForestNode {
+
+    final Object category;
+    final NodeKey key;
+    final int start;
+    final int end;
+    final boolean lexical;
+    // for a lexical node, the annotation and word of each reading
+    final ArrayList<Annotation> anns = new ArrayList<Annotation>(1);
+    final ArrayList<String> words = new ArrayList<String>(1);
+    // the complete Items for this node
+    final ArrayList<Item> derivations = new ArrayList<Item>();
+
+    ForestNode (Object category, NodeKey key, int start, int end,
+                boolean lexical, Annotation ann, String word) {
+      this.category = category;
+      this.key = key;
+      this.start = start;
+      this.end = end;
+      this.lexical = lexical;
+      if (lexical)
+        addReading(ann, word);
+    }
+
+    void addReading (Annotation ann, String word) {
+      anns.add(ann);
+      words.add(word);
+    }
+
+    public Object getCategory () {
+      return category;
+    }
+
+    public int getStart () {
+      return start;
+    }
+
+    public int getEnd () {
+      return end;
+    }
+
+    /**
+     *  returns true if this node represents a word, a <B>constit</B>
+     *  annotation, or the empty string (in addition to any alternatives).
+     */
+
+    public boolean isLexical () {
+      return lexical;
+    }
+
+    /**
+     *  returns the alternative analyses of this node, as a List of arrays
+     *  of child ForestNodes.
+     */
+
+    public List<ForestNode[]> getAlternatives () {
+      ArrayList<ForestNode[]> alternatives = new ArrayList<ForestNode[]>();
+      for (int i = 0; i < derivations.size(); i++)
+        derivations.get(i).addSequences(alternatives);
+      return alternatives;
+    }
+
+    /**
+     *  returns the number of parse trees represented by this node (at most
+     *  Long.MAX_VALUE).  Trees which contain a constituent within a
+     *  constituent of the same category and span (through a cycle of unary
+     *  productions) are not counted.
+     */
+
+    public long countTrees () {
+      return countTrees(this, new HashMap<ForestNode, Long>(),
+                        new HashMap<ForestNode, Integer>(), new int[] {Integer.MAX_VALUE});
+    }
+
+    /*
+     *  The count for a node is cached only if it does not depend on which
+     *  nodes are active (being counted further up the tree), which is
+     *  so unless a cycle was cut at a node above it.  <CODE>active</CODE>
+     *  maps each active node to its depth, and <CODE>cut[0]</CODE> is the
+     *  smallest depth at which a cycle was cut below the current node.
+     */
+
+    private static long countTrees (ForestNode node, HashMap<ForestNode, Long> counts,
+                                    HashMap<ForestNode, Integer> active, int[] cut) {
+      Long count = counts.get(node);
+      if (count != null)
+        return count.longValue();
+      Integer activeDepth = active.get(node);
+      if (activeDepth != null) {
+        cut[0] = Math.min(cut[0], activeDepth.intValue());
+        return 0;
+      }
+      int depth = active.size();
+      active.put(node, Integer.valueOf(depth));
+      int outerCut = cut[0];
+      cut[0] = Integer.MAX_VALUE;
+      long total = node.anns.size();
+      List<ForestNode[]> alternatives = node.getAlternatives();
+      for (int i = 0; i < alternatives.size(); i++) {
+        ForestNode[] children = alternatives.get(i);
+        long n = 1;
+        for (int j = 0; j < children.length && n > 0; j++)
+          n = multiply(n, countTrees(children[j], counts, active, cut));
+        total = add(total, n);
+      }
+      active.remove(node);
+      if (cut[0] >= depth) {
+        counts.put(node, Long.valueOf(total));
+        cut[0] = outerCut;
+      } else {
+        cut[0] = Math.min(outerCut, cut[0]);
+      }
+      return total;
+    }
+
+    private static long multiply (long a, long b) {
+      if (a != 0 && b > Long.MAX_VALUE / a)
+        return Long.MAX_VALUE;
+      return a * b;
+    }
+
+    private static long add (long a, long b) {
+      return (a > Long.MAX_VALUE - b) ? Long.MAX_VALUE : a + b;
+    }
+
+    /**
+     *  returns up to <CODE>maxTrees</CODE> of the parse trees represented
+     *  by this node, as ParseTreeNodes.  Subtrees are shared between
+     *  the trees returned.  As for <CODE>countTrees</CODE>, trees through
+     *  cycles of unary productions are omitted.
+     */
+
+    public Vector<ParseTreeNode> getTrees (int maxTrees) {
+      return new Vector<ParseTreeNode>(getTrees(this, maxTrees,
+                                                new HashMap<ForestNode, List<ParseTreeNode>>(),
+                                                new HashMap<ForestNode, Integer>(),
+                                                new int[] {Integer.MAX_VALUE}));
+    }
+
+    /*
+     *  as for countTrees, the trees of a node are cached only if no cycle
+     *  was cut at a node above it.
+     */
+
+    private static List<ParseTreeNode> getTrees (ForestNode node, int maxTrees,
+                                                 HashMap<ForestNode, List<ParseTreeNode>> trees,
+                                                 HashMap<ForestNode, Integer> active, int[] cut) {
+      List<ParseTreeNode> result = trees.get(node);
+      if (result != null)
+        return result;
+      result = new ArrayList<ParseTreeNode>();
+      Integer activeDepth = active.get(node);
+      if (activeDepth != null) {
+        cut[0] = Math.min(cut[0], activeDepth.intValue());
+        return result;
+      }
+      int depth = active.size();
+      active.put(node, Integer.valueOf(depth));
+      int outerCut = cut[0];
+      cut[0] = Integer.MAX_VALUE;
+      for (int i = 0; i < node.anns.size() && result.size() < maxTrees; i++)
+        result.add(new ParseTreeNode(node.category, null, node.start, node.end,
+                                     node.anns.get(i), node.words.get(i)));
+      List<ForestNode[]> alternatives = node.getAlternatives();
+      for (int i = 0; i < alternatives.size() && result.size() < maxTrees; i++) {
+        ForestNode[] children = alternatives.get(i);
+        List<List<ParseTreeNode>> childTrees = new ArrayList<List<ParseTreeNode>>(children.length);
+        boolean complete = true;
+        for (int j = 0; j < children.length && complete; j++) {
+          List<ParseTreeNode> t = getTrees(children[j], maxTrees, trees, active, cut);
+          childTrees.add(t);
+          complete = !t.isEmpty();
+        }
+        if (complete)
+          addCombinations(node, childTrees, new ParseTreeNode[children.length], 0,
+                          result, maxTrees);
+      }
+      active.remove(node);
+      if (cut[0] >= depth) {
+        trees.put(node, result);
+        cut[0] = outerCut;
+      } else {
+        cut[0] = Math.min(outerCut, cut[0]);
+      }
+      return result;
+    }
+
+    private static void addCombinations (ForestNode node, List<List<ParseTreeNode>> childTrees,
+                                         ParseTreeNode[] children, int n,
+                                         List<ParseTreeNode> result, int maxTrees) {
+      if (n == children.length) {
+        result.add(new ParseTreeNode(node.category, children.clone(),
+                                     node.start, node.end, null, null));
+        return;
+      }
+      List<ParseTreeNode> choices = childTrees.get(n);
+      for (int i = 0; i < choices.size() && result.size() < maxTrees; i++) {
+        children[n] = choices.get(i);
+        addCombinations(node, childTrees, children, n + 1, result, maxTrees);
+      }
+    }
+
+    public String toString () {
+      return category + " [" + start + "-" + end + "]";
+    }
+  }
+
+  /**
+   *  the agenda of edges to be processed:  first-in first-out, or, if
+   *  there is a figure of merit, highest score first (and first-in
+   *  first-out among edges with equal scores).
+   */
+
+  private static class Agenda {
+
+    private final FigureOfMerit merit;
+    private final LinkedList<Object> queue = new LinkedList<Object>();
+    private final PriorityQueue<Entry> ranked;
+    private long count = 0;
+
+    Agenda (FigureOfMerit merit) {
+      this.merit = merit;
+      ranked = (merit == null) ? null : new PriorityQueue<Entry>(64, new Comparator<Entry>() {
+        public int compare (Entry x, Entry y) {
+          if (x.score != y.score)
+            return (x.score > y.score) ? -1 : 1;
+          return (x.seq < y.seq) ? -1 : (x.seq == y.seq ? 0 : 1);
+        }
+      });
+    }
+
+    void add (Object edge, Object category, int start, int end) {
+      if (merit == null)
+        queue.addLast(edge);
+      else
+        ranked.add(new Entry(edge, merit.score(category, start, end), count++));
+    }
+
+    boolean isEmpty () {
+      return (merit == null) ? queue.isEmpty() : ranked.isEmpty();
+    }
+
+    Object next () {
+      return (merit == null) ? queue.removeFirst() : ranked.poll().edge;
+    }
+
+    private static class Entry {
+
+      final Object edge;
+      final double score;
+      final long seq;
+
+      Entry (Object edge, double score, long seq) {
+        this.edge = edge;
+        this.score = score;
+        this.seq = seq;
+      }
+    }
+  }
+}
@@ -3,6 +3,7 @@
 package Jet.Parser;
 
 import java.util.*;
+import java.util.concurrent.*;
 
 import tratz.parse.*;
 import tratz.parse.io.*;
@@ -28,17 +29,77 @@ public class DepParser {
 
     static DepTransformer transformer = null;
 
+    // the number of threads used to parse the sentences of a document
+    private static int threads = 1;
+
+    // the parse model file, for loading additional wrappers
+    private static String modelFile = null;
+
+    // the wrappers not currently in use for parsing a sentence, and the
+    // number of wrappers loaded (at most 'threads')
+    private static final LinkedBlockingQueue<FullSystemWrapper> idleWrappers =
+	new LinkedBlockingQueue<FullSystemWrapper>();
+    private static int wrappersLoaded = 0;
+
+    private static ExecutorService pool = null;
+
+    // the dependencies of recurring sentences, or null if parses are not cached
+    static ParseCache cache = null;
+
     /**
      *  load the parse model file from parameter 'DepParser.model.fileName'
-     *  of the Jet properties file.
+     *  of the Jet properties file.  If parameter 'DepParser.threads' is
+     *  greater than 1, parseDocument parses that many sentences at a time;
+     *  each thread parses with its own copy of the model, loaded when the
+     *  thread first needs it.  If parameter 'ParseCache.megabytes' is set,
+     *  the dependencies of each sentence are cached (see ParseCache).
      */
 
     public static void initialize (String dataPath, Properties config) {
 	String parseModelFile = config.getProperty("DepParser.model.fileName");
 	if (parseModelFile != null) {
 	    initWrapper(dataPath + "/" + parseModelFile);
-	    transformer = new DepTransformer (config.getProperty("DepParser.transformations"));
+	    String transformations = config.getProperty("DepParser.transformations");
+	    transformer = new DepTransformer (transformations);
+	    cache = ParseCache.fromConfig("DepParser", config,
+		    ParseCache.fileFingerprint(dataPath + "/" + parseModelFile)
+		    + " " + transformations);
+	}
+	String threadCount = config.getProperty("DepParser.threads");
+	int n = 1;
+	if (threadCount != null) {
+	    try {
+		n = Integer.parseInt(threadCount.trim());
+	    } catch (NumberFormatException e) {
+		System.out.println ("DepParser:  invalid value " + threadCount + " for DepParser.threads");
+	    }
+	}
+	setThreads(n);
+    }
+
+    /**
+     *  sets the number of sentences which parseDocument parses concurrently.
+     */
+
+    public static synchronized void setThreads (int n) {
+	threads = Math.max(n, 1);
+	if (pool != null) {
+	    pool.shutdown();
+	    pool = null;
 	}
+	if (threads > 1)
+	    pool = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+		    int n = 0;
+		    public synchronized Thread newThread (Runnable r) {
+			Thread t = new Thread(r, "DepParser-" + (++n));
+			t.setDaemon(true);
+			return t;
+		    }
+		});
+    }
+
+    public static int getThreads () {
+	return threads;
     }
 
     /**Initialize the Wrapper*/
@@ -57,6 +118,11 @@ public class DepParser {
 					  possessivesModelFile, 
 					  srlArgsModelFile, srlPredicatesModelFile,
 					  posModelFile, parseModelFile, wnDir);
+		modelFile = parseModelFile;
+		synchronized (idleWrappers) {
+		    idleWrappers.add(fsw);
+		    wrappersLoaded = 1;
+		}
 	    }
 	    catch(Exception ex){
 		System.out.println(ex);
@@ -64,6 +130,40 @@ public class DepParser {
 	}
     }
 
+    /**
+     *  takes a wrapper for parsing a sentence:  an idle wrapper if there is
+     *  one, otherwise a newly loaded wrapper if fewer than 'threads' have been
+     *  loaded, otherwise the next wrapper to become idle.
+     */
+
+    private static FullSystemWrapper acquireWrapper () throws Exception {
+	// decide under the lock whether to load a wrapper, reserving its
+	// place, but wait for an idle wrapper outside the lock
+	boolean load;
+	synchronized (idleWrappers) {
+	    FullSystemWrapper w = idleWrappers.poll();
+	    if (w != null)
+		return w;
+	    load = wrappersLoaded < threads;
+	    if (load)
+		wrappersLoaded++;
+	}
+	if (!load)
+	    return idleWrappers.take();
+	try {
+	    return new FullSystemWrapper(null, null, null, null, null, null, modelFile, null);
+	} catch (Exception e) {
+	    synchronized (idleWrappers) {
+		wrappersLoaded--;
+	    }
+	    throw e;
+	}
+    }
+
+    private static void releaseWrapper (FullSystemWrapper w) {
+	idleWrappers.add(w);
+    }
+
     public static boolean isInitialized () {
 	return fsw != null;
     }
@@ -84,6 +184,10 @@ public class DepParser {
 	    return null;
 	}
 	SyntacticRelationSet relations = new SyntacticRelationSet();
+	if (threads > 1 && sentences.size() > 1) {
+	    parseConcurrently(doc, sentences, relations);
+	    return relations;
+	}
 	for (Annotation sentence : sentences) {
 	    Span span = sentence.span();
 	    parseSentence (doc, span, relations);
@@ -91,6 +195,83 @@ public class DepParser {
 	return relations;
     }
 
+    /**
+     *  parse 'sentences' using the thread pool, adding the arcs to
+     *  'relations' in document order.  The tokens of each sentence are
+     *  gathered, and the arcs transformed and added, in the calling thread;
+     *  only the parsing itself is done concurrently.  Sentences found in
+     *  the parse cache are not parsed.  If the calling thread is interrupted
+     *  while waiting for a parse, or a parse fails, the parses not yet
+     *  collected are cancelled and an exception is thrown, so that a
+     *  partly parsed document is never returned;  the interrupt status of
+     *  the thread is preserved.
+     */
+
+    private static void parseConcurrently (Document doc, Vector<Annotation> sentences,
+					   SyntacticRelationSet relations) {
+	List<ParserInput> inputs = new ArrayList<ParserInput>();
+	List<String> cached = new ArrayList<String>();
+	List<Future<Arc[]>> parses = new ArrayList<Future<Arc[]>>();
+	for (Annotation sentence : sentences) {
+	    final ParserInput input = buildInput(doc, sentence.span());
+	    if (input == null)
+		continue;
+	    inputs.add(input);
+	    String deps = (cache == null) ? null : cache.get(cacheKey(input));
+	    cached.add(deps);
+	    if (deps != null) {
+		parses.add(null);
+		continue;
+	    }
+	    parses.add(pool.submit(new Callable<Arc[]>() {
+		    public Arc[] call () throws Exception {
+			FullSystemWrapper w = acquireWrapper();
+			try {
+			    return parse(w, input);
+			} finally {
+			    releaseWrapper(w);
+			}
+		    }
+		}));
+	}
+	for (int i = 0; i < inputs.size(); i++) {
+	    if (cached.get(i) != null) {
+		addDependencies(cached.get(i), inputs.get(i), relations);
+		continue;
+	    }
+	    Arc[] arcs;
+	    try {
+		arcs = parses.get(i).get();
+	    } catch (InterruptedException e) {
+		cancel(parses, i);
+		Thread.currentThread().interrupt();
+		throw new RuntimeException("DepParser:  interrupted while parsing document", e);
+	    } catch (ExecutionException e) {
+		cancel(parses, i + 1);
+		// report the failure as parseSentence would
+		Throwable cause = e.getCause();
+		if (cause instanceof RuntimeException)
+		    throw (RuntimeException) cause;
+		if (cause instanceof Error)
+		    throw (Error) cause;
+		throw new RuntimeException(cause);
+	    }
+	    addArcs(arcs, inputs.get(i), relations);
+	}
+    }
+
+    /**
+     *  cancel the parses in 'parses' starting at index 'from'.
+     */
+
+    private static void cancel (List<Future<Arc[]>> parses, int from) {
+	for (int i = from; i < parses.size(); i++) {
+	    Future<Arc[]> parse = parses.get(i);
+	    if (parse != null)
+		parse.cancel(true);
+	}
+    }
+
     static String[] SPECIAL_TOKEN = new String[] {"ENAMEX", "NUMEX", "TIMEX", "TIMEX2", "TERM"};
 
     /**
@@ -103,6 +284,49 @@ public class DepParser {
 	    System.out.println ("DepParser:  no model loaded");
 	    return;
 	}
+	ParserInput input = buildInput(doc, span);
+	if (input == null)
+	    return;
+	if (cache != null) {
+	    String deps = cache.get(cacheKey(input));
+	    if (deps != null) {
+		addDependencies(deps, input, relations);
+		return;
+	    }
+	}
+	FullSystemWrapper w;
+	try {
+	    w = acquireWrapper();
+	} catch (Exception e) {
+	    System.out.println ("DepParser:  " + e);
+	    return;
+	}
+	Arc[] arcs;
+	try {
+	    arcs = parse(w, input);
+	} finally {
+	    releaseWrapper(w);
+	}
+	addArcs(arcs, input, relations);
+    }
+
+    /**
+     *  a sentence ready to be parsed:  its tokens and the offset of each
+     *  token in the document.
+     */
+
+    private static class ParserInput {
+	Sentence sent;
+	List<Token> tokens;
+	List<Integer> offset;
+    }
+
+    /**
+     *  gathers the tokens of the sentence at 'span' of 'doc', or returns
+     *  null if the sentence cannot be parsed.
+     */
+
+    private static ParserInput buildInput (Document doc, Span span) {
 	// System.out.println ("parseSentence:  " + doc.text(span));
 	// run Penn part-of-speech tagger
 	// JetTest.tagger.annotate(doc, span, "tagger");
@@ -123,7 +347,7 @@ public class DepParser {
 		}
 	    }
 	    if (tokenAnnotation == null)
-		return;
+		return null;
 	    String tokenText = doc.normalizedText(tokenAnnotation).replaceAll(" ", "_");
 	    Vector v = doc.annotationsAt(posn, "tagger");
 	    Annotation a = (Annotation) v.get(0);
@@ -135,27 +359,103 @@ public class DepParser {
 	    }
 	    posn = tokenAnnotation.end();
 	}
-	Sentence sent = new Sentence(tokens);
-	// parse sentence
-	Arc[] arcs = fsw.process(sent, tokens.size() > 0 && tokens.get(0).getPos() == null,
-				 true, true, true, true, true).getParse().getHeadArcs();
+	ParserInput input = new ParserInput();
+	input.sent = new Sentence(tokens);
+	input.tokens = tokens;
+	input.offset = offset;
+	return input;
+    }
+
+    private static Arc[] parse (FullSystemWrapper w, ParserInput input) {
+	List<Token> tokens = input.tokens;
+	return w.process(input.sent, tokens.size() > 0 && tokens.get(0).getPos() == null,
+			 true, true, true, true, true).getParse().getHeadArcs();
+    }
+
+    /**
+     *  the key of a sentence in the parse cache:  its tokens and their
+     *  parts of speech, as token/POS separated by blanks.
+     */
+
+    private static String cacheKey (ParserInput input) {
+	StringBuilder sb = new StringBuilder();
+	for (Token token : input.tokens) {
+	    if (sb.length() > 0)
+		sb.append(' ');
+	    sb.append(token.getText()).append('/').append(token.getPos());
+	}
+	return sb.toString();
+    }
+
+    /**
+     *  regularizes the parse 'arcs' of sentence 'input' and adds the
+     *  dependencies to 'relations', caching them if there is a parse cache.
+     */
+
+    private static void addArcs (Arc[] arcs, ParserInput input, SyntacticRelationSet relations) {
+	String deps = dependencies(arcs, input);
+	if (cache != null)
+	    cache.put(cacheKey(input), deps);
+	addDependencies(deps, input, relations);
+    }
+
+    /**
+     *  regularizes the parse 'arcs' of sentence 'input' and returns the
+     *  dependencies, one per line, as the tab-separated fields head index,
+     *  head text, head POS, type, dependent index, dependent text and
+     *  dependent POS.  Tokens are identified by their index in the sentence,
+     *  so the dependencies do not depend on where the sentence appears in a
+     *  document.
+     */
 
+    private static String dependencies (Arc[] arcs, ParserInput input) {
+	Sentence sent = input.sent;
 	// regularize selected syntactic structures
 	List arcList = transformer.transform(arcs,sent);
 
 	// get dependencies
+	StringBuilder sb = new StringBuilder();
 	for (Arc arc : arcs) {
 	    if (arc == null) continue;
 	    if (arc.getDependency().equalsIgnoreCase("ROOT")) continue;
 	    Token head=arc.getHead();
-	    String headText = head.getText();
-	    String  headPos = head.getPos();
-	    Integer headOffset = offset.get(head.getIndex());
 	    Token dep=arc.getChild();
-	    String depText = dep.getText();
-	    String depPos = dep.getPos();
-	    Integer depOffset = offset.get(dep.getIndex());
-	    String type=arc.getDependency();
+	    if (sb.length() > 0)
+		sb.append('\n');
+	    sb.append(head.getIndex()).append('\t')
+		.append(field(head.getText())).append('\t')
+		.append(field(head.getPos())).append('\t')
+		.append(arc.getDependency()).append('\t')
+		.append(dep.getIndex()).append('\t')
+		.append(field(dep.getText())).append('\t')
+		.append(field(dep.getPos()));
+	}
+	return sb.toString();
+    }
+
+    private static String field (String s) {
+	return (s == null) ? "" : s;
+    }
+
+    /**
+     *  adds dependencies 'deps' (as returned by 'dependencies') of sentence
+     *  'input' to 'relations', with each token at its offset in the document.
+     */
+
+    private static void addDependencies (String deps, ParserInput input,
+					 SyntacticRelationSet relations) {
+	if (deps.length() == 0)
+	    return;
+	List<Integer> offset = input.offset;
+	for (String line : deps.split("\n")) {
+	    String[] f = line.split("\t", -1);
+	    Integer headOffset = offset.get(Integer.parseInt(f[0]));
+	    String headText = f[1];
+	    String headPos = f[2].length() == 0 ? null : f[2];
+	    String type = f[3];
+	    Integer depOffset = offset.get(Integer.parseInt(f[4]));
+	    String depText = f[5];
+	    String depPos = f[6].length() == 0 ? null : f[6];
 	    SyntacticRelation r = new SyntacticRelation 
 		(headOffset, headText, headPos, type, depOffset, depText, depPos);
 	    relations.add(r);
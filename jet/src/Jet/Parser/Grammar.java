@@ -10,6 +10,7 @@ package Jet.Parser;
 import java.io.*;
 import java.util.Vector;
 import java.util.Hashtable;
+import java.util.Enumeration;
 import Jet.Lisp.Literal;
 import Jet.Pat.PatternSyntaxError;
 
@@ -40,6 +41,17 @@ public class Grammar {
     return (Vector) productionsEndingIn.get(element);
   }
 
+  /**
+   *  returns a Vector of all the productions of the grammar.
+   */
+
+  public Vector getAllProductions () {
+    Vector all = new Vector();
+    for (Enumeration e = productions.elements(); e.hasMoreElements();)
+      all.addAll((Vector) e.nextElement());
+    return all;
+  }
+
   /**
    *  returns true if symbol s is defined (a non-terminal) in the grammar
    */
@@ -0,0 +1,309 @@
+// -*- tab-width: 4 -*-
+
+package Jet.Parser;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ *  a cache of sentence parses, so that sentences which recur (bylines,
+ *  datelines, boilerplate) are parsed only once.  The key of an entry is
+ *  the normalized token and part-of-speech sequence of a sentence, and the
+ *  value is the parse in a form which does not depend on the position of
+ *  the sentence in the document (a parse tree, or dependency arcs between
+ *  token indices), both encoded as Strings by the parser using the cache.
+ *  <p>
+ *  The cache holds entries up to a memory budget, evicting the least
+ *  recently used entries when the budget is exceeded.  If a file is given,
+ *  the cache is loaded from the file when it is created and written back
+ *  by {@link #reportAndSaveAll}, so that it persists between runs.  The
+ *  file begins with a fingerprint of the models the parses were made with
+ *  (see {@link #fileFingerprint});  a file whose fingerprint does not match
+ *  that of the current models is ignored, and replaced when the cache is
+ *  saved.  The cache may be used by several threads at once.
+ *  <p>
+ *  Caches are created by the parsers from the properties
+ *  <B>ParseCache.megabytes</B> (the budget of each cache;  if not set,
+ *  parses are not cached) and <B>ParseCache.directory</B> (if set, the
+ *  directory holding the cache files).
+ */
+
+public class ParseCache {
+
+	final static Logger logger = LoggerFactory.getLogger(ParseCache.class);
+
+	// estimated memory used by an entry in addition to its Strings
+	private static final int ENTRY_OVERHEAD = 96;
+
+	// begins the first line of a cache file, which holds the fingerprint
+	private static final String FINGERPRINT_PREFIX = "#fingerprint\t";
+
+	// the caches created, by name
+	private static final Map<String, ParseCache> caches = new LinkedHashMap<String, ParseCache>();
+
+	private final String name;
+	private final long maxBytes;
+	private final File file;
+	private final String fingerprint;
+	private long bytes = 0;
+	private long hits = 0;
+	private long misses = 0;
+	private final LinkedHashMap<String, String> entries =
+		new LinkedHashMap<String, String>(256, 0.75f, true);
+
+	/**
+	 *  creates a cache named <CODE>name</CODE> holding at most (approximately)
+	 *  <CODE>maxBytes</CODE> of parses made with the models identified by
+	 *  <CODE>fingerprint</CODE>.  If <CODE>file</CODE> is not null and
+	 *  exists, the cache is loaded from it.
+	 */
+
+	public ParseCache (String name, long maxBytes, File file, String fingerprint) {
+		this.name = name;
+		this.maxBytes = maxBytes;
+		this.file = file;
+		this.fingerprint = (fingerprint == null) ? "" : fingerprint;
+		if (file != null && file.exists()) {
+			try {
+				load(file);
+			} catch (IOException e) {
+				logger.error("Unable to load parse cache " + file + ": " + e);
+			}
+		}
+	}
+
+	/**
+	 *  creates the cache named <CODE>name</CODE> as specified by properties
+	 *  <B>ParseCache.megabytes</B> and <B>ParseCache.directory</B> of
+	 *  <CODE>config</CODE> (the cache file is <CODE>name</CODE>.cache in
+	 *  that directory), for parses made with the models identified by
+	 *  <CODE>fingerprint</CODE>, and registers it for
+	 *  {@link #reportAndSaveAll}.  Returns null if no cache is to be used.
+	 */
+
+	public static ParseCache fromConfig (String name, Properties config, String fingerprint) {
+		String megabytes = config.getProperty("ParseCache.megabytes");
+		if (megabytes == null)
+			return null;
+		double mb;
+		try {
+			mb = Double.parseDouble(megabytes.trim());
+		} catch (NumberFormatException e) {
+			logger.error("Invalid value " + megabytes + " for ParseCache.megabytes");
+			return null;
+		}
+		if (mb <= 0)
+			return null;
+		String directory = config.getProperty("ParseCache.directory");
+		File file = (directory == null) ? null : new File(directory, name + ".cache");
+		ParseCache cache = new ParseCache(name, (long) (mb * 1024 * 1024), file, fingerprint);
+		synchronized (caches) {
+			caches.put(name, cache);
+		}
+		return cache;
+	}
+
+	/**
+	 *  returns a fingerprint of file <CODE>fileName</CODE>:  its name, size
+	 *  and time of last modification, so that a cache file is discarded
+	 *  when the model it was made with is retrained.
+	 */
+
+	public static String fileFingerprint (String fileName) {
+		File f = new File(fileName);
+		return fileName + " " + f.length() + " " + f.lastModified();
+	}
+
+	/**
+	 *  returns the parse cached for <CODE>key</CODE>, or null if there
+	 *  is none.
+	 */
+
+	public synchronized String get (String key) {
+		String value = entries.get(key);
+		if (value == null)
+			misses++;
+		else
+			hits++;
+		return value;
+	}
+
+	/**
+	 *  caches parse <CODE>value</CODE> for <CODE>key</CODE>, evicting the
+	 *  least recently used entries if the cache is over its budget.
+	 */
+
+	public synchronized void put (String key, String value) {
+		String old = entries.put(key, value);
+		if (old != null)
+			bytes -= size(key, old);
+		bytes += size(key, value);
+		Iterator<Map.Entry<String, String>> it = entries.entrySet().iterator();
+		while (bytes > maxBytes && it.hasNext()) {
+			Map.Entry<String, String> e = it.next();
+			bytes -= size(e.getKey(), e.getValue());
+			it.remove();
+		}
+	}
+
+	private static long size (String key, String value) {
+		return 2L * (key.length() + value.length()) + ENTRY_OVERHEAD;
+	}
+
+	public synchronized int size () {
+		return entries.size();
+	}
+
+	public synchronized long getHits () {
+		return hits;
+	}
+
+	public synchronized long getMisses () {
+		return misses;
+	}
+
+	/**
+	 *  returns the fraction of look-ups which found a cached parse.
+	 */
+
+	public synchronized double hitRate () {
+		long lookups = hits + misses;
+		return (lookups == 0) ? 0.0 : (double) hits / lookups;
+	}
+
+	/**
+	 *  returns a one-line report of the use of the cache.
+	 */
+
+	public synchronized String report () {
+		return String.format("%s parse cache: %d hits, %d misses (%.1f%% hit rate), " +
+			"%d entries, %.1f MB", name, hits, misses, 100 * hitRate(),
+			entries.size(), bytes / (1024.0 * 1024.0));
+	}
+
+	/**
+	 *  writes the cache:  a line with the fingerprint, followed by the
+	 *  entries, one per line, least recently used first, so that loading
+	 *  the file restores the order of use.  The cache is written to a
+	 *  temporary file which then replaces <CODE>file</CODE>, so that an
+	 *  interrupted run does not leave a truncated cache file.
+	 */
+
+	public synchronized void save (File file) throws IOException {
+		File dir = file.getAbsoluteFile().getParentFile();
+		File temp = File.createTempFile(file.getName(), ".tmp", dir);
+		try {
+			PrintWriter writer = new PrintWriter(new BufferedWriter(
+				new OutputStreamWriter(new FileOutputStream(temp), "UTF-8")));
+			try {
+				writer.println(FINGERPRINT_PREFIX + escape(fingerprint));
+				for (Map.Entry<String, String> e : entries.entrySet())
+					writer.println(escape(e.getKey()) + "\t" + escape(e.getValue()));
+			} finally {
+				writer.close();
+			}
+			if (writer.checkError())
+				throw new IOException("error writing " + temp);
+			try {
+				Files.move(temp.toPath(), file.toPath(),
+					StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			temp.delete();
+		}
+	}
+
+	/**
+	 *  adds the entries in <CODE>file</CODE> (as written by
+	 *  <CODE>save</CODE>) to the cache.  If the fingerprint in the file
+	 *  does not match that of the cache, the file is ignored.
+	 */
+
+	public synchronized void load (File file) throws IOException {
+		BufferedReader reader = new BufferedReader(
+			new InputStreamReader(new FileInputStream(file), "UTF-8"));
+		try {
+			String line = reader.readLine();
+			if (line == null)
+				return;
+			if (!line.equals(FINGERPRINT_PREFIX + escape(fingerprint))) {
+				logger.info("Parse cache " + file + " was made with different models;  ignored");
+				return;
+			}
+			while ((line = reader.readLine()) != null) {
+				int tab = line.indexOf('\t');
+				if (tab < 0)
+					continue;
+				put(unescape(line.substring(0, tab)), unescape(line.substring(tab + 1)));
+			}
+		} finally {
+			reader.close();
+		}
+	}
+
+	private static String escape (String s) {
+		if (s.indexOf('\\') < 0 && s.indexOf('\t') < 0 && s.indexOf('\n') < 0 && s.indexOf('\r') < 0)
+			return s;
+		StringBuilder sb = new StringBuilder(s.length() + 8);
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			switch (c) {
+				case '\\': sb.append("\\\\"); break;
+				case '\t': sb.append("\\t"); break;
+				case '\n': sb.append("\\n"); break;
+				case '\r': sb.append("\\r"); break;
+				default: sb.append(c);
+			}
+		}
+		return sb.toString();
+	}
+
+	private static String unescape (String s) {
+		if (s.indexOf('\\') < 0)
+			return s;
+		StringBuilder sb = new StringBuilder(s.length());
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c == '\\' && i + 1 < s.length()) {
+				c = s.charAt(++i);
+				if (c == 't')
+					c = '\t';
+				else if (c == 'n')
+					c = '\n';
+				else if (c == 'r')
+					c = '\r';
+			}
+			sb.append(c);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 *  reports the hit rate of each cache created by <CODE>fromConfig</CODE>,
+	 *  and writes each cache which has a file to that file.  Called at the
+	 *  end of a run.
+	 */
+
+	public static void reportAndSaveAll () {
+		List<ParseCache> all;
+		synchronized (caches) {
+			all = new ArrayList<ParseCache>(caches.values());
+		}
+		for (ParseCache cache : all) {
+			logger.info(cache.report());
+			if (cache.file != null) {
+				try {
+					cache.save(cache.file);
+				} catch (IOException e) {
+					logger.error("Unable to save parse cache " + cache.file + ": " + e);
+				}
+			}
+		}
+	}
+}
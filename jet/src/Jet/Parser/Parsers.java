@@ -54,6 +54,13 @@ public class Parsers {
 
   public static final int CHARTPARSE = 4;
 
+  /**
+   *  a constant indicating that the bottom-up chart parser with a packed
+   *  forest, <CODE>forestParse</CODE>, should be used to analyze the text
+   */
+
+  public static final int FORESTPARSE = 5;
+
   /**
    *  determines which analyzer will be applied by method <CODE>parse</CODE>
    */
@@ -69,6 +76,19 @@ public class Parsers {
 
   public static boolean parserTrace = true;
 
+  /**
+   *  if <B>true</B>, <CODE>forestParse</CODE> orders its agenda to build
+   *  the longest constituents first and stops at the first parse.
+   */
+
+  public static boolean bestFirst = false;
+
+  /**
+   *  the maximum number of parses returned by <CODE>forestParse</CODE>.
+   */
+
+  public static int maxParses = 1000;
+
   /**
    *  parse characters <I>posn</I> to <I>end</I> of <I>Document</I> using
    *  grammar <I>gram</I>.  The type of recognizer / parser used is determined
@@ -86,6 +106,7 @@ public class Parsers {
       case TDPARSE:   return TDParse   (doc, posn, end, gram);
       case BUPARSE:   return BUParse   (doc, posn, end, gram);
       case CHARTPARSE: return chartParse (doc, posn, end, gram);
+      case FORESTPARSE: return forestParse (doc, posn, end, gram);
       default:        return new Vector();
     }
   }
@@ -501,9 +522,59 @@ public class Parsers {
     }
   }
 
+  // ----------  b o t t o m - u p   f o r e s t   p a r s e r -------
+
+  /**
+   *  apply a bottom-up chart parser, which builds a packed forest of all
+   *  the parses, to characters <I>posn</I> to <I>end</I> of Document
+   *  <I>doc</I> using grammar <I>gram</I>.  The state of the parse is held
+   *  in a new ChartParser (which shares the index of the grammar built on
+   *  the first call for <I>gram</I>), so unlike the other parsers this
+   *  method does not change the static state of Parsers;  it is controlled by
+   *  <CODE>parserTrace</CODE>, <CODE>bestFirst</CODE> and
+   *  <CODE>maxParses</CODE>.
+   *  @return  a Vector of (at most <CODE>maxParses</CODE>) parses for these
+   *           characters
+   */
+
+  public static Vector<ParseTreeNode> forestParse (Document doc, int posn, int end, Grammar gram) {
+    ChartParser parser = new ChartParser(chartParserFor(gram));
+    parser.setTrace(parserTrace);
+    if (bestFirst)
+      parser.setBestFirst(ChartParser.LONGEST_FIRST);
+    ChartParser.ForestNode root = parser.parseForest(doc, posn, end);
+    Vector<ParseTreeNode> result = new Vector<ParseTreeNode>();
+    if (root != null) {
+      long count = root.countTrees();
+      result = root.getTrees(maxParses);
+      if (count > result.size())
+        Console.println (count + " parse(s) obtained, " + result.size() + " returned");
+      else
+        Console.println (result.size() + " parse(s) obtained");
+    } else {
+      Console.println ("0 parse(s) obtained");
+    }
+    return result;
+  }
+
+  // for each Grammar, a ChartParser holding its index of productions
+  private static final Map<Grammar, ChartParser> chartParsers =
+    new WeakHashMap<Grammar, ChartParser>();
+
+  private static ChartParser chartParserFor (Grammar gram) {
+    synchronized (chartParsers) {
+      ChartParser parser = chartParsers.get(gram);
+      if (parser == null) {
+        parser = new ChartParser(gram);
+        chartParsers.put(gram, parser);
+      }
+      return parser;
+    }
+  }
+
   // ----------  p a r s e r   t r a c e  ----------
 
-  private static void printParseTrace (String message, int start, int end) {
+  static void printParseTrace (String message, int start, int end) {
     StringBuffer sb;
     if (parserTrace) {
       if (message.length() < 40) {
@@ -575,11 +646,22 @@ public class Parsers {
       }
     );
     menu.add (chartParserItem);
+    JRadioButtonMenuItem forestParserItem = new JRadioButtonMenuItem ("Use Forest Chart Parser");
+    forestParserItem.setMnemonic(KeyEvent.VK_F);
+    forestParserItem.addActionListener(
+      new ActionListener() {
+        public void actionPerformed (ActionEvent e) {
+          parserType = FORESTPARSE;
+        }
+      }
+    );
+    menu.add (forestParserItem);
     ButtonGroup selectParserGroup = new ButtonGroup();
     selectParserGroup.add (recognizerItem);
     selectParserGroup.add (TDParserItem);
     selectParserGroup.add (BUParserItem);
     selectParserGroup.add (chartParserItem);
+    selectParserGroup.add (forestParserItem);
 
     final JCheckBoxMenuItem traceItem
       = new JCheckBoxMenuItem ("Parser Trace", parserTrace);
@@ -27,15 +27,39 @@ import java.lang.reflect.*;
 
 public class StatParser {
 
-	static int nextToken = 0;
-	static ArrayList<String> words;
-	static ArrayList<Span> spans;
-	static ArrayList<Annotation> wordDefns;
-	static ArrayList<String> pennPOS;
 	static Parser parser;
 	static boolean initialized = false;
 	static final boolean findHeads = true;
 	static HeadFinder headFinder = null;
+	// parses of recurring sentences, or null if parses are not cached
+	static ParseCache cache = null;
+
+	/**
+	 *  the input to the parser for a single sentence, as built by
+	 *  <CODE>buildParserInput</CODE>.  A new Input is created for each
+	 *  sentence, so that several threads can prepare sentences at the same time.
+	 */
+
+	public static class Input {
+		/**
+		 *  the word strings, normalized to PTB form
+		 */
+		public final ArrayList<String> words = new ArrayList<String>();
+		/**
+		 *  the span of each word
+		 */
+		public final ArrayList<Span> spans = new ArrayList<Span>();
+		/**
+		 *  the Jet word definition (constit annotation) of each word
+		 */
+		public final ArrayList<Annotation> wordDefns = new ArrayList<Annotation>();
+		/**
+		 *  the Penn POS of each word
+		 */
+		public final ArrayList<String> pennPOS = new ArrayList<String>();
+		// the next token to be aligned by makeParseTree
+		int nextToken = 0;
+	}
 	
 	/**
 	 *  Apply the Bikel parser to a collection of documents, writing out the
@@ -85,8 +109,11 @@ public class StatParser {
     	System.err.println ("properties.Filename and grammar.fileName must be specified");
     	return;
     }
-    initialize (dataPath + File.separatorChar + properties,
-                dataPath + File.separatorChar + grammar);
+    String propertiesFile = dataPath + File.separatorChar + properties;
+    String grammarFile = dataPath + File.separatorChar + grammar;
+    initialize (propertiesFile, grammarFile);
+    cache = ParseCache.fromConfig("StatParser", config,
+        ParseCache.fileFingerprint(propertiesFile) + " " + ParseCache.fileFingerprint(grammarFile));
   }
 
   /**
@@ -125,9 +152,11 @@ public class StatParser {
 		JetTest.tagger.annotate(doc, span, "tagger");
 		int start = span.start();
 		int end = span.end();
-		buildParserInput (doc, start, end, true);
-		fixHyphenatedItems (doc);
-		if (wordDefns.size() == 0) {
+		Input input = buildParserInput (doc, start, end, true);
+		fixHyphenatedItems (doc, input);
+		ArrayList<String> words = input.words;
+		ArrayList<String> pennPOS = input.pennPOS;
+		if (input.wordDefns.size() == 0) {
 			System.out.println ("StatParse:  no tokens in span");
 			return null;
 		}
@@ -143,32 +172,49 @@ public class StatParser {
 			wordSx.add(posSx);
 			sentence.add(wordSx);
 		}
-		// invoke Bikel parser
-		System.out.println ("Sentence = " + sentence.toString());
-		SexpList parseTreeSexp;
-		try {
-			parseTreeSexp = (SexpList) parser.parse(sentence);
-		} catch (Exception e) {
-			System.out.println (e);
-			System.out.println ("No parse possible.");
-			return null;
+		// a sentence parsed before is taken from the cache
+		String key = null;
+		SexpList parseTreeSexp = null;
+		if (cache != null) {
+			key = cacheKey(words, pennPOS);
+			String cached = cache.get(key);
+			if (cached != null)
+				parseTreeSexp = readSexp(cached);
 		}
 		if (parseTreeSexp == null) {
-			System.out.println ("No parse possible.");
-			return null;
+			// invoke Bikel parser
+			System.out.println ("Sentence = " + sentence.toString());
+			try {
+				// the Bikel parser keeps its chart in the Parser object
+				synchronized (parser) {
+					parseTreeSexp = (SexpList) parser.parse(sentence);
+				}
+			} catch (Exception e) {
+				System.out.println (e);
+				System.out.println ("No parse possible.");
+				return null;
+			}
+			if (parseTreeSexp == null) {
+				System.out.println ("No parse possible.");
+				return null;
+			}
+			if (cache != null)
+				cache.put(key, writeSexp(parseTreeSexp));
 		}
 		System.out.println ("Parse = " + parseTreeSexp);
 		// convert returned parse tree to Jet parseTree and to
 		// a set of annotations
-		if (findHeads && (headFinder == null))
-			try {
-				headFinder = new HeadFinder();
-			} catch (IOException e) {
-				System.out.println ("StatParser: " + e);
-				System.out.println ("Unable to generate heads.");
+		if (findHeads)
+			synchronized (StatParser.class) {
+				if (headFinder == null)
+					try {
+						headFinder = new HeadFinder();
+					} catch (IOException e) {
+						System.out.println ("StatParser: " + e);
+						System.out.println ("Unable to generate heads.");
+					}
 			}
-		nextToken = 0;
-		ParseTreeNode parseTree = makeParseTree(doc, parseTreeSexp);
+		ParseTreeNode parseTree = makeParseTree(doc, input, parseTreeSexp);
 		// parseTree.printTree();
 		Annotation rootAnnotation = ParseTreeNode.makeParseAnnotations(doc, parseTree);
 		deleteUnusedConstits (doc, span, rootAnnotation);
@@ -202,8 +248,9 @@ public class StatParser {
 	}
 
 	/**
-	 *  build the arrays 'words', 'spans', 'wordDefns', and 'pennPOS' for
-	 *  the parser:
+	 *  builds and returns the parser Input for the sentence from 'start' to
+	 *  'end' of 'doc', consisting of the lists 'words', 'spans', 'wordDefns',
+	 *  and 'pennPOS':
 	 *    words[i] = the i-th word string, for the PTB parser
 	 *               (normalized to PTB form, such as -LRB- for '('
 	 *    spans[i] = the span of the i-th word string
@@ -212,11 +259,12 @@ public class StatParser {
 	 *    pennPOS[i]   = the PTB POS for the i-th sentence element
 	 */
 
-	public static void buildParserInput (Document doc, int start, int end, boolean setPOS) {
-		wordDefns = new ArrayList<Annotation>();
-		pennPOS = new ArrayList<String>();
-		words = new ArrayList<String>();
-		spans = new ArrayList<Span>();
+	public static Input buildParserInput (Document doc, int start, int end, boolean setPOS) {
+		Input input = new Input();
+		ArrayList<Annotation> wordDefns = input.wordDefns;
+		ArrayList<String> pennPOS = input.pennPOS;
+		ArrayList<String> words = input.words;
+		ArrayList<Span> spans = input.spans;
 		int posn = Tokenizer.skipWSX(doc, start, end);
 		while (posn < end) {
 			// get wordDefn from constit
@@ -266,6 +314,7 @@ public class StatParser {
 			words.add(word);
 			posn = wspan.end();
 		}
+		return input;
 	}
 
 	/**
@@ -318,10 +367,15 @@ public class StatParser {
 	/**
 	 *  for hyphenated forms X-Y, which are treated as three separate tokens
 	 *  by the ACE tokenizer, create a single constituent with category 'hyphword'
-	 *  and Penn POS JJ.
+	 *  and Penn POS JJ.  The parser Input 'input' is updated to reflect the
+	 *  new constituents.
 	 */
 
-	public static void fixHyphenatedItems (Document doc) {
+	public static void fixHyphenatedItems (Document doc, Input input) {
+		ArrayList<String> words = input.words;
+		ArrayList<Span> spans = input.spans;
+		ArrayList<Annotation> wordDefns = input.wordDefns;
+		ArrayList<String> pennPOS = input.pennPOS;
 		for (int i=1; i<words.size()-1; i++) {
 			if (words.get(i).equals("-") &&
 			    spans.get(i-1).end() == spans.get(i).start() &&
@@ -369,14 +423,101 @@ public class StatParser {
 		}
 	}
 
+	/*
+	 *  the key of a sentence in the parse cache:  its words and Penn
+	 *  POS, as word/POS separated by blanks.
+	 */
+
+	static String cacheKey (List<String> words, List<String> pennPOS) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < words.size(); i++) {
+			if (i > 0)
+				sb.append(' ');
+			sb.append(words.get(i)).append('/').append(pennPOS.get(i));
+		}
+		return sb.toString();
+	}
+
+	/*
+	 *  writes a parse tree in the form of nested Sexp's as a String, with
+	 *  each list in parentheses and its elements separated by blanks.
+	 *  The tree refers only to the words of the sentence, so the String
+	 *  does not depend on where the sentence appears in a document.
+	 */
+
+	static String writeSexp (Sexp sx) {
+		StringBuilder sb = new StringBuilder();
+		writeSexp(sx, sb);
+		return sb.toString();
+	}
+
+	private static void writeSexp (Sexp sx, StringBuilder sb) {
+		if (sx.isSymbol()) {
+			sb.append(((Symbol) sx).toString());
+			return;
+		}
+		SexpList s = (SexpList) sx;
+		sb.append('(');
+		for (int i = 0; i < s.length(); i++) {
+			if (i > 0)
+				sb.append(' ');
+			writeSexp(s.get(i), sb);
+		}
+		sb.append(')');
+	}
+
+	/*
+	 *  reads a parse tree written by writeSexp, returning null if the
+	 *  String is not a well-formed list.
+	 */
+
+	static SexpList readSexp (String str) {
+		Stack<SexpList> open = new Stack<SexpList>();
+		SexpList result = null;
+		int i = 0;
+		int n = str.length();
+		while (i < n) {
+			char c = str.charAt(i);
+			if (c == ' ') {
+				i++;
+			} else if (c == '(') {
+				SexpList s = new SexpList();
+				if (!open.isEmpty())
+					open.peek().add(s);
+				else if (result != null)
+					return null;
+				else
+					result = s;
+				open.push(s);
+				i++;
+			} else if (c == ')') {
+				if (open.isEmpty())
+					return null;
+				open.pop();
+				i++;
+			} else {
+				int j = i;
+				while (j < n && " ()".indexOf(str.charAt(j)) < 0)
+					j++;
+				if (open.isEmpty())
+					return null;
+				open.peek().add(Symbol.get(str.substring(i, j)));
+				i = j;
+			}
+		}
+		return open.isEmpty() ? result : null;
+	}
+
 	/*
 	 *  converts a parse tree in the form of nested Sexp's to
-	 *  nested ParseTreeNodes.  The variable 'nextToken' must be
+	 *  nested ParseTreeNodes.  The field 'nextToken' of 'input' must be
 	 *  initialized to the first token spanned before calling this
 	 *  function.
 	 */
 
-	private static ParseTreeNode makeParseTree (Document doc, Sexp sx) {
+	private static ParseTreeNode makeParseTree (Document doc, Input input, Sexp sx) {
+		ArrayList<String> words = input.words;
+		ArrayList<Span> spans = input.spans;
 		if (!sx.isList()) {
 			System.out.println ("StatParse:  invalid Sexp for parse node " + sx.toString());
 			return null;
@@ -397,20 +538,20 @@ public class StatParser {
 		if (wordSx.isSymbol()) {
 			// leaf node
 			String expectedWord = ((Symbol) wordSx).toString();
-			String word = words.get(nextToken);
+			String word = words.get(input.nextToken);
 			while (!word.equals(expectedWord)) {
 				System.out.println ("StatParser:  parse skips " + word + " in sentence.");
-				nextToken++;
-				if (nextToken >= words.size()) {
+				input.nextToken++;
+				if (input.nextToken >= words.size()) {
 					System.out.println ("*** Unable to align sentence and parse tree.");
 					return null;
 				}
-				word = words.get(nextToken);
+				word = words.get(input.nextToken);
 			}
-			Annotation wordDefn = wordDefns.get(nextToken);
-			Span span = spans.get(nextToken);
+			Annotation wordDefn = input.wordDefns.get(input.nextToken);
+			Span span = spans.get(input.nextToken);
 			wordDefn = buildWordDefn(doc, word, span, wordDefn, pennPOS);
-			nextToken++;
+			input.nextToken++;
 			return new ParseTreeNode (cat, null, wordDefn.start(), wordDefn.end(), wordDefn, word);
 		} else {
 			// internal node
@@ -419,15 +560,15 @@ public class StatParser {
 				head = headFinder.findHead(sx);
 			}
 			int childCount = s.length() - 1;
-			int startToken = nextToken;
+			int startToken = input.nextToken;
 			int start = spans.get(startToken).start();
 			ParseTreeNode[] children = new ParseTreeNode[childCount];
 			for (int iChild = 0; iChild < childCount; iChild++) {
-				children[iChild] = makeParseTree(doc, s.get(iChild+1));
+				children[iChild] = makeParseTree(doc, input, s.get(iChild+1));
 			}
 			int end = start;
-			if (nextToken > startToken)
-				end = spans.get(nextToken - 1).end();
+			if (input.nextToken > startToken)
+				end = spans.get(input.nextToken - 1).end();
 			return new ParseTreeNode (cat, children, start, end, head);
 		}
 	}
@@ -527,9 +668,9 @@ public class StatParser {
 			doc.open();
 			// process document
 			SpecialZoner.findSpecialZones (doc);
-			AceJet.Ace.monocase = AceJet.Ace.allLowerCase(doc);
-			Jet.HMM.BigramHMMemitter.useBigrams = AceJet.Ace.monocase;
-			Jet.HMM.HMMstate.otherPreference = AceJet.Ace.monocase ? 1.0 : 0.0;
+			PipelineContext.current().monocase = AceJet.Ace.allLowerCase(doc);
+			PipelineContext.current().useBigrams = PipelineContext.current().monocase;
+			PipelineContext.current().otherPreference = PipelineContext.current().monocase ? 1.0 : 0.0;
 			Control.processDocument (doc, null, docCount == -1, docCount);
 			// remove name and tagger annotations -- not needed after parsing
 			doc.removeAnnotationsOfType ("ENAMEX");
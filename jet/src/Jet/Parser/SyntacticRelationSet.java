@@ -11,14 +11,40 @@ import java.io.*;
 
 import Jet.Tipster.*;
 import Jet.Refres.Resolve;
+import gnu.trove.TIntObjectHashMap;
 
 /**
  * the set of syntactic relations associated with a document.
+ * <p>
+ * The relations are indexed by source and target position, so that the
+ * relations from or to a word can be found without scanning the entire set.
+ * The indexes are updated as relations are added;  code which changes the
+ * source or target of a relation in the set should call {@link #reindex}.
  */
 
 public class SyntacticRelationSet {
 
-    ArrayList relations;
+    List<SyntacticRelation> relations;
+
+    // for each source position, the RelationList (without duplicates) of
+    // relations from that position, in the order in which they were added
+    private TIntObjectHashMap bySource;
+
+    // for each target position, the RelationList of relations to that
+    // position, in the order in which they were added
+    private TIntObjectHashMap byTarget;
+
+    // the values of the indexes (TIntObjectHashMap is not generic)
+    private static class RelationList extends ArrayList<SyntacticRelation> {
+        private static final long serialVersionUID = 1L;
+
+        RelationList() {
+            super(2);
+        }
+    }
+
+    // true for a read-only view of part of another set
+    private boolean readOnly = false;
 
     public static String[] relationTypes
             = {"of", "on", "in", "to", "by", "at", "through", "for", "with",
@@ -28,7 +54,19 @@ public class SyntacticRelationSet {
     public static HashMap nomVmap = new HashMap();
 
     public SyntacticRelationSet() {
-        relations = new ArrayList();
+        relations = new ArrayList<SyntacticRelation>();
+        bySource = new TIntObjectHashMap();
+        byTarget = new TIntObjectHashMap();
+    }
+
+    /**
+     * creates a read-only view of the relations in <CODE>relations</CODE>,
+     * without indexes.
+     */
+
+    private SyntacticRelationSet(List<SyntacticRelation> relations) {
+        this.relations = Collections.unmodifiableList(relations);
+        readOnly = true;
     }
 
     /**
@@ -59,10 +97,12 @@ public class SyntacticRelationSet {
                                 new SyntacticRelation
                                         (annHeadC.start(), annHead, type, valueHeadC.start(), valueHead);
                         relations.add(relation);
+                        index(relation);
                         SyntacticRelation reciprocal =
                                 new SyntacticRelation
                                         (valueHeadC.start(), valueHead, type + "-1", annHeadC.start(), annHead);
                         relations.add(reciprocal);
+                        index(reciprocal);
                     }
                 }
             }
@@ -74,8 +114,52 @@ public class SyntacticRelationSet {
      */
 
     public void add(SyntacticRelation r) {
-        if (!relations.contains(r))
-            relations.add(r);
+        checkWritable();
+        RelationList from = (RelationList) bySource.get(r.sourcePosn);
+        if (from != null && from.contains(r))
+            return;
+        relations.add(r);
+        index(r);
+    }
+
+    private void checkWritable() {
+        if (readOnly)
+            throw new UnsupportedOperationException("read-only SyntacticRelationSet");
+    }
+
+    /**
+     * adds relation <CODE>r</CODE>, which has just been added to
+     * <CODE>relations</CODE>, to the indexes.  A relation equal to one
+     * already in the set is not added to the source index.
+     */
+
+    private void index(SyntacticRelation r) {
+        RelationList from = (RelationList) bySource.get(r.sourcePosn);
+        if (from == null) {
+            from = new RelationList();
+            bySource.put(r.sourcePosn, from);
+        }
+        if (!from.contains(r))
+            from.add(r);
+        RelationList to = (RelationList) byTarget.get(r.targetPosn);
+        if (to == null) {
+            to = new RelationList();
+            byTarget.put(r.targetPosn, to);
+        }
+        to.add(r);
+    }
+
+    /**
+     * rebuilds the indexes of the set.  Must be called if the source or
+     * target of a relation in the set is changed.
+     */
+
+    public void reindex() {
+        checkWritable();
+        bySource.clear();
+        byTarget.clear();
+        for (int i = 0; i < relations.size(); i++)
+            index(relations.get(i));
     }
 
     /**
@@ -128,8 +212,9 @@ public class SyntacticRelationSet {
      */
 
     public SyntacticRelation getRelation(int from, int to) {
-        for (int i = 0; i < relations.size(); i++) {
-            SyntacticRelation r = (SyntacticRelation) relations.get(i);
+        List<SyntacticRelation> rels = relationListFrom(from);
+        for (int i = 0; i < rels.size(); i++) {
+            SyntacticRelation r = rels.get(i);
             if (r.sourcePosn == from && r.targetPosn == to)
                 return r;
         }
@@ -143,8 +228,9 @@ public class SyntacticRelationSet {
      */
 
     public SyntacticRelation getRelation(int from, String type) {
-        for (int i = 0; i < relations.size(); i++) {
-            SyntacticRelation r = (SyntacticRelation) relations.get(i);
+        List<SyntacticRelation> rels = relationListFrom(from);
+        for (int i = 0; i < rels.size(); i++) {
+            SyntacticRelation r = rels.get(i);
             if (r.sourcePosn == from && r.type.equalsIgnoreCase(type))
                 return r;
         }
@@ -153,17 +239,22 @@ public class SyntacticRelationSet {
 
     /**
      * return a SyntacticRelationSet containing those relations whose source
-     * is at position <CODE>from</CODE>.
+     * is at position <CODE>from</CODE>.  The set returned is a read-only
+     * view which shares storage with this set, and should not be kept
+     * while relations are being added to this set.
      */
 
     public SyntacticRelationSet getRelationsFrom(int from) {
-        SyntacticRelationSet s = new SyntacticRelationSet();
-        for (int i = 0; i < relations.size(); i++) {
-            SyntacticRelation r = (SyntacticRelation) relations.get(i);
-            if (r.sourcePosn == from)
-                s.add(r);
+        if (readOnly) {
+            List<SyntacticRelation> rels = new ArrayList<SyntacticRelation>();
+            for (int i = 0; i < relations.size(); i++) {
+                SyntacticRelation r = relations.get(i);
+                if (r.sourcePosn == from && !rels.contains(r))
+                    rels.add(r);
+            }
+            return new SyntacticRelationSet(rels);
         }
-        return s;
+        return new SyntacticRelationSet(relationListFrom(from));
     }
 
     /**
@@ -172,12 +263,31 @@ public class SyntacticRelationSet {
      */
 
     public SyntacticRelation getRelationTo(int to) {
-        for (int i = 0; i < relations.size(); i++) {
-            SyntacticRelation r = (SyntacticRelation) relations.get(i);
-            if (r.targetPosn == to)
-                return r;
+        if (readOnly) {
+            for (int i = 0; i < relations.size(); i++) {
+                SyntacticRelation r = (SyntacticRelation) relations.get(i);
+                if (r.targetPosn == to)
+                    return r;
+            }
+            return null;
         }
-        return null;
+        RelationList rels = (RelationList) byTarget.get(to);
+        return (rels == null) ? null : rels.get(0);
+    }
+
+    /**
+     * returns the relations whose source is at position <CODE>from</CODE>
+     * (for a read-only view, which has no indexes, all the relations in
+     * the set, which the caller must filter by source).
+     */
+
+    private List<SyntacticRelation> relationListFrom(int from) {
+        if (readOnly)
+            return relations;
+        RelationList rels = (RelationList) bySource.get(from);
+        if (rels == null)
+            return Collections.emptyList();
+        return rels;
     }
 
     /**
@@ -350,6 +460,7 @@ public class SyntacticRelationSet {
             System.out.println("readRelations error: " + e);
         }
         bypassTransparentLinks();
+        reindex();
         addInverses();
     }
 
@@ -67,6 +67,7 @@ public class AddFeaturesAction extends Action {
     if (Pat.trace) Console.println ("Adding features " + realFeatures.toSGMLString()
     								+ " to " + ann);
     ann.attributes().putAll(realFeatures);
+    doc.annotationModified(ann);
     return ann.span().end();
   }
 
@@ -50,7 +50,7 @@ public class AnnotationPatternElement extends AtomicPatternElement{
     this.v = v;
   }
 
-  public void eval (Document doc, int posn, String tokenString, HashMap bindings,
+  public void eval (Document doc, int posn, String tokenString, Bindings bindings,
                     PatternApplication patap, PatternNode node) {
     Vector posnAnn = doc.annotationsAt (posn);
     if (posnAnn != null) {
@@ -58,13 +58,11 @@ public class AnnotationPatternElement extends AtomicPatternElement{
         Annotation ann = (Annotation) it.next ();
         if (ann.type ().equals (type) && 
             (!hideAnnotations || ann.get("hidden")== null)) {
-          HashMap newbindings = Pat.matchFS (ann.attributes (), fs, bindings);
+          Bindings newbindings = Pat.matchFS (ann.attributes (), fs, bindings);
           if (newbindings != null) {
             int ic = ann.span ().end ();
-            if (v != null) {
-              newbindings = (HashMap) newbindings.clone();
-              newbindings.put(v.name,ann);
-            }
+            if (v != null)
+              newbindings = newbindings.bind(v.name,ann);
             node.eval (doc, ic, newbindings, patap);
           }
         }
@@ -72,6 +70,10 @@ public class AnnotationPatternElement extends AtomicPatternElement{
     }
   }
 
+  void addFirst (PatternDispatch.First first, PatternNode node, Set<PatternNode> visiting) {
+    first.addType(type);
+  }
+
   public String toString () {
     return "[" +  type + fs.toSGMLString() + "]";
   }
@@ -9,7 +9,7 @@ package Jet.Pat;
 
 import Jet.Lisp.*;
 import Jet.Tipster.*;
-import java.util.HashMap;
+import java.util.Set;
 
 /**
  *  a pattern element which assigns a value (a String or integer) to a
@@ -35,10 +35,13 @@ public class AssignmentPatternElement extends AtomicPatternElement {
     return variable.toString() + " = " + value.toString();
   }
 
-  public void eval (Document doc, int posn, String tokenString, HashMap bindings,
+  void addFirst (PatternDispatch.First first, PatternNode node, Set<PatternNode> visiting) {
+    first.addFirstOf(node, visiting);
+  }
+
+  public void eval (Document doc, int posn, String tokenString, Bindings bindings,
                     PatternApplication patap, PatternNode node) {
-    bindings = (HashMap) bindings.clone();
-    bindings.put(variable.name,value);
+    bindings = bindings.bind(variable.name,value);
     node.eval(doc, posn, bindings, patap);
   }
 }
@@ -20,7 +20,7 @@ import java.util.*;
 public abstract class AtomicPatternElement extends PatternElement {
 
   public abstract void eval(Document doc, int posn, String tokenString,
-        HashMap bindings, PatternApplication patap, PatternNode node);
+        Bindings bindings, PatternApplication patap, PatternNode node);
 
   public PatternGraph toGraph(Id id) {
     PatternArc arc = new PatternArc (this,null);
@@ -31,4 +31,16 @@ public abstract class AtomicPatternElement extends PatternElement {
     return new PatternGraph (inEdges,outEdges);
   }
 
+  /**
+   *  adds to <CODE>first</CODE> the annotation types and tokens with which a
+   *  match of this element, followed by a match of a path from
+   *  <CODE>node</CODE>, can begin.  This is used to build the dispatch
+   *  tables of the pattern graph.  By default, an element is assumed to be
+   *  able to match at any position.
+   */
+
+  void addFirst (PatternDispatch.First first, PatternNode node, Set<PatternNode> visiting) {
+    first.addAny();
+  }
+
 }
@@ -0,0 +1,138 @@
+// -*- tab-width: 4 -*-
+//Title:        JET
+//Version:      1.00
+//Copyright:    Copyright (c) 2000
+//Author:       Ralph Grishman
+//Description:  A Java-based Information Extraction Tool
+
+package Jet.Pat;
+
+import java.util.*;
+
+/**
+ *  an immutable set of bindings of pattern variables to values, used
+ *  during pattern matching.  Binding a variable creates a new set of
+ *  bindings which shares the bindings of the old set (a new frame is
+ *  linked in front of the old bindings), so extending the bindings along
+ *  one path of the pattern graph takes constant time and does not affect
+ *  the bindings seen along other paths.  A more recent binding of a
+ *  variable hides any earlier binding of the same variable.
+ *  <p>
+ *  The actions of a pattern, which may add bindings of their own, work
+ *  with a HashMap copy of the bindings, obtained by <CODE>toMap</CODE>.
+ */
+
+public final class Bindings {
+
+  /**
+   *  the empty set of bindings.
+   */
+
+  public static final Bindings EMPTY = new Bindings(null, null, null, 0);
+
+  private final String name;
+  private final Object value;
+  private final Bindings next;
+  private final int depth;
+  // the visible bindings, computed when the bindings are first compared;
+  // the map is never changed once built, so a reader which sees it through
+  // the volatile field sees it complete (if two threads compute it at once,
+  // both compute the same map)
+  private volatile Map<String, Object> visible;
+
+  private Bindings (String name, Object value, Bindings next, int depth) {
+    this.name = name;
+    this.value = value;
+    this.next = next;
+    this.depth = depth;
+  }
+
+  /**
+   *  returns a new set of bindings consisting of these bindings plus the
+   *  binding of variable <CODE>name</CODE> to <CODE>value</CODE>.
+   */
+
+  public Bindings bind (String name, Object value) {
+    return new Bindings(name, value, this, depth + 1);
+  }
+
+  /**
+   *  returns true if variable <CODE>name</CODE> is bound (possibly to
+   *  <CODE>null</CODE>).
+   */
+
+  public boolean containsKey (String name) {
+    return find(name) != null;
+  }
+
+  /**
+   *  returns the value to which variable <CODE>name</CODE> is bound, or
+   *  <CODE>null</CODE> if it is not bound.
+   */
+
+  public Object get (String name) {
+    Bindings b = find(name);
+    return (b == null) ? null : b.value;
+  }
+
+  private Bindings find (String name) {
+    for (Bindings b = this; b.depth > 0; b = b.next)
+      if (b.name == name || b.name.equals(name))
+        return b;
+    return null;
+  }
+
+  /**
+   *  returns the bindings as a (new, modifiable) HashMap.
+   */
+
+  public HashMap<String, Object> toMap () {
+    HashMap<String, Object> map = new HashMap<String, Object>();
+    for (Bindings b = this; b.depth > 0; b = b.next)
+      if (!map.containsKey(b.name))
+        map.put(b.name, b.value);
+    return map;
+  }
+
+  /**
+   *  returns the bindings in HashMap <CODE>map</CODE>.
+   */
+
+  public static Bindings of (Map<?, ?> map) {
+    Bindings b = EMPTY;
+    for (Map.Entry<?, ?> e : map.entrySet())
+      b = b.bind((String) e.getKey(), e.getValue());
+    return b;
+  }
+
+  /**
+   *  returns true if <CODE>o</CODE> is a set of bindings which binds the
+   *  same variables to equal values (considering only the most recent
+   *  binding of each variable).
+   */
+
+  public boolean equals (Object o) {
+    if (o == this)
+      return true;
+    if (!(o instanceof Bindings))
+      return false;
+    return visible().equals(((Bindings) o).visible());
+  }
+
+  public int hashCode () {
+    return visible().hashCode();
+  }
+
+  private Map<String, Object> visible () {
+    Map<String, Object> v = visible;
+    if (v == null) {
+      v = toMap();
+      visible = v;
+    }
+    return v;
+  }
+
+  public String toString () {
+    return toMap().toString();
+  }
+}
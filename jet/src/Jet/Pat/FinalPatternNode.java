@@ -22,6 +22,12 @@ public class FinalPatternNode extends PatternNode {
   public Vector actions;
   public String patternName;
 
+  /**
+   *  the profile of the rule which this node completes.
+   */
+
+  RuleProfile profile;
+
   /**
    *  Creates a FinalPatternNode with identifier <I>i</I> and set of actions
    *  <I>acts</I>.
@@ -40,10 +46,12 @@ public class FinalPatternNode extends PatternNode {
    *  performed.
    */
 
-  public void eval (Document doc, int posn, HashMap bindings,
+  public void eval (Document doc, int posn, Bindings bindings,
                     PatternApplication patap) {
-    if (posn > PatternSet.limit) return;	// added 6 Sep 03
-    patap.recordMatch(posn, patternName, bindings, actions);
+    if (posn > patap.limit) return;	// added 6 Sep 03
+    if (RuleProfile.enabled && profile != null)
+      profile.matches.increment();
+    patap.recordMatch(posn, patternName, bindings, actions, profile);
   }
 
   /**
@@ -7,7 +7,7 @@
 
 package Jet.Pat;
 
-import java.util.HashMap;
+import java.util.Set;
 import Jet.Lisp.Variable;
 import Jet.Tipster.*;
 
@@ -23,12 +23,15 @@ public class GetEndPatternElement extends AtomicPatternElement {
     return variable.toString() + ".end=* ";
   }
 
-  public void eval (Document doc, int posn, String tokenString, HashMap bindings,
+  void addFirst (PatternDispatch.First first, PatternNode node, Set<PatternNode> visiting) {
+    first.addFirstOf(node, visiting);
+  }
+
+  public void eval (Document doc, int posn, String tokenString, Bindings bindings,
                     PatternApplication patap, PatternNode node) {
     Integer start = (Integer) bindings.get(variable.name);
     /*** should check that variable.name is bound ! */
-    bindings = (HashMap) bindings.clone();
-    bindings.put(variable.name,new Span(start.intValue(),posn));
+    bindings = bindings.bind(variable.name,new Span(start.intValue(),posn));
     node.eval(doc, posn, bindings, patap);
   }
 }
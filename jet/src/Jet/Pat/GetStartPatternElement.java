@@ -7,7 +7,7 @@
 
 package Jet.Pat;
 
-import java.util.HashMap;
+import java.util.Set;
 import Jet.Lisp.Variable;
 import Jet.Tipster.Document;
 
@@ -35,10 +35,13 @@ public class GetStartPatternElement extends AtomicPatternElement{
     return variable.toString() + ".start=* ";
   }
 
-  public void eval (Document doc, int posn, String tokenString, HashMap bindings,
+  void addFirst (PatternDispatch.First first, PatternNode node, Set<PatternNode> visiting) {
+    first.addFirstOf(node, visiting);
+  }
+
+  public void eval (Document doc, int posn, String tokenString, Bindings bindings,
                     PatternApplication patap, PatternNode node) {
-    bindings = (HashMap) bindings.clone();
-    bindings.put(variable.name,new Integer(posn));
+    bindings = bindings.bind(variable.name,new Integer(posn));
     node.eval(doc, posn, bindings, patap);
   }
 }
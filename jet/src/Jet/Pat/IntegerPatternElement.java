@@ -27,7 +27,7 @@ public class IntegerPatternElement extends AtomicPatternElement {
     intvalueVariable = (Variable) fs.get("intvalue");
   }
 
-  public void eval(Document doc, int posn, String tokenString, HashMap bindings,
+  public void eval(Document doc, int posn, String tokenString, Bindings bindings,
                    PatternApplication patap, PatternNode node) {
     Annotation token = doc.tokenAt(posn);
     if (token == null) return;
@@ -37,13 +37,15 @@ public class IntegerPatternElement extends AtomicPatternElement {
     if (min != null && value.intValue() < min.intValue()) return;
     if (max != null && value.intValue() > max.intValue()) return;
     int ic = token.span().end();
-    if (intvalueVariable != null) {
-      bindings = (HashMap) bindings.clone();
-      bindings.put(intvalueVariable.name,value);
-    }
+    if (intvalueVariable != null)
+      bindings = bindings.bind(intvalueVariable.name,value);
     node.eval(doc, ic, bindings, patap);
   }
 
+  void addFirst (PatternDispatch.First first, PatternNode node, Set<PatternNode> visiting) {
+    first.addAnyToken();
+  }
+
   public String toString () {
     String result = "[integer";
     if (min != null) result += "min = " + min;
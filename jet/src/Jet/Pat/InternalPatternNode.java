@@ -24,6 +24,13 @@ public class InternalPatternNode extends PatternNode {
 
   public PatternArc arcs[];
 
+  /**
+   *  the dispatch table for the arcs, or null if the table has not been
+   *  built (in which case all arcs are tried at every position).
+   */
+
+  PatternDispatch dispatch = null;
+
   public InternalPatternNode(Id i, PatternArc a[]) {
     id = i;
     arcs = a;
@@ -34,15 +41,89 @@ public class InternalPatternNode extends PatternNode {
     arcs = (PatternArc []) a.toArray (new PatternArc[0]);
   }
 
-  public void eval(Document doc, int posn, HashMap bindings,
+  public void eval(Document doc, int posn, Bindings bindings,
                    PatternApplication patap) {
-    if (posn > PatternSet.limit) return;	// added 6 Sep 03
+    if (posn > patap.limit) return;	// added 6 Sep 03
+    if (posn > patap.furthest) patap.furthest = posn;
+    if (patap.truncated) return;
+    if (++patap.steps > patap.stepLimit) {
+      patap.truncated = true;
+      return;
+    }
+    if (patap.memo != null) {
+      evalMemoized(doc, posn, bindings, patap);
+      return;
+    }
+    evalArcs(doc, posn, bindings, patap);
+  }
+
+  /**
+   *  matches from this node, recording the matches found in the memo table
+   *  of <CODE>patap</CODE>, or, if this node has already been matched at
+   *  <CODE>posn</CODE> with the same bindings, recording the matches found
+   *  then.
+   */
+
+  private void evalMemoized (Document doc, int posn, Bindings bindings,
+                             PatternApplication patap) {
+    PatternMemo.Entry entry = patap.memo.get(this, posn, bindings);
+    if (entry != null) {
+      entry.replay(patap);
+      return;
+    }
+    PatternMemo.Entry outer = patap.recording;
+    int furthest = patap.furthest;
+    entry = new PatternMemo.Entry();
+    patap.recording = entry;
+    patap.furthest = posn;
+    evalArcs(doc, posn, bindings, patap);
+    entry.furthest = patap.furthest;
+    patap.recording = outer;
+    if (furthest > patap.furthest)
+      patap.furthest = furthest;
+    if (outer != null)
+      entry.addTo(outer);
+    // a truncated search does not record all matches
+    if (!patap.truncated)
+      patap.memo.put(this, posn, bindings, entry);
+  }
+
+  private void evalArcs (Document doc, int posn, Bindings bindings,
+                         PatternApplication patap) {
+    if (dispatch != null) {
+      dispatch.eval(arcs, doc, posn, bindings, patap);
+      return;
+    }
     Annotation token = doc.tokenAt(posn);
     String tokenString = (token==null) ? null : doc.text(token).trim().intern();
     for  (int i = 0; i < arcs.length; i++)
       arcs[i].eval(doc, posn, tokenString, bindings, patap);
   }
 
+  /**
+   *  builds the dispatch tables of this node and of all the internal nodes
+   *  reachable from this node.  <CODE>built</CODE> holds the nodes whose
+   *  tables have already been built.
+   */
+
+  void buildDispatchTables (Set<InternalPatternNode> built) {
+    if (!built.add(this))
+      return;
+    dispatch = new PatternDispatch(arcs);
+    for (int i = 0; i < arcs.length; i++)
+      if (arcs[i] != null && arcs[i].target instanceof InternalPatternNode)
+        ((InternalPatternNode) arcs[i].target).buildDispatchTables(built);
+  }
+
+  /**
+   *  returns true if some arc leaving this node may match at position
+   *  <CODE>posn</CODE> of document <CODE>doc</CODE>.
+   */
+
+  boolean mayMatch (Document doc, int posn) {
+    return dispatch == null || dispatch.mayMatch(doc, posn);
+  }
+
   public String toString () {
     String result = "";
     if (arcs.length == 1) {
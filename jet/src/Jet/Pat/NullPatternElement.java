@@ -24,7 +24,11 @@ public class NullPatternElement extends AtomicPatternElement {
     return "null";
   }
 
-  public void eval(Document doc, int posn, String tokenString, HashMap bindings,
+  void addFirst (PatternDispatch.First first, PatternNode node, Set<PatternNode> visiting) {
+    first.addFirstOf(node, visiting);
+  }
+
+  public void eval(Document doc, int posn, String tokenString, Bindings bindings,
                    PatternApplication patap, PatternNode node) {
     node.eval(doc, posn, bindings, patap);
   }
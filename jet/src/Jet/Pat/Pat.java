@@ -54,10 +54,23 @@ public static HashMap matchAnnotations (Annotation ann1, Annotation ann2,
 
 public static HashMap matchFS (FeatureSet fs1, FeatureSet fs2,
                                   HashMap bindings) {
-  Enumeration e = fs2.keys();
-  while (e.hasMoreElements()) {
-    String key = (String) e.nextElement();
-    Object value2 = fs2.get(key);
+  Bindings result = matchFS (fs1, fs2, Bindings.of(bindings));
+  return (result == null) ? null : result.toMap();
+}
+
+/**
+ *  determines whether feature sets <I>fs1</I> and <I>fs2</I> can be
+ *  matched (unified), consistent with variable bindings <I>bindings</I>.
+ *  @return    if the feature sets can be unified, the bindings extended
+ *             with any new bindings;  otherwise <B>null</B>.
+ */
+
+public static Bindings matchFS (FeatureSet fs1, FeatureSet fs2,
+                                  Bindings bindings) {
+  int len = fs2.size();
+  for (int i = 0; i < len; i++) {
+    String key = fs2.feature(i);
+    Object value2 = fs2.value(i);
     Object value1 = fs1.get(key);
     if (value2 == null) {
       if (value1 != null) return null;
@@ -67,8 +80,7 @@ public static HashMap matchFS (FeatureSet fs1, FeatureSet fs2,
         value2 = bindings.get(sym);
         if (!value2.equals(value1)) return null;
       } else {
-      bindings = (HashMap) bindings.clone();
-      bindings.put(sym,value1);
+      bindings = bindings.bind(sym,value1);
       }
     } else if (value2 instanceof FeatureTest) {
       FeatureTest ft = (FeatureTest)value2;
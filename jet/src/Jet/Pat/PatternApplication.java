@@ -40,6 +40,28 @@ public class PatternApplication {
 
   public int startPosition;
 
+  /**
+   *  the end of the span to which the pattern set is being applied;  a
+   *  pattern match may not extend beyond this position.
+   */
+
+  public int limit;
+
+  // the furthest position in the Document examined in matching
+  int furthest;
+
+  // the memo table of matches from pattern nodes, if matches are memoized,
+  // and the entry recording the matches from the node being evaluated
+  PatternMemo memo;
+  PatternMemo.Entry recording;
+
+  // the number of pattern nodes evaluated in matching, and the limit on
+  // that number;  if the limit is exceeded, matching is abandoned and
+  // 'truncated' is set
+  int steps = 0;
+  int stepLimit = Integer.MAX_VALUE;
+  boolean truncated = false;
+
   /**
    *  if a match has been found, the document position matching the end of
    *  the pattern.  If several matches were found, the best (furthest) end
@@ -61,6 +83,13 @@ public class PatternApplication {
 
   public HashMap bestBindings;
 
+  // the bindings of the best match, from which bestBindings is created
+  // when the actions are performed
+  private Bindings bestMatchBindings;
+
+  // the profile of the rule of the best match
+  private RuleProfile bestProfile;
+
   /**
    *  the sequence of actions associated with the best pattern match found
    *  so far.
@@ -82,14 +111,6 @@ public class PatternApplication {
 
   public static boolean patternApplyTrace = false;
 
-  /**
-   *  create a PatternApplication at the beginning of the pattern matching
-   *  process for a pattern graph.
-   *
-   *  @param doc      the Document being matched
-   *  @param start    the position in the document where matching will start
-   */
-
   private static Hashtable matchTracedPatterns = new Hashtable();
   private static Hashtable applyTracedPatterns = new Hashtable();
   private static JCheckBoxMenuItem item;
@@ -103,11 +124,34 @@ public class PatternApplication {
   private static PatternSet ps;
   private static PatternRule pr;
 
+  /**
+   *  create a PatternApplication at the beginning of the pattern matching
+   *  process for a pattern graph.
+   *
+   *  @param doc      the Document being matched
+   *  @param start    the position in the document where matching will start
+   */
+
   public PatternApplication(Document doc, int start) {
+    this(doc, start, doc.length());
+  }
+
+  /**
+   *  create a PatternApplication at the beginning of the pattern matching
+   *  process for a pattern graph.
+   *
+   *  @param doc      the Document being matched
+   *  @param start    the position in the document where matching will start
+   *  @param limit    the position beyond which matching may not extend
+   */
+
+  public PatternApplication(Document doc, int start, int limit) {
     matchFound = false;
     document = doc;
     startPosition = start;
+    this.limit = limit;
     bestPosition = -1;
+    furthest = start;
   }
 
   /**
@@ -122,8 +166,18 @@ public class PatternApplication {
    *  @param actions    actions to be performed if this is best pattern match
    */
 
-  public void recordMatch (int position, String patternName, HashMap bindings,
+  public void recordMatch (int position, String patternName, Bindings bindings,
                            Vector actions) {
+    recordMatch(position, patternName, bindings, actions, null);
+  }
+
+  /**
+   *  records a successful match of a pattern, as above, for the rule with
+   *  profile <I>profile</I>.
+   */
+
+  void recordMatch (int position, String patternName, Bindings bindings,
+                    Vector actions, RuleProfile profile) {
     Object name = matchTracedPatterns.get(patternName);
     if (name != null && name.equals("true")) {
       Console.println ("Matched pattern " + patternName + " over "
@@ -133,12 +187,15 @@ public class PatternApplication {
         Console.pv.refresh();
       }
     }
+    if (recording != null)
+      recording.add(position, patternName, bindings, actions, profile);
     if (position > bestPosition) {
       matchFound = true;
       bestPosition = position;
       bestPatternName = patternName;
-      bestBindings = bindings;
+      bestMatchBindings = bindings;
       bestActions = actions;
+      bestProfile = profile;
     }
   }
 
@@ -166,11 +223,19 @@ public class PatternApplication {
           Console.pv.refresh();
         }
       }
+      bestBindings = bestMatchBindings.toMap();
+      boolean profiling = RuleProfile.enabled && bestProfile != null;
+      long start = profiling ? System.nanoTime() : 0;
       for (int i = 0; i < bestActions.size(); i++) {
         Action act = (Action) bestActions.get(i);
         furthestPositionAnnotated =
           Math.max(furthestPositionAnnotated, act.perform(document, this));
       }
+      if (profiling) {
+        bestProfile.actionNanos.add(System.nanoTime() - start);
+        bestProfile.applications.increment();
+        bestProfile.actions.add(bestActions.size());
+      }
       return furthestPositionAnnotated;
     } else {
       return -1;
@@ -20,6 +20,15 @@ public class PatternArc {
   public PatternNode target;
   private boolean visited;
 
+  /**
+   *  the profile of the rule to which this arc belongs, and whether the
+   *  arc is an initial arc of the rule's pattern (set when the pattern
+   *  graph is built).
+   */
+
+  RuleProfile profile;
+  boolean initial;
+
   public PatternArc(AtomicPatternElement e, PatternNode t) {
     pe = e;
     target = t;
@@ -34,8 +43,18 @@ public class PatternArc {
     return visited;
   }
 
-  public void eval (Document doc, int posn, String tokenString, HashMap bindings,
+  public void eval (Document doc, int posn, String tokenString, Bindings bindings,
                     PatternApplication patap) {
+    if (RuleProfile.enabled && profile != null) {
+      profile.arcs.increment();
+      if (initial) {
+        long start = System.nanoTime();
+        profile.attempts.increment();
+        pe.eval(doc,posn,tokenString,bindings,patap,target);
+        profile.matchNanos.add(System.nanoTime() - start);
+        return;
+      }
+    }
     pe.eval(doc,posn,tokenString,bindings,patap,target);
   }
 }
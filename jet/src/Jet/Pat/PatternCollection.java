@@ -27,6 +27,8 @@ public class PatternCollection {
 
   private PatternSet currentPatternSet;
 
+  private boolean incremental = false;
+
   /**
    *  creates an empty PatternCollection
    */
@@ -38,6 +40,25 @@ public class PatternCollection {
     patternSetNames = new Vector();
   }
 
+  /**
+   *  if <I>incremental</I> is true, the <CODE>apply</CODE> methods apply
+   *  pattern sets incrementally (see {@link PatternSet#applyIncrementally}):
+   *  when a pattern set is applied again to the same span of a document,
+   *  only the positions where its result may have changed are matched again.
+   */
+
+  public void setIncremental (boolean incremental) {
+    this.incremental = incremental;
+  }
+
+  /**
+   *  returns true if pattern sets are applied incrementally.
+   */
+
+  public boolean isIncremental () {
+    return incremental;
+  }
+
   /**
    *  reads a file of pattern statements using reader and
    *  builds (or augments) a PatternCollection in the form of
@@ -262,7 +283,7 @@ public class PatternCollection {
     if (patternSets.containsKey(patternSetName)) {
       currentPatternSet = (PatternSet) patternSets.get(patternSetName);
     } else {
-      currentPatternSet = new PatternSet();
+      currentPatternSet = new PatternSet(patternSetName);
       patternSets.put(patternSetName,currentPatternSet);
       patternSetNames.add(patternSetName);
     }
@@ -316,7 +337,10 @@ public class PatternCollection {
    public void apply (String patternSetName, Document doc) {
      if (patternSets.containsKey(patternSetName)) {
        PatternSet set = (PatternSet) patternSets.get(patternSetName);
-       set.apply(doc);
+       if (incremental)
+         set.applyIncrementally(doc, new Span(0, doc.length()));
+       else
+         set.apply(doc);
      }
    }
 
@@ -328,7 +352,81 @@ public class PatternCollection {
    public void apply (String patternSetName, Document doc, Span span) {
      if (patternSets.containsKey(patternSetName)) {
        PatternSet set = (PatternSet) patternSets.get(patternSetName);
-       set.apply(doc,span);
+       if (incremental)
+         set.applyIncrementally(doc, span);
+       else
+         set.apply(doc,span);
+     }
+   }
+
+   /**
+    *  returns the profiles of all rules in the collection, ranked by the
+    *  total time spent on each rule (most expensive first);  rules with
+    *  equal times are listed in the order of the pattern sets and rules.
+    *  Profiles are only recorded if <CODE>RuleProfile.enabled</CODE> is true.
+    */
+
+   public List<RuleProfile> getProfile () {
+     List<RuleProfile> profiles = new ArrayList<RuleProfile>();
+     for (int i = 0; i < patternSetNames.size(); i++) {
+       PatternSet set = (PatternSet) patternSets.get(patternSetNames.get(i));
+       profiles.addAll(set.getProfiles());
      }
+     Collections.sort(profiles, new Comparator<RuleProfile>() {
+       public int compare (RuleProfile p1, RuleProfile p2) {
+         long t1 = p1.getNanos();
+         long t2 = p2.getNanos();
+         return t1 > t2 ? -1 : (t1 == t2 ? 0 : 1);
+       }
+     });
+     return profiles;
+   }
+
+   /**
+    *  writes the ranked profile of the rules (as returned by
+    *  <CODE>getProfile</CODE>), one line per rule, with the time spent
+    *  matching the rule's pattern and performing its actions (in
+    *  milliseconds), the number of attempts to match the pattern, the number
+    *  of arcs evaluated, the number of complete matches, and the number of
+    *  times the rule's actions were applied.  Rules which were never
+    *  applied are flagged with a '*'.
+    */
+
+   public void writeProfile (PrintWriter writer) {
+     writer.println(String.format("%4s %10s %10s %10s %12s %14s %10s %10s %10s  %s",
+       "rank", "totalMs", "matchMs", "actionMs", "attempts", "arcs",
+       "matches", "applied", "actions", "rule"));
+     List<RuleProfile> profiles = getProfile();
+     for (int i = 0; i < profiles.size(); i++) {
+       RuleProfile p = profiles.get(i);
+       writer.println(String.format("%4d %10.1f %10.1f %10.1f %12d %14d %10d %10d %10d %s%s",
+         i + 1, p.getNanos() / 1e6, p.getMatchNanos() / 1e6, p.getActionNanos() / 1e6,
+         p.getAttempts(), p.getArcsEvaluated(), p.getMatches(), p.getApplications(),
+         p.getActions(), p.getApplications() == 0 ? "*" : " ", p.getName()));
+     }
+     writer.flush();
+   }
+
+   /**
+    *  writes the ranked profile of the rules to file <I>fileName</I>.
+    */
+
+   public void writeProfile (String fileName) throws IOException {
+     PrintWriter writer = new PrintWriter(fileName, "UTF-8");
+     try {
+       writeProfile(writer);
+     } finally {
+       writer.close();
+     }
+   }
+
+   /**
+    *  discards the profiles of all rules in the collection.
+    */
+
+   public void clearProfile () {
+     List<RuleProfile> profiles = getProfile();
+     for (int i = 0; i < profiles.size(); i++)
+       profiles.get(i).clear();
    }
 }
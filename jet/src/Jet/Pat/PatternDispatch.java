@@ -0,0 +1,242 @@
+// -*- tab-width: 4 -*-
+//Title:        JET
+//Version:      1.00
+//Copyright:    Copyright (c) 2000
+//Author:       Ralph Grishman
+//Description:  A Java-based Information Extraction Tool
+
+package Jet.Pat;
+
+import Jet.Tipster.*;
+import java.util.*;
+
+/**
+ *  the dispatch table of an InternalPatternNode.  For each annotation type
+ *  and each literal token, the table records the arcs leaving the node
+ *  which can begin a match with an annotation of that type, or with that
+ *  token, so that in matching only those arcs need be tried whose first
+ *  element can match some annotation starting at the current position.
+ *  Arcs which do not consume any text (null arcs and assignments) are
+ *  filed under the first elements of the arcs which follow them.  The
+ *  arcs which are tried are always tried in their original order, so
+ *  dispatching does not change the result of matching.
+ */
+
+class PatternDispatch {
+
+  private static final int[] NONE = new int[0];
+
+  // for each annotation type, the arcs which can match an annotation
+  // of that type
+  private HashMap<String, int[]> byType = new HashMap<String, int[]>();
+  // for each literal token, the arcs which can match that token
+  private HashMap<String, int[]> byToken = new HashMap<String, int[]>();
+  // the arcs which can match any token
+  private int[] tokenArcs;
+  // the arcs which may match at any position
+  private int[] anyArcs;
+
+  /**
+   *  builds the dispatch table for arcs <CODE>arcs</CODE>.
+   */
+
+  PatternDispatch (PatternArc[] arcs) {
+    ArrayList<Integer> tokenList = new ArrayList<Integer>();
+    ArrayList<Integer> anyList = new ArrayList<Integer>();
+    HashMap<String, List<Integer>> typeLists = new HashMap<String, List<Integer>>();
+    HashMap<String, List<Integer>> tokenLists = new HashMap<String, List<Integer>>();
+    for (int i = 0; i < arcs.length; i++) {
+      if (arcs[i] == null)
+        continue;
+      First first = new First();
+      arcs[i].pe.addFirst(first, arcs[i].target, new HashSet<PatternNode>());
+      Integer arc = Integer.valueOf(i);
+      if (first.any) {
+        anyList.add(arc);
+        continue;
+      }
+      if (first.anyToken)
+        tokenList.add(arc);
+      for (String type : first.types)
+        addTo(typeLists, type, arc);
+      for (String token : first.tokens)
+        addTo(tokenLists, token, arc);
+    }
+    tokenArcs = toArray(tokenList);
+    anyArcs = toArray(anyList);
+    for (Map.Entry<String, List<Integer>> e : typeLists.entrySet())
+      byType.put(e.getKey(), toArray(e.getValue()));
+    for (Map.Entry<String, List<Integer>> e : tokenLists.entrySet())
+      byToken.put(e.getKey(), toArray(e.getValue()));
+  }
+
+  private static void addTo (Map<String, List<Integer>> lists, String key, Integer arc) {
+    List<Integer> list = lists.get(key);
+    if (list == null) {
+      list = new ArrayList<Integer>();
+      lists.put(key, list);
+    }
+    list.add(arc);
+  }
+
+  private static int[] toArray (List<Integer> list) {
+    if (list.isEmpty())
+      return NONE;
+    int[] a = new int[list.size()];
+    for (int i = 0; i < a.length; i++)
+      a[i] = list.get(i).intValue();
+    return a;
+  }
+
+  /**
+   *  returns true if the token string at each position must be computed
+   *  (to look up literal tokens, or to pass to arcs which may match anywhere).
+   */
+
+  private boolean needsTokenString () {
+    return !byToken.isEmpty() || anyArcs.length > 0;
+  }
+
+  /**
+   *  returns true if some arc may match at position <CODE>posn</CODE>
+   *  of document <CODE>doc</CODE>.
+   */
+
+  boolean mayMatch (Document doc, int posn) {
+    if (anyArcs.length > 0)
+      return true;
+    Annotation token = doc.tokenAt(posn);
+    if (token != null) {
+      if (tokenArcs.length > 0)
+        return true;
+      if (!byToken.isEmpty() && byToken.containsKey(doc.text(token).trim()))
+        return true;
+    }
+    if (!byType.isEmpty()) {
+      Vector<Annotation> anns = doc.annotationsAt(posn);
+      if (anns != null)
+        for (int i = 0; i < anns.size(); i++)
+          if (byType.containsKey(anns.get(i).type()))
+            return true;
+    }
+    return false;
+  }
+
+  /**
+   *  tries, in order, those arcs of <CODE>arcs</CODE> which can match at
+   *  position <CODE>posn</CODE> of document <CODE>doc</CODE>.
+   */
+
+  void eval (PatternArc[] arcs, Document doc, int posn, Bindings bindings,
+             PatternApplication patap) {
+    Annotation token = doc.tokenAt(posn);
+    Vector<Annotation> anns = byType.isEmpty() ? null : doc.annotationsAt(posn);
+    int[][] lists = new int[3 + (anns == null ? 0 : anns.size())][];
+    int n = 0;
+    String tokenString = null;
+    if (anyArcs.length > 0)
+      lists[n++] = anyArcs;
+    if (token != null) {
+      if (tokenArcs.length > 0)
+        lists[n++] = tokenArcs;
+      if (needsTokenString()) {
+        String text = doc.text(token).trim();
+        int[] a = byToken.get(text);
+        if (a != null)
+          lists[n++] = a;
+        if (a != null || anyArcs.length > 0)
+          tokenString = text.intern();
+      }
+    }
+    if (anns != null) {
+      for (int i = 0; i < anns.size(); i++) {
+        int[] a = byType.get(anns.get(i).type());
+        if (a != null && !contains(lists, n, a))
+          lists[n++] = a;
+      }
+    }
+    if (n == 0)
+      return;
+    if (n == 1) {
+      int[] a = lists[0];
+      for (int i = 0; i < a.length; i++)
+        arcs[a[i]].eval(doc, posn, tokenString, bindings, patap);
+      return;
+    }
+    // merge the lists, so that the arcs are tried in their original order
+    // and each arc is tried once
+    int[] next = new int[n];
+    while (true) {
+      int arc = Integer.MAX_VALUE;
+      for (int j = 0; j < n; j++)
+        if (next[j] < lists[j].length && lists[j][next[j]] < arc)
+          arc = lists[j][next[j]];
+      if (arc == Integer.MAX_VALUE)
+        return;
+      for (int j = 0; j < n; j++)
+        if (next[j] < lists[j].length && lists[j][next[j]] == arc)
+          next[j]++;
+      arcs[arc].eval(doc, posn, tokenString, bindings, patap);
+    }
+  }
+
+  private static boolean contains (int[][] lists, int n, int[] a) {
+    for (int j = 0; j < n; j++)
+      if (lists[j] == a)
+        return true;
+    return false;
+  }
+
+  /**
+   *  the set of annotation types and tokens with which a match of
+   *  a path in the pattern graph can begin.
+   */
+
+  static class First {
+
+    // true if the path may match at any position
+    boolean any = false;
+    // true if the path can begin with any token
+    boolean anyToken = false;
+    HashSet<String> types = new HashSet<String>();
+    HashSet<String> tokens = new HashSet<String>();
+
+    void addAny () {
+      any = true;
+    }
+
+    void addAnyToken () {
+      anyToken = true;
+    }
+
+    void addType (String type) {
+      types.add(type);
+    }
+
+    void addToken (String token) {
+      tokens.add(token);
+    }
+
+    /**
+     *  adds the first elements of the paths leaving <CODE>node</CODE>,
+     *  for an element which does not consume any text.  <CODE>visiting</CODE>
+     *  holds the nodes already visited, so that cycles of such elements
+     *  are followed only once.
+     */
+
+    void addFirstOf (PatternNode node, Set<PatternNode> visiting) {
+      if (node instanceof InternalPatternNode) {
+        if (!visiting.add(node))
+          return;
+        PatternArc[] arcs = ((InternalPatternNode) node).arcs;
+        for (int i = 0; i < arcs.length; i++)
+          if (arcs[i] != null)
+            arcs[i].pe.addFirst(this, arcs[i].target, visiting);
+      } else {
+        // reaching the end of the pattern, or an unknown node:  a match
+        // may begin anywhere
+        addAny();
+      }
+    }
+  }
+}
@@ -0,0 +1,130 @@
+// -*- tab-width: 4 -*-
+//Title:        JET
+//Version:      1.00
+//Copyright:    Copyright (c) 2000
+//Author:       Ralph Grishman
+//Description:  A Java-based Information Extraction Tool
+
+package Jet.Pat;
+
+import java.util.*;
+
+/**
+ *  a memo table of the matches found from the nodes of a pattern graph,
+ *  used in one application of a PatternSet to a span of a document.
+ *  <p>
+ *  Matching from an InternalPatternNode depends only on the node, the
+ *  position in the document, and the (visible) variable bindings, so if
+ *  the same node is reached again at the same position with the same
+ *  bindings -- as happens when alternative paths through repeated
+ *  sub-patterns cover the same text -- the matches found the first time
+ *  can be recorded again without matching the rest of the pattern again.
+ *  The table must be cleared whenever the document is changed.
+ */
+
+class PatternMemo {
+
+  private HashMap<Key, Entry> table = new HashMap<Key, Entry>();
+
+  /**
+   *  returns the matches found from <CODE>node</CODE> at position
+   *  <CODE>posn</CODE> with bindings <CODE>bindings</CODE>, or
+   *  <CODE>null</CODE> if they have not been recorded.
+   */
+
+  Entry get (InternalPatternNode node, int posn, Bindings bindings) {
+    return table.get(new Key(node, posn, bindings));
+  }
+
+  void put (InternalPatternNode node, int posn, Bindings bindings, Entry entry) {
+    table.put(new Key(node, posn, bindings), entry);
+  }
+
+  void clear () {
+    table.clear();
+  }
+
+  private static class Key {
+
+    final InternalPatternNode node;
+    final int posn;
+    final Bindings bindings;
+
+    Key (InternalPatternNode node, int posn, Bindings bindings) {
+      this.node = node;
+      this.posn = posn;
+      this.bindings = bindings;
+    }
+
+    public boolean equals (Object o) {
+      if (!(o instanceof Key))
+        return false;
+      Key k = (Key) o;
+      return node == k.node && posn == k.posn && bindings.equals(k.bindings);
+    }
+
+    public int hashCode () {
+      return (System.identityHashCode(node) * 31 + posn) * 31 + bindings.hashCode();
+    }
+  }
+
+  /**
+   *  the matches found from one node:  the furthest position examined,
+   *  and the successive calls of <CODE>PatternApplication.recordMatch</CODE>
+   *  which extended the match further than the calls before them (the
+   *  other calls can never record the best match, and are dropped).
+   */
+
+  static class Entry {
+
+    int furthest;
+    private ArrayList<Match> matches = new ArrayList<Match>();
+    private int bestPosition = -1;
+
+    void add (int position, String patternName, Bindings bindings,
+              Vector<?> actions, RuleProfile profile) {
+      if (position > bestPosition) {
+        matches.add(new Match(position, patternName, bindings, actions, profile));
+        bestPosition = position;
+      }
+    }
+
+    void addTo (Entry entry) {
+      for (int i = 0; i < matches.size(); i++) {
+        Match m = matches.get(i);
+        entry.add(m.position, m.patternName, m.bindings, m.actions, m.profile);
+      }
+    }
+
+    /**
+     *  records the matches again in <CODE>patap</CODE>.
+     */
+
+    void replay (PatternApplication patap) {
+      if (furthest > patap.furthest)
+        patap.furthest = furthest;
+      for (int i = 0; i < matches.size(); i++) {
+        Match m = matches.get(i);
+        patap.recordMatch(m.position, m.patternName, m.bindings, m.actions, m.profile);
+      }
+    }
+  }
+
+  private static class Match {
+
+    final int position;
+    final String patternName;
+    final Bindings bindings;
+    final Vector<?> actions;
+    final RuleProfile profile;
+
+    Match (int position, String patternName, Bindings bindings,
+           Vector<?> actions, RuleProfile profile) {
+      this.position = position;
+      this.patternName = patternName;
+      this.bindings = bindings;
+      this.actions = actions;
+      this.profile = profile;
+    }
+  }
+}
@@ -19,7 +19,7 @@ public abstract class PatternNode {
   public Id id;
   private boolean visited = false;
 
-  public abstract void eval(Document doc, int posn, HashMap bindings,
+  public abstract void eval(Document doc, int posn, Bindings bindings,
                             PatternApplication patap);
 
   public abstract void toTree(DefaultMutableTreeNode parent);
@@ -19,12 +19,49 @@ public class PatternSet {
 
   Vector rules;
   public InternalPatternNode rootNode;
+  String name;
+  Vector<RuleProfile> profiles = new Vector<RuleProfile>();
+  // for each Document to which the set has been applied incrementally,
+  // a map from each span (start and end packed into a Long) to the
+  // Steps of the last application to that span
+  private final WeakHashMap<Document, HashMap<Long, Steps>> incrementalSteps =
+    new WeakHashMap<Document, HashMap<Long, Steps>>();
+
+  /**
+   *  if true, the matches found from each node of the pattern graph are
+   *  memoized during each application of a pattern set to a span, so that
+   *  when alternative paths through the graph (such as those through
+   *  repeated references to the same pattern) reach the same node at the
+   *  same position with the same variable bindings, the rest of the match
+   *  is not repeated.  Set from property <B>Pattern.memoize</B>.
+   */
+
+  public static boolean memoize = false;
+
+  /**
+   *  the maximum number of pattern nodes which may be evaluated in one
+   *  application of a pattern set to a span (typically, a sentence), or
+   *  0 for no limit.  If the limit is reached, a message is printed and
+   *  the rest of the span is skipped.  Set from property
+   *  <B>Pattern.maxSteps</B>.
+   */
+
+  public static int maxSteps = 0;
 
   /**
    *  creates an empty PatternSet (with no rules)
    */
 
   public PatternSet() {
+    this("");
+  }
+
+  /**
+   *  creates an empty PatternSet (with no rules) named <I>name</I>
+   */
+
+  public PatternSet(String name) {
+    this.name = name;
     rules = new Vector();        // each is PatternRule
   }
 
@@ -45,6 +82,8 @@ public class PatternSet {
   public void makePatternGraph (PatternCollection collection) {
     Vector initialArcs = new Vector();
     Id id = new Id(1);
+    HashSet<String> profileNames = new HashSet<String>();
+    profiles = new Vector<RuleProfile>();
 
     for (int i = 0; i < rules.size(); i++) {
       PatternRule rule = (PatternRule) rules.get(i);
@@ -54,18 +93,54 @@ public class PatternSet {
       } else {
         PatternGraph pg = pe.toGraph(id);
         Vector actions = rule.actions();
-        PatternNode finalNode = new FinalPatternNode(new Id(id.value++), rule.patternName(), actions);
+        FinalPatternNode finalNode = new FinalPatternNode(new Id(id.value++), rule.patternName(), actions);
         //id.value++;
         pg.setOutEdges(finalNode);
         initialArcs.addAll(pg.inEdges);
+        String profileName = name + ":" + rule.patternName();
+        for (int k = 2; !profileNames.add(profileName); k++)
+          profileName = name + ":" + rule.patternName() + "#" + k;
+        RuleProfile profile = new RuleProfile(profileName);
+        profiles.add(profile);
+        finalNode.profile = profile;
+        for (int j = 0; j < pg.inEdges.size(); j++)
+          ((PatternArc) pg.inEdges.get(j)).initial = true;
+        setProfile(pg.inEdges, profile, new HashSet<PatternNode>());
       }
     }
     PatternArc[] initialArcArray = (PatternArc[]) initialArcs.toArray(new PatternArc[1]);
     rootNode = new InternalPatternNode(new Id(0), initialArcArray);
+    rootNode.buildDispatchTables(new HashSet<InternalPatternNode>());
+    synchronized (incrementalSteps) {
+      incrementalSteps.clear();
+    }
     // System.out.println (rootNode);
     return;
   }
 
+  /**
+   *  assigns profile <I>profile</I> to arcs <I>arcs</I> and all arcs
+   *  reachable from them (the arcs of one rule).
+   */
+
+  private void setProfile (List<?> arcs, RuleProfile profile, Set<PatternNode> visited) {
+    for (int i = 0; i < arcs.size(); i++) {
+      PatternArc arc = (PatternArc) arcs.get(i);
+      arc.profile = profile;
+      if (arc.target instanceof InternalPatternNode && visited.add(arc.target))
+        setProfile(Arrays.asList(((InternalPatternNode) arc.target).arcs), profile, visited);
+    }
+  }
+
+  /**
+   *  returns the profiles of the rules in this pattern set, in the order
+   *  of the rules.  The profiles are created when the pattern graph is built.
+   */
+
+  public List<RuleProfile> getProfiles () {
+    return profiles;
+  }
+
   /**
    *  applies the rules in the PatternSet to the entire document.
    */
@@ -78,24 +153,93 @@ public class PatternSet {
    *  applies the rules in the PatternSet to the specified span of the document.
    */
 
-  public static int limit;
-
   public void apply (Document doc, Span span) {
+    apply(doc, span, null);
+  }
+
+  /**
+   *  applies the rules in the PatternSet to the specified span of the
+   *  document, re-using the results of the last incremental application
+   *  of the set to the same span.  Positions at which no rule matched
+   *  in the last application are not matched again unless some
+   *  annotation beginning between the position and the furthest position
+   *  examined in matching has since been added, removed, or modified
+   *  (see {@link Document#trackChanges}).  The result is the same as that
+   *  of <CODE>apply(doc, span)</CODE>, provided that features of annotations
+   *  are only changed through {@link Annotation#put} and
+   *  {@link Annotation#remove}, or reported with
+   *  {@link Document#annotationModified};  changes made directly to the
+   *  FeatureSet returned by {@link Annotation#attributes} are not seen.
+   */
+
+  public void applyIncrementally (Document doc, Span span) {
+    doc.trackChanges();
+    Long key = Long.valueOf(((long) span.start() << 32) | span.end());
+    Steps steps;
+    synchronized (incrementalSteps) {
+      HashMap<Long, Steps> spans = incrementalSteps.get(doc);
+      if (spans == null) {
+        spans = new HashMap<Long, Steps>();
+        incrementalSteps.put(doc, spans);
+      }
+      steps = spans.get(key);
+      if (steps == null) {
+        steps = new Steps(span.start(), span.end(), doc.changeCount());
+        spans.put(key, steps);
+      }
+    }
+    apply(doc, span, steps);
+  }
+
+  private void apply (Document doc, Span span, Steps steps) {
     int position = span.start();
     int newPosition;
-    limit = span.end();
+    int limit = span.end();
+    PatternMemo memo = memoize ? new PatternMemo() : null;
+    int stepsLeft = (maxSteps > 0) ? maxSteps : Integer.MAX_VALUE;
     //  advance 'position' to start of first token
     while (doc.tokenAt(position) == null) {
       position++;
       if (position >= limit) return;
     }
     while (position < limit) {
-      PatternApplication patap = new PatternApplication (doc, position);
-      rootNode.eval(doc,position,new HashMap(),patap);
+      // skip positions where matching is known to fail
+      if (steps != null) {
+        steps.readChanges(doc);
+        if (steps.unchanged(position)) {
+          Annotation ann = doc.tokenAt(position);
+          if (ann == null) return;
+          position = ann.span().end();
+          continue;
+        }
+      }
+      // skip positions where no rule can begin a match
+      if (!rootNode.mayMatch(doc, position)) {
+        Annotation ann = doc.tokenAt(position);
+        if (ann == null) return;
+        position = ann.span().end();
+        continue;
+      }
+      int changeCount = doc.changeCount();
+      PatternApplication patap = new PatternApplication (doc, position, limit);
+      patap.memo = memo;
+      patap.stepLimit = stepsLeft;
+      rootNode.eval(doc,position,Bindings.EMPTY,patap);
+      if (patap.truncated) {
+        System.err.println ("*** Pattern set " + name + ": more than " + maxSteps
+                            + " match steps in span " + span
+                            + ", skipping rest of span from " + position);
+        if (steps != null) steps.forget(position);
+        return;
+      }
+      stepsLeft -= patap.steps;
       if (patap.matchFound) {
         newPosition = patap.performActions();
+        if (memo != null) memo.clear();
+        if (steps != null) steps.forget(position);
       } else {
         newPosition = -1;
+        if (steps != null) steps.record(position, changeCount, patap.furthest);
       }
       if (newPosition >= 0) {
         position = newPosition;
@@ -108,4 +252,67 @@ public class PatternSet {
       // position++;
     }
   }
+
+  /**
+   *  the results of the last incremental application of the set to one
+   *  span of a document:  for each position at which no rule matched, the
+   *  number of changes to the document when the position was matched and
+   *  the furthest position examined in matching.  Matching at the position
+   *  can only give a different result if some annotation beginning between
+   *  the position and the furthest position examined has since been changed.
+   */
+
+  private static class Steps {
+
+    private final int start;
+    // for each position, the change count of the document when matching
+    // at the position found no match, or -1 if there is no such result
+    private final int[] changeCount;
+    // for each position, the furthest position examined in matching
+    private final int[] furthest;
+    // for each position, 1 + the index in the document's change log of
+    // the last change at that position, or 0 if there was none
+    private final int[] lastChange;
+    // the number of entries of the change log which have been read
+    private int changesRead;
+
+    Steps (int start, int end, int changesRead) {
+      this.start = start;
+      changeCount = new int[end - start + 1];
+      Arrays.fill(changeCount, -1);
+      furthest = new int[end - start + 1];
+      lastChange = new int[end - start + 1];
+      this.changesRead = changesRead;
+    }
+
+    void readChanges (Document doc) {
+      int count = doc.changeCount();
+      for (; changesRead < count; changesRead++) {
+        int posn = doc.changePosition(changesRead);
+        if (posn < 0)
+          Arrays.fill(changeCount, -1);
+        else if (posn >= start && posn - start < lastChange.length)
+          lastChange[posn - start] = changesRead + 1;
+      }
+    }
+
+    boolean unchanged (int posn) {
+      int i = posn - start;
+      if (changeCount[i] < 0)
+        return false;
+      for (int j = i; j <= furthest[i] - start; j++)
+        if (lastChange[j] > changeCount[i])
+          return false;
+      return true;
+    }
+
+    void record (int posn, int count, int furthestPosn) {
+      changeCount[posn - start] = count;
+      furthest[posn - start] = furthestPosn;
+    }
+
+    void forget (int posn) {
+      changeCount[posn - start] = -1;
+    }
+  }
 }
@@ -0,0 +1,133 @@
+// -*- tab-width: 4 -*-
+//Title:        JET
+//Version:      1.00
+//Copyright:    Copyright (c) 2000
+//Author:       Ralph Grishman
+//Description:  A Java-based Information Extraction Tool
+
+package Jet.Pat;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ *  the profile of one pattern rule (<B>when</B> statement):  counts of
+ *  the work done in matching its pattern and performing its actions.
+ *  Profiles are only recorded while <CODE>enabled</CODE> is true;  when
+ *  it is false, the pattern matcher pays for a single test of a static
+ *  flag at each arc.  The counts may be updated by several threads at once.
+ *  <p>
+ *  The profiles of all rules in a PatternCollection are reported by
+ *  <CODE>PatternCollection.writeProfile</CODE>.
+ */
+
+public class RuleProfile {
+
+  /**
+   *  if true, record rule profiles.  Set from property <B>Pattern.profile</B>.
+   */
+
+  public static boolean enabled = false;
+
+  private final String name;
+
+  final LongAdder attempts = new LongAdder();
+  final LongAdder arcs = new LongAdder();
+  final LongAdder matches = new LongAdder();
+  final LongAdder applications = new LongAdder();
+  final LongAdder actions = new LongAdder();
+  final LongAdder matchNanos = new LongAdder();
+  final LongAdder actionNanos = new LongAdder();
+
+  RuleProfile (String name) {
+    this.name = name;
+  }
+
+  /**
+   *  the name of the rule:  the name of the pattern set and the name of the
+   *  pattern matched by the rule, separated by a colon.
+   */
+
+  public String getName () {
+    return name;
+  }
+
+  /**
+   *  the number of times matching of the rule's pattern was begun
+   *  (once for each initial arc of the pattern tried at a position).
+   */
+
+  public long getAttempts () {
+    return attempts.sum();
+  }
+
+  /**
+   *  the number of arcs of the rule's pattern graph evaluated.
+   */
+
+  public long getArcsEvaluated () {
+    return arcs.sum();
+  }
+
+  /**
+   *  the number of complete matches of the rule's pattern (whether or not
+   *  they were the best match at their position).
+   */
+
+  public long getMatches () {
+    return matches.sum();
+  }
+
+  /**
+   *  the number of times the rule's actions were performed.
+   */
+
+  public long getApplications () {
+    return applications.sum();
+  }
+
+  /**
+   *  the number of actions performed.
+   */
+
+  public long getActions () {
+    return actions.sum();
+  }
+
+  /**
+   *  the time, in nanoseconds, spent matching the rule's pattern.
+   */
+
+  public long getMatchNanos () {
+    return matchNanos.sum();
+  }
+
+  /**
+   *  the time, in nanoseconds, spent performing the rule's actions.
+   */
+
+  public long getActionNanos () {
+    return actionNanos.sum();
+  }
+
+  /**
+   *  the total time, in nanoseconds, spent on the rule.
+   */
+
+  public long getNanos () {
+    return getMatchNanos() + getActionNanos();
+  }
+
+  /**
+   *  discards the counts.
+   */
+
+  public void clear () {
+    attempts.reset();
+    arcs.reset();
+    matches.reset();
+    applications.reset();
+    actions.reset();
+    matchNanos.reset();
+    actionNanos.reset();
+  }
+}
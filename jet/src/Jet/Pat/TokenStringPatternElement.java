@@ -23,7 +23,7 @@ public class TokenStringPatternElement extends AtomicPatternElement{
     string = stg.intern();
   }
 
-  public void eval(Document doc, int posn, String tokenString, HashMap bindings,
+  public void eval(Document doc, int posn, String tokenString, Bindings bindings,
                    PatternApplication patap, PatternNode node) {
     if (tokenString != string) return;
     /* Annotation ann = doc.tokenAt(posn);
@@ -34,6 +34,10 @@ public class TokenStringPatternElement extends AtomicPatternElement{
     node.eval(doc, ic, bindings, patap);
   }
 
+  void addFirst (PatternDispatch.First first, PatternNode node, Set<PatternNode> visiting) {
+    first.addToken(string);
+  }
+
   public String toString () {
     return "\"" + string + "\"";
   }
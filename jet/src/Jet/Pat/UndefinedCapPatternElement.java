@@ -18,7 +18,7 @@ public class UndefinedCapPatternElement extends AtomicPatternElement {
   }
 
   public void eval(Document doc, int posn, String tokenString,
-        HashMap bindings, PatternApplication patap, PatternNode node) {
+        Bindings bindings, PatternApplication patap, PatternNode node) {
     Annotation token = doc.tokenAt(posn);
     if (token == null) return;
     if (token.get("hidden") != null) return;
@@ -29,6 +29,10 @@ public class UndefinedCapPatternElement extends AtomicPatternElement {
     node.eval(doc, ic, bindings, patap);
     }
 
+  void addFirst (PatternDispatch.First first, PatternNode node, Set<PatternNode> visiting) {
+    first.addAnyToken();
+  }
+
   public String toString () {
     return "[undefinedCap]";
   }
@@ -0,0 +1,167 @@
+// -*- tab-width: 4 -*-
+//Title:        JET
+//Copyright:    Copyright (c) 2003
+//Author:       Ralph Grishman
+//Description:  A Java-based Information Extraction Tool
+
+package Jet;
+
+import java.util.Arrays;
+
+import Jet.Tipster.Document;
+
+/**
+ *  the per-document state of the Jet pipeline.
+ *  <p>
+ *  The models loaded by JetTest (the POS and name taggers, the pattern
+ *  collection, the lexicon, etc.) are shared by all documents being processed.
+ *  The state associated with the document currently being processed --
+ *  its case (monocase or mixed case), the name tagger's cache of names seen
+ *  in the document, the entities built by reference resolution, etc. -- is
+ *  kept in a PipelineContext.  Each thread has its own current context, so
+ *  several documents may be processed concurrently in one JVM, one per thread.
+ *  <p>
+ *  Components which need additional per-document state declare a
+ *  {@link Slot} and retrieve their state from the current context with
+ *  {@link Slot#get}.
+ */
+
+public class PipelineContext {
+
+	private static final ThreadLocal<PipelineContext> current =
+		new ThreadLocal<PipelineContext>() {
+			protected PipelineContext initialValue() {
+				return new PipelineContext();
+			}
+		};
+
+	private static int slotCount = 0;
+
+	/**
+	 *  the document currently being processed, or <CODE>null</CODE> if no
+	 *  document has been started in this context.
+	 */
+
+	public Document document = null;
+
+	/**
+	 *  true if the current document is in monocase (all lower case or all
+	 *  upper case).  Several components (the name tagger, sentence splitter,
+	 *  lexical look-up) relax their use of capitalization for such documents.
+	 */
+
+	public boolean monocase = false;
+
+	/**
+	 *  if true, the bigram name tagger emitter uses token bigrams.
+	 */
+
+	public boolean useBigrams = true;
+
+	/**
+	 *  a bonus added by the HMM name tagger to the emission log probability
+	 *  of states with tag <B>other</B>, shifting the tagger towards not tagging
+	 *  names.
+	 */
+
+	public double otherPreference = 1.0;
+
+	// the values of the slots in this context, indexed by slot id
+	private Object[] slots = new Object[8];
+
+	/**
+	 *  returns the context of the current thread, creating one if the
+	 *  thread does not yet have a context.
+	 */
+
+	public static PipelineContext current () {
+		return current.get();
+	}
+
+	/**
+	 *  makes <CODE>context</CODE> the context of the current thread.
+	 */
+
+	public static void setCurrent (PipelineContext context) {
+		current.set(context);
+	}
+
+	/**
+	 *  begins the processing of Document <CODE>doc</CODE> in this context.
+	 *  If <CODE>doc</CODE> is not the document currently being processed,
+	 *  the per-document state held in slots is discarded.  The flags
+	 *  (<CODE>monocase</CODE>, <CODE>useBigrams</CODE>, and
+	 *  <CODE>otherPreference</CODE>) are retained.
+	 */
+
+	public void startDocument (Document doc) {
+		if (doc == document)
+			return;
+		document = doc;
+		Arrays.fill(slots, null);
+	}
+
+	/**
+	 *  a piece of per-document state held in each PipelineContext, such as
+	 *  the name cache of a tagger.  A component declares a Slot as a static
+	 *  final field and overrides <CODE>initialValue</CODE> to create the
+	 *  state for a new document.  Each Slot takes an entry in every context,
+	 *  which is never released, so Slots should not be created for each
+	 *  instance of a component;  state which belongs to an instance should
+	 *  be kept in a map from the instance within a single static Slot.
+	 */
+
+	public abstract static class Slot<T> {
+
+		private final int id;
+
+		public Slot () {
+			synchronized (PipelineContext.class) {
+				id = slotCount++;
+			}
+		}
+
+		/**
+		 *  returns the initial value of this slot for a new document.
+		 */
+
+		protected abstract T initialValue ();
+
+		/**
+		 *  returns the value of this slot in the current thread's context,
+		 *  creating it if necessary.
+		 */
+
+		public T get () {
+			return get(current());
+		}
+
+		/**
+		 *  returns the value of this slot in <CODE>context</CODE>, creating
+		 *  it if necessary.
+		 */
+
+		@SuppressWarnings("unchecked")
+		public T get (PipelineContext context) {
+			if (id >= context.slots.length)
+				context.slots = Arrays.copyOf(context.slots, Math.max(id + 1, 2 * context.slots.length));
+			Object value = context.slots[id];
+			if (value == null) {
+				value = initialValue();
+				context.slots[id] = value;
+			}
+			return (T) value;
+		}
+
+		/**
+		 *  sets the value of this slot in the current thread's context.
+		 */
+
+		public void set (T value) {
+			PipelineContext context = current();
+			if (id >= context.slots.length)
+				context.slots = Arrays.copyOf(context.slots, Math.max(id + 1, 2 * context.slots.length));
+			context.slots[id] = value;
+		}
+	}
+}
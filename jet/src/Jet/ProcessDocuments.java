@@ -8,15 +8,18 @@
 package Jet;
 
 import java.io.*;
+import java.util.Vector;
 
 import Jet.Tipster.*;
 import Jet.Refres.Resolve;
+import Jet.Parser.ParseCache;
 import Jet.Pat.Pat;
 import AceJet.Ace;
 
 /**
  *  provides externally-callable main method to apply Jet processing to a
- *  set of documents.
+ *  set of documents.  If the property <B>Batch.threads</B> is greater than 1,
+ *  the documents are processed concurrently (see {@link BatchProcessor}).
  */
 
 public class ProcessDocuments {
@@ -43,10 +46,10 @@ public class ProcessDocuments {
 	}
 	String propsFile = args[0];
 	String docList = args[1];
-	String inputDir = args[2];
-	String inputSuffix = args[3];
-	String outputDir = args[4];
-	String outputSuffix = args[5];
+	final String inputDir = args[2];
+	final String inputSuffix = args[3];
+	final String outputDir = args[4];
+	final String outputSuffix = args[5];
 
 	// initialize Jet
 
@@ -60,23 +63,47 @@ public class ProcessDocuments {
 	// ACE mode (provides additional antecedents ...)
 	Resolve.ACE = true;
 
-	String docName;
-	int docCount = 0;
 	BufferedReader docListReader = new BufferedReader(new FileReader (docList));
-	while ((docName = docListReader.readLine()) != null) {
-	    docCount++;
-	    String inputFile = docName + "." + inputSuffix;
-	    ExternalDocument doc = new ExternalDocument ("sgml", inputDir, inputFile);
-	    doc.setAllTags(true);
-	    doc.open();
-	    String[] types = doc.getAnnotationTypes();
-	    doc.setSGMLwrapMargin(0);
-	    String outputFile = docName + "." + outputSuffix;
-	    BufferedWriter writer = new BufferedWriter (new FileWriter (new File (outputDir, outputFile)));
+	BatchProcessor.fromConfig().run(docListReader, new BatchProcessor.DocumentTask() {
+		public int process (int docNo, String docName) throws IOException {
+		    return processDocument (docNo, docName, inputDir, inputSuffix,
+		                            outputDir, outputSuffix);
+		}
+	    });
+	docListReader.close();
+	StageMetrics.writeReport();
+	JetTest.writePatternProfile();
+	ParseCache.reportAndSaveAll();
+    }
+
+    /**
+     *  process document <CODE>docName</CODE>, reading it from
+     *  <I>inputDir/docName.inputSuffix</I> and writing the result to
+     *  <I>outputDir/docName.outputSuffix</I>.
+     *
+     *  @return  the number of tokens in the document
+     */
+
+    static int processDocument (int docNo, String docName, String inputDir, String inputSuffix,
+                                String outputDir, String outputSuffix) throws IOException {
+	String inputFile = docName + "." + inputSuffix;
+	ExternalDocument doc = new ExternalDocument ("sgml", inputDir, inputFile);
+	doc.setAllTags(true);
+	doc.open();
+	doc.setSGMLwrapMargin(0);
+	String outputFile = docName + "." + outputSuffix;
+	BufferedWriter writer = new BufferedWriter (new FileWriter (new File (outputDir, outputFile)));
+	try {
 	    // process document
-	    AceJet.Ace.monocase = AceJet.Ace.allLowerCase(doc);
-	    Control.processDocument (doc, writer, docCount == -1, docCount);
+	    PipelineContext context = PipelineContext.current();
+	    context.startDocument(doc);
+	    context.monocase = AceJet.Ace.allLowerCase(doc);
+	    Control.processDocument (doc, writer, false, docNo);
+	} finally {
 	    writer.close();
 	}
+	StageMetrics.endDocument(docNo, docName);
+	Vector tokens = doc.annotationsOfType("token");
+	return tokens == null ? 0 : tokens.size();
     }
 }
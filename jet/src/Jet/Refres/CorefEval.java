@@ -15,6 +15,7 @@ import Jet.Chunk.Chunker;
 
 import AceJet.Gazetteer;
 import AceJet.Ace;
+import Jet.PipelineContext;
 
 /**
  *  evaluate reference resolution procedure against a key file
@@ -85,7 +86,7 @@ public class CorefEval {
 			doc.setAllTags(true);
 			doc.open();
 			// process document
-			AceJet.Ace.monocase = AceJet.Ace.allLowerCase(doc);
+			PipelineContext.current().monocase = AceJet.Ace.allLowerCase(doc);
 			Control.processDocument (doc, null, docCount == -1, docCount);
 			Ace.tagReciprocalRelations(doc);
 			// read coref key
@@ -19,6 +19,7 @@ import Jet.Chunk.Chunker;
 
 import AceJet.Gazetteer;
 import AceJet.Ace;
+import Jet.PipelineContext;
 
 /**
  *  provides a stand-alone main method for annotating a document
@@ -57,7 +58,7 @@ public class CorefWriter {
 			doc.open();
 			// process document
 			// doc.annotateWithTag("TEXT");
-			AceJet.Ace.monocase = AceJet.Ace.allLowerCase(doc);
+			PipelineContext.current().monocase = AceJet.Ace.allLowerCase(doc);
 			Control.processDocument (doc, null, docCount == 0, docCount);
 			// CorefFilter.buildMentionsFromEntities (doc);
 			// doc.setSGMLtags(new String[] {"mention"});
@@ -18,6 +18,7 @@ import Jet.Pat.Pat;
 import Jet.Parser.SynFun;
 import Jet.Parser.ParseTreeNode;
 import Jet.JetTest;
+import Jet.PipelineContext;
 import Jet.Console;
 import Jet.Control;
 import Jet.Lex.Tokenizer;
@@ -34,21 +35,58 @@ import AceJet.*;
 
 public class MaxEntResolve {
 
-	static Vector clauses;
 	/**
-	 *  all entities in the document.  Updated as new entities are created.
+	 *  the state of pronoun resolution for the document currently being
+	 *  processed, held in the current PipelineContext so that several
+	 *  documents can be resolved at once (one per thread).
 	 */
-	static Vector entities;
-	/**
-	 *  the set of sentences in the document
-	 */
-	public static SentenceSet sentenceSet;
+	static class State {
+		/**
+		 *  all entities in the document.  Updated as new entities are created.
+		 */
+		Vector entities;
+		/**
+		 *  true if there is a full parse for the sentence.  Determined by
+		 *  seeing if there is a <b>sentence</b> annotation with a <b>parse</b>
+		 *  attribute.
+		 */
+		boolean fullParse = false;
+		/**
+		 *  the entity of the speaker/author, if identified by <SPEAKER> or <POSTER> tags
+		 */
+		Annotation speakerEntity = null;
+		HashMap mentionToEntity, syntacticAntecedent;
+		/**
+		 *  if there is a full parse of the sentence, its root node
+		 */
+		Annotation parseTree = null;
+		/**
+		 *  if there is a full parse tree, a map from each child node to its parent
+		 */
+		HashMap<Annotation, Annotation> parents = null;
+	}
+
+	private static final PipelineContext.Slot<State> currentState =
+		new PipelineContext.Slot<State>() {
+			protected State initialValue () {
+				return new State();
+			}
+		};
+
+	static State state () {
+		return currentState.get();
+	}
+
 	/**
-	 *  true if there is a full parse for the sentence.  Determined by
-	 *  seeing if there is a <b>sentence</b> annotation with a <b>parse</b>
-	 *  attribute.
+	 *  the set of sentences in the document most recently resolved (in
+	 *  any thread).
+	 *
+	 *  @deprecated  several documents may be resolved at once;  use
+	 *               <CODE>Resolve.getSentenceSet()</CODE>, which returns the
+	 *               set for the document of the current thread.
 	 */
-	static boolean fullParse = false;
+	@Deprecated
+	public static volatile SentenceSet sentenceSet;
 	/**
 	 *  set to true if apposites and predicate complements should be
 	 *  linked coreferentially.
@@ -59,22 +97,8 @@ public class MaxEntResolve {
 	 *  assigned the same named entity type.
 	 */
 	public static boolean nameTypeMatch = false;
-	/**
-	 *  the entity of the speaker/author, if identified by <SPEAKER> or <POSTER> tags
-	 */
-	private static Annotation speakerEntity = null;
-
-	static HashMap mentionToEntity, syntacticAntecedent;
 
 	public static boolean trace = false;
-	/**
-	 *  if there is a full parse of the sentence, its root node
-	 */
-	static Annotation parseTree = null;
-	/**
-	 *  if there is a full parse tree, a map from each child node to its parent
-	 */
-	static HashMap<Annotation, Annotation> parents = null;
 
 	/**
 	 *  <CODE>Resolve.references</CODE> resolves the mentions (noun groups) in
@@ -84,31 +108,27 @@ public class MaxEntResolve {
 	 *  annotation in <CODE>span</CODE>, it generates an <B>r-event</B>
 	 *  annotation in which each feature pointing to a mention is replaced by
 	 *  the entity to which that mention has been resolved.
+	 *  <p>
+	 *  The state of the resolver is kept in the caller's PipelineContext, so
+	 *  different threads may resolve different documents at the same time.
 	 */
 
 	public static void references (Document doc, Span span) {
 		trace = Resolve.trace;
-		if (pronounModel == null) {
-			pronounModel = new MaxEntModel();
-			String modelFile = JetTest.getConfigFile("Resolve.MaxEntModel.filename");
-			if (modelFile == null) {
-				System.err.println ("No Resolve.MaxEntModel.filename specified");
-				System.exit (1);
-			}
-			pronounModel.loadModel(modelFile);
-		}
+		loadPronounModel();
 		// detect full parse
 		int start = span.start();
+		State st = state();
 		Vector sentAnns = doc.annotationsAt(start, "sentence");
 		if (sentAnns != null && sentAnns.size() > 0) {
 			Annotation sentAnn = (Annotation) sentAnns.get(0);
-			fullParse = sentAnn.get("parse") != null;
-			parseTree = (Annotation) sentAnn.get("parse");
-			parents = SynFun.collectParents(parseTree);
+			st.fullParse = sentAnn.get("parse") != null;
+			st.parseTree = (Annotation) sentAnn.get("parse");
+			st.parents = SynFun.collectParents(st.parseTree);
 		} else {
-			fullParse = false;
+			st.fullParse = false;
 		}
-		Resolve.fullParse = fullParse;
+		Resolve.state().fullParse = st.fullParse;
 		Vector mentions = Resolve.gatherMentions (doc, span);
 		Vector clauses = Resolve.gatherClauses (doc, span);
 		references (doc, span, mentions, clauses);
@@ -117,23 +137,24 @@ public class MaxEntResolve {
 	public static void references (Document doc, Span span, Vector mentions, Vector clauses) {
 		// assumes features for constit/ngroup:  PA:[head  det  number human];  isName[binary]
 		// assumes features for entity:  head;  name;  number;  human;  position;  mentions
-		entities = doc.annotationsOfType("entity");
-		if (entities == null) {
-			entities = new Vector();
-			speakerEntity = null;
+		State st = state();
+		st.entities = doc.annotationsOfType("entity");
+		if (st.entities == null) {
+			st.entities = new Vector();
+			st.speakerEntity = null;
 		}
-		mentionToEntity = new HashMap();
+		st.mentionToEntity = new HashMap();
 
 		if (trace) Console.println ("Resolving references");
-		sentenceSet = new SentenceSet(doc);
-		Resolve.sentenceSet = sentenceSet;
+		Resolve.setSentenceSet(new SentenceSet(doc));
+		sentenceSet = Resolve.getSentenceSet();
 		Resolve.markMentions (mentions);
-		syntacticAntecedent = Resolve.gatherSyntacticCoref (doc, mentions, clauses);
+		st.syntacticAntecedent = Resolve.gatherSyntacticCoref (doc, mentions, clauses);
 		for(int i = 0; i < mentions.size(); i++) {
 			Annotation mention = (Annotation) mentions.get(i);
 			resolveMention (doc, mention);
 		}
-		Resolve.updateEvents (doc, span, mentionToEntity);
+		Resolve.updateEvents (doc, span, st.mentionToEntity);
 	}
 
 	/**
@@ -173,20 +194,21 @@ public class MaxEntResolve {
 			System.err.println ("Cannot train reference resolution:  no sentences.");
 			return;
 		}
-		entities = new Vector();
-		mentionToEntity = new HashMap();
-		sentenceSet = new SentenceSet(doc);
-		Resolve.sentenceSet = sentenceSet;
+		State st = state();
+		st.entities = new Vector();
+		st.mentionToEntity = new HashMap();
+		Resolve.setSentenceSet(new SentenceSet(doc));
+		sentenceSet = Resolve.getSentenceSet();
 		for (int i=0; i<sentences.size(); i++) {
 			Annotation sentence = (Annotation) sentences.get(i);
-			fullParse = sentence.get("parse") != null;
-			Resolve.fullParse = fullParse;
-			parseTree = (Annotation) sentence.get("parse");
-			parents = SynFun.collectParents(parseTree);
+			st.fullParse = sentence.get("parse") != null;
+			Resolve.state().fullParse = st.fullParse;
+			st.parseTree = (Annotation) sentence.get("parse");
+			st.parents = SynFun.collectParents(st.parseTree);
 			Vector mentions = Resolve.gatherMentions (doc, sentence.span());
 			Vector clauses = Resolve.gatherClauses (doc, sentence.span());
 			Resolve.markMentions (mentions);
-			syntacticAntecedent = Resolve.gatherSyntacticCoref (doc, mentions, clauses);
+			st.syntacticAntecedent = Resolve.gatherSyntacticCoref (doc, mentions, clauses);
 			for(int j = 0; j < mentions.size(); j++) {
 				Annotation mention = (Annotation) mentions.get(j);
 				trainOnMention (doc, mention);
@@ -201,10 +223,11 @@ public class MaxEntResolve {
 	 */ 
 
 	public static void trainOnMention (Document doc, Annotation mention) {
+		State st = state();
 		// System.out.println ("trainOnMention " +  doc.text(mention)); //<<<
 		ArrayList<Annotation> antecedents = null;
-		if (fullParse)
-		  antecedents = Hobbs.collectAntecedents (mention, parents, doc);
+		if (st.fullParse)
+		  antecedents = Hobbs.collectAntecedents (mention, st.parents, doc);
 		Annotation headC = Resolve.getHeadC(mention);
 		String cat = (String) headC.get("cat");
 		// get entity id for this mention from coreference key
@@ -239,8 +262,8 @@ public class MaxEntResolve {
 		// (these cases are not used to train resolver)
 		if (false) { // syntacticAntecedent.containsKey(mention)) {
 			if (trace) System.out.println ("Using syntactically-determined antecedent.");
-			Annotation antecedent = (Annotation) syntacticAntecedent.get(mention);
-			bestEntity = (Annotation) mentionToEntity.get(antecedent);
+			Annotation antecedent = (Annotation) st.syntacticAntecedent.get(mention);
+			bestEntity = (Annotation) st.mentionToEntity.get(antecedent);
 			if (bestEntity == null) {
 				System.err.println ("Resolve:  syntactic antecedent not in entity");
 				System.err.println ("          mention:    " + doc.text(mention));
@@ -248,15 +271,15 @@ public class MaxEntResolve {
 			}
 		// else iterate over antecedents, generating training data
 		} else {
-			for (int ie=0; ie<entities.size(); ie++) {
+			for (int ie=0; ie<st.entities.size(); ie++) {
 				int dissimilarity = 0;
-				Annotation ent = (Annotation) entities.elementAt(ie);
+				Annotation ent = (Annotation) st.entities.elementAt(ie);
 				boolean match = eid.equals(ent.get("eid"));
 				if (isNameMention) {
 					// train name resolver
 				} else if (cat == "pro" || cat == "det" || cat == "np") {
 					String pronoun = mentionHead.toLowerCase().intern();
-					trainPronounResolver (doc, mention, pronoun, ent, match, fullParse, antecedents);
+					trainPronounResolver (doc, mention, pronoun, ent, match, st.fullParse, antecedents);
 				// adj and ven (headless np's) are treated like n for resolution
 				// v and tv heads for np's are assumed to be tagging errors
 				// adv is for 'here', 'there', 'abroad' (perfectMentions only)
@@ -282,7 +305,7 @@ public class MaxEntResolve {
 		// if no suitable antecedent is found, create a new entity
 		if (bestEntity == null) {
 			bestEntity =
-				Resolve.createNewEntity (doc, mention, mentionHead, properAdjective, entities);
+				Resolve.createNewEntity (doc, mention, mentionHead, properAdjective, st.entities);
 			bestEntity.put("eid", eid);
 			// System.err.println ("Assigning eid " + eid + " to " + mentionHead);
 		} else {
@@ -292,7 +315,7 @@ public class MaxEntResolve {
 			                            doc.text(bestEntity));
 		}
 		Resolve.addMentionToEntity (doc, mention, mentionHead, mentionName,
-		                            bestEntity, mentionToEntity);
+		                            bestEntity, st.mentionToEntity);
 	}
 
 	static int pronounDefiniteNonCorefSuccessCount = 0;
@@ -378,12 +401,13 @@ public class MaxEntResolve {
 			boolean reflexive, Annotation entity, boolean parse, ArrayList<Annotation> antecedents) {
 		//   build feature entry
 		Datum d = new Datum();
+		State st = state();
 		Annotation lastMention = (Annotation) entity.get("lastMention");
 		String lastCat = (String) lastMention.get("cat");
 		//   -- Hobbs distance from last mention
 		//      (if not parsing, character distance / 25)
 		if (reflexive) {
-			boolean sameSimplex = Hobbs.sameSimplex(lastMention , mention, parents);
+			boolean sameSimplex = Hobbs.sameSimplex(lastMention , mention, st.parents);
 			if (parse && sameSimplex) {
 				d.addFV ("reflexdist", "sameSimplex");
 			} else {
@@ -426,9 +450,10 @@ public class MaxEntResolve {
 	 */
 
 	private static void resolveMention (Document doc, Annotation mention) {
+		State st = state();
 		ArrayList<Annotation> antecedents = null;
-		if (fullParse)
-		  antecedents = Hobbs.collectAntecedents (mention, parents, doc);
+		if (st.fullParse)
+		  antecedents = Hobbs.collectAntecedents (mention, st.parents, doc);
 		Annotation headC = Resolve.getHeadC(mention);
 		String cat = (String) headC.get("cat");
 		// get properties of anaphor ---------------------------------------------
@@ -462,10 +487,10 @@ public class MaxEntResolve {
 		Annotation bestEntity = null;
 		float bestProbability = 0;
 		// look for syntactically-determined antecedent ----------------------------
-		if (syntacticAntecedent.containsKey(mention) && !Ace.perfectEntities) {
+		if (st.syntacticAntecedent.containsKey(mention) && !Ace.perfectEntities) {
 			if (trace) System.out.println ("Using syntactically-determined antecedent.");
-			Annotation antecedent = (Annotation) syntacticAntecedent.get(mention);
-			bestEntity = (Annotation) mentionToEntity.get(antecedent);
+			Annotation antecedent = (Annotation) st.syntacticAntecedent.get(mention);
+			bestEntity = (Annotation) st.mentionToEntity.get(antecedent);
 			if (bestEntity == null) {
 				System.err.println ("Resolve:  syntactic antecedent not in entity");
 				System.err.println ("          mention:    " + doc.text(mention));
@@ -475,14 +500,14 @@ public class MaxEntResolve {
 			}
 		} else if ((cat == "pro" || cat == "det") &&
 		           Resolve.nominativeFormOf(mentionHead.toLowerCase()).equals("i") &&
-		           speakerEntity != null) {
-			bestEntity = speakerEntity;
+		           st.speakerEntity != null) {
+			bestEntity = st.speakerEntity;
 			bestProbability = 1;
 		// else search for antecedent, taking most recently mentioned matching entity --
 		} else {
-			for (int ie=0; ie<entities.size(); ie++) {
+			for (int ie=0; ie<st.entities.size(); ie++) {
 				float prob;
-				Annotation ent = (Annotation) entities.elementAt(ie);
+				Annotation ent = (Annotation) st.entities.elementAt(ie);
 				if (Ace.perfectMentions & !Ace.perfectEntities) {
 					String eTypeSubtype = (String) ent.get("typeSubtype");
 					String typeSubtype = PerfectAce.getTypeSubtype(headC);
@@ -500,14 +525,14 @@ public class MaxEntResolve {
 				} else if (isNameMention) {
 					int dissimilarity = Resolve.matchName (mentionName, mentionHead, ent);
 					boolean match = dissimilarity >= 0;
-					prob = match ? (1000.f / (1000 + Resolve.distance (doc, ent, mention, fullParse, antecedents))) : 0;
+					prob = match ? (1000.f / (1000 + Resolve.distance (doc, ent, mention, st.fullParse, antecedents))) : 0;
 				// current speaker or poster is not referred to except by "I" or by name
 				// (in a subsequent speaker or poster tag)
-				} else if (ent == speakerEntity) {
+				} else if (ent == st.speakerEntity) {
 					continue;
 				} else if (cat == "pro" || cat == "det" || cat == "np") {
 					String pronoun = mentionHead.toLowerCase().intern();
-					prob = matchPronoun (doc, mention, pronoun, ent, fullParse, antecedents);
+					prob = matchPronoun (doc, mention, pronoun, ent, st.fullParse, antecedents);
 				// adj and ven (headless np's) are treated like n for resolution
 				// v and tv heads for np's are assumed to be tagging errors
 				// adv is for 'here', 'there', 'abroad' (perfectMentions only)
@@ -515,7 +540,7 @@ public class MaxEntResolve {
 				           cat == "tv" || cat == "hyphword" || cat == "title" ||
 				           cat == "nnp" || cat == "nnps" || cat == "adv") {
 					boolean match = Resolve.matchNom (doc, mention, ent);
-					prob = match ? (1000.f / (1000 + Resolve.distance (doc, ent, mention, fullParse, antecedents))) : 0;
+					prob = match ? (1000.f / (1000 + Resolve.distance (doc, ent, mention, st.fullParse, antecedents))) : 0;
 				} else if (cat == "$") {
 					prob = 0;
 				} else if (cat == "q") {
@@ -535,7 +560,7 @@ public class MaxEntResolve {
 		// if no suitable antecedent is found, create a new entity
 		if (bestProbability < 0.01) {
 			bestEntity =
-				Resolve.createNewEntity (doc, mention, mentionHead, properAdjective, entities);
+				Resolve.createNewEntity (doc, mention, mentionHead, properAdjective, st.entities);
 		} else {
 			if (bestEntity.get("properAdjective") != null && !properAdjective)
 					bestEntity.put("properAdjective", null);
@@ -543,11 +568,11 @@ public class MaxEntResolve {
 			                            doc.text(bestEntity));
 		}
 		Resolve.addMentionToEntity (doc, mention, mentionHead, mentionName,
-		                            bestEntity, mentionToEntity);
+		                            bestEntity, st.mentionToEntity);
 		// if mention is inside <POSTER> or <SPEAKER> tags, record as speakerEntity
 		Span span = mention.span();
 		if (HMMNameTagger.inZone(doc, span, "POSTER") || HMMNameTagger.inZone(doc, span, "SPEAKER")) {
-			speakerEntity = bestEntity;
+			st.speakerEntity = bestEntity;
 		}
 	}
 
@@ -589,6 +614,24 @@ public class MaxEntResolve {
 	static boolean useParser = true;
 
 	static MaxEntModel pronounModel;
+
+	/**
+	 *  loads the pronoun model named by parameter
+	 *  <CODE>Resolve.MaxEntModel.filename</CODE>, if it has not been loaded.
+	 */
+
+	private static synchronized void loadPronounModel () {
+		if (pronounModel == null) {
+			MaxEntModel model = new MaxEntModel();
+			String modelFile = JetTest.getConfigFile("Resolve.MaxEntModel.filename");
+			if (modelFile == null) {
+				System.err.println ("No Resolve.MaxEntModel.filename specified");
+				System.exit (1);
+			}
+			model.loadModel(modelFile);
+			pronounModel = model;
+		}
+	}
 	
 	/**
 	 *  trains the pronoun coreference model from a training collection
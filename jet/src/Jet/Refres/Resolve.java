@@ -16,6 +16,7 @@ import Jet.Zoner.SentenceSet;
 import Jet.Parser.SynFun;
 import Jet.Parser.ParseTreeNode;
 import Jet.JetTest;
+import Jet.PipelineContext;
 import Jet.Console;
 import Jet.Lex.Tokenizer;
 import Jet.Lex.Lexicon;
@@ -28,23 +29,93 @@ import AceJet.*;
 public class Resolve {
 
 	/**
-	 *  all clauses in the sentence currently being resolved
+	 *  the state of reference resolution for the document currently being
+	 *  processed.  It is held in the current PipelineContext, so that
+	 *  several documents can be resolved at once (one per thread).
 	 */
-	static Vector<Annotation> clauses;
+	static class State {
+		/**
+		 *  all entities in the document.  Updated as new entities are created.
+		 */
+		Vector<Annotation> entities;
+		/**
+		 *  the set of sentences in the document
+		 */
+		SentenceSet sentenceSet;
+		/**
+		 *  true if there is a full parse for the sentence.  Determined by
+		 *  seeing if there is a <b>sentence</b> annotation with a <b>parse</b>
+		 *  attribute.
+		 */
+		boolean fullParse = false;
+		/**
+		 *  a map from a mention to the entity to which it is assigned by
+		 *  reference resolution.
+		 */
+		HashMap<Annotation, Annotation> mentionToEntity;
+		/**
+		 *  syntacticAntecedent[X] = Y if, based on syntactic structure, the
+		 *  antecedent of X must be Y.
+		 */
+		HashMap<Annotation, Annotation> syntacticAntecedent;
+		/**
+		 *  if there is a full parse of the sentence, its root node
+		 */
+		Annotation parseTree = null;
+		/**
+		 *  if there is a full parse tree, a map from each child node to its parent
+		 */
+		HashMap<Annotation, Annotation> parents = null;
+		/**
+		 *  pronouns which are not expected by 'matchPronoun'
+		 */
+		HashSet<String> pronounsNotHandled;
+	}
+
+	private static final PipelineContext.Slot<State> currentState =
+		new PipelineContext.Slot<State>() {
+			protected State initialValue () {
+				return new State();
+			}
+		};
+
 	/**
-	 *  all entities in the document.  Updated as new entities are created.
+	 *  returns the reference resolution state for the current document.
 	 */
-	static Vector<Annotation> entities;
+
+	static State state () {
+		return currentState.get();
+	}
+
 	/**
-	 *  the set of sentences in the document
+	 *  returns the set of sentences in the document most recently resolved
+	 *  (in the current thread).
 	 */
-	public static SentenceSet sentenceSet;
+
+	public static SentenceSet getSentenceSet () {
+		return state().sentenceSet;
+	}
+
 	/**
-	 *  true if there is a full parse for the sentence.  Determined by
-	 *  seeing if there is a <b>sentence</b> annotation with a <b>parse</b>
-	 *  attribute.
+	 *  the set of sentences in the document most recently resolved (in
+	 *  any thread).
+	 *
+	 *  @deprecated  several documents may be resolved at once;  use
+	 *               <CODE>getSentenceSet()</CODE>, which returns the set for
+	 *               the document of the current thread.
 	 */
-	static boolean fullParse = false;
+	@Deprecated
+	public static volatile SentenceSet sentenceSet;
+
+	/**
+	 *  records the set of sentences of the document being resolved.
+	 */
+
+	static void setSentenceSet (SentenceSet set) {
+		state().sentenceSet = set;
+		sentenceSet = set;
+	}
+
 	/**
 	 *  set to true if apposites and predicate complements should be
 	 *  linked coreferentially.
@@ -55,32 +126,10 @@ public class Resolve {
 	 *  assigned the same named entity type.
 	 */
 	public static boolean nameTypeMatch = false;
-	/**
-	 *  a map from a mention to the entity to which it is assigned by
-	 *  reference resolution.
-	 */
-	static HashMap<Annotation, Annotation> mentionToEntity;
-	/**
-	 *  syntacticAntecedent[X] = Y if, based on syntactic structure, the
-	 *  antecedent of X must be Y.
-	 */
-	static HashMap<Annotation, Annotation> syntacticAntecedent;
 	/**
 	 *  true to produce trace messages for the reference resolution process
 	 */
 	public static boolean trace = false;
-	/**
-	 *  if there is a full parse of the sentence, its root node
-	 */
-	static Annotation parseTree = null;
-	/**
-	 *  if there is a full parse tree, a map from each child node to its parent
-	 */
-	static HashMap<Annotation, Annotation> parents = null;
-	/**
-	 *  pronouns which are not expected by 'matchPronoun'
-	 */
-	static HashSet<String> pronounsNotHandled;
 	/**
 	 *  true to use the Max Ent resolver
 	 */
@@ -102,14 +151,15 @@ public class Resolve {
 		}
 		// detect full parse
 		int start = span.start();
+		State st = state();
 		Vector sentAnns = doc.annotationsAt(start, "sentence");
 		if (sentAnns != null && sentAnns.size() > 0) {
 			Annotation sentAnn = (Annotation) sentAnns.get(0);
-			fullParse = sentAnn.get("parse") != null;
-			parseTree = (Annotation) sentAnn.get("parse");
-			parents = SynFun.collectParents(parseTree);
+			st.fullParse = sentAnn.get("parse") != null;
+			st.parseTree = (Annotation) sentAnn.get("parse");
+			st.parents = SynFun.collectParents(st.parseTree);
 		} else {
-			fullParse = false;
+			st.fullParse = false;
 		}
 		Vector<Annotation> mentions = gatherMentions (doc, span);
 		Vector<Annotation> clauses = gatherClauses (doc, span);
@@ -123,20 +173,21 @@ public class Resolve {
 
 	// assumes features for entity:  head;  name;  number;  human;  position;  mentions
 
-		entities = doc.annotationsOfType("entity");
-		if (entities == null) entities = new Vector<Annotation>();
-		mentionToEntity = new HashMap<Annotation, Annotation>();
+		State st = state();
+		st.entities = doc.annotationsOfType("entity");
+		if (st.entities == null) st.entities = new Vector<Annotation>();
+		st.mentionToEntity = new HashMap<Annotation, Annotation>();
 
 		if (trace) Console.println ("Resolving references");
-		sentenceSet = new SentenceSet(doc);
+		setSentenceSet(new SentenceSet(doc));
 		markMentions (mentions);
-		syntacticAntecedent = gatherSyntacticCoref (doc, mentions, clauses);
-		pronounsNotHandled = new HashSet<String>();
+		st.syntacticAntecedent = gatherSyntacticCoref (doc, mentions, clauses);
+		st.pronounsNotHandled = new HashSet<String>();
 		for(int i = 0; i < mentions.size(); i++) {
 			Annotation mention = (Annotation) mentions.get(i);
 			resolveMention (doc, mention);
 		}
-		updateEvents (doc, span, mentionToEntity);
+		updateEvents (doc, span, st.mentionToEntity);
 	}
 
 	/**
@@ -180,7 +231,7 @@ public class Resolve {
 					    (ACE && AceDocument.ace2004 &&
 					     (cat.equals("n") || cat.equals("nnp") || cat.equals("nnps")) &&
 					      !nameTokens.contains(i)) ||
-					    (((ACE && fullParse) || Ace.perfectMentions) && 
+					    (((ACE && state().fullParse) || Ace.perfectMentions) && 
 					      (cat.equals("whnp") || cat.equals("np-pro"))) ||
 					    (Ace.perfectMentions && 
 					     (cat.equals("adj") || cat.equals("adv")) && !nameTokens.contains(i))) {
@@ -245,7 +296,7 @@ public class Resolve {
 	 */
 
 	public static Vector<Annotation> gatherClauses (Document doc, Span span) {
-		clauses = new Vector<Annotation>();
+		Vector<Annotation> clauses = new Vector<Annotation>();
 		for(int i = span.start(); i < span.end(); i++) {
 			Vector constits = doc.annotationsAt(i,"constit");
 			if (constits != null) {
@@ -492,9 +543,13 @@ public class Resolve {
 	 */
 
 	private static void resolveMention (Document doc, Annotation mention) {
+		State st = state();
+		HashMap<Annotation, Annotation> syntacticAntecedent = st.syntacticAntecedent;
+		HashMap<Annotation, Annotation> mentionToEntity = st.mentionToEntity;
+		Vector<Annotation> entities = st.entities;
 		ArrayList<Annotation> antecedents = null;
-		if (fullParse)
-		  antecedents = Hobbs.collectAntecedents (mention, parents, doc);
+		if (st.fullParse)
+		  antecedents = Hobbs.collectAntecedents (mention, st.parents, doc);
 		Annotation headC = getHeadC(mention);
 		String cat = (String) headC.get("cat");
 		// get properties of anaphor ---------------------------------------------
@@ -586,11 +641,11 @@ public class Resolve {
 					boolean sameSimplex = false;
 					if (reflexive) {
 						Annotation lastMention = (Annotation) ent.get("lastMention");
-						sameSimplex = Hobbs.sameSimplex(lastMention , mention, parents);
+						sameSimplex = Hobbs.sameSimplex(lastMention , mention, st.parents);
 					}
 					int distance = (reflexive&sameSimplex) ?
 					               0 :
-					               distance (doc, ent, mention, fullParse, antecedents);
+					               distance (doc, ent, mention, st.fullParse, antecedents);
 					if (dissimilarity < bestDissimilarity ||
 					    (dissimilarity == bestDissimilarity && distance < bestDistance)) {
 							bestDistance = distance;
@@ -801,6 +856,7 @@ public class Resolve {
 		int mentionPosition = mention.span().start();
 		//  code to find minimum distance [tried April 20 2006, didn't help]
 		int distance = 999999;
+		SentenceSet sentenceSet = state().sentenceSet;
 		Vector anteMentions = (Vector) entity.get("mentions");
 		for (int i=0; i<anteMentions.size(); i++) {
 			Annotation anteMention = (Annotation) anteMentions.get(i);
@@ -961,7 +1017,7 @@ public class Resolve {
 			if (equalArray(anaphorTokens, antecedentTokens) &&
 			    equalArray(anaphorRightModifiers, antecedentRightModifiers)) return true;
 			if (numberofPriorMentionsOfEntity == 1 &&
-				sentenceSet.sentencesBetween(entityPosition, anaphorPosition) > 4) return false;
+				state().sentenceSet.sentencesBetween(entityPosition, anaphorPosition) > 4) return false;
 			if (synonym) {
 				System.out.println ("******* WordNet allowed merge of ");
 				System.out.println ("        " + doc.text(antecedent) + " and " + doc.text(anaphor));
@@ -1431,6 +1487,7 @@ public class Resolve {
 		           mentionHead == "that" || mentionHead == "those") {
 		    match = false;
 		} else {
+			HashSet<String> pronounsNotHandled = state().pronounsNotHandled;
 			if (pronounsNotHandled.contains(mentionHead)) {
 				System.err.println("Pronoun not being handled:  " + mentionHead);
 				pronounsNotHandled.add(mentionHead);
@@ -5,6 +5,8 @@ import java.util.*;
 import java.io.*;
 import Jet.Tipster.*;
 import Jet.HMM.*;
+import Jet.Chunk.Beam;
+import Jet.Chunk.TokenClassifier;
 import Jet.Console;
 
 /**
@@ -25,6 +27,11 @@ public class NEScorer {
 	 *       HMM tagger is to be applied to the test file before scoring</i>
 	 *  <li> unigram|bigram:  
 	 *  <li> tagger-model:    file containing HMM model
+	 *       <br> <i> the following two arguments, if present, indicate that
+	 *       the tagger is to be scored both with exact Viterbi decoding and with
+	 *       a beam, and the loss in accuracy from the beam reported</i>
+	 *  <li> -beam
+	 *  <li> beam:            the beam (see {@link Beam})
 	 *  <li> tag-1:           tag to score
 	 *  <li> tag-2:           tag to score
 	 *  <li> ...
@@ -33,8 +40,6 @@ public class NEScorer {
 	
 	public static void main (String[] args) throws IOException {
 		if (args.length < 5) argErr();
-		DocumentCollection testCollection = new DocumentCollection(args[0], args[1]);
-		DocumentCollection keyCollection  = new DocumentCollection(args[2], args[3]);
 		HMMNameTagger tagger = null;
 		int tagStart = 4;
 		if (args[4].equals("unigram") || args[4].equals("bigram")) {
@@ -45,24 +50,110 @@ public class NEScorer {
 			tagger.load (args[5]);
 			tagStart = 6;
 		}
+		Beam beam = null;
+		if (tagger != null && args.length > tagStart + 2 && args[tagStart].equals("-beam")) {
+			beam = Beam.parse(args[tagStart + 1]);
+			tagStart += 2;
+		}
 		String[] tags = new String[args.length - tagStart];
 		for (int itag = 0; itag < args.length - tagStart; itag++)
 			tags[itag] = args[tagStart + itag];
-		scoreCollection (tagger, testCollection, keyCollection, tags);
+		if (beam != null) {
+			compareBeam (tagger, tagger.nameHMM, beam, args[0], args[1], args[2], args[3], tags);
+		} else {
+			DocumentCollection testCollection = new DocumentCollection(args[0], args[1]);
+			DocumentCollection keyCollection  = new DocumentCollection(args[2], args[3]);
+			scoreCollection (tagger, testCollection, keyCollection, tags);
+		}
 	}
 	
 	private static void argErr () {
 		System.err.println ("NEScorer requires 5 or more arguments:");
 		System.err.print   ("         test-directory test-file-list key-directory key-file-list");
-		System.err.println (        " [uni/bigram tagger-model] tag ...");
+		System.err.println (        " [uni/bigram tagger-model [-beam beam]] tag ...");
 		System.exit (1);
 	}
 	
-	public static void scoreCollection (NameTagger tagger,
+	public static Score scoreCollection (NameTagger tagger,
 			String testCollection, String keyCollection, String[] tagsToScore) {
 		DocumentCollection testCol = new DocumentCollection(testCollection);
 		DocumentCollection keyCol = new DocumentCollection(keyCollection);
-		scoreCollection (tagger, testCol, keyCol, tagsToScore);
+		return scoreCollection (tagger, testCol, keyCol, tagsToScore);
+	}
+
+	/**
+	 *  scores 'tagger' on a collection twice, first with exact Viterbi decoding
+	 *  and then with beam 'beam' (set on 'classifier', the token classifier used
+	 *  by 'tagger'), and reports to System.out the time taken and the F-measure
+	 *  for each, and the loss in F-measure due to the beam.  The directories may
+	 *  be null if the collection files contain full paths.
+	 *
+	 *  @return  the scores with the beam
+	 */
+
+	public static Score compareBeam (NameTagger tagger, TokenClassifier classifier, Beam beam,
+			String testDirectory, String testCollection,
+			String keyDirectory, String keyCollection, String[] tagsToScore) {
+		Beam originalBeam = classifier.getBeam();
+		try {
+			classifier.setBeam(null);
+			long start = System.currentTimeMillis();
+			Score exact = scoreCollection (tagger,
+				new DocumentCollection(testDirectory, testCollection),
+				new DocumentCollection(keyDirectory, keyCollection), tagsToScore);
+			long exactTime = System.currentTimeMillis() - start;
+			classifier.setBeam(beam);
+			start = System.currentTimeMillis();
+			Score pruned = scoreCollection (tagger,
+				new DocumentCollection(testDirectory, testCollection),
+				new DocumentCollection(keyDirectory, keyCollection), tagsToScore);
+			long beamTime = System.currentTimeMillis() - start;
+			System.out.println ("Exact Viterbi:  type F = " + (float) exact.typeF() +
+			                    ", attribute F = " + (float) exact.attributeF() +
+			                    ", " + exactTime + " ms");
+			System.out.println ("Beam " + beam + ":  type F = " + (float) pruned.typeF() +
+			                    ", attribute F = " + (float) pruned.attributeF() +
+			                    ", " + beamTime + " ms");
+			System.out.println ("Loss from beam: type F " + (float) (exact.typeF() - pruned.typeF()) +
+			                    ", attribute F " + (float) (exact.attributeF() - pruned.attributeF()));
+			return pruned;
+		} finally {
+			classifier.setBeam(originalBeam);
+		}
+	}
+
+	/**
+	 *  the totals from scoring a collection.
+	 */
+
+	public static class Score {
+
+		public int tagsInResponses;
+		public int tagsInKeys;
+		public int matchingTags;
+		public int matchingAttrs;
+
+		public double typeRecall () {
+			return (double) matchingTags / tagsInKeys;
+		}
+
+		public double typePrecision () {
+			return (double) matchingTags / tagsInResponses;
+		}
+
+		public double typeF () {
+			return f(matchingTags);
+		}
+
+		public double attributeF () {
+			return f(matchingAttrs);
+		}
+
+		private double f (int matching) {
+			if (matching == 0)
+				return 0;
+			return 2.0 * matching / (tagsInKeys + tagsInResponses);
+		}
 	}
 	
 	/**
@@ -72,13 +163,14 @@ public class NEScorer {
 	 *  and total scores to System.out.
 	 */
 
-	public static void scoreCollection (NameTagger tagger,
+	public static Score scoreCollection (NameTagger tagger,
 			DocumentCollection testCol, DocumentCollection keyCol, String[] tagsToScore) {
+		Score score = new Score();
 		testCol.open();
 		keyCol.open();
 		if (testCol.size() != keyCol.size()) {
 			System.out.println (" ** Test and key collections have different sizes, cannot evaluate.");
-			return;
+			return score;
 		}
 		int tagsInResponses = 0;
 		int tagsInKeys = 0;
@@ -141,6 +233,11 @@ public class NEScorer {
 		                    (float) matchingAttrs / tagsInKeys);
 		System.out.println ("Overall Attribute Precision:  " +
 		                    (float) matchingAttrs / tagsInResponses);
+		score.tagsInResponses = tagsInResponses;
+		score.tagsInKeys = tagsInKeys;
+		score.matchingTags = matchingTags;
+		score.matchingAttrs = matchingAttrs;
+		return score;
 	}
 
 	private static void eraseAnnotationsOutside (Document doc, String type, Span span) {
@@ -56,10 +56,19 @@ public class SGMLProcessor {
 
 	public static String[] emptyTags = null;
 
-	static Stack<String> openTagType;
-	static Stack<Integer> openTagPosn;
-	static Stack<FeatureSet> openTagFeatureSet;
-	static ArrayList<Annotation> newAnnotations;
+	/**
+	 *  the state of a single call on sgmlToDoc:  the stacks holding information
+	 *  on open tags (for which we have found a start tag but not yet a close tag)
+	 *  and the annotations created so far.  A new instance is created for each
+	 *  call, so that several threads can read documents at the same time.
+	 */
+
+	private static class OpenTags {
+		Stack<String> openTagType = new Stack<String>();
+		Stack<Integer> openTagPosn = new Stack<Integer>();
+		Stack<FeatureSet> openTagFeatureSet = new Stack<FeatureSet>();
+		ArrayList<Annotation> newAnnotations = new ArrayList<Annotation>();
+	}
 
 	/**
 	 * Converts an SGML-marked String <I>sgmlText</I> to a <CODE>Document</CODE>
@@ -129,7 +138,8 @@ public class SGMLProcessor {
 
 	public static Document sgmlToDoc(Document doc, String sgmlText, String[] tags) {
 
-		newAnnotations = new ArrayList<Annotation>();
+		OpenTags openTags = new OpenTags();
+		ArrayList<Annotation> newAnnotations = openTags.newAnnotations;
 		StringBuffer type = null;
 		StringBuffer whitespaceBeforeType = null;
 		StringBuffer feature = null;
@@ -144,9 +154,9 @@ public class SGMLProcessor {
 		FeatureSet annotationFS = null;
 		// -- stacks holding info on open tags --
 		// (for which we have found a start tag but not yet a close tag)
-		openTagType = new Stack<String>();
-		openTagPosn = new Stack<Integer>();
-		openTagFeatureSet = new Stack<FeatureSet>();
+		Stack<String> openTagType = openTags.openTagType;
+		Stack<Integer> openTagPosn = openTags.openTagPosn;
+		Stack<FeatureSet> openTagFeatureSet = openTags.openTagFeatureSet;
 
 		for (int i = 0; i < sgmlText.length(); i++) {
 			char c = sgmlText.charAt(i);
@@ -183,7 +193,7 @@ public class SGMLProcessor {
 					tagName = type.toString();
 					if (tagName.length() > 0 && tagName.charAt(0) != '/' && 
 					    tagToCapture(tagName, tags)) {
-						endOfOpenTag (doc, tagName, fs);
+						endOfOpenTag (openTags, doc, tagName, fs);
 						state = COLLECTING_TEXT;
 					} else if (tagName.length() > 0 && tagName.charAt(0) == '/' &&
 					           tagToCapture(tagName.substring(1), tags)) {
@@ -234,7 +244,7 @@ public class SGMLProcessor {
 					if (feature.length() > 0)
 						Console.println ("Error in SGML read:  in tag " + tagName +
 										 ", feature " + feature + " not followed by value");
-					endOfOpenTag (doc, tagName, fs);
+					endOfOpenTag (openTags, doc, tagName, fs);
 					state = COLLECTING_TEXT;
 				} else if (c == '/') {
 					if (feature.length() > 0)
@@ -249,7 +259,7 @@ public class SGMLProcessor {
 					valueDelimiter = c;
 				} else if (valueDelimiter == ' ' && c == '>') {
 					fs.put(feature.toString().intern(), value.toString().intern());
-					endOfOpenTag (doc, tagName, fs);
+					endOfOpenTag (openTags, doc, tagName, fs);
 					state = COLLECTING_TEXT;
 				} else if ((valueDelimiter == ' ' && Character.isWhitespace(c)) ||
 						   (valueDelimiter != ' ' && c == valueDelimiter)) {
@@ -307,17 +317,18 @@ public class SGMLProcessor {
 		return doc;
 	}
 
-	private static void endOfOpenTag (Document doc, String tagName, FeatureSet fs) {
+	private static void endOfOpenTag (OpenTags openTags, Document doc, String tagName,
+	                                  FeatureSet fs) {
 		if (emptyTag (tagName)) {
 			Annotation a = new Annotation (tagName,
 										   new Span(doc.length(), doc.length()),
 										   fs);
 			doc.addAnnotation(a);
-			newAnnotations.add(a);
+			openTags.newAnnotations.add(a);
 		} else {
-			openTagType.push(tagName);
-			openTagPosn.push(new Integer(doc.length()));
-			openTagFeatureSet.push(fs);
+			openTags.openTagType.push(tagName);
+			openTags.openTagPosn.push(new Integer(doc.length()));
+			openTags.openTagFeatureSet.push(fs);
 		}
 	}
 
@@ -373,8 +384,6 @@ public class SGMLProcessor {
 		return false;
 	}
 
-	static HashMap<String, Annotation> idToAnnotation;
-
 	/**
 	 *  convert all references to Annotations appearing as features of
 	 *  other annotations from their string form ("#nnnn", where nnnn
@@ -383,7 +392,7 @@ public class SGMLProcessor {
 	 */
 
 	public static void dereference (Document doc) {
-		idToAnnotation = new HashMap<String, Annotation>();
+		HashMap<String, Annotation> idToAnnotation = new HashMap<String, Annotation>();
 		String[] types = doc.getAnnotationTypes();
 		for (int itype=0; itype<types.length; itype++) {
 			Vector anns = doc.annotationsOfType(types[itype]);
@@ -403,13 +412,13 @@ public class SGMLProcessor {
 					String feature = (String) e.nextElement();
 					Object value = fs.get(feature);
 					if (isAnnotationReference(value)) {
-						fs.put(feature, resolveAnnotationReference(value));
+						fs.put(feature, resolveAnnotationReference(idToAnnotation, value));
 					} else if (value instanceof Object[]) {
 						Object[] ray = (Object[]) value;
 						boolean arrayOfAnnotations = true;
 						for (int j=0; j < ray.length; j++) {
 							if (isAnnotationReference(ray[j])) {
-								ray[j] = resolveAnnotationReference(ray[j]);
+								ray[j] = resolveAnnotationReference(idToAnnotation, ray[j]);
 							} else {
 								arrayOfAnnotations = false;
 							}
@@ -433,7 +442,8 @@ public class SGMLProcessor {
 			((String) value).charAt(0) == '#';
 	}
 
-	private static Object resolveAnnotationReference (Object value) {
+	private static Object resolveAnnotationReference
+		(HashMap<String, Annotation> idToAnnotation, Object value) {
 		String id = ((String)value).substring(1);
 		Annotation ann = (Annotation) idToAnnotation.get(id);
 		if (ann == null) {
@@ -0,0 +1,419 @@
+// -*- tab-width: 4 -*-
+//Title:        JET
+//Copyright:    Copyright (c) 2003
+//Author:       Ralph Grishman
+//Description:  A Java-based Information Extraction Tool
+
+package Jet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.StringTokenizer;
+import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+
+import Jet.Chunk.Chunker;
+import Jet.Chunk.Onoma;
+import Jet.Lex.Lexicon;
+import Jet.Lex.Tokenizer;
+import Jet.Parser.AddSyntacticRelations;
+import Jet.Parser.DepParser;
+import Jet.Parser.ParseTreeNode;
+import Jet.Parser.Parsers;
+import Jet.Parser.StatParser;
+import Jet.Refres.CorefFilter;
+import Jet.Refres.Resolve;
+import Jet.Tipster.Annotation;
+import Jet.Tipster.Document;
+import Jet.Tipster.Span;
+import Jet.Zoner.SentenceSplitter;
+import Jet.Zoner.SpeechSplitter;
+
+/**
+ * a compiled Jet script.
+ * <p>
+ * A script, such as the value of the <B>processDocument</B> or
+ * <B>processSentence</B> property, is a comma-separated list of actions
+ * (<CODE>tokenize, lexLookup, tagNames, pat(np), ...</CODE>).  It is
+ * compiled once into an immutable sequence of {@link Stage}s;  applying the
+ * script to a span of a document applies each stage in turn.  Compiled scripts
+ * are cached by their text, so that a script applied to every sentence of a
+ * document is only analyzed once.
+ */
+
+public class Script {
+
+	private static ConcurrentHashMap<String, Script> cache =
+		new ConcurrentHashMap<String, Script>();
+
+	private final String text;
+
+	private final Stage[] stages;
+
+	/**
+	 * create a script consisting of the sequence of stages <CODE>stages</CODE>.
+	 * This may be used to build a variant of a compiled script, with stages
+	 * reordered or removed.
+	 */
+
+	public Script(String text, List<Stage> stages) {
+		this.text = text;
+		this.stages = stages.toArray(new Stage[stages.size()]);
+	}
+
+	/**
+	 * returns the compiled form of script <CODE>text</CODE>.
+	 */
+
+	public static Script compile(String text) {
+		Script script = cache.get(text);
+		if (script == null) {
+			List<Stage> stages = new ArrayList<Stage>();
+			StringTokenizer tok = new StringTokenizer(text, ",");
+			while (tok.hasMoreTokens()) {
+				Stage stage = compileAction(tok.nextToken().trim());
+				if (stage != null)
+					stages.add(stage);
+			}
+			script = new Script(text, stages);
+			Script old = cache.putIfAbsent(text, script);
+			if (old != null)
+				script = old;
+		}
+		return script;
+	}
+
+	/**
+	 * returns the compiled form of the script which is the value of
+	 * property <CODE>scriptName</CODE> in the Jet configuration, or
+	 * <CODE>null</CODE> if the property has no value.
+	 */
+
+	public static Script forName(String scriptName) {
+		String text = JetTest.config.getProperty(scriptName);
+		if (text == null || text.length() == 0)
+			return null;
+		return compile(text);
+	}
+
+	/**
+	 * discards all compiled scripts.  Invoked when a new configuration is
+	 * loaded.
+	 */
+
+	public static void clearCache() {
+		cache.clear();
+	}
+
+	/**
+	 * returns the text of the script.
+	 */
+
+	public String getText() {
+		return text;
+	}
+
+	/**
+	 * returns the stages of the script, in order of application.
+	 */
+
+	public List<Stage> getStages() {
+		return Collections.unmodifiableList(Arrays.asList(stages));
+	}
+
+	/**
+	 * apply the script to span <CODE>span</CODE> of document <CODE>doc</CODE>.
+	 */
+
+	public void apply(Document doc, Span span) {
+		for (int i = 0; i < stages.length; i++) {
+			Stage stage = stages[i];
+			if (StageMetrics.enabled && !(stage instanceof ZoneStage))
+				StageMetrics.apply(stage, doc, span);
+			else
+				stage.apply(doc, span);
+		}
+	}
+
+	public String toString() {
+		return text;
+	}
+
+	/**
+	 * one action of a script, applied to a span of a document.
+	 */
+
+	public abstract static class Stage {
+
+		private final String name;
+
+		// id under which StageMetrics records the cost of this stage
+		final int id;
+
+		protected Stage(String name) {
+			this.name = name;
+			this.id = StageMetrics.stageId(name);
+		}
+
+		/**
+		 * returns the name of the stage -- the action as written in the script,
+		 * such as <CODE>tagNames</CODE> or <CODE>pat(np)</CODE>.
+		 */
+
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * apply this stage to span <CODE>span</CODE> of document <CODE>doc</CODE>.
+		 */
+
+		public abstract void apply(Document doc, Span span);
+
+		public String toString() {
+			return name;
+		}
+	}
+
+	/**
+	 * a stage <I>zoneType</I>:<I>scriptName</I>, which applies the script
+	 * named <I>scriptName</I> to each annotation of type <I>zoneType</I>
+	 * within the span.  The zone script is compiled the first time it is
+	 * needed.
+	 */
+
+	static class ZoneStage extends Stage {
+
+		final String zoneType;
+
+		final String scriptName;
+
+		private volatile Script zoneScript;
+
+		ZoneStage(String name, String zoneType, String scriptName) {
+			super(name);
+			this.zoneType = zoneType;
+			this.scriptName = scriptName;
+		}
+
+		public void apply(Document doc, Span span) {
+			Script script = zoneScript;
+			if (script == null) {
+				script = forName(scriptName);
+				if (script == null) {
+					Console.println("*** No script for " + scriptName);
+					return;
+				}
+				zoneScript = script;
+			}
+			Vector zones = doc.annotationsOfType(zoneType, span);
+			if (zones == null)
+				return;
+			for (int i = 0; i < zones.size(); i++) {
+				Annotation zone = (Annotation) zones.get(i);
+				script.apply(doc, zone.span());
+			}
+		}
+	}
+
+	/**
+	 * returns the Stage for action <CODE>action</CODE>, or <CODE>null</CODE>
+	 * if the action is not recognized.
+	 */
+
+	static Stage compileAction(String action) {
+		int colon = action.indexOf(':');
+		if (colon > 0 && colon < action.length() - 1) {
+			String zoneType = action.substring(0, colon).trim();
+			String scriptName = action.substring(colon + 1).trim();
+			return new ZoneStage(action, zoneType, scriptName);
+		} else if (action.startsWith("tag(") && action.endsWith(")")) {
+			final String tagName = action.substring(4, action.length() - 1).trim();
+			return new Stage(action) {
+				public void apply(Document doc, Span span) {
+					doc.annotateWithTag(tagName);
+				}
+			};
+		} else if (action.startsWith("shrink(") && action.endsWith(")")) {
+			final String tagName = action.substring(7, action.length() - 1).trim();
+			return new Stage(action) {
+				public void apply(Document doc, Span span) {
+					doc.shrink(tagName);
+				}
+			};
+		} else if (action.startsWith("erase(") && action.endsWith(")")) {
+			final String tagName = action.substring(6, action.length() - 1).trim();
+			return new Stage(action) {
+				public void apply(Document doc, Span span) {
+					doc.removeAnnotationsOfType(tagName);
+				}
+			};
+		} else if (action.equals("tokenize")) {
+			return new Stage(action) {
+				public void apply(Document doc, Span span) {
+					Tokenizer.tokenize(doc, span);
+				}
+			};
+		} else if (action.equals("sentenceSplit")) {
+			return new Stage(action) {
+				public void apply(Document doc, Span span) {
+					SentenceSplitter.split(doc, span);
+				}
+			};
+		} else if (action.equals("speechSplit")) {
+			return new Stage(action) {
+				public void apply(Document doc, Span span) {
+					SpeechSplitter.split(doc, span);
+				}
+			};
+		} else if (action.equals("lexLookup")) {
+			return new Stage(action) {
+				public void apply(Document doc, Span span) {
+					Lexicon.annotateWithDefinitions(doc, span.start(), span.end());
+				}
+			};
+		} else if (action.equals("tagPOS")) {
+			return new Stage(action) {
+				public void apply(Document doc, Span span) {
+					if (JetTest.tagger == null)
+						Console.println("Error:  no POS model loaded");
+					else
+						JetTest.tagger.tagPenn(doc, span);
+				}
+			};
+		} else if (action.equals("tagJet")) {
+			return new Stage(action) {
+				public void apply(Document doc, Span span) {
+					if (JetTest.tagger == null)
+						Console.println("Error:  no POS model loaded");
+					else
+						JetTest.tagger.tagJet(doc, span);
+				}
+			};
+		} else if (action.equals("pruneTags")) {
+			return new Stage(action) {
+				public void apply(Document doc, Span span) {
+					if (JetTest.tagger == null)
+						Console.println("Error:  no POS model loaded");
+					else
+						JetTest.tagger.prune(doc, span);
+				}
+			};
+		} else if (action.equals("tagNames")) {
+			return new Stage(action) {
+				public void apply(Document doc, Span span) {
+					if (JetTest.nameTagger == null)
+						Console.println("Error:  no name model loaded");
+					else
+						JetTest.nameTagger.tag(doc, span);
+				}
+			};
+		} else if (action.equals("tagNamesFromOnoma")) {
+			return new Stage(action) {
+				public void apply(Document doc, Span span) {
+					if (!Onoma.loaded)
+						Console.println("Error:  no onoma file loaded");
+					else
+						Onoma.tagNames(doc, span);
+				}
+			};
+		} else if (action.equals("chunk")) {
+			return new Stage(action) {
+				public void apply(Document doc, Span span) {
+					if (!Chunker.isLoaded())
+						Console.println("Error:  no chunker model loaded");
+					else
+						Chunker.chunk(doc, span);
+				}
+			};
+		} else if (action.equals("parse")) {
+			return new Stage(action) {
+				public void apply(Document doc, Span span) {
+					Vector parses = Parsers.parse(doc, 0, doc.length(), JetTest.gram);
+					for (int i = 0; i < parses.size(); i++) {
+						ParseTreeNode parse = (ParseTreeNode) parses.elementAt(i);
+						if (parse != null) {
+							ParseTreeNode.makeParseAnnotations(doc, parse);
+							if (parses.size() == 1) {
+								Console.println("Parse:");
+							} else {
+								Console.println("Parse " + (i + 1) + ":");
+							}
+							parse.printTree();
+						}
+					}
+				}
+			};
+		} else if (action.equals("statParse")) {
+			return new Stage(action) {
+				public void apply(Document doc, Span span) {
+					if (!StatParser.isInitialized())
+						Console.println("Error:  no grammar for parser");
+					else
+						StatParser.parse(doc, span);
+				}
+			};
+		} else if (action.equals("depParse")) {
+			return new Stage(action) {
+				public void apply(Document doc, Span span) {
+					DepParser.parseSentence(doc, span, doc.relations);
+				}
+			};
+		} else if (action.equals("syntacticRelations")) {
+			return new Stage(action) {
+				public void apply(Document doc, Span span) {
+					AddSyntacticRelations.annotate(doc, span);
+				}
+			};
+		} else if (action.startsWith("pat(") && action.endsWith(")")) {
+			final String patternSetName = action.substring(4, action.length() - 1).trim();
+			return new Stage(action) {
+				public void apply(Document doc, Span span) {
+					JetTest.pc.apply(patternSetName, doc, span);
+				}
+			};
+		} else if (action.equals("resolve")) {
+			return new Stage(action) {
+				public void apply(Document doc, Span span) {
+					Resolve.references(doc, span);
+				}
+			};
+		// note these two always apply to entire document
+		} else if (action.equals("mentions(coindexed)")) {
+			return new Stage(action) {
+				public void apply(Document doc, Span span) {
+					CorefFilter.buildMentionsFromEntities(doc);
+				}
+			};
+		} else if (action.equals("mentions(linked)")) {
+			return new Stage(action) {
+				public void apply(Document doc, Span span) {
+					CorefFilter.buildLinkedMentionsFromEntities(doc);
+				}
+			};
+		} else if (action.equals("tagENE")) {
+			return new Stage(action) {
+				public void apply(Document doc, Span span) {
+					JetTest.extendedNameTagger.annotate(doc, span);
+				}
+			};
+		} else if (action.equals("tagTimex")) {
+			return new Stage(action) {
+				public void apply(Document doc, Span span) {
+					Control.tagTimex(doc, span);
+				}
+			};
+		} else if (action.equals("setReferenceTime")) {
+			return new Stage(action) {
+				public void apply(Document doc, Span span) {
+					Control.setReferenceTime(doc, span);
+				}
+			};
+		} else {
+			System.out.println("Unknown Jet.processSentence action: " + action);
+			return null;
+		}
+	}
+}
@@ -0,0 +1,335 @@
+// -*- tab-width: 4 -*-
+//Title:        JET
+//Copyright:    Copyright (c) 2003
+//Author:       Ralph Grishman
+//Description:  A Java-based Information Extraction Tool
+
+package Jet;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+
+import Jet.Tipster.Document;
+import Jet.Tipster.Span;
+
+/**
+ * records the cost of each stage of a Jet script.
+ * <p>
+ * If the property <B>Metrics.fileName</B> is set, each application of a
+ * script stage (such as <CODE>tokenize</CODE>, <CODE>tagNames</CODE>, or
+ * <CODE>pat(np)</CODE>) records its wall-clock time, the CPU time and the
+ * number of bytes allocated by the thread (as reported by the
+ * {@link ThreadMXBean}), and the number of annotations added to the document.
+ * These are accumulated per document and over all documents, and at the end
+ * of a batch run {@link #writeReport} writes them to the file named by
+ * <B>Metrics.fileName</B> -- in JSON if the name ends in <CODE>.json</CODE>,
+ * otherwise as CSV.
+ * <p>
+ * Zone stages (<I>zoneType</I>:<I>scriptName</I>) are not timed themselves;
+ * the stages of the zone script are.
+ */
+
+public class StageMetrics {
+
+	/**
+	 * if true, script stages are timed.
+	 */
+
+	public static boolean enabled = false;
+
+	private static final int CALLS = 0;
+	private static final int WALL = 1;
+	private static final int CPU = 2;
+	private static final int ALLOCATED = 3;
+	private static final int ANNOTATIONS = 4;
+	private static final int FIELDS = 5;
+
+	private static final String[] fieldNames =
+		{"calls", "wallNanos", "cpuNanos", "allocatedBytes", "annotations"};
+
+	private static final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+	private static final com.sun.management.ThreadMXBean allocationBean =
+		threadBean instanceof com.sun.management.ThreadMXBean ?
+			(com.sun.management.ThreadMXBean) threadBean : null;
+
+	private static final boolean cpuTimeSupported = threadBean.isCurrentThreadCpuTimeSupported();
+
+	private static final boolean allocationSupported =
+		allocationBean != null && allocationBean.isThreadAllocatedMemorySupported();
+
+	// stage names, indexed by stage id
+	private static final ArrayList<String> stageNames = new ArrayList<String>();
+
+	private static final HashMap<String, Integer> stageIds = new HashMap<String, Integer>();
+
+	// totals over all documents
+	private static final Counts totals = new Counts();
+
+	// counts for each completed document
+	private static final List<DocumentCounts> documents = new ArrayList<DocumentCounts>();
+
+	// counts for the document being processed
+	private static final PipelineContext.Slot<Counts> documentCounts =
+		new PipelineContext.Slot<Counts>() {
+			protected Counts initialValue() {
+				return new Counts();
+			}
+		};
+
+	/**
+	 * the counts for each stage, held in an array indexed by stage id and field.
+	 */
+
+	static class Counts {
+
+		long[] values = new long[FIELDS * 16];
+
+		void add(int stage, long wall, long cpu, long allocated, long annotations) {
+			int base = stage * FIELDS;
+			if (base + FIELDS > values.length)
+				values = Arrays.copyOf(values, Math.max(base + FIELDS, 2 * values.length));
+			values[base + CALLS]++;
+			values[base + WALL] += wall;
+			values[base + CPU] += cpu;
+			values[base + ALLOCATED] += allocated;
+			values[base + ANNOTATIONS] += annotations;
+		}
+
+		void add(Counts c) {
+			if (c.values.length > values.length)
+				values = Arrays.copyOf(values, c.values.length);
+			for (int i = 0; i < c.values.length; i++)
+				values[i] += c.values[i];
+		}
+
+		long get(int stage, int field) {
+			int i = stage * FIELDS + field;
+			return i < values.length ? values[i] : 0;
+		}
+	}
+
+	static class DocumentCounts {
+
+		final int docNo;
+
+		final String docName;
+
+		final Counts counts;
+
+		DocumentCounts(int docNo, String docName, Counts counts) {
+			this.docNo = docNo;
+			this.docName = docName;
+			this.counts = counts;
+		}
+	}
+
+	static {
+		if (cpuTimeSupported && !threadBean.isThreadCpuTimeEnabled())
+			threadBean.setThreadCpuTimeEnabled(true);
+	}
+
+	/**
+	 * returns the id of the stage named <CODE>name</CODE>, assigning a new id if
+	 * this name has not been seen before.
+	 */
+
+	static synchronized int stageId(String name) {
+		Integer id = stageIds.get(name);
+		if (id == null) {
+			id = stageNames.size();
+			stageIds.put(name, id);
+			stageNames.add(name);
+		}
+		return id;
+	}
+
+	/**
+	 * apply Stage <CODE>stage</CODE> to span <CODE>span</CODE> of Document
+	 * <CODE>doc</CODE>, recording its cost for the current document.
+	 */
+
+	static void apply(Script.Stage stage, Document doc, Span span) {
+		long threadId = Thread.currentThread().getId();
+		int annotations0 = doc.annotationsAdded();
+		long allocated0 = allocationSupported ? allocationBean.getThreadAllocatedBytes(threadId) : 0;
+		long cpu0 = cpuTimeSupported ? threadBean.getCurrentThreadCpuTime() : 0;
+		long wall0 = System.nanoTime();
+		try {
+			stage.apply(doc, span);
+		} finally {
+			long wall = System.nanoTime() - wall0;
+			long cpu = cpuTimeSupported ? threadBean.getCurrentThreadCpuTime() - cpu0 : 0;
+			long allocated = allocationSupported ?
+				allocationBean.getThreadAllocatedBytes(threadId) - allocated0 : 0;
+			int annotations = doc.annotationsAdded() - annotations0;
+			documentCounts.get().add(stage.id, wall, cpu, allocated, annotations);
+		}
+	}
+
+	/**
+	 * records the counts for the document being processed by the current
+	 * thread, as document number <CODE>docNo</CODE> named <CODE>docName</CODE>,
+	 * and adds them to the totals.
+	 */
+
+	public static void endDocument(int docNo, String docName) {
+		if (!enabled)
+			return;
+		Counts counts = documentCounts.get();
+		documentCounts.set(new Counts());
+		synchronized (totals) {
+			totals.add(counts);
+			documents.add(new DocumentCounts(docNo, docName, counts));
+		}
+	}
+
+	/**
+	 * discards all recorded counts.
+	 */
+
+	public static void clear() {
+		synchronized (totals) {
+			totals.values = new long[FIELDS * 16];
+			documents.clear();
+		}
+	}
+
+	/**
+	 * if metrics are enabled, write the report to the file named by property
+	 * <B>Metrics.fileName</B>.
+	 */
+
+	public static void writeReport() throws IOException {
+		String fileName = JetTest.getConfig("Metrics.fileName");
+		if (!enabled || fileName == null)
+			return;
+		PrintWriter writer = new PrintWriter(fileName, "UTF-8");
+		try {
+			if (fileName.endsWith(".json"))
+				writeJSON(writer);
+			else
+				writeCSV(writer);
+		} finally {
+			writer.close();
+		}
+	}
+
+	/**
+	 * write the counts in JSON:  an object with a list of the total counts
+	 * for each stage (<B>stages</B>) and, for each document, a list of its
+	 * counts for each stage (<B>documents</B>).
+	 */
+
+	public static void writeJSON(PrintWriter w) {
+		synchronized (totals) {
+			List<DocumentCounts> docs = sortedDocuments();
+			w.println("{");
+			w.println("  \"documentCount\": " + docs.size() + ",");
+			w.print("  \"stages\": ");
+			writeJSONStages(w, totals, "    ");
+			w.println(",");
+			w.println("  \"documents\": [");
+			for (int i = 0; i < docs.size(); i++) {
+				DocumentCounts d = docs.get(i);
+				w.print("    {\"docNo\": " + d.docNo + ", \"document\": " + quote(d.docName) +
+				        ", \"stages\": ");
+				writeJSONStages(w, d.counts, "      ");
+				w.println(i < docs.size() - 1 ? "}," : "}");
+			}
+			w.println("  ]");
+			w.println("}");
+		}
+	}
+
+	private static void writeJSONStages(PrintWriter w, Counts counts, String indent) {
+		List<String> names = stageNamesSnapshot();
+		w.println("[");
+		boolean first = true;
+		for (int stage = 0; stage < names.size(); stage++) {
+			if (counts.get(stage, CALLS) == 0)
+				continue;
+			if (!first)
+				w.println(",");
+			first = false;
+			w.print(indent + "{\"stage\": " + quote(names.get(stage)));
+			for (int f = 0; f < FIELDS; f++)
+				w.print(", \"" + fieldNames[f] + "\": " + counts.get(stage, f));
+			w.print("}");
+		}
+		w.println();
+		w.print(indent.substring(2) + "]");
+	}
+
+	/**
+	 * write the counts as CSV, one line for each stage of each document,
+	 * preceded by one line for the total counts for each stage (with
+	 * document number 0 and document name <CODE>*</CODE>).
+	 */
+
+	public static void writeCSV(PrintWriter w) {
+		synchronized (totals) {
+			w.print("docNo,document,stage");
+			for (int f = 0; f < FIELDS; f++)
+				w.print("," + fieldNames[f]);
+			w.println();
+			writeCSVLines(w, 0, "*", totals);
+			for (DocumentCounts d : sortedDocuments())
+				writeCSVLines(w, d.docNo, d.docName, d.counts);
+		}
+	}
+
+	private static void writeCSVLines(PrintWriter w, int docNo, String docName, Counts counts) {
+		List<String> names = stageNamesSnapshot();
+		for (int stage = 0; stage < names.size(); stage++) {
+			if (counts.get(stage, CALLS) == 0)
+				continue;
+			w.print(docNo + "," + csvField(docName) + "," + csvField(names.get(stage)));
+			for (int f = 0; f < FIELDS; f++)
+				w.print("," + counts.get(stage, f));
+			w.println();
+		}
+	}
+
+	private static List<DocumentCounts> sortedDocuments() {
+		List<DocumentCounts> docs = new ArrayList<DocumentCounts>(documents);
+		Collections.sort(docs, new Comparator<DocumentCounts>() {
+			public int compare(DocumentCounts a, DocumentCounts b) {
+				return a.docNo < b.docNo ? -1 : (a.docNo == b.docNo ? 0 : 1);
+			}
+		});
+		return docs;
+	}
+
+	private static synchronized List<String> stageNamesSnapshot() {
+		return new ArrayList<String>(stageNames);
+	}
+
+	private static String quote(String s) {
+		StringBuilder sb = new StringBuilder("\"");
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c == '"' || c == '\\')
+				sb.append('\\').append(c);
+			else if (c < ' ')
+				sb.append(String.format("\\u%04x", (int) c));
+			else
+				sb.append(c);
+		}
+		return sb.append('"').toString();
+	}
+
+	private static String csvField(String s) {
+		if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0)
+			return s;
+		return "\"" + s.replace("\"", "\"\"") + "\"";
+	}
+}
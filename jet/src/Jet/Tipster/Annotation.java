@@ -60,6 +60,13 @@ public class Annotation {
 		return span.end();
 	}
 
+	/**
+	 * Returns the features of the annotation (possibly <CODE>null</CODE>).
+	 * Changes made directly to this FeatureSet are not recorded in the
+	 * document's change log (see {@link Document#trackChanges});  code which
+	 * makes such changes should call {@link Document#annotationModified}.
+	 */
+
 	public FeatureSet attributes() {
 		return attributes;
 	}
@@ -83,11 +90,15 @@ public class Annotation {
 		if (attributes == null)
 			attributes = new FeatureSet();
 		attributes.put(feature, value);
+		if (span != null && span.doc != null)
+			span.doc.annotationModified(this);
 	}
 	
 	public void remove(String feature) {
 		if (attributes != null) {
 			attributes.remove(feature);
+			if (span != null && span.doc != null)
+				span.doc.annotationModified(this);
 		}
 	}
 
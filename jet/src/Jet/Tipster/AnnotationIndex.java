@@ -0,0 +1,217 @@
+// -*- tab-width: 4 -*-
+//Title:        JET
+//Copyright:    Copyright (c) 2000
+//Author:       Ralph Grishman
+//Description:  A Java-based Information Extraction Tool
+
+package Jet.Tipster;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Vector;
+
+/**
+ * an index over the annotations of a single type on a Document, supporting
+ * range queries (containment and overlap) by binary search on the start
+ * position.
+ * <p>
+ * Annotations are kept in arrays sorted by start position; annotations with
+ * the same start are kept in the order in which they were added.  Since most
+ * annotations are added in (roughly) left-to-right order, insertion is usually
+ * an append.  To answer overlap queries, the index records the length of the
+ * longest annotation it has held;  an annotation can only overlap a span if it
+ * starts at most that many characters before the span.
+ * <p>
+ * Query results are returned in the order in which the annotations were added,
+ * so that they agree with the order of {@link Document#annotationsOfType(String)}.
+ */
+
+class AnnotationIndex implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private Annotation[] anns = new Annotation[8];
+
+	private int[] starts = new int[8];
+
+	private int[] ends = new int[8];
+
+	// sequence number recording the order in which each annotation was added
+	private int[] seq = new int[8];
+
+	private int size = 0;
+
+	private int nextSeq = 0;
+
+	private int maxLength = 0;
+
+	// true as long as every annotation has been added at the end of the arrays,
+	// so that start order coincides with the order of addition
+	private boolean inAdditionOrder = true;
+
+	/**
+	 * adds Annotation <CODE>ann</CODE> to the index.
+	 */
+
+	void add(Annotation ann) {
+		int start = ann.span.start;
+		int end = ann.span.end;
+		if (size == anns.length)
+			grow();
+		int posn = upperBound(start);
+		if (posn < size) {
+			inAdditionOrder = false;
+			System.arraycopy(anns, posn, anns, posn + 1, size - posn);
+			System.arraycopy(starts, posn, starts, posn + 1, size - posn);
+			System.arraycopy(ends, posn, ends, posn + 1, size - posn);
+			System.arraycopy(seq, posn, seq, posn + 1, size - posn);
+		}
+		anns[posn] = ann;
+		starts[posn] = start;
+		ends[posn] = end;
+		seq[posn] = nextSeq++;
+		size++;
+		if (end - start > maxLength)
+			maxLength = end - start;
+	}
+
+	/**
+	 * removes Annotation <CODE>ann</CODE> from the index.  Does nothing if
+	 * <CODE>ann</CODE> is not in the index.
+	 */
+
+	void remove(Annotation ann) {
+		int start = ann.span.start;
+		for (int i = lowerBound(start); i < size && starts[i] == start; i++) {
+			if (anns[i] == ann) {
+				int n = size - i - 1;
+				System.arraycopy(anns, i + 1, anns, i, n);
+				System.arraycopy(starts, i + 1, starts, i, n);
+				System.arraycopy(ends, i + 1, ends, i, n);
+				System.arraycopy(seq, i + 1, seq, i, n);
+				size--;
+				anns[size] = null;
+				return;
+			}
+		}
+	}
+
+	/**
+	 * returns the number of annotations in the index.
+	 */
+
+	int size() {
+		return size;
+	}
+
+	/**
+	 * returns the annotations whose span is contained within the span
+	 * [<CODE>start</CODE>, <CODE>end</CODE>], or <CODE>null</CODE> if there are
+	 * none.
+	 */
+
+	Vector<Annotation> within(int start, int end) {
+		int lo = lowerBound(start);
+		int hi = upperBound(end);
+		Vector<Annotation> result = null;
+		for (int i = lo; i < hi; i++) {
+			if (ends[i] <= end) {
+				if (result == null)
+					result = new Vector<Annotation>();
+				result.add(anns[i]);
+			}
+		}
+		return inAdditionOrder ? result : sortByAddition(result, lo, hi);
+	}
+
+	/**
+	 * returns the annotations whose span overlaps the span
+	 * [<CODE>start</CODE>, <CODE>end</CODE>], or <CODE>null</CODE> if there are
+	 * none.  An annotation overlaps the span if it starts before the end of the
+	 * span and ends after its start;  in addition, an empty annotation lying
+	 * at the start of the span is taken to overlap it.
+	 */
+
+	Vector<Annotation> overlapping(int start, int end) {
+		int lo = lowerBound(start - maxLength);
+		int hi = lowerBound(end);
+		Vector<Annotation> result = null;
+		for (int i = lo; i < hi; i++) {
+			if (ends[i] > start || (starts[i] == start && ends[i] == start)) {
+				if (result == null)
+					result = new Vector<Annotation>();
+				result.add(anns[i]);
+			}
+		}
+		return inAdditionOrder ? result : sortByAddition(result, lo, hi);
+	}
+
+	/**
+	 * reorders <CODE>result</CODE>, a selection of the annotations in index
+	 * positions <CODE>lo</CODE> to <CODE>hi</CODE>, into the order in which
+	 * they were added to the index.
+	 */
+
+	private Vector<Annotation> sortByAddition(Vector<Annotation> result, int lo, int hi) {
+		if (result == null || result.size() < 2)
+			return result;
+		// pack (sequence number, index position) into a long so that a
+		// primitive sort gives the order of addition
+		long[] keys = new long[result.size()];
+		int k = 0;
+		int r = 0;
+		for (int i = lo; i < hi && r < result.size(); i++) {
+			if (anns[i] == result.get(r)) {
+				keys[k++] = ((long) seq[i] << 32) | i;
+				r++;
+			}
+		}
+		Arrays.sort(keys);
+		result.clear();
+		for (int j = 0; j < keys.length; j++)
+			result.add(anns[(int) keys[j]]);
+		return result;
+	}
+
+	/**
+	 * returns the first index position whose start is &gt;= <CODE>start</CODE>.
+	 */
+
+	private int lowerBound(int start) {
+		int lo = 0;
+		int hi = size;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (starts[mid] < start)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+
+	/**
+	 * returns the first index position whose start is &gt; <CODE>start</CODE>.
+	 */
+
+	private int upperBound(int start) {
+		int lo = 0;
+		int hi = size;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (starts[mid] <= start)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+
+	private void grow() {
+		int n = anns.length * 2;
+		anns = Arrays.copyOf(anns, n);
+		starts = Arrays.copyOf(starts, n);
+		ends = Arrays.copyOf(ends, n);
+		seq = Arrays.copyOf(seq, n);
+	}
+}
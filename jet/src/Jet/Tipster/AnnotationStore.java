@@ -0,0 +1,533 @@
+// -*- tab-width: 4 -*-
+//Title:        JET
+//Copyright:    Copyright (c) 2000
+//Author:       Ralph Grishman
+//Description:  A Java-based Information Extraction Tool
+
+package Jet.Tipster;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Vector;
+
+import Jet.Lisp.FeatureSet;
+
+/**
+ * a compact, column-oriented store for the annotations on a Document.
+ * <p>
+ * Each annotation is identified by an int id (assigned in the order in which
+ * annotations are added, and never reused;  an annotation whose end is moved
+ * by {@link #setEnd} keeps its id) and is represented by entries in
+ * parallel int arrays giving its start, end and type (as an id assigned by
+ * {@link AnnotationTypes}), plus its FeatureSet.  Annotations are linked into
+ * chains by start position, by end position and by type, so that the lookups
+ * provided by Document can be answered without boxed keys or per-position
+ * Vectors.
+ * <p>
+ * An {@link Annotation} object for an entry is only created when it is first
+ * requested (or if the entry was added as an Annotation);  afterwards the
+ * same object is always returned, so that Annotations keep their identity.
+ * Code which only needs the positions and types of annotations can walk the
+ * store through {@link #firstAt}, {@link #nextAt}, {@link #firstOfType} and
+ * {@link #nextOfType} without creating any Annotation objects.
+ */
+
+public class AnnotationStore implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final int NONE = -1;
+
+	private Document doc;
+
+	// per-annotation columns
+	private int size = 0;
+	private int[] start = new int[16];
+	private int[] end = new int[16];
+	private int[] type = new int[16];		// NONE if annotation was removed
+	private int[] nextAtStart = new int[16];
+	private int[] nextAtEnd = new int[16];
+	private int[] nextOfType = new int[16];
+	private int[] prevOfType = new int[16];
+	// order of addition (an annotation whose end is moved counts as re-added)
+	private int[] order = new int[16];
+	private int nextOrder = 0;
+	private FeatureSet[] attributes = new FeatureSet[16];
+	private Annotation[] facade = new Annotation[16];
+
+	// per-position columns:  first annotation starting / ending at position
+	private int[] headAtStart = new int[0];
+	private int[] headAtEnd = new int[0];
+
+	// per-type columns, indexed by type id
+	private int[] headOfType = new int[0];
+	private int[] tailOfType = new int[0];
+	private int[] countOfType = new int[0];
+	private int[] maxLengthOfType = new int[0];
+	// true if an annotation of this type has been added since the store was
+	// last cleared (even if it has since been removed)
+	private boolean[] typePresent = new boolean[0];
+
+	AnnotationStore(Document doc) {
+		this.doc = doc;
+	}
+
+	/**
+	 * adds an annotation of type <CODE>typeId</CODE> over
+	 * [<CODE>s</CODE>, <CODE>e</CODE>] with attributes <CODE>fs</CODE>.  If
+	 * <CODE>ann</CODE> is non-null, it becomes the Annotation object for the
+	 * entry.  Returns the id of the new entry.
+	 */
+
+	int add(int typeId, int s, int e, FeatureSet fs, Annotation ann) {
+		if (size == start.length)
+			growAnnotations();
+		ensurePosition(Math.max(s, e));
+		ensureType(typeId);
+		int id = size++;
+		start[id] = s;
+		end[id] = e;
+		type[id] = typeId;
+		facade[id] = ann;
+		attributes[id] = (ann == null) ? fs : null;
+		link(id);
+		return id;
+	}
+
+	/**
+	 * links annotation <CODE>id</CODE> at the end of its start, end and type
+	 * chains.
+	 */
+
+	private void link(int id) {
+		int s = start[id];
+		int e = end[id];
+		int t = type[id];
+		nextAtStart[id] = NONE;
+		nextAtEnd[id] = NONE;
+		nextOfType[id] = NONE;
+		headAtStart[s] = appendToChain(headAtStart[s], nextAtStart, id);
+		headAtEnd[e] = appendToChain(headAtEnd[e], nextAtEnd, id);
+		// link at tail of type chain
+		int tail = tailOfType[t];
+		prevOfType[id] = tail;
+		if (tail == NONE)
+			headOfType[t] = id;
+		else
+			nextOfType[tail] = id;
+		tailOfType[t] = id;
+		countOfType[t]++;
+		typePresent[t] = true;
+		if (e - s > maxLengthOfType[t])
+			maxLengthOfType[t] = e - s;
+		order[id] = nextOrder++;
+	}
+
+	private void unlink(int id) {
+		int s = start[id];
+		int e = end[id];
+		int t = type[id];
+		headAtStart[s] = removeFromChain(headAtStart[s], nextAtStart, id);
+		headAtEnd[e] = removeFromChain(headAtEnd[e], nextAtEnd, id);
+		int prev = prevOfType[id];
+		int next = nextOfType[id];
+		if (prev == NONE)
+			headOfType[t] = next;
+		else
+			nextOfType[prev] = next;
+		if (next == NONE)
+			tailOfType[t] = prev;
+		else
+			prevOfType[next] = prev;
+		countOfType[t]--;
+	}
+
+	private static int appendToChain(int head, int[] next, int id) {
+		if (head == NONE)
+			return id;
+		int last = head;
+		while (next[last] != NONE)
+			last = next[last];
+		next[last] = id;
+		return head;
+	}
+
+	private static int removeFromChain(int head, int[] next, int id) {
+		if (head == id)
+			return next[id];
+		for (int i = head; i != NONE; i = next[i]) {
+			if (next[i] == id) {
+				next[i] = next[id];
+				break;
+			}
+		}
+		return head;
+	}
+
+	/**
+	 * removes Annotation <CODE>ann</CODE> from the store.  Does nothing if
+	 * <CODE>ann</CODE> is not in the store.
+	 */
+
+	void remove(Annotation ann) {
+		int id = find(ann);
+		if (id != NONE)
+			remove(id);
+	}
+
+	private int find(Annotation ann) {
+		int s = ann.span.start;
+		if (s < 0 || s >= headAtStart.length)
+			return NONE;
+		for (int id = headAtStart[s]; id != NONE; id = nextAtStart[id])
+			if (facade[id] == ann)
+				return id;
+		return NONE;
+	}
+
+	private void remove(int id) {
+		unlink(id);
+		type[id] = NONE;
+		facade[id] = null;
+		attributes[id] = null;
+	}
+
+	/**
+	 * moves the end of Annotation <CODE>ann</CODE> to <CODE>e</CODE>,
+	 * keeping its id.  As if
+	 * the annotation had been removed and added again, it is moved to the end
+	 * of the chains it is on.  Does nothing if <CODE>ann</CODE> is not in
+	 * the store.
+	 */
+
+	void setEnd(Annotation ann, int e) {
+		int id = find(ann);
+		if (id == NONE)
+			return;
+		unlink(id);
+		ensurePosition(e);
+		end[id] = e;
+		link(id);
+	}
+
+	/**
+	 * removes all annotations from the store.
+	 */
+
+	void clear() {
+		Arrays.fill(facade, 0, size, null);
+		Arrays.fill(attributes, 0, size, null);
+		size = 0;
+		nextOrder = 0;
+		Arrays.fill(headAtStart, NONE);
+		Arrays.fill(headAtEnd, NONE);
+		Arrays.fill(headOfType, NONE);
+		Arrays.fill(tailOfType, NONE);
+		Arrays.fill(countOfType, 0);
+		Arrays.fill(maxLengthOfType, 0);
+		Arrays.fill(typePresent, false);
+	}
+
+	/*
+	 * primitive access
+	 */
+
+	/**
+	 * returns one more than the largest annotation id assigned so far;  ids of
+	 * removed annotations are not reused, so some ids below this value may no
+	 * longer be live.
+	 */
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * returns true if annotation <CODE>id</CODE> is on the document.
+	 */
+
+	public boolean isLive(int id) {
+		return id >= 0 && id < size && type[id] != NONE;
+	}
+
+	public int start(int id) {
+		return start[id];
+	}
+
+	public int end(int id) {
+		return end[id];
+	}
+
+	/**
+	 * returns the type id (see {@link AnnotationTypes}) of annotation
+	 * <CODE>id</CODE>.
+	 */
+
+	public int typeId(int id) {
+		return type[id];
+	}
+
+	/**
+	 * returns the features of annotation <CODE>id</CODE> (possibly
+	 * <CODE>null</CODE>).
+	 */
+
+	public FeatureSet attributes(int id) {
+		Annotation ann = facade[id];
+		return (ann == null) ? attributes[id] : ann.attributes;
+	}
+
+	/**
+	 * returns the id of the first annotation starting at <CODE>posn</CODE>, or
+	 * -1 if there is none.
+	 */
+
+	public int firstAt(int posn) {
+		return (posn >= 0 && posn < headAtStart.length) ? headAtStart[posn] : NONE;
+	}
+
+	/**
+	 * returns the id of the next annotation with the same start as
+	 * annotation <CODE>id</CODE>, or -1 if there is none.
+	 */
+
+	public int nextAt(int id) {
+		return nextAtStart[id];
+	}
+
+	/**
+	 * returns the id of the first annotation of type <CODE>typeId</CODE>, or
+	 * -1 if there is none.
+	 */
+
+	public int firstOfType(int typeId) {
+		return (typeId >= 0 && typeId < headOfType.length) ? headOfType[typeId] : NONE;
+	}
+
+	/**
+	 * returns the id of the next annotation with the same type as
+	 * annotation <CODE>id</CODE>, or -1 if there is none.
+	 */
+
+	public int nextOfType(int id) {
+		return nextOfType[id];
+	}
+
+	/**
+	 * returns the Annotation object for entry <CODE>id</CODE>, creating it
+	 * if necessary.
+	 */
+
+	public Annotation annotation(int id) {
+		Annotation ann = facade[id];
+		if (ann == null) {
+			Span span = new Span(start[id], end[id]);
+			span.setDocument(doc);
+			ann = new Annotation(AnnotationTypes.name(type[id]), span, attributes[id]);
+			facade[id] = ann;
+			attributes[id] = null;
+		}
+		return ann;
+	}
+
+	/*
+	 * queries used by Document
+	 */
+
+	boolean hasAnnotationAt(int posn) {
+		return firstAt(posn) != NONE;
+	}
+
+	/**
+	 * returns true if an annotation other than <CODE>ann</CODE> starts at
+	 * <CODE>posn</CODE>.
+	 */
+
+	boolean hasAnnotationAt(int posn, Annotation ann) {
+		for (int id = firstAt(posn); id != NONE; id = nextAtStart[id])
+			if (facade[id] != ann)
+				return true;
+		return false;
+	}
+
+	Vector<Annotation> annotationsAt(int posn) {
+		return collectChain(firstAt(posn), nextAtStart);
+	}
+
+	Vector<Annotation> annotationsEndingAt(int posn) {
+		int head = (posn >= 0 && posn < headAtEnd.length) ? headAtEnd[posn] : NONE;
+		return collectChain(head, nextAtEnd);
+	}
+
+	/**
+	 * returns the annotations of type <CODE>typeId</CODE>, in the order they
+	 * were added;  returns <CODE>null</CODE> if no annotation of this type has
+	 * been added, and an empty Vector if all have been removed.
+	 */
+
+	Vector<Annotation> annotationsOfType(int typeId) {
+		if (typeId < 0 || typeId >= typePresent.length || !typePresent[typeId])
+			return null;
+		Vector<Annotation> result = new Vector<Annotation>(countOfType[typeId]);
+		for (int id = headOfType[typeId]; id != NONE; id = nextOfType[id])
+			result.add(annotation(id));
+		return result;
+	}
+
+	/**
+	 * returns the annotations of type <CODE>typeId</CODE> contained within
+	 * [<CODE>s</CODE>, <CODE>e</CODE>], in the order they were added, or
+	 * <CODE>null</CODE> if there are none.
+	 */
+
+	Vector<Annotation> within(int typeId, int s, int e) {
+		if (typeId < 0 || typeId >= countOfType.length || countOfType[typeId] == 0)
+			return null;
+		if (e - s + 1 > countOfType[typeId]) {
+			// fewer annotations of this type than positions in the span
+			Vector<Annotation> result = null;
+			for (int id = headOfType[typeId]; id != NONE; id = nextOfType[id]) {
+				if (start[id] >= s && end[id] <= e) {
+					if (result == null)
+						result = new Vector<Annotation>();
+					result.add(annotation(id));
+				}
+			}
+			return result;
+		}
+		int[] ids = new int[8];
+		int n = 0;
+		int last = Math.min(e, headAtStart.length - 1);
+		for (int posn = Math.max(s, 0); posn <= last; posn++) {
+			for (int id = headAtStart[posn]; id != NONE; id = nextAtStart[id]) {
+				if (type[id] == typeId && end[id] <= e) {
+					if (n == ids.length)
+						ids = Arrays.copyOf(ids, n * 2);
+					ids[n++] = id;
+				}
+			}
+		}
+		return collectIds(ids, n);
+	}
+
+	/**
+	 * returns the annotations of type <CODE>typeId</CODE> which overlap
+	 * [<CODE>s</CODE>, <CODE>e</CODE>], in the order they were added, or
+	 * <CODE>null</CODE> if there are none.  As in {@link AnnotationIndex},
+	 * an empty annotation at the start of the span is taken to overlap it.
+	 */
+
+	Vector<Annotation> overlapping(int typeId, int s, int e) {
+		if (typeId < 0 || typeId >= countOfType.length || countOfType[typeId] == 0)
+			return null;
+		int first = s - maxLengthOfType[typeId];
+		if (e - first > countOfType[typeId]) {
+			Vector<Annotation> result = null;
+			for (int id = headOfType[typeId]; id != NONE; id = nextOfType[id]) {
+				if (overlaps(id, s, e)) {
+					if (result == null)
+						result = new Vector<Annotation>();
+					result.add(annotation(id));
+				}
+			}
+			return result;
+		}
+		int[] ids = new int[8];
+		int n = 0;
+		int last = Math.min(e - 1, headAtStart.length - 1);
+		for (int posn = Math.max(first, 0); posn <= last; posn++) {
+			for (int id = headAtStart[posn]; id != NONE; id = nextAtStart[id]) {
+				if (type[id] == typeId && overlaps(id, s, e)) {
+					if (n == ids.length)
+						ids = Arrays.copyOf(ids, n * 2);
+					ids[n++] = id;
+				}
+			}
+		}
+		return collectIds(ids, n);
+	}
+
+	private boolean overlaps(int id, int s, int e) {
+		return (start[id] < e && end[id] > s) || (start[id] == s && end[id] == s);
+	}
+
+	/**
+	 * returns the types of all annotations added since the store was last
+	 * cleared.
+	 */
+
+	String[] getAnnotationTypes() {
+		int n = 0;
+		for (int t = 0; t < typePresent.length; t++)
+			if (typePresent[t])
+				n++;
+		String[] result = new String[n];
+		n = 0;
+		for (int t = 0; t < typePresent.length; t++)
+			if (typePresent[t])
+				result[n++] = AnnotationTypes.name(t);
+		return result;
+	}
+
+	private Vector<Annotation> collectChain(int head, int[] next) {
+		if (head == NONE)
+			return null;
+		Vector<Annotation> result = new Vector<Annotation>(2);
+		for (int id = head; id != NONE; id = next[id])
+			result.add(annotation(id));
+		return result;
+	}
+
+	private Vector<Annotation> collectIds(int[] ids, int n) {
+		if (n == 0)
+			return null;
+		// sort by order of addition
+		long[] keys = new long[n];
+		for (int i = 0; i < n; i++)
+			keys[i] = ((long) order[ids[i]] << 32) | ids[i];
+		Arrays.sort(keys);
+		Vector<Annotation> result = new Vector<Annotation>(n);
+		for (int i = 0; i < n; i++)
+			result.add(annotation((int) keys[i]));
+		return result;
+	}
+
+	private void growAnnotations() {
+		int n = start.length * 2;
+		start = Arrays.copyOf(start, n);
+		end = Arrays.copyOf(end, n);
+		type = Arrays.copyOf(type, n);
+		nextAtStart = Arrays.copyOf(nextAtStart, n);
+		nextAtEnd = Arrays.copyOf(nextAtEnd, n);
+		nextOfType = Arrays.copyOf(nextOfType, n);
+		prevOfType = Arrays.copyOf(prevOfType, n);
+		order = Arrays.copyOf(order, n);
+		attributes = Arrays.copyOf(attributes, n);
+		facade = Arrays.copyOf(facade, n);
+	}
+
+	private void ensurePosition(int posn) {
+		if (posn < headAtStart.length)
+			return;
+		int oldLength = headAtStart.length;
+		int n = Math.max(posn + 1, Math.max(oldLength * 2, doc.length() + 1));
+		headAtStart = Arrays.copyOf(headAtStart, n);
+		headAtEnd = Arrays.copyOf(headAtEnd, n);
+		Arrays.fill(headAtStart, oldLength, n, NONE);
+		Arrays.fill(headAtEnd, oldLength, n, NONE);
+	}
+
+	private void ensureType(int typeId) {
+		if (typeId < headOfType.length)
+			return;
+		int oldLength = headOfType.length;
+		int n = Math.max(typeId + 1, AnnotationTypes.count());
+		headOfType = Arrays.copyOf(headOfType, n);
+		tailOfType = Arrays.copyOf(tailOfType, n);
+		countOfType = Arrays.copyOf(countOfType, n);
+		maxLengthOfType = Arrays.copyOf(maxLengthOfType, n);
+		typePresent = Arrays.copyOf(typePresent, n);
+		Arrays.fill(headOfType, oldLength, n, NONE);
+		Arrays.fill(tailOfType, oldLength, n, NONE);
+	}
+}
@@ -0,0 +1,91 @@
+// -*- tab-width: 4 -*-
+//Title:        JET
+//Copyright:    Copyright (c) 2000
+//Author:       Ralph Grishman
+//Description:  A Java-based Information Extraction Tool
+
+package Jet.Tipster;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * a global table assigning a small integer id to each annotation type, so
+ * that compact annotation stores can record the type of an annotation as
+ * an int.  Ids are assigned in order, starting with 0, and are never reused.
+ * Looking up a type which has already been seen takes no lock.
+ */
+
+public class AnnotationTypes {
+
+	private static final ConcurrentHashMap<String, Integer> idOf =
+		new ConcurrentHashMap<String, Integer>();
+
+	// the name of each type, indexed by id;  replaced by a longer copy
+	// (under the class lock) when it is full
+	private static volatile String[] names = new String[64];
+
+	private static volatile int count = 0;
+
+	private static final Function<String, Integer> newId = new Function<String, Integer>() {
+		public Integer apply(String type) {
+			return assign(type.intern());
+		}
+	};
+
+	private AnnotationTypes() {
+	}
+
+	/**
+	 * returns the id of annotation type <CODE>type</CODE>, assigning a new id
+	 * if the type has not been seen before.
+	 */
+
+	public static int intern(String type) {
+		Integer id = idOf.get(type);
+		if (id == null)
+			id = idOf.computeIfAbsent(type, newId);
+		return id;
+	}
+
+	private static synchronized Integer assign(String type) {
+		int id = count;
+		String[] n = names;
+		if (id == n.length)
+			n = Arrays.copyOf(n, 2 * id);
+		n[id] = type;
+		names = n;
+		count = id + 1;
+		return id;
+	}
+
+	/**
+	 * returns the id of annotation type <CODE>type</CODE>, or -1 if the type
+	 * has not been interned.
+	 */
+
+	public static int lookup(String type) {
+		Integer id = (type == null) ? null : idOf.get(type);
+		return id == null ? -1 : id;
+	}
+
+	/**
+	 * returns the (interned) name of the annotation type with id
+	 * <CODE>id</CODE>.
+	 */
+
+	public static String name(int id) {
+		if (id >= count)
+			throw new IndexOutOfBoundsException("no annotation type " + id);
+		return names[id];
+	}
+
+	/**
+	 * returns the number of annotation types interned so far.
+	 */
+
+	public static int count() {
+		return count;
+	}
+}
@@ -41,21 +41,58 @@ public class Document implements Serializable {
 	// annotationsByType is a mapping from types to vectors of annotations
 	private Hashtable annotationsByType;
 
+	// indexByType is a mapping from types to AnnotationIndex's, which support
+	// range queries over the annotations of that type
+	private Hashtable<String, AnnotationIndex> indexByType;
+
+	// if non-null, annotations are held in this compact store instead of
+	// the hash tables above
+	private AnnotationStore store = null;
+
+	/**
+	 * if true, Documents created subsequently hold their annotations in a
+	 * compact {@link AnnotationStore} rather than in hash tables of Vectors.
+	 * The methods of Document behave the same in either case.
+	 */
+
+	public static boolean compactAnnotations = false;
+
 	private int nextAnnotationId;
 
+	// number of annotations added to the document
+	private int annotationsAdded = 0;
+
 	private Object currentHypothesis = null;
 
 	private Set activeHypotheses = null;
 
+	// if non-null, the log of changes to the annotations on the document:
+	// the start position of each annotation added, removed, or modified
+	// since change tracking began, in order (-1 for a change to the
+	// entire document)
+	private int[] changes = null;
+
+	// the number of changes in the log
+	private int changeCount = 0;
+
 	/**
 	 * Creates a new document with no text or annotations.
 	 */
 
-	public Document() {
-		text = new StringBuffer();
+	private void createIndexes() {
+		if (compactAnnotations) {
+			store = new AnnotationStore(this);
+			return;
+		}
 		annotationsByStart = new Hashtable();
 		annotationsByEnd = new Hashtable();
 		annotationsByType = new Hashtable();
+		indexByType = new Hashtable<String, AnnotationIndex>();
+	}
+
+	public Document() {
+		text = new StringBuffer();
+		createIndexes();
 		nextAnnotationId = 0;
 		relations = new SyntacticRelationSet();
 	}
@@ -66,18 +103,14 @@ public class Document implements Serializable {
 
 	public Document(String stg) {
 		text = new StringBuffer(stg);
-		annotationsByStart = new Hashtable();
-		annotationsByEnd = new Hashtable();
-		annotationsByType = new Hashtable();
+		createIndexes();
 		nextAnnotationId = 0;
 		relations = new SyntacticRelationSet();
 	}
 
 	public Document(Document doc) {
 		text = new StringBuffer(doc.text);
-		annotationsByStart = new Hashtable();
-		annotationsByEnd = new Hashtable();
-		annotationsByType = new Hashtable();
+		createIndexes();
 		nextAnnotationId = 0;
 		String[] types = doc.getAnnotationTypes();
 		for (int i = 0; i < types.length; i++) {
@@ -101,11 +134,17 @@ public class Document implements Serializable {
 
 	public void clear() {
 		text.setLength(0);
-		annotationsByStart.clear();
-		annotationsByEnd.clear();
-		annotationsByType.clear();
+		if (store != null) {
+			store.clear();
+		} else {
+			annotationsByStart.clear();
+			annotationsByEnd.clear();
+			annotationsByType.clear();
+			indexByType.clear();
+		}
 		nextAnnotationId = 0;
 		relations = new SyntacticRelationSet();
+		recordChange(-1);
 	}
 
 	/**
@@ -115,6 +154,7 @@ public class Document implements Serializable {
 
 	public void setText(String stg) {
 		text = new StringBuffer(stg);
+		recordChange(-1);
 	}
 
 	/**
@@ -207,6 +247,7 @@ public class Document implements Serializable {
 
 	public void setCharAt(int posn, char c) {
 		text.setCharAt(posn, c);
+		recordChange(posn);
 	}
 
 	/**
@@ -214,9 +255,15 @@ public class Document implements Serializable {
 	 */
 
 	public void clearAnnotations() {
-		annotationsByStart.clear();
-		annotationsByEnd.clear();
-		annotationsByType.clear();
+		if (store != null) {
+			store.clear();
+		} else {
+			annotationsByStart.clear();
+			annotationsByEnd.clear();
+			annotationsByType.clear();
+			indexByType.clear();
+		}
+		recordChange(-1);
 	}
 
 	/**
@@ -224,6 +271,15 @@ public class Document implements Serializable {
 	 */
 
 	public Annotation addAnnotation(Annotation ann) {
+		annotationsAdded++;
+		recordChange(ann.span.start);
+		if (store != null) {
+			if (currentHypothesis != null)
+				ann.put("hypo", currentHypothesis);
+			ann.span().setDocument(this);
+			store.add(AnnotationTypes.intern(ann.type), ann.span.start, ann.span.end, null, ann);
+			return ann;
+		}
 		// index by starting and ending position
 		Integer start = new Integer(ann.span.start);
 		if (!annotationsByStart.containsKey(start))
@@ -241,6 +297,12 @@ public class Document implements Serializable {
 			annotationsByType.put(type, new Vector());
 		Vector vt = (Vector) annotationsByType.get(type);
 		vt.add(ann);
+		AnnotationIndex index = indexByType.get(type);
+		if (index == null) {
+			index = new AnnotationIndex();
+			indexByType.put(type, index);
+		}
+		index.add(ann);
 
 		// if there is an activeHypothesis, add it to annotation
 		if (currentHypothesis != null)
@@ -262,12 +324,112 @@ public class Document implements Serializable {
 		return this.addAnnotation(new Annotation(tp, sp, att));
 	}
 
+	/**
+	 * Adds an annotation of type <I>tp</I> from position <I>start</I> to
+	 * <I>end</I> with features <I>att</I> to the document.  Unlike
+	 * {@link #annotate(String, Span, FeatureSet) annotate}, this does not
+	 * return an Annotation, so if the document holds its annotations in a
+	 * compact store no Annotation object is created until the annotation is
+	 * retrieved.
+	 */
+
+	public void addAnnotation(String tp, int start, int end, FeatureSet att) {
+		if (store == null) {
+			annotate(tp, new Span(start, end), att);
+			return;
+		}
+		if (currentHypothesis != null) {
+			if (att == null)
+				att = new FeatureSet();
+			att.put("hypo", currentHypothesis);
+		}
+		annotationsAdded++;
+		recordChange(start);
+		store.add(AnnotationTypes.intern(tp), start, end, att, null);
+	}
+
+	/**
+	 * Returns the number of annotations which have been added to the document,
+	 * including any which have since been removed.
+	 */
+
+	public int annotationsAdded() {
+		return annotationsAdded;
+	}
+
+	/**
+	 * Returns the compact store holding the annotations on this document, or
+	 * <CODE>null</CODE> if the document was not created with
+	 * {@link #compactAnnotations} set.
+	 */
+
+	public AnnotationStore annotationStore() {
+		return store;
+	}
+
+	/**
+	 * Begins recording a log of the changes to the annotations on the
+	 * document, for use by incremental processes such as
+	 * {@link Jet.Pat.PatternSet#applyIncrementally}.  Once begun, each
+	 * annotation added or removed, and each change to the features of an
+	 * annotation made through {@link Annotation#put} or
+	 * {@link Annotation#remove}, is recorded in the log.  Code which
+	 * changes the FeatureSet of an annotation directly should call
+	 * {@link #annotationModified}.
+	 */
+
+	public void trackChanges() {
+		if (changes == null)
+			changes = new int[64];
+	}
+
+	/**
+	 * Returns the number of changes recorded in the change log (0 if changes
+	 * are not being tracked).
+	 */
+
+	public int changeCount() {
+		return changeCount;
+	}
+
+	/**
+	 * Returns the position of change <I>k</I> in the change log:  the start
+	 * of the annotation which was added, removed, or modified, or -1 if
+	 * the change may affect the entire document.
+	 */
+
+	public int changePosition(int k) {
+		return changes[k];
+	}
+
+	/**
+	 * Records in the change log (if changes are being tracked) that the
+	 * features of Annotation <I>ann</I> have been changed.
+	 */
+
+	public void annotationModified(Annotation ann) {
+		recordChange(ann.span.start);
+	}
+
+	private void recordChange(int posn) {
+		if (changes == null)
+			return;
+		if (changeCount == changes.length)
+			changes = Arrays.copyOf(changes, 2 * changeCount);
+		changes[changeCount++] = posn;
+	}
+
 	/**
 	 * Removes annotation <I>ann</I> from the document. Does nothing if ann is
 	 * not an annotation on the document.
 	 */
 
 	public void removeAnnotation(Annotation ann) {
+		recordChange(ann.span.start);
+		if (store != null) {
+			store.remove(ann);
+			return;
+		}
 		Integer start = new Integer(ann.span.start);
 		Vector vs = (Vector) annotationsByStart.get(start);
 		if (vs != null)
@@ -282,6 +444,9 @@ public class Document implements Serializable {
 		Vector vt = (Vector) annotationsByType.get(type);
 		if (vt != null)
 			vt.remove(ann);
+		AnnotationIndex index = indexByType.get(type);
+		if (index != null)
+			index.remove(ann);
 	}
 
 	/**
@@ -305,6 +470,8 @@ public class Document implements Serializable {
 	 */
 
 	public Vector<Annotation> annotationsAt(int start) {
+		if (store != null)
+			return activeStoredAnnotations(store.annotationsAt(start));
 		Integer s = new Integer(start);
 		Vector v = (Vector) annotationsByStart.get(s);
 		if (v == null)
@@ -363,6 +530,8 @@ public class Document implements Serializable {
 	 */
 
 	public Vector<Annotation> annotationsEndingAt(int end) {
+		if (store != null)
+			return activeStoredAnnotations(store.annotationsEndingAt(end));
 		Integer e = new Integer(end);
 		Vector v = (Vector) annotationsByEnd.get(e);
 		if (v == null)
@@ -432,6 +601,8 @@ public class Document implements Serializable {
 	 */
 
 	public Vector<Annotation> annotationsOfType(String type) {
+		if (store != null)
+			return activeStoredAnnotations(store.annotationsOfType(AnnotationTypes.lookup(type)));
 		Vector v = (Vector) annotationsByType.get(type);
 		return activeAnnotations(v);
 	}
@@ -444,21 +615,54 @@ public class Document implements Serializable {
 	 */
 
 	public Vector<Annotation> annotationsOfType(String type, Span span) {
-		Vector v = annotationsOfType(type);
-		if (v == null)
-			return null;
 		if (span == null)
-			return v;
-		Vector result = new Vector();
-		for (int i = 0; i < v.size(); i++) {
-			Annotation a = (Annotation) v.get(i);
-			if (a.span().within(span))
-				result.add(a);
-		}
-		if (result.size() > 0)
-			return result;
-		else
+			return annotationsOfType(type);
+		return annotationsWithin(type, span);
+	}
+
+	/**
+	 * Returns a vector of all annotations of type <I>type</I> whose span is
+	 * contained within <I>span</I>, in the order in which they were added to
+	 * the document.  Returns <CODE>null</CODE> if there are no such annotations.
+	 */
+
+	public Vector<Annotation> annotationsWithin(String type, Span span) {
+		if (store != null)
+			return nullIfEmpty(activeStoredAnnotations(
+					store.within(AnnotationTypes.lookup(type), span.start(), span.end())));
+		AnnotationIndex index = indexByType.get(type);
+		if (index == null)
 			return null;
+		Vector<Annotation> v = index.within(span.start(), span.end());
+		if (activeHypotheses != null)
+			v = activeAnnotations(v);
+		return nullIfEmpty(v);
+	}
+
+	/**
+	 * Returns a vector of all annotations of type <I>type</I> whose span
+	 * overlaps <I>span</I> (starts before the end of <I>span</I> and ends
+	 * after its start), in the order in which they were added to the document.
+	 * Returns <CODE>null</CODE> if there are no such annotations.
+	 */
+
+	public Vector<Annotation> annotationsOverlapping(String type, Span span) {
+		if (store != null)
+			return nullIfEmpty(activeStoredAnnotations(
+					store.overlapping(AnnotationTypes.lookup(type), span.start(), span.end())));
+		AnnotationIndex index = indexByType.get(type);
+		if (index == null)
+			return null;
+		Vector<Annotation> v = index.overlapping(span.start(), span.end());
+		if (activeHypotheses != null)
+			v = activeAnnotations(v);
+		return nullIfEmpty(v);
+	}
+
+	private static Vector<Annotation> nullIfEmpty(Vector<Annotation> v) {
+		if (v == null || v.size() == 0)
+			return null;
+		return v;
 	}
 
 	/**
@@ -480,6 +684,7 @@ public class Document implements Serializable {
 
 	public void setActiveHypotheses(Set hypoIdSet) {
 		activeHypotheses = hypoIdSet;
+		recordChange(-1);
 	}
 
 	/**
@@ -503,6 +708,18 @@ public class Document implements Serializable {
 		return newanns;
 	}
 
+	/**
+	 * filters a Vector of annotations freshly built from the compact store:
+	 * like {@link #activeAnnotations}, but without copying the Vector if
+	 * <code>activeHypotheses</code> is null.
+	 */
+
+	private Vector<Annotation> activeStoredAnnotations(Vector<Annotation> anns) {
+		if (anns == null || activeHypotheses == null)
+			return anns;
+		return activeAnnotations(anns);
+	}
+
 	/**
 	 * Returns a vector of all annotation types. Returns <B>null</B> if there
 	 * are no annotation types. <B>Warning:</B> do not modify the returned
@@ -510,6 +727,8 @@ public class Document implements Serializable {
 	 */
 
 	public String[] getAnnotationTypes() {
+		if (store != null)
+			return store.getAnnotationTypes();
 		return (String[]) annotationsByType.keySet().toArray(new String[0]);
 	}
 
@@ -802,6 +1021,14 @@ public class Document implements Serializable {
 	 */
 
 	public void stretch(Annotation ann) {
+		if (store != null) {
+			int posn = ann.span.end;
+			while (posn < text.length() && !store.hasAnnotationAt(posn, ann)
+					&& Character.isWhitespace(charAt(posn)))
+				posn++;
+			setEnd(ann, posn);
+			return;
+		}
 		removeAnnotation(ann);
 		Span s = ann.span();
 		int posn = s.end();
@@ -809,7 +1036,18 @@ public class Document implements Serializable {
 				&& Character.isWhitespace(charAt(posn)))
 			posn++;
 		s.setEnd(posn);
-		addAnnotation(ann);
+		readdAnnotation(ann);
+	}
+
+	/**
+	 * moves the end of <CODE>ann</CODE>, which is in the compact store, to
+	 * <CODE>posn</CODE> without removing it from the store.
+	 */
+
+	private void setEnd(Annotation ann, int posn) {
+		recordChange(ann.span.start);
+		store.setEnd(ann, posn);
+		ann.span.setEnd(posn);
 	}
 
 	/**
@@ -844,14 +1082,28 @@ public class Document implements Serializable {
 	 */
 
 	public void shrink(Annotation ann) {
-		removeAnnotation(ann);
 		Span s = ann.span();
 		int start = s.start();
 		int posn = s.end();
 		while (posn > start && Character.isWhitespace(charAt(posn - 1)))
 			posn--;
+		if (store != null) {
+			setEnd(ann, posn);
+			return;
+		}
+		removeAnnotation(ann);
 		s.setEnd(posn);
+		readdAnnotation(ann);
+	}
+
+	/**
+	 * adds back an annotation which was removed to move its end;  this is
+	 * not counted by {@link #annotationsAdded()}.
+	 */
+
+	private void readdAnnotation(Annotation ann) {
 		addAnnotation(ann);
+		annotationsAdded--;
 	}
 
 	/**
@@ -16,8 +16,13 @@ import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
+import java.io.PushbackInputStream;
+import java.io.RandomAccessFile;
 import java.io.Writer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.util.zip.GZIPInputStream;
 
 /**
  * Utility class for input and output.
@@ -132,4 +137,100 @@ public class IOUtils {
 		Charset charset = Charset.forName(encoding);
 		return getBufferedReader(file, charset);
 	}
+
+	/**
+	 * Returns InputStream for reading from <code>file</code> through a memory
+	 * mapping of the file, so that the file is read without copying it into
+	 * buffers on the heap. If the file is compressed with gzip, the stream
+	 * returns the uncompressed content.
+	 */
+	public static InputStream openMappedInputStream(File file) throws IOException {
+		PushbackInputStream in = new PushbackInputStream(new MappedInputStream(file), 2);
+		byte[] magic = new byte[2];
+		int n = 0;
+		int count;
+		while (n < 2 && (count = in.read(magic, n, 2 - n)) > 0) {
+			n += count;
+		}
+		in.unread(magic, 0, n);
+		if (n == 2 && (magic[0] & 0xff) == 0x1f && (magic[1] & 0xff) == 0x8b) {
+			return new GZIPInputStream(in, 65536);
+		}
+		return in;
+	}
+
+	/**
+	 * Returns BufferedReader for reading from <code>file</code> through a
+	 * memory mapping of the file, decompressing it if it is compressed with
+	 * gzip. If <code>encoding</code> is null, the default encoding is used.
+	 */
+	public static BufferedReader getMappedReader(File file, String encoding) throws IOException {
+		InputStream in = openMappedInputStream(file);
+		Reader reader = (encoding == null) ? new InputStreamReader(in)
+				: new InputStreamReader(in, encoding);
+		return new BufferedReader(reader);
+	}
+
+	/**
+	 * An InputStream reading a file through successive memory-mapped windows.
+	 */
+	private static class MappedInputStream extends InputStream {
+		// the size of each window mapped
+		private static final long WINDOW = 1L << 26;
+
+		private final RandomAccessFile file;
+		private final FileChannel channel;
+		private final long size;
+		private long position = 0;
+		private MappedByteBuffer buffer = null;
+
+		MappedInputStream(File file) throws IOException {
+			this.file = new RandomAccessFile(file, "r");
+			this.channel = this.file.getChannel();
+			this.size = channel.size();
+		}
+
+		/**
+		 * Maps the next window of the file if the current one has been read.
+		 * Returns false at the end of the file.
+		 */
+		private boolean fill() throws IOException {
+			if (buffer != null && buffer.hasRemaining()) {
+				return true;
+			}
+			if (position >= size) {
+				return false;
+			}
+			long length = Math.min(WINDOW, size - position);
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+			position += length;
+			return true;
+		}
+
+		public int read() throws IOException {
+			return fill() ? buffer.get() & 0xff : -1;
+		}
+
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0) {
+				return 0;
+			}
+			if (!fill()) {
+				return -1;
+			}
+			int n = Math.min(len, buffer.remaining());
+			buffer.get(b, off, n);
+			return n;
+		}
+
+		public int available() throws IOException {
+			long remaining = size - position + (buffer == null ? 0 : buffer.remaining());
+			return (int) Math.min(remaining, Integer.MAX_VALUE);
+		}
+
+		public void close() throws IOException {
+			buffer = null;
+			file.close();
+		}
+	}
 }
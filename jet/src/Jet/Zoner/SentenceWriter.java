@@ -11,6 +11,7 @@ import Jet.Tipster.*;
 import AceJet.Ace;
 import java.util.*;
 import java.io.*;
+import Jet.PipelineContext;
 
 /**
  *  split a document into sentences and write the information about the
@@ -121,7 +122,7 @@ public class SentenceWriter {
 				Annotation ann = (Annotation)it.next ();
 				Span textSpan = ann.span ();
 				// check document case
-				Ace.monocase = Ace.allLowerCase(doc);
+				PipelineContext.current().monocase = Ace.allLowerCase(doc);
 				// split into sentences
 				SentenceSplitter.split (doc, textSpan);
 			}
@@ -13,6 +13,7 @@ import Jet.JetTest;
 import Jet.Control;
 import java.util.*;
 import java.io.*;
+import Jet.PipelineContext;
 
 /**
  *  write a Document out, one sentence per line, with tags as gnerated by
@@ -77,7 +78,7 @@ public class TaggedSentenceWriter {
 			doc.setAllTags(true);
 			doc.open();
 			// check document case
-			Ace.monocase = Ace.allLowerCase(doc);
+			PipelineContext.current().monocase = Ace.allLowerCase(doc);
 			Control.processDocument (doc, null, false, docCount);
 			for (String type : types)
 				doc.shrink(type);
@@ -101,7 +102,7 @@ public class TaggedSentenceWriter {
 			for (Annotation ann : textSegments) {
 				Span textSpan = ann.span ();
 				// check document case
-				Ace.monocase = Ace.allLowerCase(doc);
+				PipelineContext.current().monocase = Ace.allLowerCase(doc);
 				// split into sentences
 				SentenceSplitter.split (doc, textSpan);
 			}
@@ -0,0 +1,101 @@
+package Jet;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+public class BatchProcessorTest extends TestCase {
+
+	private static BufferedReader docList(int n) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 1; i <= n; i++)
+			sb.append("doc").append(i).append('\n');
+		return new BufferedReader(new StringReader(sb.toString()));
+	}
+
+	public void testDocumentsNumberedInListOrder() throws Exception {
+		final Map<String, Integer> numbers = new ConcurrentHashMap<String, Integer>();
+		BatchProcessor batch = new BatchProcessor(4, 8);
+		batch.run(docList(50), new BatchProcessor.DocumentTask() {
+			public int process(int docNo, String docName) {
+				numbers.put(docName, docNo);
+				return 10;
+			}
+		});
+		assertEquals(50, numbers.size());
+		for (int i = 1; i <= 50; i++)
+			assertEquals(Integer.valueOf(i), numbers.get("doc" + i));
+		assertEquals(50, batch.getDocsProcessed());
+		assertEquals(500, batch.getTokensProcessed());
+	}
+
+	public void testErrorIsolation() throws Exception {
+		BatchProcessor batch = new BatchProcessor(3, 3);
+		batch.run(docList(10), new BatchProcessor.DocumentTask() {
+			public int process(int docNo, String docName) {
+				if (docNo % 5 == 0)
+					throw new IllegalStateException("bad document " + docName);
+				return 1;
+			}
+		});
+		assertEquals(8, batch.getDocsProcessed());
+		assertEquals(2, batch.getDocsFailed());
+	}
+
+	public void testErrorIsCountedAsFailure() throws Exception {
+		BatchProcessor batch = new BatchProcessor(2, 2);
+		batch.run(docList(10), new BatchProcessor.DocumentTask() {
+			public int process(int docNo, String docName) {
+				if (docNo % 3 == 0)
+					throw new StackOverflowError("deep document " + docName);
+				return 1;
+			}
+		});
+		assertEquals(7, batch.getDocsProcessed());
+		assertEquals(3, batch.getDocsFailed());
+	}
+
+	public void testInFlightBound() throws Exception {
+		final AtomicInteger active = new AtomicInteger();
+		final AtomicInteger maxActive = new AtomicInteger();
+		final AtomicInteger read = new AtomicInteger();
+		final AtomicInteger done = new AtomicInteger();
+		final AtomicInteger maxPending = new AtomicInteger();
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 40; i++)
+			sb.append("doc\n");
+		BufferedReader list = new BufferedReader(new StringReader(sb.toString())) {
+			public String readLine() throws java.io.IOException {
+				String line = super.readLine();
+				if (line != null) {
+					int pending = read.incrementAndGet() - done.get();
+					if (pending > maxPending.get())
+						maxPending.set(pending);
+				}
+				return line;
+			}
+		};
+		BatchProcessor batch = new BatchProcessor(2, 3);
+		batch.run(list, new BatchProcessor.DocumentTask() {
+			public int process(int docNo, String docName) throws Exception {
+				int a = active.incrementAndGet();
+				synchronized (maxActive) {
+					if (a > maxActive.get())
+						maxActive.set(a);
+				}
+				Thread.sleep(2);
+				active.decrementAndGet();
+				done.incrementAndGet();
+				return 0;
+			}
+		});
+		assertEquals(40, batch.getDocsProcessed());
+		assertTrue(maxActive.get() <= 2);
+		// at most 3 documents in flight, plus the one just read
+		assertTrue(maxPending.get() <= 4);
+	}
+}
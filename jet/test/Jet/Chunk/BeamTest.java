@@ -0,0 +1,46 @@
+package Jet.Chunk;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+public class BeamTest extends TestCase {
+
+	private static final double FLOOR = -1.0E100;
+
+	private static String select(Beam beam, double[] score) {
+		int[] active = new int[score.length];
+		int n = beam.select(score, score.length, FLOOR, active);
+		return Arrays.toString(Arrays.copyOf(active, n));
+	}
+
+	public void testParse() {
+		assertNull(Beam.parse(null));
+		assertNull(Beam.parse(" "));
+		assertEquals("top 8", Beam.parse("8").toString());
+		assertEquals("top 4 threshold 10.0", Beam.parse("top 4  threshold 10").toString());
+		assertEquals(0, Beam.parse("threshold 2.5").getWidth());
+		try {
+			Beam.parse("top");
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	public void testTopK() {
+		double[] score = {-3, -1, FLOOR, -2, -1, -7};
+		assertEquals("[1, 3, 4]", select(new Beam(3, 0), score));
+		// ties for the last place go to the lower numbered state
+		assertEquals("[1, 4]", select(new Beam(2, 0), score));
+		assertEquals("[1]", select(new Beam(1, 0), score));
+		// unreachable states are never kept
+		assertEquals("[0, 1, 3, 4, 5]", select(new Beam(10, 0), score));
+	}
+
+	public void testThreshold() {
+		double[] score = {-3, -1, FLOOR, -2, -1, -7};
+		assertEquals("[1, 3, 4]", select(new Beam(0, 1.5), score));
+		assertEquals("[1, 4]", select(new Beam(0, 1.0), score));
+		assertEquals("[1]", select(new Beam(1, 1.5), score));
+	}
+}
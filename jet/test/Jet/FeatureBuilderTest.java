@@ -0,0 +1,44 @@
+package Jet;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+public class FeatureBuilderTest extends TestCase {
+
+	public void testMaterializeFeatures() {
+		FeatureBuilder f = new FeatureBuilder();
+		f.add("w", "dog").add("onoma", null).add("cityContext");
+		f.begin().append("p2=").append("the").append(':').append("big").end();
+		assertTrue(Arrays.equals(new String[] {"w=dog", "onoma", "cityContext", "p2=the:big"},
+		                         f.toArray()));
+		for (int i = 0; i < f.size(); i++) {
+			assertEquals(FeatureBuilder.hash(f.feature(i)), f.hash(i));
+			assertEquals(FeatureBuilder.check(f.feature(i)), f.check(i));
+		}
+	}
+
+	public void testReuseAndGrowth() {
+		FeatureBuilder f = new FeatureBuilder();
+		f.add("a", "1").begin().append("unfinished");
+		f.reset();
+		for (int i = 0; i < 100; i++)
+			f.begin().append("f").append(':').append(Integer.toString(i)).end();
+		assertEquals(100, f.size());
+		assertEquals("f:0", f.feature(0));
+		assertEquals("f:99", f.feature(99));
+		// a feature which is begun but not ended is discarded by the next begin
+		f.reset().add("x").begin().append("lost");
+		f.add("y");
+		assertTrue(Arrays.equals(new String[] {"x", "y"}, f.toArray()));
+	}
+
+	public void testExtendHash() {
+		FeatureBuilder f = new FeatureBuilder();
+		f.begin().append("pt=").append("").end();
+		assertEquals(FeatureBuilder.hash("pt=B-PERSON"),
+		             FeatureBuilder.hash(f.hash(0), "B-PERSON"));
+		assertEquals(FeatureBuilder.check("pt=B-PERSON"),
+		             FeatureBuilder.check(f.check(0), "B-PERSON"));
+	}
+}
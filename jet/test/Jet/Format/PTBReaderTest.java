@@ -4,10 +4,14 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
 import java.io.StringReader;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Vector;
+import java.util.zip.GZIPOutputStream;
 
 import junit.framework.JUnit4TestAdapter;
 
@@ -213,6 +217,49 @@ public class PTBReaderTest {
 				.writeSGML("constit", sentences.get(1).span()).toString().replaceAll("\n", ""));
 	}
 
+	@Test
+	public void testAddAnnotationsFromFile() throws Exception {
+		String source = "<sentence>That is the difference. </sentence>\n"
+				+ "<sentence>The warning had its effect. </sentence>";
+		String[] ptb = {"(S1 (S (NP (DT That)) (VP (AUX is) (NP (DT the) (NN difference))) (. .)))",
+				"(S1 (S (NP (DT The) (NN warning)) (VP (AUX had) (NP (PRP$ its) (NN effect))) (. .)))"};
+
+		for (boolean gzip : new boolean[] {false, true}) {
+			Document doc = new Document(source);
+			doc.annotateWithTag("sentence");
+			List<Annotation> sentences = (List<Annotation>) doc.annotationsOfType("sentence");
+			StringBuilder trees = new StringBuilder();
+			for (int i = 0; i < ptb.length; i++) {
+				trees.append("# " + sentences.get(i).start() + "\n" + ptb[i] + "\n");
+			}
+			File file = File.createTempFile("ptb", gzip ? ".chout.gz" : ".chout");
+			try {
+				OutputStream out = new FileOutputStream(file);
+				if (gzip) {
+					out = new GZIPOutputStream(out);
+				}
+				out.write(trees.toString().getBytes("UTF-8"));
+				out.close();
+
+				Document expected = new Document(source);
+				expected.annotateWithTag("sentence");
+				PTBReader reader = new PTBReader();
+				List<ParseTreeNode> parseTrees = reader.loadParseTrees(file);
+				assertEquals(2, parseTrees.size());
+				reader.addAnnotations(parseTrees, reader.getOffsets(), expected, "sentence",
+						expected.fullSpan(), false);
+
+				new PTBReader().addAnnotations(file, doc, "sentence", doc.fullSpan(), false);
+				assertEquals(expected.writeSGML("constit").toString(),
+						doc.writeSGML("constit").toString());
+				assertTrue(doc.writeSGML("constit").toString().contains("<constit cat=\"nn\">warning </constit>"));
+				assertNotNull(sentences.get(1).get("parse"));
+			} finally {
+				file.delete();
+			}
+		}
+	}
+
 	@Test
 	public void testNoneNode() throws Exception {
 		String source = "(S (NP A) (-NONE- *) (NP B) )";
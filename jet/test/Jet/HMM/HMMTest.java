@@ -0,0 +1,146 @@
+package Jet.HMM;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+import Jet.Chunk.Beam;
+import Jet.Tipster.Annotation;
+import Jet.Tipster.Document;
+import Jet.Tipster.Span;
+
+public class HMMTest extends TestCase {
+
+	private static final String MODEL =
+		"STATE start\n" +
+		"ARC TO adj 3\n" +
+		"ARC TO noun 1\n" +
+		"STATE adj\n" +
+		"TAG JJ\n" +
+		"ARC TO noun 3\n" +
+		"ARC TO adj 1\n" +
+		"EMIT safe 1\n" +
+		"EMIT big 3\n" +
+		"STATE noun\n" +
+		"TAG NN\n" +
+		"ARC TO noun 1\n" +
+		"ARC TO end 4\n" +
+		"EMIT cat 2\n" +
+		"EMIT nap 1\n" +
+		"EMIT safe 1\n" +
+		"EMIT cracker 1\n" +
+		"STATE end\n";
+
+	private HMM hmm;
+
+	protected void setUp() throws Exception {
+		hmm = new HMM(BasicHMMemitter.class);
+		hmm.load(new StringReader(MODEL));
+	}
+
+	private static Annotation[] tokenize(Document doc) {
+		String text = doc.text();
+		List<Annotation> tokens = new ArrayList<Annotation>();
+		int start = 0;
+		for (int i = 0; i <= text.length(); i++) {
+			if (i == text.length() || text.charAt(i) == ' ') {
+				if (i > start)
+					tokens.add(doc.annotate("token", new Span(start, i), null));
+				start = i + 1;
+			}
+		}
+		return tokens.toArray(new Annotation[tokens.size()]);
+	}
+
+	private String[] tag(String sentence) {
+		Document doc = new Document(sentence);
+		return hmm.viterbi(doc, tokenize(doc));
+	}
+
+	public void testViterbi() {
+		String[] tags = tag("big big cat nap");
+		assertEquals("[JJ, JJ, NN, NN]", Arrays.toString(tags));
+		assertEquals(-6.8662796368933074, hmm.getPathProbability(), 1e-9);
+	}
+
+	public void testLatticeReusedAcrossSentences() {
+		String[] first = tag("big big cat nap");
+		double p = hmm.getPathProbability();
+		tag("big safe big safe big cat cat nap cracker safe cat");
+		tag("cat");
+		String[] again = tag("big big cat nap");
+		assertEquals(Arrays.toString(first), Arrays.toString(again));
+		assertEquals(p, hmm.getPathProbability(), 0.0);
+	}
+
+	public void testNbestAfterReuse() {
+		hmm.setNbest();
+		tag("big safe big safe big cat cat nap cracker safe cat");
+		Document doc = new Document("big big cat nap");
+		int[] best = hmm.viterbiPath(doc, tokenize(doc));
+		assertEquals("[ 0 1 1 2 2 3 ]", HMM.pathString(best).trim());
+		int[] second = hmm.nextBestPath();
+		assertEquals("[ 0 1 1 1 2 3 ]", HMM.pathString(second).trim());
+		assertEquals(-17.709774447920907, hmm.getPathProbability(), 1e-9);
+	}
+
+	public void testDecodersHaveSeparateState() {
+		HMMDecoder d1 = new HMMDecoder(hmm);
+		HMMDecoder d2 = new HMMDecoder(hmm);
+		d1.setNbest();
+		Document doc1 = new Document("big big cat nap");
+		Document doc2 = new Document("cat");
+		d1.viterbiPath(doc1, tokenize(doc1));
+		d2.viterbiPath(doc2, tokenize(doc2));
+		assertEquals(-6.8662796368933074, d1.getPathProbability(), 1e-9);
+		assertEquals("[ 0 1 1 1 2 3 ]", HMM.pathString(d1.nextBestPath()).trim());
+		assertNull(d2.nextBestPath());
+	}
+
+	public void testConcurrentDecoding() throws Exception {
+		final String sentence = "big safe big safe big cat cat nap cracker safe cat";
+		final String expected = Arrays.toString(tag(sentence));
+		final List<String> results = new ArrayList<String>();
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread() {
+				public void run() {
+					HMMDecoder decoder = new HMMDecoder(hmm);
+					String result = expected;
+					for (int i = 0; i < 200; i++) {
+						Document doc = new Document(i % 2 == 0 ? sentence : "cat nap");
+						String tags = Arrays.toString(decoder.viterbi(doc, tokenize(doc)));
+						if (i % 2 == 0 && !tags.equals(expected))
+							result = tags;
+					}
+					synchronized (results) {
+						results.add(result);
+					}
+				}
+			};
+			threads[t].start();
+		}
+		for (int t = 0; t < threads.length; t++)
+			threads[t].join();
+		assertEquals(threads.length, results.size());
+		for (String result : results)
+			assertEquals(expected, result);
+	}
+
+	public void testBeam() {
+		String sentence = "big safe big safe big cat cat nap cracker safe cat";
+		String exact = Arrays.toString(tag(sentence));
+		double exactProb = hmm.getPathProbability();
+		hmm.setBeam(new Beam(2, 0));
+		assertEquals(exact, Arrays.toString(tag(sentence)));
+		assertEquals(exactProb, hmm.getPathProbability(), 0.0);
+		// a beam of 1 is a greedy decoder, which must still find a path
+		HMMDecoder greedy = new HMMDecoder(hmm);
+		greedy.setBeam(new Beam(1, 0));
+		Document doc = new Document(sentence);
+		assertNotNull(greedy.viterbi(doc, tokenize(doc)));
+		assertTrue(greedy.getPathProbability() <= exactProb);
+	}
+}
@@ -13,4 +13,57 @@ public class FeatureSetTest extends TestCase {
 		assertTrue(a.equals(b));
 		assertEquals(a, b);
 	}
+
+	public void testHashCode() {
+		FeatureSet a = new FeatureSet("cat", "n", "number", "plural");
+		FeatureSet b = new FeatureSet("number", "plural");
+		b.put("cat", "n");
+
+		assertEquals(a, b);
+		assertEquals(a.hashCode(), b.hashCode());
+		b.put("cat", "v");
+		assertFalse(a.equals(b));
+	}
+
+	public void testLookupWithoutInterning() {
+		FeatureSet a = new FeatureSet("cat", "n", "number", "plural");
+		String cat = new String("cat");
+		assertEquals("n", a.get(cat));
+		a.put(cat, "v");
+		assertEquals(2, a.size());
+		assertEquals("v", a.get("cat"));
+	}
+
+	public void testLargeFeatureSet() {
+		FeatureSet a = new FeatureSet();
+		for (int i = 0; i < 40; i++)
+			a.put("f" + i, Integer.valueOf(i));
+		assertEquals(40, a.size());
+		for (int i = 0; i < 40; i++)
+			assertEquals(Integer.valueOf(i), a.get("f" + i));
+		a.remove("f7");
+		assertNull(a.get("f7"));
+		assertFalse(a.containsFeature("f7"));
+		assertEquals("f8", a.feature(7));
+		assertEquals(Integer.valueOf(39), a.get("f39"));
+	}
+
+	public void testFrozenCopyOnWrite() {
+		FeatureSet definition = new FeatureSet("cat", "n", "number", "singular").freeze();
+		assertTrue(definition.isFrozen());
+		try {
+			definition.put("cat", "v");
+			fail("modified an immutable FeatureSet");
+		} catch (UnsupportedOperationException e) {
+		}
+
+		FeatureSet copy = new FeatureSet(definition);
+		assertFalse(copy.isFrozen());
+		copy.put("cat", "v");
+		copy.remove("number");
+		assertEquals("v", copy.get("cat"));
+		assertEquals(1, copy.size());
+		assertEquals("n", definition.get("cat"));
+		assertEquals("singular", definition.get("number"));
+	}
 }
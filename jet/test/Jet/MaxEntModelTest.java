@@ -0,0 +1,47 @@
+package Jet;
+
+import junit.framework.TestCase;
+import opennlp.maxent.GISModel;
+import opennlp.model.Context;
+import AceJet.Datum;
+
+public class MaxEntModelTest extends TestCase {
+
+	private MaxEntModel model(double correctionParam) {
+		Context[] params = {
+			new Context(new int[] {0, 1}, new double[] {0.5, -1.25}),
+			new Context(new int[] {1, 2}, new double[] {2.0, 0.75}),
+			new Context(new int[] {0, 2}, new double[] {-0.3, 1.1})};
+		MaxEntModel m = new MaxEntModel();
+		m.model = new GISModel(params, new String[] {"a", "b", "c"},
+		                       new String[] {"x", "y", "z"}, 3, correctionParam);
+		return m;
+	}
+
+	private void checkScoredInParts(MaxEntModel m) {
+		Datum d = new Datum();
+		d.addF("a");
+		d.addF("unknown");
+		d.addF("c");
+		d.addF("b");
+		double[] expected = m.getOutcomeProbabilities(d);
+		double[] sum = new double[3];
+		int[] count = new int[3];
+		m.startScore(sum, count);
+		m.addWeights(new String[] {"c", "unknown"}, sum, count);
+		m.addWeights("a", sum, count);
+		m.addWeights("b", sum, count);
+		double[] prob = new double[3];
+		m.getOutcomeProbabilities(sum, count, prob);
+		for (int i = 0; i < 3; i++)
+			assertEquals(expected[i], prob[i], 1e-12);
+	}
+
+	public void testScoredInParts() {
+		checkScoredInParts(model(0.));
+	}
+
+	public void testScoredInPartsWithCorrection() {
+		checkScoredInParts(model(0.4));
+	}
+}
@@ -0,0 +1,97 @@
+package Jet;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.StringWriter;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+import opennlp.maxent.GISModel;
+import opennlp.model.Context;
+
+public class MaxEntScorerTest extends TestCase {
+
+	private GISModel model(double correctionParam) {
+		Context[] params = {
+			new Context(new int[] {0, 1}, new double[] {0.5, -1.25}),
+			new Context(new int[] {1, 2}, new double[] {2.0, 0.75}),
+			new Context(new int[] {0, 2}, new double[] {-0.3, 1.1})};
+		return new GISModel(params, new String[] {"w=a", "w=b", "pos=NN:VB"},
+		                    new String[] {"x", "y", "z"}, 3, correctionParam);
+	}
+
+	public void testBuilderHashesLikeString() {
+		FeatureBuilder f = new FeatureBuilder();
+		f.begin().append("pos=").append("NN").append(':').append("VB").end();
+		f.add("w", "a");
+		f.add("w", null);
+		f.begin().append("x=").append((String) null).end();
+		assertEquals(4, f.size());
+		assertEquals(FeatureBuilder.hash("pos=NN:VB"), f.hash(0));
+		assertEquals(FeatureBuilder.hash("w=a"), f.hash(1));
+		assertEquals(FeatureBuilder.hash("w"), f.hash(2));
+		assertEquals(FeatureBuilder.hash("x=null"), f.hash(3));
+		assertEquals(FeatureBuilder.check("pos=NN:VB"), f.check(0));
+		assertEquals(FeatureBuilder.check("x=null"), f.check(3));
+		f.reset();
+		assertEquals(0, f.size());
+	}
+
+	public void testSameProbabilitiesAsGISModel() {
+		double[] correction = {0., 0.4};
+		for (int c = 0; c < correction.length; c++) {
+			GISModel m = model(correction[c]);
+			MaxEntScorer scorer = new MaxEntScorer(m);
+			String[] features = {"w=b", "unknown", "pos=NN:VB", "w=a", "w=b"};
+			double[] expected = m.eval(features);
+			assertTrue(Arrays.equals(expected, scorer.eval(features)));
+			FeatureBuilder f = new FeatureBuilder();
+			for (int i = 0; i < 40; i++)
+				f.reset().add("w", "b").add("unknown").add("pos=NN:VB").add("w=a").add("w", "b");
+			double[] prob = new double[3];
+			scorer.eval(f, prob);
+			assertTrue(Arrays.equals(expected, prob));
+			assertEquals(m.getBestOutcome(expected), scorer.getBestOutcome(prob));
+			assertEquals(2, scorer.getIndex("z"));
+			assertEquals(-1, scorer.getIndex("none"));
+		}
+	}
+
+	public void testHashHitIsChecked() {
+		MaxEntScorer scorer = new MaxEntScorer(model(0.));
+		double[] sum = new double[3];
+		int[] count = new int[3];
+		// a feature with the hash of predicate "w=a" but another text
+		scorer.start(sum, count);
+		scorer.addWeights(FeatureBuilder.hash("w=a"), FeatureBuilder.check("w=c"), sum, count);
+		assertTrue(Arrays.equals(new int[3], count));
+		scorer.addWeights(FeatureBuilder.hash("w=a"), FeatureBuilder.check("w=a"), sum, count);
+		assertTrue(Arrays.equals(new int[] {1, 1, 0}, count));
+	}
+
+	public void testBinaryModelRoundTrip() throws Exception {
+		GISModel m = model(0.4);
+		File file = File.createTempFile("model", ".bin");
+		try {
+			new MaxEntScorer(m).save(file);
+			assertTrue(MaxEntScorer.isBinaryModel(file));
+			MaxEntScorer loaded = MaxEntScorer.load(file);
+			assertNull(loaded.getModel());
+			String[] features = {"w=b", "unknown", "pos=NN:VB", "w=a"};
+			double[] expected = m.eval(features);
+			assertTrue(Arrays.equals(expected, loaded.eval(features)));
+			assertTrue(Arrays.equals(expected, loaded.toGISModel().eval(features)));
+			assertEquals("y", loaded.getOutcome(1));
+			MaxEntModel model = new MaxEntModel();
+			model.loadModel(file.getPath());
+			assertTrue(model.isLoaded());
+			assertEquals(3, model.getNumOutcomes());
+			// writing the model as a GIS model keeps the loaded scorer
+			MaxEntScorer scorer = model.getScorer();
+			model.saveModel(new BufferedWriter(new StringWriter()));
+			assertSame(scorer, model.getScorer());
+		} finally {
+			file.delete();
+		}
+	}
+}
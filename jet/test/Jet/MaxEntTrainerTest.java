@@ -0,0 +1,103 @@
+package Jet;
+
+import java.io.*;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+import opennlp.maxent.BasicEventStream;
+import opennlp.maxent.GIS;
+import opennlp.maxent.GISModel;
+import opennlp.maxent.PlainTextByLineDataStream;
+import opennlp.maxent.io.SuffixSensitiveGISModelReader;
+import opennlp.maxent.io.SuffixSensitiveGISModelWriter;
+
+public class MaxEntTrainerTest extends TestCase {
+
+	private static final String[] EVENTS = {
+		"w=the pos=DT B-NP",
+		"w=dog pos=NN prev=the I-NP",
+		"w=barks pos=VBZ prev=dog B-VP",
+		"w=the pos=DT B-NP",
+		"w=cat pos=NN prev=the I-NP",
+		"w=sleeps pos=VBZ prev=cat B-VP",
+		"w=a pos=DT B-NP",
+		"w=dog pos=NN prev=a I-NP",
+		"w=sleeps pos=VBZ prev=dog B-VP",
+		"w=rare pos=JJ O"};
+
+	private File eventFile() throws IOException {
+		File file = File.createTempFile("events", ".txt");
+		PrintStream out = new PrintStream(new FileOutputStream(file));
+		for (String event : EVENTS)
+			out.println(event);
+		out.close();
+		return file;
+	}
+
+	private GISModel train(File events, int threads, boolean l2) throws IOException {
+		MaxEntTrainer trainer = new MaxEntTrainer();
+		trainer.setThreads(threads);
+		trainer.setPrintMessages(false);
+		if (l2)
+			trainer.setL2(2);
+		return trainer.train(events.getPath());
+	}
+
+	private String[] features(String event) {
+		String[] words = event.split(" ");
+		return Arrays.copyOf(words, words.length - 1);
+	}
+
+	private String outcome(String event) {
+		return event.substring(event.lastIndexOf(' ') + 1);
+	}
+
+	public void testGISSameAsOpenNLP() throws Exception {
+		File events = eventFile();
+		try {
+			GISModel ours = train(events, 2, false);
+			GISModel opennlp = GIS.trainModel(new BasicEventStream(new PlainTextByLineDataStream(
+				new FileReader(events))), 100, 0, false, false);
+			for (String event : EVENTS) {
+				double[] expected = opennlp.eval(features(event));
+				double[] prob = ours.eval(features(event));
+				for (int i = 0; i < expected.length; i++)
+					assertEquals(expected[i], prob[ours.getIndex(opennlp.getOutcome(i))], 1e-9);
+				assertEquals(outcome(event), ours.getBestOutcome(prob));
+			}
+		} finally {
+			events.delete();
+		}
+	}
+
+	public void testSameModelForAnyNumberOfThreads() throws Exception {
+		File events = eventFile();
+		File model1 = File.createTempFile("model1", ".txt");
+		File model4 = File.createTempFile("model4", ".txt");
+		try {
+			for (boolean l2 : new boolean[] {false, true}) {
+				new SuffixSensitiveGISModelWriter(train(events, 1, l2), model1).persist();
+				new SuffixSensitiveGISModelWriter(train(events, 4, l2), model4).persist();
+				assertEquals(readFile(model1), readFile(model4));
+				GISModel model = (GISModel) new SuffixSensitiveGISModelReader(model4).getModel();
+				for (String event : EVENTS)
+					if (!event.endsWith(" O"))
+						assertEquals(outcome(event), model.getBestOutcome(model.eval(features(event))));
+			}
+		} finally {
+			events.delete();
+			model1.delete();
+			model4.delete();
+		}
+	}
+
+	private String readFile(File file) throws IOException {
+		BufferedReader reader = new BufferedReader(new FileReader(file));
+		StringBuilder sb = new StringBuilder();
+		String line;
+		while ((line = reader.readLine()) != null)
+			sb.append(line).append('\n');
+		reader.close();
+		return sb.toString();
+	}
+}
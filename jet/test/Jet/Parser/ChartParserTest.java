@@ -0,0 +1,160 @@
+package Jet.Parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.StringReader;
+import java.util.Vector;
+
+import junit.framework.JUnit4TestAdapter;
+
+import org.junit.Test;
+
+import Jet.Lisp.FeatureSet;
+import Jet.Tipster.Document;
+import Jet.Tipster.Span;
+
+public class ChartParserTest {
+	public static junit.framework.Test suite() {
+		return new JUnit4TestAdapter(ChartParserTest.class);
+	}
+
+	private static final String GRAMMAR =
+		"sentence := np vp;\n" +
+		"np := pro | det adj n | np pp;\n" +
+		"adj := null | \"old\";\n" +
+		"vp := v np | vp pp;\n" +
+		"pp := \"with\" np | \"in\" np;\n";
+
+	/**
+	 * builds a document of the words of 'words', each followed by a blank,
+	 * with a token annotation for each word and a constit annotation with
+	 * category 'cats[i]' for each word which has one.
+	 */
+	private static Document document(String[] words, String[] cats) {
+		StringBuilder text = new StringBuilder();
+		for (String word : words)
+			text.append(word).append(' ');
+		Document doc = new Document(text.toString());
+		int posn = 0;
+		for (int i = 0; i < words.length; i++) {
+			Span span = new Span(posn, posn + words[i].length() + 1);
+			doc.annotate("token", span, new FeatureSet());
+			if (cats[i] != null)
+				doc.annotate("constit", span, new FeatureSet("cat", cats[i]));
+			posn = span.end();
+		}
+		return doc;
+	}
+
+	private static Grammar grammar() throws Exception {
+		return new Grammar(new StringReader(GRAMMAR));
+	}
+
+	@Test
+	public void testAttachmentAmbiguity() throws Exception {
+		Document doc = document(
+				new String[] {"I", "saw", "the", "old", "man", "with", "a", "telescope"},
+				new String[] {"pro", "v", "det", null, "n", null, "det", "n"});
+		ChartParser parser = new ChartParser(grammar());
+		ChartParser.ForestNode root = parser.parseForest(doc, 0, doc.length());
+		assertNotNull(root);
+		assertEquals(2L, root.countTrees());
+		Vector trees = parser.parse(doc, 0, doc.length(), 10);
+		assertEquals(2, trees.size());
+		ParseTreeNode tree = (ParseTreeNode) trees.get(0);
+		assertEquals("sentence", tree.category);
+		assertEquals(0, tree.start);
+		assertEquals(doc.length(), tree.end);
+		assertEquals(1, parser.parse(doc, 0, doc.length(), 1).size());
+	}
+
+	@Test
+	public void testPackedForest() throws Exception {
+		// each additional prepositional phrase multiplies the number of parses
+		String[] words = {"I", "saw", "a", "man", "in", "a", "park", "with", "a", "dog",
+				"in", "a", "car", "with", "a", "cat"};
+		String[] cats = {"pro", "v", "det", "n", "p", "det", "n", "p", "det", "n",
+				"p", "det", "n", "p", "det", "n"};
+		Document doc = document(words, cats);
+		// the bottom-up parser does not match literals
+		Grammar gram = new Grammar(new StringReader(
+				"sentence := np vp; np := pro | det n | np pp; vp := v np | vp pp; pp := p np;"));
+		ChartParser.ForestNode root = new ChartParser(gram).parseForest(doc, 0, doc.length());
+		assertNotNull(root);
+		// Catalan number C(5) of attachments of 4 pp's after the verb
+		assertEquals(42L, root.countTrees());
+		int parserType = Parsers.parserType;
+		boolean parserTrace = Parsers.parserTrace;
+		Parsers.parserTrace = false;
+		Parsers.parserType = Parsers.BUPARSE;
+		try {
+			assertEquals(42, Parsers.parse(doc, 0, doc.length(), gram).size());
+		} finally {
+			Parsers.parserType = parserType;
+			Parsers.parserTrace = parserTrace;
+		}
+	}
+
+	@Test
+	public void testConstitsWithDifferentFeatures() throws Exception {
+		Document doc = document(new String[] {"I", "fish"}, new String[] {"pro", "v"});
+		doc.annotate("constit", new Span(2, 7), new FeatureSet("cat", "v", "number", "plural"));
+		Grammar gram = new Grammar(new StringReader("sentence := np vp; np := pro; vp := v;"));
+		ChartParser parser = new ChartParser(gram);
+		ChartParser.ForestNode root = parser.parseForest(doc, 0, doc.length());
+		assertNotNull(root);
+		assertEquals(2L, root.countTrees());
+		Vector trees = parser.parse(doc, 0, doc.length(), 10);
+		assertEquals(2, trees.size());
+		ParseTreeNode v1 = ((ParseTreeNode) trees.get(0)).children[1].children[0];
+		ParseTreeNode v2 = ((ParseTreeNode) trees.get(1)).children[1].children[0];
+		assertNull(v1.ann.get("number"));
+		assertEquals("plural", v2.ann.get("number"));
+	}
+
+	@Test
+	public void testUnaryCycle() throws Exception {
+		// np and x derive each other;  both are reached from sentence, so the
+		// count for each must not depend on the path by which it is reached
+		Document doc = document(new String[] {"I"}, new String[] {"pro"});
+		Grammar gram = new Grammar(new StringReader(
+				"sentence := np | x; x := np; np := x | pro;"));
+		ChartParser parser = new ChartParser(gram);
+		ChartParser.ForestNode root = parser.parseForest(doc, 0, doc.length());
+		assertNotNull(root);
+		assertEquals(2L, root.countTrees());
+		assertEquals(2, root.getTrees(10).size());
+		root = new ChartParser(parser).parseForest(doc, 0, doc.length());
+		assertEquals(2L, root.countTrees());
+	}
+
+	@Test
+	public void testConstitWithoutCategory() throws Exception {
+		Document doc = document(new String[] {"I", "fish"}, new String[] {"pro", "v"});
+		doc.annotate("constit", new Span(2, 7), new FeatureSet());
+		Grammar gram = new Grammar(new StringReader("sentence := np vp; np := pro; vp := v;"));
+		ChartParser.ForestNode root = new ChartParser(gram).parseForest(doc, 0, doc.length());
+		assertNotNull(root);
+		assertEquals(1L, root.countTrees());
+	}
+
+	@Test
+	public void testBestFirst() throws Exception {
+		Document doc = document(
+				new String[] {"I", "saw", "the", "man", "with", "a", "telescope"},
+				new String[] {"pro", "v", "det", "n", null, "det", "n"});
+		ChartParser parser = new ChartParser(grammar());
+		parser.setBestFirst(ChartParser.LONGEST_FIRST);
+		ChartParser.ForestNode root = parser.parseForest(doc, 0, doc.length());
+		assertNotNull(root);
+		assertEquals(doc.length(), root.getEnd());
+	}
+
+	@Test
+	public void testNoParse() throws Exception {
+		Document doc = document(new String[] {"saw", "I"}, new String[] {"v", "pro"});
+		assertNull(new ChartParser(grammar()).parseForest(doc, 0, doc.length()));
+	}
+}
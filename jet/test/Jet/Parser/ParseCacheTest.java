@@ -0,0 +1,61 @@
+package Jet.Parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+
+import junit.framework.JUnit4TestAdapter;
+
+import org.junit.Test;
+
+public class ParseCacheTest {
+	public static junit.framework.Test suite() {
+		return new JUnit4TestAdapter(ParseCacheTest.class);
+	}
+
+	@Test
+	public void testHitsAndMisses() {
+		ParseCache cache = new ParseCache("test", 1 << 20, null, null);
+		assertNull(cache.get("Cats/NNS chase/VBP mice/NNS"));
+		cache.put("Cats/NNS chase/VBP mice/NNS", "(S (NP (NNS Cats)) (VP (VBP chase) (NP (NNS mice))))");
+		assertEquals("(S (NP (NNS Cats)) (VP (VBP chase) (NP (NNS mice))))",
+				cache.get("Cats/NNS chase/VBP mice/NNS"));
+		assertEquals(1L, cache.getHits());
+		assertEquals(1L, cache.getMisses());
+		assertEquals(0.5, cache.hitRate(), 1e-9);
+	}
+
+	@Test
+	public void testLeastRecentlyUsedEvicted() {
+		// room for two entries of this size, but not three
+		ParseCache cache = new ParseCache("test", 2 * (2 * 8 + 96) + 10, null, null);
+		cache.put("key1", "val1");
+		cache.put("key2", "val2");
+		cache.get("key1");
+		cache.put("key3", "val3");
+		assertEquals(2, cache.size());
+		assertNull(cache.get("key2"));
+		assertEquals("val1", cache.get("key1"));
+		assertEquals("val3", cache.get("key3"));
+	}
+
+	@Test
+	public void testSaveAndLoad() throws Exception {
+		File file = File.createTempFile("parse", ".cache");
+		try {
+			ParseCache cache = new ParseCache("test", 1 << 20, null, "model 1");
+			cache.put("a/DT\tb", "1\ta\\b\n2");
+			cache.put("c/NN", "(NP (NN c))");
+			cache.save(file);
+			ParseCache loaded = new ParseCache("test", 1 << 20, file, "model 1");
+			assertEquals(2, loaded.size());
+			assertEquals("1\ta\\b\n2", loaded.get("a/DT\tb"));
+			assertEquals("(NP (NN c))", loaded.get("c/NN"));
+			// parses made with another model are not loaded
+			assertEquals(0, new ParseCache("test", 1 << 20, file, "model 2").size());
+		} finally {
+			file.delete();
+		}
+	}
+}
@@ -0,0 +1,67 @@
+package Jet.Parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import junit.framework.JUnit4TestAdapter;
+
+import org.junit.Test;
+
+public class SyntacticRelationSetTest {
+	public static junit.framework.Test suite() {
+		return new JUnit4TestAdapter(SyntacticRelationSetTest.class);
+	}
+
+	private SyntacticRelationSet relations() {
+		// "Cats chase mice in gardens"
+		SyntacticRelationSet s = new SyntacticRelationSet();
+		s.add(new SyntacticRelation(5, "chase", "subject", 0, "cats"));
+		s.add(new SyntacticRelation(5, "chase", "object", 11, "mice"));
+		s.add(new SyntacticRelation(5, "chase", "in", 19, "gardens"));
+		s.add(new SyntacticRelation(5, "chase", "object", 11, "mice"));
+		s.addInverses();
+		return s;
+	}
+
+	@Test
+	public void testLookups() {
+		SyntacticRelationSet s = relations();
+		assertEquals(6, s.size());
+		assertEquals("object", s.getRelation(5, 11).type);
+		assertEquals("in", s.getRelation(5, "IN").type);
+		assertEquals("subject-1", s.getRelation(0, "subject-1").type);
+		assertNull(s.getRelation(11, 0));
+		assertNull(s.getRelation(7, "object"));
+		assertSame(s.get(0), s.getRelationTo(0));
+		assertEquals("subject-1", s.getRelationTo(5).type);
+		assertNull(s.getRelationTo(7));
+	}
+
+	@Test
+	public void testRelationsFrom() {
+		SyntacticRelationSet s = relations();
+		SyntacticRelationSet from = s.getRelationsFrom(5);
+		assertEquals(3, from.size());
+		assertSame(s.get(1), from.get(1));
+		assertEquals("in", from.getRelation(5, 19).type);
+		assertEquals(3, from.getRelationsFrom(5).size());
+		assertEquals(0, s.getRelationsFrom(7).size());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testRelationsFromIsReadOnly() {
+		relations().getRelationsFrom(5).add(new SyntacticRelation(5, "chase", "by", 30, "dogs"));
+	}
+
+	@Test
+	public void testReindex() {
+		SyntacticRelationSet s = relations();
+		SyntacticRelation r = s.getRelation(5, 19);
+		r.targetPosn = 22;
+		s.reindex();
+		assertSame(r, s.getRelation(5, 22));
+		assertSame(r, s.getRelationTo(22));
+		assertNull(s.getRelationTo(19));
+	}
+}
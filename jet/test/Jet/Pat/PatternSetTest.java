@@ -0,0 +1,226 @@
+package Jet.Pat;
+
+import java.io.StringReader;
+import java.util.*;
+
+import junit.framework.TestCase;
+import Jet.Lex.Tokenizer;
+import Jet.Lisp.FeatureSet;
+import Jet.Tipster.*;
+
+public class PatternSetTest extends TestCase {
+
+	private static final String PATTERNS =
+		"pattern set chunks;\n" +
+		"ng := det? [constit cat=adj]* [constit cat=n];\n" +
+		"det := [constit cat=det] | \"every\";\n" +
+		"when ng add [ngroup];\n" +
+		"vg := \"is\" [constit cat=ving] | [constit cat=tv];\n" +
+		"when vg add [vgroup];\n";
+
+	private PatternCollection patterns() throws Exception {
+		PatternCollection pc = new PatternCollection();
+		pc.readPatternCollection(new StringReader(PATTERNS));
+		pc.makePatternGraph();
+		return pc;
+	}
+
+	private Document document() {
+		Document doc = new Document("The big dog is barking and every cat sleeps .");
+		Tokenizer.tokenize(doc, doc.fullSpan());
+		String[] cats = {"det", "adj", "n", "be", "ving", "cconj", "q", "n", "tv", "punc"};
+		Vector<Annotation> tokens = doc.annotationsOfType("token");
+		for (int i = 0; i < tokens.size(); i++)
+			doc.annotate("constit", tokens.get(i).span(), new FeatureSet("cat", cats[i]));
+		return doc;
+	}
+
+	private List<String> spans(Document doc, String type) {
+		List<String> result = new ArrayList<String>();
+		Vector<Annotation> anns = doc.annotationsOfType(type);
+		if (anns != null)
+			for (Annotation ann : anns)
+				result.add(doc.text(ann).trim());
+		return result;
+	}
+
+	public void testDispatchFindsAllMatches() throws Exception {
+		PatternCollection pc = patterns();
+		Document doc = document();
+		pc.apply("chunks", doc);
+		assertEquals(Arrays.asList("The big dog", "every cat"), spans(doc, "ngroup"));
+		assertEquals(Arrays.asList("is barking", "sleeps"), spans(doc, "vgroup"));
+	}
+
+	public void testRootDispatch() throws Exception {
+		PatternSet set = patterns().getPatternSet("chunks");
+		Document doc = document();
+		// "and" has neither a constit which can start a rule nor a literal
+		int and = doc.text().indexOf("and");
+		int every = doc.text().indexOf("every");
+		int is = doc.text().indexOf("is");
+		doc.removeAnnotation((Annotation) doc.annotationsAt(and, "constit").get(0));
+		doc.removeAnnotation((Annotation) doc.annotationsAt(every, "constit").get(0));
+		doc.removeAnnotation((Annotation) doc.annotationsAt(is, "constit").get(0));
+		assertFalse(set.rootNode.mayMatch(doc, and));
+		assertTrue(set.rootNode.mayMatch(doc, every));
+		assertTrue(set.rootNode.mayMatch(doc, is));
+		assertTrue(set.rootNode.mayMatch(doc, 0));
+	}
+
+	public void testBindingsAreShared() {
+		Bindings a = Bindings.EMPTY.bind("x", "1");
+		Bindings b = a.bind("y", null);
+		Bindings c = a.bind("x", "2");
+		assertEquals("1", a.get("x"));
+		assertFalse(a.containsKey("y"));
+		assertTrue(b.containsKey("y"));
+		assertNull(b.get("y"));
+		assertEquals("1", b.get("x"));
+		assertEquals("2", c.get("x"));
+		Map map = c.toMap();
+		assertEquals(1, map.size());
+		assertEquals("2", map.get("x"));
+		assertEquals(map, Bindings.of(map).toMap());
+	}
+
+	public void testProfile() throws Exception {
+		PatternCollection pc = patterns();
+		RuleProfile.enabled = true;
+		try {
+			pc.apply("chunks", document());
+		} finally {
+			RuleProfile.enabled = false;
+		}
+		List profiles = pc.getProfile();
+		Set<String> names = new HashSet<String>();
+		for (Object o : profiles) {
+			RuleProfile p = (RuleProfile) o;
+			names.add(p.getName());
+			assertEquals(2, p.getApplications());
+			assertEquals(2, p.getActions());
+			assertTrue(p.getMatches() >= 2);
+			assertTrue(p.getArcsEvaluated() >= p.getAttempts());
+		}
+		assertEquals(new HashSet<String>(Arrays.asList("chunks:ng", "chunks:vg")), names);
+		pc.apply("chunks", document());
+		assertEquals(2, ((RuleProfile) profiles.get(0)).getApplications());
+		pc.clearProfile();
+		assertEquals(0, ((RuleProfile) profiles.get(0)).getAttempts());
+	}
+
+	public void testIncrementalApplication() throws Exception {
+		PatternCollection full = patterns();
+		PatternCollection incremental = patterns();
+		incremental.setIncremental(true);
+		Document doc1 = document();
+		Document doc2 = document();
+		// without a constit on "cat", no noun group begins at "every"
+		int cat = doc1.text().indexOf("cat");
+		Annotation catConstit = (Annotation) doc1.annotationsAt(cat, "constit").get(0);
+		doc1.removeAnnotation(catConstit);
+		doc2.removeAnnotation((Annotation) doc2.annotationsAt(cat, "constit").get(0));
+		full.apply("chunks", doc1);
+		incremental.apply("chunks", doc2);
+		assertEquals(Arrays.asList("The big dog"), spans(doc2, "ngroup"));
+		assertEquals(spans(doc1, "vgroup"), spans(doc2, "vgroup"));
+		// a change within the text examined at "every" is seen
+		doc1.annotate("constit", catConstit.span(), new FeatureSet("cat", "n"));
+		doc2.annotate("constit", catConstit.span(), new FeatureSet("cat", "n"));
+		full.apply("chunks", doc1);
+		incremental.apply("chunks", doc2);
+		assertEquals(Arrays.asList("The big dog", "The big dog", "every cat"), spans(doc2, "ngroup"));
+		assertEquals(spans(doc1, "ngroup"), spans(doc2, "ngroup"));
+		assertEquals(spans(doc1, "vgroup"), spans(doc2, "vgroup"));
+		// with no change, positions with no match are not matched again
+		RuleProfile.enabled = true;
+		try {
+			full.apply("chunks", doc1);
+			incremental.apply("chunks", doc2);
+		} finally {
+			RuleProfile.enabled = false;
+		}
+		assertEquals(spans(doc1, "ngroup"), spans(doc2, "ngroup"));
+		assertTrue(attempts(incremental) < attempts(full));
+	}
+
+	private long attempts(PatternCollection pc) {
+		long attempts = 0;
+		for (Object o : pc.getProfile())
+			attempts += ((RuleProfile) o).getAttempts();
+		return attempts;
+	}
+
+	// a pattern with exponentially many ways of covering a sequence of nouns
+	private static final String LIST_PATTERNS =
+		"pattern set lists;\n" +
+		"n := [constit cat=n]:N;\n" +
+		"nlist := (n | n n)+ \"!\";\n" +
+		"when nlist add [list last=N];\n";
+
+	private PatternSet listPatterns() throws Exception {
+		PatternCollection pc = new PatternCollection();
+		pc.readPatternCollection(new StringReader(LIST_PATTERNS));
+		pc.makePatternGraph();
+		return pc.getPatternSet("lists");
+	}
+
+	private Document nouns(int n, String end) {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < n; i++)
+			text.append("cats ");
+		text.append(end);
+		Document doc = new Document(text.toString());
+		Tokenizer.tokenize(doc, doc.fullSpan());
+		Vector<Annotation> tokens = doc.annotationsOfType("token");
+		for (int i = 0; i < n; i++)
+			doc.annotate("constit", tokens.get(i).span(), new FeatureSet("cat", "n"));
+		return doc;
+	}
+
+	public void testMemoizedMatching() throws Exception {
+		PatternSet set = listPatterns();
+		for (String end : new String[] {"!", "."}) {
+			Document doc1 = nouns(12, end);
+			Document doc2 = nouns(12, end);
+			set.apply(doc1);
+			PatternSet.memoize = true;
+			try {
+				set.apply(doc2);
+			} finally {
+				PatternSet.memoize = false;
+			}
+			assertEquals(end.equals("!") ? 1 : 0, spans(doc2, "list").size());
+			assertEquals(spans(doc1, "list"), spans(doc2, "list"));
+			Vector<Annotation> lists1 = doc1.annotationsOfType("list");
+			Vector<Annotation> lists2 = doc2.annotationsOfType("list");
+			for (int i = 0; lists1 != null && i < lists1.size(); i++)
+				assertEquals(((Annotation) lists1.get(i).get("last")).span(),
+				             ((Annotation) lists2.get(i).get("last")).span());
+		}
+	}
+
+	public void testStepLimit() throws Exception {
+		PatternSet set = listPatterns();
+		Document doc = nouns(40, ".");
+		PatternSet.maxSteps = 10000;
+		try {
+			// without the limit, matching would take about 2^40 steps
+			set.apply(doc);
+		} finally {
+			PatternSet.maxSteps = 0;
+		}
+		assertNull(doc.annotationsOfType("list"));
+		// with memoization, the limit is not reached
+		doc = nouns(40, "!");
+		PatternSet.maxSteps = 10000;
+		PatternSet.memoize = true;
+		try {
+			set.apply(doc);
+		} finally {
+			PatternSet.maxSteps = 0;
+			PatternSet.memoize = false;
+		}
+		assertEquals(Arrays.asList(doc.text().trim()), spans(doc, "list"));
+	}
+}
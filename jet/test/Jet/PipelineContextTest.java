@@ -0,0 +1,49 @@
+package Jet;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+import Jet.Tipster.Document;
+
+public class PipelineContextTest extends TestCase {
+
+	private static final PipelineContext.Slot<List<String>> names =
+		new PipelineContext.Slot<List<String>>() {
+			protected List<String> initialValue() {
+				return new ArrayList<String>();
+			}
+		};
+
+	public void testStartDocumentClearsSlots() {
+		PipelineContext context = new PipelineContext();
+		PipelineContext.setCurrent(context);
+		Document doc1 = new Document("first document");
+		context.startDocument(doc1);
+		context.monocase = true;
+		names.get().add("Smith");
+		// restarting the same document keeps its state
+		context.startDocument(doc1);
+		assertEquals(1, names.get().size());
+		context.startDocument(new Document("second document"));
+		assertTrue(names.get().isEmpty());
+		assertTrue(context.monocase);
+	}
+
+	public void testContextsArePerThread() throws InterruptedException {
+		PipelineContext.setCurrent(new PipelineContext());
+		names.get().add("Smith");
+		final List<Integer> seen = new ArrayList<Integer>();
+		Thread t = new Thread() {
+			public void run() {
+				seen.add(names.get().size());
+				PipelineContext.current().monocase = true;
+			}
+		};
+		t.start();
+		t.join();
+		assertEquals(Integer.valueOf(0), seen.get(0));
+		assertEquals(1, names.get().size());
+		assertFalse(PipelineContext.current().monocase);
+	}
+}
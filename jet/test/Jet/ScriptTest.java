@@ -0,0 +1,33 @@
+package Jet;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+import Jet.Tipster.Document;
+
+public class ScriptTest extends TestCase {
+
+	public void testCompile() {
+		Script script = Script.compile("tokenize, lexLookup,pat(np) , TEXT:processTextZone");
+		List<String> names = new ArrayList<String>();
+		for (Script.Stage stage : script.getStages())
+			names.add(stage.getName());
+		assertEquals("[tokenize, lexLookup, pat(np), TEXT:processTextZone]", names.toString());
+		assertSame(script, Script.compile("tokenize, lexLookup,pat(np) , TEXT:processTextZone"));
+	}
+
+	public void testUnknownActionSkipped() {
+		Script script = Script.compile("tokenize, noSuchAction");
+		assertEquals(1, script.getStages().size());
+	}
+
+	public void testApply() {
+		Document doc = new Document("The cat sat on the mat.");
+		Script.compile("tokenize").apply(doc, doc.fullSpan());
+		assertEquals(7, doc.annotationsOfType("token").size());
+		Script.compile("erase(token)").apply(doc, doc.fullSpan());
+		List tokens = doc.annotationsOfType("token");
+		assertTrue(tokens == null || tokens.isEmpty());
+	}
+}
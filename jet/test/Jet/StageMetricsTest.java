@@ -0,0 +1,52 @@
+package Jet;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import junit.framework.TestCase;
+import Jet.Tipster.Document;
+
+public class StageMetricsTest extends TestCase {
+
+	protected void tearDown() {
+		StageMetrics.enabled = false;
+		StageMetrics.clear();
+	}
+
+	public void testCountsPerStageAndDocument() {
+		StageMetrics.enabled = true;
+		StageMetrics.clear();
+		Script script = Script.compile("tokenize");
+		for (int docNo = 1; docNo <= 2; docNo++) {
+			Document doc = new Document("The cat sat on the mat.");
+			PipelineContext.current().startDocument(doc);
+			script.apply(doc, doc.fullSpan());
+			StageMetrics.endDocument(docNo, "doc" + docNo);
+		}
+		StringWriter sw = new StringWriter();
+		StageMetrics.writeCSV(new PrintWriter(sw));
+		String[] lines = sw.toString().split("\\r?\\n");
+		assertEquals("docNo,document,stage,calls,wallNanos,cpuNanos,allocatedBytes,annotations", lines[0]);
+		assertEquals(4, lines.length);
+		assertTrue(lines[1].startsWith("0,*,tokenize,2,"));
+		assertTrue(lines[1].endsWith(",14"));
+		assertTrue(lines[2].startsWith("1,doc1,tokenize,1,"));
+		assertTrue(lines[3].startsWith("2,doc2,tokenize,1,"));
+		assertTrue(lines[3].endsWith(",7"));
+	}
+
+	public void testJSON() {
+		StageMetrics.enabled = true;
+		StageMetrics.clear();
+		Document doc = new Document("A dog.");
+		PipelineContext.current().startDocument(doc);
+		Script.compile("tokenize").apply(doc, doc.fullSpan());
+		StageMetrics.endDocument(1, "a \"quoted\" name");
+		StringWriter sw = new StringWriter();
+		StageMetrics.writeJSON(new PrintWriter(sw));
+		String json = sw.toString();
+		assertTrue(json.contains("\"documentCount\": 1"));
+		assertTrue(json.contains("\"document\": \"a \\\"quoted\\\" name\""));
+		assertTrue(json.contains("{\"stage\": \"tokenize\", \"calls\": 1,"));
+	}
+}
@@ -2,6 +2,8 @@ package Jet.Tipster;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -62,6 +64,82 @@ public class DocumentTest {
 		assertEquals(2, anns.size());
 	}
 
+	@Test
+	public void testRangeQueries() {
+		Document doc = new Document("The quick brown fox jumps.");
+		// added out of order, to check that results follow order of addition
+		Annotation fox = doc.annotate("token", new Span(16, 20), null);
+		Annotation the = doc.annotate("token", new Span(0, 4), null);
+		Annotation quick = doc.annotate("token", new Span(4, 10), null);
+		Annotation brown = doc.annotate("token", new Span(10, 16), null);
+		doc.annotate("constit", new Span(0, 20), null);
+
+		assertEquals(Arrays.asList(fox, quick, brown),
+				doc.annotationsWithin("token", new Span(4, 20)));
+		assertEquals(Arrays.asList(fox, quick, brown),
+				doc.annotationsOfType("token", new Span(4, 20)));
+		assertEquals(Arrays.asList(the, quick),
+				doc.annotationsOverlapping("token", new Span(2, 6)));
+		assertEquals(1, doc.annotationsOverlapping("constit", new Span(18, 24)).size());
+		assertNull(doc.annotationsWithin("token", new Span(5, 9)));
+		assertNull(doc.annotationsOverlapping("token", new Span(20, 26)));
+		assertNull(doc.annotationsWithin("sentence", new Span(0, 26)));
+
+		doc.removeAnnotation(quick);
+		assertEquals(Arrays.asList(the),
+				doc.annotationsOverlapping("token", new Span(2, 6)));
+	}
+
+	@Test
+	public void testStretchDoesNotCountAnnotations() {
+		Document doc = new Document("This is a pen.");
+		doc.annotate("token", new Span(0, 4), null);
+		doc.annotate("token", new Span(5, 7), null);
+		assertEquals(2, doc.annotationsAdded());
+		doc.stretchAll();
+		assertEquals(5, doc.tokenAt(0).end());
+		doc.shrinkAll();
+		assertEquals(4, doc.tokenAt(0).end());
+		assertEquals(2, doc.annotationsAdded());
+	}
+
+	@Test
+	public void testCompactAnnotations() throws Exception {
+		Document.compactAnnotations = true;
+		try {
+			Document doc = new Document("This is a pen.");
+			assertNotNull(doc.annotationStore());
+			testAnnotations();
+			testRangeQueries();
+			testWriteSGML();
+			testAnnotationsWithTokens1();
+
+			doc.addAnnotation("token", 10, 13, null);
+			Annotation pen = doc.tokenAt(10);
+			assertNotNull(pen);
+			assertSame(pen, doc.annotationsEndingAt(13).get(0));
+			assertSame(doc, pen.span().document());
+			doc.removeAnnotation(pen);
+			assertNull(doc.annotationsAt(10));
+			assertEquals(0, doc.annotationsOfType("token").size());
+
+			// stretching moves annotations in place
+			doc.addAnnotation("token", 0, 4, null);
+			doc.addAnnotation("token", 5, 7, null);
+			int size = doc.annotationStore().size();
+			doc.stretchAll();
+			assertEquals(size, doc.annotationStore().size());
+			assertEquals(5, doc.tokenAt(0).end());
+			assertSame(doc.tokenAt(0), doc.annotationsEndingAt(5).get(0));
+			assertNull(doc.annotationsEndingAt(4));
+			doc.shrinkAll();
+			assertEquals(size, doc.annotationStore().size());
+			assertEquals(4, doc.tokenAt(0).end());
+		} finally {
+			Document.compactAnnotations = false;
+		}
+	}
+
 	@Test
 	public void testWriteSGML() {
 		SGMLProcessor.allTags = true;